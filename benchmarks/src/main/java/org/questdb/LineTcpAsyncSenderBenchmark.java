@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.questdb;
+
+import io.questdb.cutlass.line.AbstractLineSender;
+import io.questdb.cutlass.line.LineTcpAsyncSender;
+import io.questdb.network.Net;
+import io.questdb.std.Rnd;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requires QuestDB listening for line protocol on localhost:9009, see also {@link LineTCPSenderMain}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LineTcpAsyncSenderBenchmark {
+
+    private LineTcpAsyncSender sender;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LineTcpAsyncSenderBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .threads(4)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sender = new LineTcpAsyncSender(Net.parseIPv4("127.0.0.1"), 9009, 4, 64 * 1024, 64, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sender.close();
+    }
+
+    @Benchmark
+    public void testSendRow(ThreadState state) {
+        AbstractLineSender threadSender = sender.getSender();
+        threadSender.metric("weather")
+                .tag("location", "london")
+                .tag("by", "blah")
+                .field("temp", state.rnd.nextPositiveLong())
+                .field("ok", state.rnd.nextPositiveInt());
+        threadSender.$();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final Rnd rnd = new Rnd();
+    }
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.questdb;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.ParallelTextImporter;
+import io.questdb.cutlass.text.TextException;
+import io.questdb.cutlass.text.TextImportJob;
+import io.questdb.cutlass.text.TextLoader;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.std.Files;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serial COPY import with the parallel one on a file with timestamps that are
+ * mostly ordered, which is the common case for exported data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TextImportBenchmark {
+    private static final String FILE_NAME = "text-import-benchmark.csv";
+    private static final int ROW_COUNT = 10_000_000;
+    private static final CairoConfiguration configuration = new DefaultCairoConfiguration(".");
+    private final Path path = new Path();
+    @Param({"2", "4", "8"})
+    public int workerCount;
+    private CairoEngine engine;
+    private WorkerPool pool;
+    private ParallelTextImporter importer;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_NAME))) {
+            final Rnd rnd = new Rnd();
+            writer.write("ts,sym,price,qty,note\n");
+            long ts = 1_600_000_000_000_000L;
+            for (int i = 0; i < ROW_COUNT; i++) {
+                // some rows arrive late
+                ts += 100_000;
+                final long rowTs = rnd.nextInt(100) == 0 ? ts - rnd.nextInt(1000) * 1_000_000L : ts;
+                writer.write(String.valueOf(rowTs));
+                writer.write(',');
+                writer.write(rnd.nextString(3));
+                writer.write(',');
+                writer.write(String.valueOf(rnd.nextDouble()));
+                writer.write(',');
+                writer.write(String.valueOf(rnd.nextInt(10_000)));
+                writer.write(",\"");
+                writer.write(rnd.nextString(rnd.nextInt(30)));
+                writer.write("\"\n");
+            }
+        }
+
+        Options opt = new OptionsBuilder()
+                .include(TextImportBenchmark.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+
+        LogFactory.INSTANCE.haltThread();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new CairoEngine(configuration);
+        pool = new WorkerPool(new WorkerPoolConfiguration() {
+            @Override
+            public int[] getWorkerAffinity() {
+                final int[] affinity = new int[workerCount];
+                java.util.Arrays.fill(affinity, -1);
+                return affinity;
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return workerCount;
+            }
+
+            @Override
+            public boolean haltOnError() {
+                return false;
+            }
+        });
+        pool.assign(new TextImportJob(engine.getMessageBus()));
+        pool.assignCleaner(Path.CLEANER);
+        pool.start(null);
+        importer = new ParallelTextImporter(engine);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        importer.close();
+        pool.halt();
+        engine.close();
+        path.close();
+    }
+
+    @Benchmark
+    public long testParallel() throws TextException {
+        importer.clear();
+        importer.configureDestination("parallel", true, false, Atomicity.SKIP_ROW, PartitionBy.DAY, "ts");
+        importer.load(path.of(FILE_NAME).$(), workerCount + 1, AllowAllCairoSecurityContext.INSTANCE);
+        return importer.getWrittenLineCount();
+    }
+
+    @Benchmark
+    public long testSerial() throws TextException {
+        final long fd = Files.openRO(path.of(FILE_NAME).$());
+        final long len = Files.length(fd);
+        final long address = Files.mmap(fd, len, 0, Files.MAP_RO, MemoryTag.MMAP_DEFAULT);
+        try (TextLoader loader = new TextLoader(engine)) {
+            loader.setState(TextLoader.ANALYZE_STRUCTURE);
+            loader.configureDestination("serial", true, false, Atomicity.SKIP_ROW, PartitionBy.DAY, "ts");
+            loader.parse(address, address + len, AllowAllCairoSecurityContext.INSTANCE);
+            loader.wrapUp();
+            return loader.getWrittenLineCount();
+        } finally {
+            Files.munmap(address, len, MemoryTag.MMAP_DEFAULT);
+            Files.close(fd);
+        }
+    }
+}
@@ -256,6 +256,20 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync(JNIEnv *e, jclass cl, jlo
     return msync((void *) addr, len, async ? MS_ASYNC : MS_SYNC);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    int posixAdvice;
+    if (advice == com_questdb_std_Files_MADV_WILLNEED) {
+        posixAdvice = POSIX_MADV_WILLNEED;
+    } else {
+        return 0;
+    }
+    // advice has to start at page boundary, round address down and extend length to compensate
+    const jlong pageSize = sysconf(_SC_PAGESIZE);
+    const jlong lo = address & ~(pageSize - 1);
+    return posix_madvise((void *) lo, (size_t) (len + address - lo), posixAdvice);
+}
+
 JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync(JNIEnv *e, jclass cl, jlong fd) {
     return fsync((int) fd);
 }
@@ -29,6 +29,8 @@ extern "C" {
 #define com_questdb_std_Files_MAP_RO 1L
 #undef com_questdb_std_Files_MAP_RW
 #define com_questdb_std_Files_MAP_RW 2L
+#undef com_questdb_std_Files_MADV_WILLNEED
+#define com_questdb_std_Files_MADV_WILLNEED 1L
 /*
  * Class:     com_questdb_std_Files
  * Method:    append
@@ -192,6 +194,14 @@ JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_mremap0
 JNIEXPORT jlong JNICALL JavaCritical_io_questdb_std_Files_mremap0
         (jlong, jlong, jlong, jlong, jlong, jint);
 
+/*
+ * Class:     com_questdb_std_Files
+ * Method:    madvise0
+ * Signature: (JJI)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *, jclass, jlong, jlong, jint);
+
 /*
  * Class:     com_questdb_std_Files
  * Method:    getPageSize
@@ -89,6 +89,18 @@ public interface MessageBus extends Closeable {
 
     MCSequence getO3PurgeSubSeq();
 
+    Sequence getPageFrameFilterPubSeq();
+
+    RingQueue<PageFrameFilterTask> getPageFrameFilterQueue();
+
+    Sequence getPageFrameFilterSubSeq();
+
+    Sequence getPageFrameReducePubSeq();
+
+    RingQueue<PageFrameReduceTask> getPageFrameReduceQueue();
+
+    Sequence getPageFrameReduceSubSeq();
+
     MPSequence getTableWriterCommandPubSeq();
 
     RingQueue<TableWriterTask> getTableWriterCommandQueue();
@@ -101,9 +113,21 @@ public interface MessageBus extends Closeable {
 
     FanOut getTableWriterEventFanOut();
 
+    Sequence getTextImportPubSeq();
+
+    RingQueue<TextImportTask> getTextImportQueue();
+
+    Sequence getTextImportSubSeq();
+
     Sequence getVectorAggregatePubSeq();
 
     RingQueue<VectorAggregateTask> getVectorAggregateQueue();
 
     Sequence getVectorAggregateSubSeq();
+
+    MPSequence getWalApplyPubSeq();
+
+    RingQueue<WalApplyTask> getWalApplyQueue();
+
+    MCSequence getWalApplySubSeq();
 }
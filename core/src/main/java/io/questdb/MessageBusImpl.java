@@ -68,6 +68,18 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence latestByPubSeq;
     private final MCSequence latestBySubSeq;
 
+    private final RingQueue<TextImportTask> textImportQueue;
+    private final MPSequence textImportPubSeq;
+    private final MCSequence textImportSubSeq;
+
+    private final RingQueue<PageFrameFilterTask> pageFrameFilterQueue;
+    private final MPSequence pageFrameFilterPubSeq;
+    private final MCSequence pageFrameFilterSubSeq;
+
+    private final RingQueue<PageFrameReduceTask> pageFrameReduceQueue;
+    private final MPSequence pageFrameReducePubSeq;
+    private final MCSequence pageFrameReduceSubSeq;
+
     private final RingQueue<TableWriterTask> tableWriterCommandQueue;
     private final MPSequence tableWriterCommandPubSeq;
     private final FanOut tableWriterCommandSubSeq;
@@ -75,6 +87,10 @@ public class MessageBusImpl implements MessageBus {
     private final RingQueue<TableWriterTask> tableWriterEventQueue;
     private final MPSequence tableWriterEventPubSeq;
     private final FanOut tableWriterEventSubSeq;
+
+    private final RingQueue<WalApplyTask> walApplyQueue;
+    private final MPSequence walApplyPubSeq;
+    private final MCSequence walApplySubSeq;
     private final CairoConfiguration configuration;
 
     public MessageBusImpl(@NotNull CairoConfiguration configuration) {
@@ -124,6 +140,26 @@ public class MessageBusImpl implements MessageBus {
         this.latestBySubSeq = new MCSequence(latestByQueue.getCycle());
         latestByPubSeq.then(latestBySubSeq).then(latestByPubSeq);
 
+        this.textImportQueue = new RingQueue<>(TextImportTask::new, configuration.getSqlCopyQueueCapacity());
+        this.textImportPubSeq = new MPSequence(textImportQueue.getCycle());
+        this.textImportSubSeq = new MCSequence(textImportQueue.getCycle());
+        textImportPubSeq.then(textImportSubSeq).then(textImportPubSeq);
+
+        this.pageFrameFilterQueue = new RingQueue<>(PageFrameFilterTask::new, configuration.getPageFrameFilterQueueCapacity());
+        this.pageFrameFilterPubSeq = new MPSequence(pageFrameFilterQueue.getCycle());
+        this.pageFrameFilterSubSeq = new MCSequence(pageFrameFilterQueue.getCycle());
+        pageFrameFilterPubSeq.then(pageFrameFilterSubSeq).then(pageFrameFilterPubSeq);
+
+        this.pageFrameReduceQueue = new RingQueue<>(PageFrameReduceTask::new, configuration.getPageFrameReduceQueueCapacity());
+        this.pageFrameReducePubSeq = new MPSequence(pageFrameReduceQueue.getCycle());
+        this.pageFrameReduceSubSeq = new MCSequence(pageFrameReduceQueue.getCycle());
+        pageFrameReducePubSeq.then(pageFrameReduceSubSeq).then(pageFrameReducePubSeq);
+
+        this.walApplyQueue = new RingQueue<>(WalApplyTask::new, configuration.getWalApplyQueueCapacity());
+        this.walApplyPubSeq = new MPSequence(walApplyQueue.getCycle());
+        this.walApplySubSeq = new MCSequence(walApplyQueue.getCycle());
+        walApplyPubSeq.then(walApplySubSeq).then(walApplyPubSeq);
+
         // todo: move to configuration
         this.tableWriterCommandQueue = new RingQueue<>(
                 TableWriterTask::new,
@@ -272,6 +308,36 @@ public class MessageBusImpl implements MessageBus {
         return o3PurgeSubSeq;
     }
 
+    @Override
+    public Sequence getPageFrameFilterPubSeq() {
+        return pageFrameFilterPubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+        return pageFrameFilterQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameFilterSubSeq() {
+        return pageFrameFilterSubSeq;
+    }
+
+    @Override
+    public Sequence getPageFrameReducePubSeq() {
+        return pageFrameReducePubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameReduceTask> getPageFrameReduceQueue() {
+        return pageFrameReduceQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameReduceSubSeq() {
+        return pageFrameReduceSubSeq;
+    }
+
     @Override
     public MPSequence getTableWriterCommandPubSeq() {
         return tableWriterCommandPubSeq;
@@ -302,6 +368,21 @@ public class MessageBusImpl implements MessageBus {
         return tableWriterEventSubSeq;
     }
 
+    @Override
+    public Sequence getTextImportPubSeq() {
+        return textImportPubSeq;
+    }
+
+    @Override
+    public RingQueue<TextImportTask> getTextImportQueue() {
+        return textImportQueue;
+    }
+
+    @Override
+    public Sequence getTextImportSubSeq() {
+        return textImportSubSeq;
+    }
+
     @Override
     public Sequence getVectorAggregatePubSeq() {
         return vectorAggregatePubSeq;
@@ -316,4 +397,19 @@ public class MessageBusImpl implements MessageBus {
     public Sequence getVectorAggregateSubSeq() {
         return vectorAggregateSubSeq;
     }
+
+    @Override
+    public MPSequence getWalApplyPubSeq() {
+        return walApplyPubSeq;
+    }
+
+    @Override
+    public RingQueue<WalApplyTask> getWalApplyQueue() {
+        return walApplyQueue;
+    }
+
+    @Override
+    public MCSequence getWalApplySubSeq() {
+        return walApplySubSeq;
+    }
 }
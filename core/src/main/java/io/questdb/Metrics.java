@@ -25,6 +25,9 @@
 package io.questdb;
 
 import io.questdb.cutlass.http.processors.JsonQueryMetrics;
+import io.questdb.cutlass.line.tcp.LineTcpMetrics;
+import io.questdb.griffin.QueryPlanCacheMetrics;
+import io.questdb.griffin.QueryResultCacheMetrics;
 import io.questdb.metrics.MetricsRegistry;
 import io.questdb.metrics.MetricsRegistryImpl;
 import io.questdb.metrics.NullMetricsRegistry;
@@ -36,11 +39,17 @@ import io.questdb.std.str.CharSink;
 public class Metrics implements Scrapable {
     private final boolean enabled;
     private final JsonQueryMetrics jsonQuery;
+    private final LineTcpMetrics lineTcp;
+    private final QueryPlanCacheMetrics queryPlanCache;
+    private final QueryResultCacheMetrics queryResultCache;
     private final MetricsRegistry metricsRegistry;
 
     Metrics(boolean enabled, MetricsRegistry metricsRegistry) {
         this.enabled = enabled;
         this.jsonQuery = new JsonQueryMetrics(metricsRegistry);
+        this.lineTcp = new LineTcpMetrics(metricsRegistry);
+        this.queryPlanCache = new QueryPlanCacheMetrics(metricsRegistry);
+        this.queryResultCache = new QueryResultCacheMetrics(metricsRegistry);
         createMemoryGauges(metricsRegistry);
         this.metricsRegistry = metricsRegistry;
     }
@@ -71,6 +80,18 @@ public class Metrics implements Scrapable {
         return jsonQuery;
     }
 
+    public LineTcpMetrics lineTcp() {
+        return lineTcp;
+    }
+
+    public QueryPlanCacheMetrics queryPlanCache() {
+        return queryPlanCache;
+    }
+
+    public QueryResultCacheMetrics queryResultCache() {
+        return queryResultCache;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
         metricsRegistry.scrapeIntoPrometheus(sink);
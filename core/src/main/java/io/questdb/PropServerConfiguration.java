@@ -28,6 +28,7 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
@@ -70,6 +71,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final CairoConfiguration cairoConfiguration = new PropCairoConfiguration();
     private final LineUdpReceiverConfiguration lineUdpReceiverConfiguration = new PropLineUdpReceiverConfiguration();
     private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new PropJsonQueryProcessorConfiguration();
+    private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new PropLineHttpProcessorConfiguration();
     private final TelemetryConfiguration telemetryConfiguration = new PropTelemetryConfiguration();
     private final int commitMode;
     private final boolean httpServerEnabled;
@@ -86,6 +88,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int mkdirMode;
     private final int parallelIndexThreshold;
     private final int readerPoolMaxSegments;
+    private final boolean readerSharedMappingsEnabled;
     private final long spinLockTimeoutUs;
     private final boolean httpSqlCacheEnabled;
     private final int httpSqlCacheBlockCount;
@@ -113,10 +116,21 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long sqlLatestByRowCount;
     private final int sqlHashJoinLightValuePageSize;
     private final int sqlHashJoinLightValueMaxPages;
+    private final long sqlHashJoinMemoryBudget;
+    private final int sqlHashJoinSpillPartitions;
     private final int sqlSortValuePageSize;
     private final int sqlSortValueMaxPages;
+    private final long sqlSortMemoryBudget;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean zoneMapsEnabled;
+    private final boolean queryPlanCacheEnabled;
+    private final int queryPlanCacheCapacity;
+    private final int queryPlanCachePoolSize;
+    private final boolean queryResultCacheEnabled;
+    private final long queryResultCacheMemoryLimit;
+    private final long queryResultCacheMaxResultSize;
+    private final int queryResultCachePageSize;
     private final int sqlJoinMetadataPageSize;
     private final int sqlJoinMetadataMaxResizes;
     private final int lineUdpCommitRate;
@@ -140,6 +154,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean lineUdpUnicast;
     private final boolean lineUdpOwnThread;
     private final int sqlCopyBufferSize;
+    private final boolean sqlCopyParallelEnabled;
+    private final long sqlCopyParallelMinChunkSize;
+    private final int sqlCopyQueueCapacity;
     private final long writerDataAppendPageSize;
     private final long writerMiscAppendPageSize;
     private final int sqlAnalyticColumnPoolCapacity;
@@ -153,6 +170,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlMaxSymbolNotEqualsCount;
     private final int sqlBindVariablePoolSize;
     private final int sqlPageFrameMaxSize;
+    private final boolean sqlPageFramePrefetchEnabled;
     private final int sqlJitMode;
     private final int sqlJitIRMemoryPageSize;
     private final int sqlJitIRMemoryMaxPages;
@@ -161,6 +179,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlJitRowsThreshold;
     private final int sqlJitPageAddressCacheThreshold;
     private final boolean sqlJitDebugEnabled;
+    private final boolean sqlJitParallelFilterEnabled;
+    private final int pageFrameFilterQueueCapacity;
+    private final boolean sqlParallelGroupByEnabled;
+    private final boolean sqlParallelSampleByEnabled;
+    private final int pageFrameReduceQueueCapacity;
+    private final boolean walEnabled;
+    private final int walApplyQueueCapacity;
+    private final long walApplyRetryInterval;
     private final DateLocale locale;
     private final String backupRoot;
     private final DateFormat backupDirTimestampFormat;
@@ -241,6 +267,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long httpWorkerYieldThreshold;
     private long httpWorkerSleepThreshold;
     private boolean httpServerKeepAlive;
+    private boolean lineHttpEnabled;
+    private int lineHttpMaxRequestSize;
     private int sendBufferSize;
     private CharSequence indexFileName;
     private String publicDirectory;
@@ -347,6 +375,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int lineDefaultPartitionBy;
     private int lineTcpAggressiveReadRetryCount;
     private long minIdleMsBeforeWriterRelease;
+    private long lineTcpWriterLoadBalanceInterval;
+    private double lineTcpMaxLoadRatio;
     private String httpVersion;
     private int httpMinWorkerCount;
     private boolean httpMinWorkerHaltOnError;
@@ -457,6 +487,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.httpFrozenClock = getBoolean(properties, env, "http.frozen.clock", false);
                 this.httpAllowDeflateBeforeSend = getBoolean(properties, env, "http.allow.deflate.before.send", false);
                 this.httpServerKeepAlive = getBoolean(properties, env, "http.server.keep.alive", true);
+                this.lineHttpEnabled = getBoolean(properties, env, "line.http.enabled", true);
+                this.lineHttpMaxRequestSize = getIntSize(properties, env, "line.http.max.request.size", 16 * 1024 * 1024);
                 this.httpVersion = getString(properties, env, "http.version", "HTTP/1.1");
                 if (!httpVersion.endsWith(" ")) {
                     httpVersion += ' ';
@@ -593,6 +625,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.maxSwapFileCount = getInt(properties, env, "cairo.max.swap.file.count", 30);
             this.parallelIndexThreshold = getInt(properties, env, "cairo.parallel.index.threshold", 100000);
             this.readerPoolMaxSegments = getInt(properties, env, "cairo.reader.pool.max.segments", 5);
+            this.readerSharedMappingsEnabled = getBoolean(properties, env, "cairo.reader.shared.mappings.enabled", true);
             this.spinLockTimeoutUs = getLong(properties, env, "cairo.spin.lock.timeout", 1_000_000);
             this.httpSqlCacheEnabled = getBoolean(properties, env, "http.query.cache.enabled", true);
             this.httpSqlCacheBlockCount = getInt(properties, env, "http.query.cache.block.count", 4);
@@ -619,10 +652,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlLatestByRowCount = getInt(properties, env, "cairo.sql.latest.by.row.count", 1000);
             this.sqlHashJoinLightValuePageSize = getIntSize(properties, env, "cairo.sql.hash.join.light.value.page.size", 1048576);
             this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, "cairo.sql.hash.join.light.value.max.pages", Integer.MAX_VALUE);
+            this.sqlHashJoinMemoryBudget = getLongSize(properties, env, "cairo.sql.hash.join.memory.budget", 0);
+            this.sqlHashJoinSpillPartitions = getInt(properties, env, "cairo.sql.hash.join.spill.partitions", 16);
             this.sqlSortValuePageSize = getIntSize(properties, env, "cairo.sql.sort.value.page.size", 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
+            this.sqlSortMemoryBudget = getLongSize(properties, env, "cairo.sql.sort.memory.budget", 1024L * 1024 * 1024);
             this.workStealTimeoutNanos = getLong(properties, env, "cairo.work.steal.timeout.nanos", 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, "cairo.parallel.indexing.enabled", true);
+            this.zoneMapsEnabled = getBoolean(properties, env, "cairo.zone.maps.enabled", true);
+            this.queryPlanCacheEnabled = getBoolean(properties, env, "cairo.sql.plan.cache.enabled", false);
+            this.queryPlanCacheCapacity = getInt(properties, env, "cairo.sql.plan.cache.capacity", 256);
+            this.queryPlanCachePoolSize = getInt(properties, env, "cairo.sql.plan.cache.pool.size", 8);
+            this.queryResultCacheEnabled = getBoolean(properties, env, "cairo.sql.result.cache.enabled", false);
+            this.queryResultCacheMemoryLimit = getLongSize(properties, env, "cairo.sql.result.cache.memory.limit", 64 * 1024 * 1024);
+            this.queryResultCacheMaxResultSize = getLongSize(properties, env, "cairo.sql.result.cache.max.result.size", 4 * 1024 * 1024);
+            this.queryResultCachePageSize = getIntSize(properties, env, "cairo.sql.result.cache.page.size", 64 * 1024);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, "cairo.sql.join.metadata.page.size", 16384);
             this.sqlJoinMetadataMaxResizes = getIntSize(properties, env, "cairo.sql.join.metadata.max.resizes", Integer.MAX_VALUE);
             this.sqlAnalyticColumnPoolCapacity = getInt(properties, env, "cairo.sql.analytic.column.pool.capacity", 64);
@@ -633,6 +677,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlInsertModelPoolCapacity = getInt(properties, env, "cairo.sql.insert.model.pool.capacity", 64);
             this.sqlCopyModelPoolCapacity = getInt(properties, env, "cairo.sql.copy.model.pool.capacity", 32);
             this.sqlCopyBufferSize = getIntSize(properties, env, "cairo.sql.copy.buffer.size", 2 * 1024 * 1024);
+            this.sqlCopyParallelEnabled = getBoolean(properties, env, "cairo.sql.copy.parallel.enabled", false);
+            this.sqlCopyParallelMinChunkSize = getLongSize(properties, env, "cairo.sql.copy.parallel.min.chunk.size", 64 * 1024 * 1024);
+            this.sqlCopyQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.sql.copy.queue.capacity", 32));
 
             this.writerDataIndexKeyAppendPageSize = Files.ceilPageSize(getLongSize(properties, env, "cairo.writer.data.index.key.append.page.size", 512 * 1024));
             this.writerDataIndexValueAppendPageSize = Files.ceilPageSize(getLongSize(properties, env, "cairo.writer.data.index.value.append.page.size", 16 * 1024 * 1024));
@@ -655,6 +702,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlDistinctTimestampKeyCapacity = getInt(properties, env, "cairo.sql.distinct.timestamp.key.capacity", 512);
             this.sqlDistinctTimestampLoadFactor = getDouble(properties, env, "cairo.sql.distinct.timestamp.load.factor", 0.5);
             this.sqlPageFrameMaxSize = Numbers.ceilPow2(getIntSize(properties, env, "cairo.sql.page.frame.max.size", 8 * 1024 * 1024));
+            this.sqlPageFramePrefetchEnabled = getBoolean(properties, env, "cairo.sql.page.frame.prefetch.enabled", false);
 
             this.sqlJitMode = getSqlJitMode(properties, env);
             this.sqlJitIRMemoryPageSize = getIntSize(properties, env, "cairo.sql.jit.ir.memory.page.size", 8 * 1024);
@@ -664,6 +712,14 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlJitRowsThreshold = getIntSize(properties, env, "cairo.sql.jit.rows.threshold", 1024 * 1024);
             this.sqlJitPageAddressCacheThreshold = getIntSize(properties, env, "cairo.sql.jit.page.address.cache.threshold", 1024 * 1024);
             this.sqlJitDebugEnabled = getBoolean(properties, env, "cairo.sql.jit.debug.enabled", false);
+            this.sqlJitParallelFilterEnabled = getBoolean(properties, env, "cairo.sql.jit.parallel.filter.enabled", true);
+            this.pageFrameFilterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.filter.queue.capacity", 64));
+            this.sqlParallelGroupByEnabled = getBoolean(properties, env, "cairo.sql.parallel.groupby.enabled", true);
+            this.sqlParallelSampleByEnabled = getBoolean(properties, env, "cairo.sql.parallel.sampleby.enabled", true);
+            this.pageFrameReduceQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.reduce.queue.capacity", 64));
+            this.walEnabled = getBoolean(properties, env, "cairo.wal.enabled", false);
+            this.walApplyQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.wal.apply.queue.capacity", 256));
+            this.walApplyRetryInterval = getLong(properties, env, "cairo.wal.apply.retry.interval.micro", 100_000);
 
             this.inputFormatConfiguration = new InputFormatConfiguration(
                     new DateFormatFactory(),
@@ -783,6 +839,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 }
                 this.lineTcpAggressiveReadRetryCount = getInt(properties, env, "line.tcp.aggressive.read.retry.count", 0);
                 this.minIdleMsBeforeWriterRelease = getLong(properties, env, "line.tcp.min.idle.ms.before.writer.release", 10_000);
+                this.lineTcpWriterLoadBalanceInterval = getLong(properties, env, "line.tcp.writer.load.balance.interval", 10_000);
+                this.lineTcpMaxLoadRatio = getDouble(properties, env, "line.tcp.writer.max.load.ratio", 1.9);
             }
 
             this.sharedWorkerCount = getInt(properties, env, "shared.worker.count", Math.max(1, (cpuAvailable - 1) / 2 - cpuUsed));
@@ -1085,6 +1143,23 @@ public class PropServerConfiguration implements ServerConfiguration {
         void onReady(int address, int port);
     }
 
+    private class PropLineHttpProcessorConfiguration implements LineHttpProcessorConfiguration {
+        @Override
+        public LineTcpReceiverConfiguration getLineTcpReceiverConfiguration() {
+            return lineTcpReceiverConfiguration;
+        }
+
+        @Override
+        public int getMaxRequestSize() {
+            return lineHttpMaxRequestSize;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return lineHttpEnabled;
+        }
+    }
+
     private class PropStaticContentProcessorConfiguration implements StaticContentProcessorConfiguration {
         @Override
         public FilesFacade getFilesFacade() {
@@ -1486,6 +1561,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return jsonQueryProcessorConfiguration;
         }
 
+        @Override
+        public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+            return lineHttpProcessorConfiguration;
+        }
+
         @Override
         public boolean isQueryCacheEnabled() {
             return httpSqlCacheEnabled;
@@ -1759,6 +1839,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return maxUncommittedRows;
         }
 
+        @Override
+        public int getPageFrameFilterQueueCapacity() {
+            return pageFrameFilterQueueCapacity;
+        }
+
+        @Override
+        public int getPageFrameReduceQueueCapacity() {
+            return pageFrameReduceQueueCapacity;
+        }
+
+        @Override
+        public int getWalApplyQueueCapacity() {
+            return walApplyQueueCapacity;
+        }
+
+        @Override
+        public long getWalApplyRetryInterval() {
+            return walApplyRetryInterval;
+        }
+
         @Override
         public MicrosecondClock getMicrosecondClock() {
             return MicrosecondClockImpl.INSTANCE;
@@ -1824,6 +1924,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return readerPoolMaxSegments;
         }
 
+        @Override
+        public boolean isReaderSharedMappingsEnabled() {
+            return readerSharedMappingsEnabled;
+        }
+
         @Override
         public CharSequence getRoot() {
             return root;
@@ -1899,6 +2004,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlCopyBufferSize;
         }
 
+        @Override
+        public boolean isSqlCopyParallelEnabled() {
+            return sqlCopyParallelEnabled;
+        }
+
+        @Override
+        public long getSqlCopyParallelMinChunkSize() {
+            return sqlCopyParallelMinChunkSize;
+        }
+
+        @Override
+        public int getSqlCopyQueueCapacity() {
+            return sqlCopyQueueCapacity;
+        }
+
         @Override
         public int getSqlDistinctTimestampKeyCapacity() {
             return sqlDistinctTimestampKeyCapacity;
@@ -1929,6 +2049,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlHashJoinLightValuePageSize;
         }
 
+        @Override
+        public long getSqlHashJoinMemoryBudget() {
+            return sqlHashJoinMemoryBudget;
+        }
+
+        @Override
+        public int getSqlHashJoinSpillPartitions() {
+            return sqlHashJoinSpillPartitions;
+        }
+
         @Override
         public int getSqlHashJoinValueMaxPages() {
             return sqlHashJoinValueMaxPages;
@@ -2004,6 +2134,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortValuePageSize;
         }
 
+        @Override
+        public long getSqlSortMemoryBudget() {
+            return sqlSortMemoryBudget;
+        }
+
         @Override
         public int getSqlSortValueMaxPages() {
             return sqlSortValueMaxPages;
@@ -2044,6 +2179,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlPageFrameMaxSize;
         }
 
+        @Override
+        public boolean isSqlPageFramePrefetchEnabled() {
+            return sqlPageFramePrefetchEnabled;
+        }
+
         @Override
         public int getSqlJitMode() {
             return sqlJitMode;
@@ -2084,6 +2224,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlJitDebugEnabled;
         }
 
+        @Override
+        public boolean isSqlJitParallelFilterEnabled() {
+            return sqlJitParallelFilterEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSampleByEnabled() {
+            return sqlParallelSampleByEnabled;
+        }
+
+        @Override
+        public boolean isWalEnabled() {
+            return walEnabled;
+        }
+
         @Override
         public int getRenameTableModelPoolCapacity() {
             return sqlRenameTableModelPoolCapacity;
@@ -2133,6 +2293,46 @@ public class PropServerConfiguration implements ServerConfiguration {
         public boolean isParallelIndexingEnabled() {
             return parallelIndexingEnabled;
         }
+
+        @Override
+        public boolean isZoneMapsEnabled() {
+            return zoneMapsEnabled;
+        }
+
+        @Override
+        public boolean isQueryPlanCacheEnabled() {
+            return queryPlanCacheEnabled;
+        }
+
+        @Override
+        public int getQueryPlanCacheCapacity() {
+            return queryPlanCacheCapacity;
+        }
+
+        @Override
+        public int getQueryPlanCachePoolSize() {
+            return queryPlanCachePoolSize;
+        }
+
+        @Override
+        public boolean isQueryResultCacheEnabled() {
+            return queryResultCacheEnabled;
+        }
+
+        @Override
+        public long getQueryResultCacheMemoryLimit() {
+            return queryResultCacheMemoryLimit;
+        }
+
+        @Override
+        public long getQueryResultCacheMaxResultSize() {
+            return queryResultCacheMaxResultSize;
+        }
+
+        @Override
+        public int getQueryResultCachePageSize() {
+            return queryResultCachePageSize;
+        }
     }
 
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
@@ -2426,6 +2626,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return minIdleMsBeforeWriterRelease;
         }
 
+        @Override
+        public long getWriterLoadBalanceInterval() {
+            return lineTcpWriterLoadBalanceInterval;
+        }
+
+        @Override
+        public double getMaxLoadRatio() {
+            return lineTcpMaxLoadRatio;
+        }
+
         @Override
         public IODispatcherConfiguration getNetDispatcherConfiguration() {
             return lineTcpReceiverDispatcherConfiguration;
@@ -40,6 +40,13 @@ public class ArrayColumnTypes implements ColumnTypes, Mutable {
         return this;
     }
 
+    public ArrayColumnTypes addAll(ColumnTypes columnTypes) {
+        for (int i = 0, n = columnTypes.getColumnCount(); i < n; i++) {
+            types.add(columnTypes.getColumnType(i));
+        }
+        return this;
+    }
+
     @Override
     public int getColumnCount() {
         return types.size();
@@ -134,6 +134,18 @@ public interface CairoConfiguration {
 
     int getMaxUncommittedRows();
 
+    int getPageFrameFilterQueueCapacity();
+
+    int getPageFrameReduceQueueCapacity();
+
+    int getWalApplyQueueCapacity();
+
+    /**
+     * Interval, in microseconds, at which WAL segments that could not be applied to the table,
+     * e.g. because the table writer is busy, are retried.
+     */
+    long getWalApplyRetryInterval();
+
     MicrosecondClock getMicrosecondClock();
 
     MillisecondClock getMillisecondClock();
@@ -175,6 +187,12 @@ public interface CairoConfiguration {
 
     int getReaderPoolMaxSegments();
 
+    /**
+     * Lets pooled readers of the same table version share column file mappings
+     * instead of mapping every column privately.
+     */
+    boolean isReaderSharedMappingsEnabled();
+
     int getRenameTableModelPoolCapacity();
 
     CharSequence getRoot(); // some folder with suffix env['cairo.root'] e.g. /.../db
@@ -207,6 +225,16 @@ public interface CairoConfiguration {
 
     int getSqlCopyBufferSize();
 
+    /**
+     * When enabled, COPY splits input file into chunks that are parsed on the shared worker pool.
+     * Files smaller than two minimum chunk sizes are still imported on the calling thread.
+     */
+    boolean isSqlCopyParallelEnabled();
+
+    long getSqlCopyParallelMinChunkSize();
+
+    int getSqlCopyQueueCapacity();
+
     int getSqlDistinctTimestampKeyCapacity();
 
     double getSqlDistinctTimestampLoadFactor();
@@ -219,6 +247,20 @@ public interface CairoConfiguration {
 
     int getSqlHashJoinLightValuePageSize();
 
+    /**
+     * Memory budget of the slave side of a single full hash join in bytes. Once it is exceeded both
+     * sides of the join are partitioned on join key into spill files and joined partition by partition.
+     * Spilling is opt-in, zero disables it. Joins, which may spill, do not advertise designated
+     * timestamp unless the order of master rows is required downstream.
+     */
+    long getSqlHashJoinMemoryBudget();
+
+    /**
+     * Number of partitions, rounded up to a power of two, hash join sides are split into once
+     * the memory budget is exceeded.
+     */
+    int getSqlHashJoinSpillPartitions();
+
     int getSqlHashJoinValueMaxPages();
 
     int getSqlHashJoinValuePageSize();
@@ -256,12 +298,25 @@ public interface CairoConfiguration {
 
     long getSqlSortLightValuePageSize();
 
+    /**
+     * Memory budget of a single ORDER BY in bytes, sorted rows are spilled to disk once it is exceeded.
+     * Zero disables spilling.
+     */
+    long getSqlSortMemoryBudget();
+
     int getSqlSortValueMaxPages();
 
     int getSqlSortValuePageSize();
 
     int getSqlPageFrameMaxSize();
 
+    /**
+     * When enabled, page frame cursor advises OS to read ahead column pages of the next page frame
+     * while the current one is being processed, so that disk reads of cold partitions overlap with
+     * computation instead of being serialized by page faults.
+     */
+    boolean isSqlPageFramePrefetchEnabled();
+
     int getSqlJitMode();
 
     int getSqlJitIRMemoryPageSize();
@@ -278,6 +333,18 @@ public interface CairoConfiguration {
 
     boolean isSqlJitDebugEnabled();
 
+    boolean isSqlJitParallelFilterEnabled();
+
+    boolean isSqlParallelGroupByEnabled();
+
+    boolean isSqlParallelSampleByEnabled();
+
+    /**
+     * When enabled, inserts into a table that is busy with another writer are appended to
+     * a write-ahead log of their own and applied to the table in the background.
+     */
+    boolean isWalEnabled();
+
     int getTableBlockWriterQueueCapacity();
 
     TelemetryConfiguration getTelemetryConfiguration();
@@ -303,4 +370,48 @@ public interface CairoConfiguration {
     boolean isO3QuickSortEnabled();
 
     boolean isParallelIndexingEnabled();
+
+    /**
+     * Enables server-wide cache of compiled SELECT factories shared by HTTP and PostgreSQL wire
+     * protocol workers.
+     */
+    boolean isQueryPlanCacheEnabled();
+
+    /**
+     * Maximum number of distinct queries kept by the shared plan cache.
+     */
+    int getQueryPlanCacheCapacity();
+
+    /**
+     * Maximum number of idle factories kept for a single query, one per concurrent execution.
+     */
+    int getQueryPlanCachePoolSize();
+
+    /**
+     * Enables server-wide cache of materialized SELECT results. Cached result is reused until any of
+     * the tables it reads is changed.
+     */
+    boolean isQueryResultCacheEnabled();
+
+    /**
+     * Maximum amount of native memory, in bytes, used by cached query results.
+     */
+    long getQueryResultCacheMemoryLimit();
+
+    /**
+     * Maximum size, in bytes, of a single cached query result. Larger results are streamed to the client
+     * and not cached. It also limits partial aggregates kept per partition by parallel GROUP BY.
+     */
+    long getQueryResultCacheMaxResultSize();
+
+    /**
+     * Memory page size of a cached query result. Small pages keep small results cheap.
+     */
+    int getQueryResultCachePageSize();
+
+    /**
+     * When enabled TableWriter maintains min/max statistics of numeric columns for
+     * every complete partition and table scans skip partitions that cannot match filter.
+     */
+    boolean isZoneMapsEnabled();
 }
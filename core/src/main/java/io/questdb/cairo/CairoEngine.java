@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.MessageBus;
 import io.questdb.MessageBusImpl;
+import io.questdb.Metrics;
 import io.questdb.cairo.mig.EngineMigration;
 import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
@@ -33,7 +34,11 @@ import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.wal.WalWriter;
 import io.questdb.griffin.AlterStatement;
+import io.questdb.griffin.QueryPlanCache;
+import io.questdb.griffin.QueryResultCache;
+import io.questdb.griffin.engine.matview.MatViewRegistry;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
@@ -55,6 +60,7 @@ public class CairoEngine implements Closeable, WriterSource {
     private static final Log LOG = LogFactory.getLog(CairoEngine.class);
     private final WriterPool writerPool;
     private final ReaderPool readerPool;
+    private final ColumnMappingCache columnMappingCache = new ColumnMappingCache();
     private final CairoConfiguration configuration;
     private final EngineMaintenanceJob engineMaintenanceJob;
     private final MessageBus messageBus;
@@ -65,14 +71,24 @@ public class CairoEngine implements Closeable, WriterSource {
     private final MCSequence tableWriterCmdSubSeq;
     private final long tableIdMemSize;
     private final AtomicLong alterCommandCommandCorrelationId = new AtomicLong();
+    private final QueryPlanCache queryPlanCache;
+    private final QueryResultCache queryResultCache;
+    private final MatViewRegistry matViewRegistry;
     private long tableIdFd = -1;
     private long tableIdMem = 0;
 
     public CairoEngine(CairoConfiguration configuration) {
+        this(configuration, Metrics.disabled());
+    }
+
+    public CairoEngine(CairoConfiguration configuration, Metrics metrics) {
         this.configuration = configuration;
+        this.queryPlanCache = new QueryPlanCache(configuration, metrics.queryPlanCache());
+        this.queryResultCache = new QueryResultCache(configuration, metrics.queryResultCache());
+        this.matViewRegistry = new MatViewRegistry(configuration);
         this.messageBus = new MessageBusImpl(configuration);
         this.writerPool = new WriterPool(configuration, messageBus);
-        this.readerPool = new ReaderPool(configuration);
+        this.readerPool = new ReaderPool(configuration, configuration.isReaderSharedMappingsEnabled() ? columnMappingCache : null);
         this.engineMaintenanceJob = new EngineMaintenanceJob(configuration);
         if (configuration.getTelemetryConfiguration().getEnabled()) {
             this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
@@ -92,6 +108,7 @@ public class CairoEngine implements Closeable, WriterSource {
         openTableId();
         try {
             EngineMigration.migrateEngineTo(this, ColumnType.VERSION, false);
+            matViewRegistry.load();
         } catch (Throwable e) {
             close();
             throw e;
@@ -106,6 +123,8 @@ public class CairoEngine implements Closeable, WriterSource {
 
     @Override
     public void close() {
+        Misc.free(queryPlanCache);
+        Misc.free(queryResultCache);
         Misc.free(writerPool);
         Misc.free(readerPool);
         freeTableId();
@@ -185,6 +204,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return writerPool.getBusyCount();
     }
 
+    public ColumnMappingCache getColumnMappingCache() {
+        return columnMappingCache;
+    }
+
     public CairoConfiguration getConfiguration() {
         return configuration;
     }
@@ -193,6 +216,18 @@ public class CairoEngine implements Closeable, WriterSource {
         return engineMaintenanceJob;
     }
 
+    public QueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    public MatViewRegistry getMatViewRegistry() {
+        return matViewRegistry;
+    }
+
     public MessageBus getMessageBus() {
         return messageBus;
     }
@@ -281,6 +316,18 @@ public class CairoEngine implements Closeable, WriterSource {
         return writerPool.get(tableName, lockReason);
     }
 
+    /**
+     * Opens new write-ahead log of the table. Unlike {@link #getWriter(CairoSecurityContext, CharSequence, CharSequence)}
+     * this method does not require exclusive access to the table, caller is responsible for closing the WAL writer.
+     */
+    public WalWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        securityContext.checkWritePermission();
+        return new WalWriter(this, tableName);
+    }
+
     public CharSequence lock(
             CairoSecurityContext securityContext,
             CharSequence tableName,
@@ -381,6 +428,9 @@ public class CairoEngine implements Closeable, WriterSource {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(errno).$(']').$();
                     throw CairoException.instance(errno).put("Table remove failed");
                 }
+                queryPlanCache.clear();
+                queryResultCache.clear();
+                matViewRegistry.remove(tableName);
                 return;
             } finally {
                 unlock(securityContext, tableName, null, false);
@@ -407,6 +457,9 @@ public class CairoEngine implements Closeable, WriterSource {
         if (null == lockedReason) {
             try {
                 rename0(path, tableName, otherPath, newName);
+                queryPlanCache.clear();
+                queryResultCache.clear();
+                matViewRegistry.rename(tableName, newName);
             } finally {
                 unlock(securityContext, tableName, null, false);
             }
@@ -0,0 +1,361 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+/**
+ * Compresses column files of cold partitions. Compressed file replaces ".d" file of fixed size column
+ * or ".i" file of variable size column and has the following layout:
+ * <pre>
+ *     long decoded size | int codec | int reserved | encoded values
+ * </pre>
+ * 8-byte integers (timestamps, dates, longs, string offsets) are stored as zig-zag encoded deltas in
+ * variable length format. 4-byte integers, including symbol keys, are stored as zig-zag variable length
+ * values, symbol dictionary remains as is. Other column types are left uncompressed.
+ */
+public final class ColumnCompressor {
+    public static final int CODEC_NONE = 0;
+    public static final int CODEC_DELTA_LONG = 1;
+    public static final int CODEC_ZIGZAG_INT = 2;
+    public static final int HEADER_SIZE = 16;
+    private static final Log LOG = LogFactory.getLog(ColumnCompressor.class);
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private ColumnCompressor() {
+    }
+
+    public static int codecOf(int columnType) {
+        if (ColumnType.isVariableLength(columnType)) {
+            // offsets in ".i" file
+            return CODEC_DELTA_LONG;
+        }
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return CODEC_DELTA_LONG;
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                return CODEC_ZIGZAG_INT;
+            default:
+                return CODEC_NONE;
+        }
+    }
+
+    /**
+     * Writes compressed copy of column file into another partition directory. Raw file is left
+     * intact, readers of the source directory are not affected.
+     *
+     * @param ff         files facade
+     * @param path       path to source partition directory, trimmed to plen on exit
+     * @param plen       length of source partition directory path
+     * @param dstPath    path to destination partition directory, trimmed to dstPlen on exit
+     * @param dstPlen    length of destination partition directory path
+     * @param columnName name of column
+     * @param columnType type of column
+     * @param rowCount   number of column values in partition, excluding column top
+     * @param force      when false column is left as is if compression does not reduce its size
+     * @return true when compressed file has been written
+     */
+    public static boolean compress(
+            FilesFacade ff,
+            Path path,
+            int plen,
+            Path dstPath,
+            int dstPlen,
+            CharSequence columnName,
+            int columnType,
+            long rowCount,
+            boolean force
+    ) {
+        final int codec = codecOf(columnType);
+        final boolean varSize = ColumnType.isVariableLength(columnType);
+        if (codec == CODEC_NONE || rowCount < 1) {
+            return false;
+        }
+
+        final LPSZ rawFile = rawFile(path.trimTo(plen), columnName, varSize);
+        if (!ff.exists(rawFile)) {
+            return false;
+        }
+
+        final long count = varSize ? rowCount + 1 : rowCount;
+        final long rawSize = codec == CODEC_DELTA_LONG ? count * Long.BYTES : count * Integer.BYTES;
+        final long bufSize = HEADER_SIZE + (codec == CODEC_DELTA_LONG ? count * 10 : count * 5);
+        final long buf = Unsafe.malloc(bufSize, MemoryTag.NATIVE_DEFAULT);
+        try {
+            long encodedSize;
+            final long fd = TableUtils.openRO(ff, rawFile, LOG);
+            try {
+                final long raw = TableUtils.mapRO(ff, fd, rawSize, MemoryTag.MMAP_DEFAULT);
+                try {
+                    encodedSize = encode(codec, raw, count, buf);
+                } finally {
+                    ff.munmap(raw, rawSize, MemoryTag.MMAP_DEFAULT);
+                }
+            } finally {
+                ff.close(fd);
+            }
+
+            if (!force && encodedSize >= rawSize) {
+                return false;
+            }
+
+            final LPSZ compressedFile = compressedFile(dstPath.trimTo(dstPlen), columnName, varSize);
+            final long zfd = ff.openRW(compressedFile);
+            if (zfd < 0) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(compressedFile).put(']');
+            }
+            try {
+                if (ff.write(zfd, buf, encodedSize, 0) != encodedSize || !ff.truncate(zfd, encodedSize)) {
+                    throw CairoException.instance(ff.errno()).put("could not write [file=").put(compressedFile).put(']');
+                }
+                ff.fsync(zfd);
+            } finally {
+                ff.close(zfd);
+            }
+
+            LOG.info().$("compressed [file=").$(compressedFile)
+                    .$(", size=").$(rawSize)
+                    .$(", compressedSize=").$(encodedSize)
+                    .I$();
+            return true;
+        } finally {
+            Unsafe.free(buf, bufSize, MemoryTag.NATIVE_DEFAULT);
+            path.trimTo(plen);
+            dstPath.trimTo(dstPlen);
+        }
+    }
+
+    /**
+     * Restores raw column file from compressed one, if the column is compressed. Raw file is written
+     * under temporary name and renamed so that concurrent readers never observe partial file. Readers
+     * prefer raw file, compressed file is kept for readers that have already chosen to open it and
+     * has to be removed with {@link #removeCompressed(FilesFacade, Path, int, CharSequence, int)} once
+     * these readers are gone.
+     *
+     * @param ff         files facade
+     * @param path       path to partition directory, trimmed to plen on exit
+     * @param plen       length of partition directory path
+     * @param columnName name of column
+     * @param columnType type of column
+     */
+    public static void decompress(FilesFacade ff, Path path, int plen, CharSequence columnName, int columnType) {
+        final boolean varSize = ColumnType.isVariableLength(columnType);
+        final Path other = Path.PATH2.get().of(path.trimTo(plen));
+        try {
+            final LPSZ compressedFile = compressedFile(path.trimTo(plen), columnName, varSize);
+            if (!ff.exists(compressedFile)) {
+                return;
+            }
+
+            if (!ff.exists(rawFile(other.trimTo(plen), columnName, varSize))) {
+                final long zfd = TableUtils.openRO(ff, compressedFile, LOG);
+                try {
+                    final long zSize = ff.length(zfd);
+                    final long z = TableUtils.mapRO(ff, zfd, zSize, MemoryTag.MMAP_DEFAULT);
+                    try {
+                        final long rawSize = getDecodedSize(z);
+                        final LPSZ tmpFile = other.trimTo(plen).concat(columnName).put(varSize ? TableUtils.FILE_SUFFIX_I : TableUtils.FILE_SUFFIX_D).put(TMP_SUFFIX).$();
+                        final long fd = ff.openRW(tmpFile);
+                        if (fd < 0) {
+                            throw CairoException.instance(ff.errno()).put("could not open [file=").put(tmpFile).put(']');
+                        }
+                        try {
+                            if (rawSize > 0) {
+                                final long raw = TableUtils.mapRW(ff, fd, rawSize, MemoryTag.MMAP_DEFAULT);
+                                try {
+                                    decode(z, raw);
+                                } finally {
+                                    ff.munmap(raw, rawSize, MemoryTag.MMAP_DEFAULT);
+                                }
+                            }
+                            ff.fsync(fd);
+                        } finally {
+                            ff.close(fd);
+                        }
+                        if (!ff.rename(tmpFile, rawFile(path.trimTo(plen), columnName, varSize))) {
+                            throw CairoException.instance(ff.errno()).put("could not rename [from=").put(tmpFile).put(", to=").put(path).put(']');
+                        }
+                    } finally {
+                        ff.munmap(z, zSize, MemoryTag.MMAP_DEFAULT);
+                    }
+                } finally {
+                    ff.close(zfd);
+                }
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Removes compressed column file when raw file has been restored next to it.
+     *
+     * @param ff         files facade
+     * @param path       path to partition directory, trimmed to plen on exit
+     * @param plen       length of partition directory path
+     * @param columnName name of column
+     * @param columnType type of column
+     */
+    public static void removeCompressed(FilesFacade ff, Path path, int plen, CharSequence columnName, int columnType) {
+        final boolean varSize = ColumnType.isVariableLength(columnType);
+        try {
+            if (ff.exists(rawFile(path.trimTo(plen), columnName, varSize))
+                    && ff.exists(compressedFile(path.trimTo(plen), columnName, varSize))
+                    && !ff.remove(path)) {
+                LOG.error().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).I$();
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Decodes compressed column.
+     *
+     * @param src address of compressed data, including header
+     * @param dst address of memory of at least {@link #getDecodedSize(long)} bytes
+     */
+    public static void decode(long src, long dst) {
+        final long decodedSize = getDecodedSize(src);
+        final int codec = Unsafe.getUnsafe().getInt(src + Long.BYTES);
+        long p = src + HEADER_SIZE;
+        if (codec == CODEC_DELTA_LONG) {
+            long prev = 0;
+            for (long d = dst, hi = dst + decodedSize; d < hi; d += Long.BYTES) {
+                long z = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = Unsafe.getUnsafe().getByte(p++);
+                    z |= (long) (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                prev += (z >>> 1) ^ -(z & 1);
+                Unsafe.getUnsafe().putLong(d, prev);
+            }
+        } else {
+            assert codec == CODEC_ZIGZAG_INT;
+            for (long d = dst, hi = dst + decodedSize; d < hi; d += Integer.BYTES) {
+                int z = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = Unsafe.getUnsafe().getByte(p++);
+                    z |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                Unsafe.getUnsafe().putInt(d, (z >>> 1) ^ -(z & 1));
+            }
+        }
+    }
+
+    public static long getDecodedSize(long src) {
+        return Unsafe.getUnsafe().getLong(src);
+    }
+
+    /**
+     * Reads first value of compressed 8-byte integer column.
+     *
+     * @param ff   files facade
+     * @param path path to compressed file
+     * @return first value of column
+     */
+    public static long readFirstLong(FilesFacade ff, LPSZ path) {
+        final long fd = TableUtils.openRO(ff, path, LOG);
+        try {
+            final long size = ff.length(fd);
+            final long z = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_DEFAULT);
+            try {
+                if (size < HEADER_SIZE + 1 || Unsafe.getUnsafe().getInt(z + Long.BYTES) != CODEC_DELTA_LONG) {
+                    throw CairoException.instance(0).put("invalid compressed file [file=").put(path).put(']');
+                }
+                long p = z + HEADER_SIZE;
+                long v = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = Unsafe.getUnsafe().getByte(p++);
+                    v |= (long) (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return (v >>> 1) ^ -(v & 1);
+            } finally {
+                ff.munmap(z, size, MemoryTag.MMAP_DEFAULT);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private static LPSZ compressedFile(Path path, CharSequence columnName, boolean varSize) {
+        return varSize ? TableUtils.izFile(path, columnName) : TableUtils.dzFile(path, columnName);
+    }
+
+    static long encode(int codec, long src, long count, long dst) {
+        long p = dst + HEADER_SIZE;
+        if (codec == CODEC_DELTA_LONG) {
+            long prev = 0;
+            for (long s = src, hi = src + count * Long.BYTES; s < hi; s += Long.BYTES) {
+                final long value = Unsafe.getUnsafe().getLong(s);
+                final long delta = value - prev;
+                prev = value;
+                long z = (delta << 1) ^ (delta >> 63);
+                while ((z & ~0x7fL) != 0) {
+                    Unsafe.getUnsafe().putByte(p++, (byte) ((z & 0x7f) | 0x80));
+                    z >>>= 7;
+                }
+                Unsafe.getUnsafe().putByte(p++, (byte) z);
+            }
+            Unsafe.getUnsafe().putLong(dst, count * Long.BYTES);
+        } else {
+            for (long s = src, hi = src + count * Integer.BYTES; s < hi; s += Integer.BYTES) {
+                final int value = Unsafe.getUnsafe().getInt(s);
+                int z = (value << 1) ^ (value >> 31);
+                while ((z & ~0x7f) != 0) {
+                    Unsafe.getUnsafe().putByte(p++, (byte) ((z & 0x7f) | 0x80));
+                    z >>>= 7;
+                }
+                Unsafe.getUnsafe().putByte(p++, (byte) z);
+            }
+            Unsafe.getUnsafe().putLong(dst, count * Integer.BYTES);
+        }
+        Unsafe.getUnsafe().putInt(dst + Long.BYTES, codec);
+        Unsafe.getUnsafe().putInt(dst + Long.BYTES + Integer.BYTES, 0);
+        return p - dst;
+    }
+
+    private static LPSZ rawFile(Path path, CharSequence columnName, boolean varSize) {
+        return varSize ? TableUtils.iFile(path, columnName) : TableUtils.dFile(path, columnName);
+    }
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Engine-wide registry of read-only column file mappings shared by pooled table readers.
+ * <p>
+ * Files are keyed by path and by the table version the reader has loaded. The version must change
+ * whenever file under the same path can be replaced, e.g. on truncate, partition drop or column re-add,
+ * so that readers of different table versions never share file descriptor. Files opened without version
+ * are not shared. Each file keeps one descriptor and a list of mappings of increasing size. Reader asking
+ * for a size that is already mapped reuses existing mapping, otherwise new mapping of at least current file
+ * length is created. Mappings are reference counted and unmapped when the last reader releases them; file
+ * descriptor is closed together with the last mapping.
+ * <p>
+ * Registry lock guards file lookup only, files are opened, mapped and unmapped under lock of the file
+ * itself, so that readers of different files do not wait for each other's system calls.
+ */
+public class ColumnMappingCache {
+    private static final Log LOG = LogFactory.getLog(ColumnMappingCache.class);
+    private final CharSequenceObjHashMap<MappedFile> files = new CharSequenceObjHashMap<>();
+    private final StringSink keySink = new StringSink();
+
+    /**
+     * Acquires mapping of at least given size.
+     *
+     * @param version table version the file belongs to, null when file must not be shared
+     */
+    public Mapping acquire(FilesFacade ff, LPSZ name, @Nullable CharSequence version, long size, int memoryTag) {
+        final MappedFile file;
+        if (version != null) {
+            synchronized (this) {
+                keySink.clear();
+                keySink.put(name).put('|').put(version);
+                final int keyIndex = files.keyIndex(keySink);
+                if (keyIndex < 0) {
+                    file = files.valueAt(keyIndex);
+                } else {
+                    file = new MappedFile(Chars.toString(keySink), ff);
+                    files.putAt(keyIndex, file.key, file);
+                }
+                file.userCount++;
+            }
+        } else {
+            file = new MappedFile(null, ff);
+            file.userCount++;
+        }
+
+        try {
+            synchronized (file) {
+                if (file.fd == -1) {
+                    if (!ff.exists(name)) {
+                        throw CairoException.instance(0).put("File not found: ").put(name);
+                    }
+                    file.fd = TableUtils.openRO(ff, name, LOG);
+                }
+                return acquire(file, size, memoryTag);
+            }
+        } catch (Throwable e) {
+            releaseFile(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Swaps mapping for one that covers at least given size. Address of the returned mapping
+     * can be different, caller must not use the old mapping after this call.
+     */
+    public Mapping extend(Mapping mapping, long size, int memoryTag) {
+        if (mapping.size >= size) {
+            return mapping;
+        }
+        final MappedFile file = mapping.file;
+        synchronized (this) {
+            file.userCount++;
+        }
+        final Mapping extended;
+        try {
+            synchronized (file) {
+                extended = acquire(file, size, memoryTag);
+            }
+        } catch (Throwable e) {
+            releaseFile(file);
+            throw e;
+        }
+        release(mapping);
+        return extended;
+    }
+
+    public synchronized int getFileCount() {
+        return files.size();
+    }
+
+    public synchronized int getMappingCount() {
+        int count = 0;
+        for (int i = 0, n = files.size(); i < n; i++) {
+            final MappedFile file = files.get(files.keys().getQuick(i));
+            synchronized (file) {
+                count += file.mappings.size();
+            }
+        }
+        return count;
+    }
+
+    public void release(Mapping mapping) {
+        final MappedFile file = mapping.file;
+        synchronized (file) {
+            assert mapping.refCount > 0;
+            if (--mapping.refCount == 0) {
+                if (mapping.address != 0) {
+                    file.ff.munmap(mapping.address, mapping.size, mapping.memoryTag);
+                }
+                file.mappings.remove(mapping);
+            }
+        }
+        releaseFile(file);
+    }
+
+    private Mapping acquire(MappedFile file, long size, int memoryTag) {
+        Mapping best = null;
+        final ObjList<Mapping> mappings = file.mappings;
+        for (int i = 0, n = mappings.size(); i < n; i++) {
+            final Mapping m = mappings.getQuick(i);
+            if (m.size >= size && (best == null || m.size > best.size)) {
+                best = m;
+            }
+        }
+
+        if (best == null) {
+            // map whole file, writer extends column files ahead of data
+            // and subsequent reloads are likely to fit into this mapping
+            final long mapSize = Math.max(size, file.ff.length(file.fd));
+            best = new Mapping(file, mapSize > 0 ? TableUtils.mapRO(file.ff, file.fd, mapSize, memoryTag) : 0, mapSize, memoryTag);
+            mappings.add(best);
+        }
+        best.refCount++;
+        return best;
+    }
+
+    private void releaseFile(MappedFile file) {
+        synchronized (this) {
+            if (--file.userCount > 0) {
+                return;
+            }
+            if (file.key != null) {
+                files.remove(file.key);
+            }
+        }
+        // file is no longer reachable, close it outside of registry lock
+        if (file.fd != -1) {
+            file.ff.close(file.fd);
+            LOG.debug().$("closed [fd=").$(file.fd).$(']').$();
+        }
+    }
+
+    public static class Mapping {
+        private final MappedFile file;
+        private final long address;
+        private final long size;
+        private final int memoryTag;
+        private int refCount;
+
+        private Mapping(MappedFile file, long address, long size, int memoryTag) {
+            this.file = file;
+            this.address = address;
+            this.size = size;
+            this.memoryTag = memoryTag;
+        }
+
+        public long getAddress() {
+            return address;
+        }
+
+        public long getFd() {
+            return file.fd;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    private static class MappedFile {
+        private final String key;
+        private final FilesFacade ff;
+        private final ObjList<Mapping> mappings = new ObjList<>();
+        private long fd = -1;
+        // number of acquired mappings and of acquisitions in progress, guarded by registry lock
+        private int userCount;
+
+        private MappedFile(String key, FilesFacade ff) {
+            this.key = key;
+            this.ff = ff;
+        }
+    }
+}
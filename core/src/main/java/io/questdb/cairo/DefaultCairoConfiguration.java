@@ -93,6 +93,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public boolean isSqlCopyParallelEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getSqlCopyParallelMinChunkSize() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public int getSqlCopyQueueCapacity() {
+        return 32;
+    }
+
     @Override
     public int getCopyPoolCapacity() {
         return 16;
@@ -188,6 +203,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 5;
     }
 
+    @Override
+    public boolean isReaderSharedMappingsEnabled() {
+        return true;
+    }
+
     @Override
     public CharSequence getRoot() {
         return root;
@@ -330,6 +350,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public long getSqlHashJoinMemoryBudget() {
+        return 0;
+    }
+
+    @Override
+    public int getSqlHashJoinSpillPartitions() {
+        return 16;
+    }
+
     @Override
     public int getSqlHashJoinValuePageSize() {
         return Numbers.SIZE_1MB * 16;
@@ -390,6 +420,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Numbers.SIZE_1MB * 16;
     }
 
+    @Override
+    public long getSqlSortMemoryBudget() {
+        return 1024L * Numbers.SIZE_1MB;
+    }
+
     @Override
     public int getSqlSortValueMaxPages() {
         return 1024;
@@ -580,6 +615,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1000;
     }
 
+    @Override
+    public int getPageFrameFilterQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getPageFrameReduceQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getWalApplyQueueCapacity() {
+        return 256;
+    }
+
+    @Override
+    public long getWalApplyRetryInterval() {
+        return 100_000;
+    }
+
     @Override
     public long getCommitLag() {
         return 0;
@@ -590,6 +645,46 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isZoneMapsEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isQueryPlanCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getQueryPlanCacheCapacity() {
+        return 256;
+    }
+
+    @Override
+    public int getQueryPlanCachePoolSize() {
+        return 8;
+    }
+
+    @Override
+    public boolean isQueryResultCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getQueryResultCacheMemoryLimit() {
+        return 64 * 1024 * 1024;
+    }
+
+    @Override
+    public long getQueryResultCacheMaxResultSize() {
+        return 4 * 1024 * 1024;
+    }
+
+    @Override
+    public int getQueryResultCachePageSize() {
+        return 64 * 1024;
+    }
+
     @Override
     public int getLatestByQueueCapacity() {
         return 32;
@@ -610,6 +705,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 8 * Numbers.SIZE_1MB;
     }
 
+    @Override
+    public boolean isSqlPageFramePrefetchEnabled() {
+        return false;
+    }
+
     @Override
     public int getSqlJitMode() {
         return SqlJitMode.JIT_MODE_DISABLED;
@@ -649,4 +749,24 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     public boolean isSqlJitDebugEnabled() {
         return false;
     }
+
+    @Override
+    public boolean isSqlJitParallelFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSampleByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isWalEnabled() {
+        return false;
+    }
 }
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Ring of recent commits shared between table writer and readers. For every commit writer records the lowest
+ * partition table slot it has written to _txn. Readers that missed several commits take the minimum over
+ * the commits they missed and reload partition table from that slot only, instead of re-reading and
+ * reconciling every partition when partition table version has changed.
+ * <p>
+ * Entry layout is {txn, partitionTableLo}. Entry is invalidated before it is rewritten, so readers detect
+ * entries that are being overwritten. Commits that are not recorded, such as structure changes or truncate,
+ * leave a gap in the ring and readers fall back to full reload.
+ */
+public class PartitionChangeLog implements Closeable {
+    static final int CAPACITY = 256;
+    private static final Log LOG = LogFactory.getLog(PartitionChangeLog.class);
+    private static final int ENTRY_SIZE_MSB = 4;
+    private static final long SIZE = (long) CAPACITY << ENTRY_SIZE_MSB;
+    private final FilesFacade ff;
+    private long fd = -1;
+    private long mem = 0;
+
+    public PartitionChangeLog(FilesFacade ff) {
+        this.ff = ff;
+    }
+
+    @Override
+    public void close() {
+        if (mem != 0) {
+            ff.munmap(mem, SIZE, MemoryTag.MMAP_DEFAULT);
+            mem = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+    }
+
+    /**
+     * Returns lowest partition table slot written by commits in (fromTxn, toTxn] range or -1 when
+     * some of these commits are not in the log.
+     */
+    public int getPartitionTableLo(long fromTxn, long toTxn) {
+        if (mem == 0 || fromTxn < 0 || toTxn <= fromTxn || toTxn - fromTxn > CAPACITY) {
+            return -1;
+        }
+        int lo = Integer.MAX_VALUE;
+        for (long txn = fromTxn + 1; txn <= toTxn; txn++) {
+            final long p = entryAddress(txn);
+            if (Unsafe.getUnsafe().getLong(p) != txn) {
+                return -1;
+            }
+            Unsafe.getUnsafe().loadFence();
+            final long entryLo = Unsafe.getUnsafe().getLong(p + Long.BYTES);
+            Unsafe.getUnsafe().loadFence();
+            if (Unsafe.getUnsafe().getLong(p) != txn) {
+                return -1;
+            }
+            lo = (int) Math.min(lo, entryLo);
+        }
+        return lo;
+    }
+
+    public boolean isOpen() {
+        return mem != 0;
+    }
+
+    public boolean openRO(Path root) {
+        assert mem == 0;
+        root.concat(TableUtils.PARTITION_CHANGE_LOG_FILE_NAME).$();
+        if (!ff.exists(root) || ff.length(root) < SIZE) {
+            return false;
+        }
+        fd = ff.openRO(root);
+        if (fd < 0) {
+            LOG.info().$("could not open [file=").$(root).$(", errno=").$(ff.errno()).$(']').$();
+            return false;
+        }
+        return map(Files.MAP_RO);
+    }
+
+    /**
+     * Opens log for writing. Log is an optimisation for readers, when it cannot be opened
+     * writer carries on without it and readers reload partition table in full.
+     */
+    public boolean openRW(Path root) {
+        assert mem == 0;
+        root.concat(TableUtils.PARTITION_CHANGE_LOG_FILE_NAME).$();
+        fd = ff.openRW(root);
+        if (fd < 0) {
+            LOG.info().$("could not open [file=").$(root).$(", errno=").$(ff.errno()).$(']').$();
+            return false;
+        }
+        if (ff.length(fd) < SIZE && !ff.allocate(fd, SIZE)) {
+            LOG.info().$("could not size [file=").$(root).$(", errno=").$(ff.errno()).$(']').$();
+            close();
+            return false;
+        }
+        return map(Files.MAP_RW);
+    }
+
+    public void record(long txn, int partitionTableLo) {
+        if (mem != 0) {
+            final long p = entryAddress(txn);
+            Unsafe.getUnsafe().putLong(p, -1);
+            Unsafe.getUnsafe().storeFence();
+            Unsafe.getUnsafe().putLong(p + Long.BYTES, partitionTableLo);
+            Unsafe.getUnsafe().storeFence();
+            Unsafe.getUnsafe().putLong(p, txn);
+        }
+    }
+
+    private long entryAddress(long txn) {
+        return mem + ((txn & (CAPACITY - 1)) << ENTRY_SIZE_MSB);
+    }
+
+    private boolean map(int mode) {
+        mem = ff.mmap(fd, SIZE, 0, mode, MemoryTag.MMAP_DEFAULT);
+        if (mem == -1) {
+            LOG.info().$("could not mmap [fd=").$(fd).$(", errno=").$(ff.errno()).$(']').$();
+            mem = 0;
+            close();
+            return false;
+        }
+        return true;
+    }
+}
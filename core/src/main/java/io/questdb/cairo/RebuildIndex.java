@@ -194,6 +194,9 @@ public class RebuildIndex implements Closeable, Mutable {
         if (ff.exists(path.$())) {
             try (final MemoryMR roMem = indexMem) {
                 removeIndexFiles(columnName, ff);
+                ColumnCompressor.decompress(ff, path, plen, columnName, ColumnType.SYMBOL);
+                // table is locked, there are no readers to keep compressed file for
+                ColumnCompressor.removeCompressed(ff, path, plen, columnName, ColumnType.SYMBOL);
                 TableUtils.dFile(path.trimTo(plen), columnName);
 
                 if (ff.exists(path.$())) {
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record chain that keeps records in a memory mapped file under the spill directory
+ * of the database root rather than in native memory. The file is created on the first
+ * record and removed when the chain is cleared, so that operators can offload data
+ * that does not fit their memory budget.
+ */
+public class SpillRecordChain extends RecordChain {
+    public static final String SPILL_DIR_NAME = ".spill";
+    private static final AtomicLong FILE_ID = new AtomicLong();
+    private final FilesFacade ff;
+    private final MemoryCMARW mem;
+    private final CharSequence root;
+    private final int mkDirMode;
+    private final long extendSegmentSize;
+    private final Path path = new Path();
+    private boolean open = false;
+
+    public SpillRecordChain(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes columnTypes,
+            RecordSink recordSink,
+            long extendSegmentSize
+    ) {
+        this(configuration, columnTypes, recordSink, extendSegmentSize, Vm.getCMARWInstance());
+    }
+
+    private SpillRecordChain(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes columnTypes,
+            RecordSink recordSink,
+            long extendSegmentSize,
+            MemoryCMARW mem
+    ) {
+        super(columnTypes, recordSink, mem);
+        this.mem = mem;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.extendSegmentSize = Files.ceilPageSize(extendSegmentSize);
+    }
+
+    @Override
+    public long beginRecord(long prevOffset) {
+        if (!open) {
+            openFile();
+        }
+        return super.beginRecord(prevOffset);
+    }
+
+    @Override
+    public void clear() {
+        closeFile();
+    }
+
+    @Override
+    public void close() {
+        closeFile();
+        Misc.free(path);
+    }
+
+    @Override
+    public void toTop() {
+        if (open) {
+            super.toTop();
+        } else {
+            of(-1L);
+        }
+    }
+
+    private void closeFile() {
+        super.close();
+        if (open) {
+            open = false;
+            if (!ff.remove(path)) {
+                throw CairoException.instance(ff.errno()).put("could not remove spill file [file=").put(path).put(']');
+            }
+        }
+    }
+
+    private void openFile() {
+        path.of(root).concat(SPILL_DIR_NAME);
+        if (ff.mkdirs(path.slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create spill directory [dir=").put(path).put(']');
+        }
+        path.chop$().put(Os.getPid()).put('-').put(FILE_ID.incrementAndGet()).put(".s").$();
+        mem.of(ff, path, extendSegmentSize, -1, MemoryTag.MMAP_DEFAULT);
+        open = true;
+    }
+}
@@ -26,7 +26,9 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.MemoryCMRDecompressImpl;
 import io.questdb.cairo.vm.MemoryCMRImpl;
+import io.questdb.cairo.vm.MemoryCMRSharedImpl;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.cairo.vm.api.MemoryR;
@@ -36,7 +38,9 @@ import io.questdb.std.*;
 import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.util.concurrent.locks.LockSupport;
@@ -64,6 +68,9 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final TxReader txFile;
     private final MemoryMR todoMem = Vm.getMRInstance();
     private final TxnScoreboard txnScoreboard;
+    private final PartitionChangeLog partitionChangeLog;
+    private final ColumnMappingCache columnMappingCache;
+    private final StringSink mappingVersion = new StringSink();
     private int partitionCount;
     private LongList columnTops;
     private ObjList<MemoryMR> columns;
@@ -77,7 +84,12 @@ public class TableReader implements Closeable, SymbolTableSource {
     private boolean txnAcquired = false;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, null);
+    }
+
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, @Nullable ColumnMappingCache columnMappingCache) {
         this.configuration = configuration;
+        this.columnMappingCache = columnMappingCache;
         this.ff = configuration.getFilesFacade();
         this.tableName = Chars.toString(tableName);
         this.path = new Path();
@@ -96,6 +108,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                     .I$();
             this.txFile = new TxReader(ff, path, partitionBy);
             path.trimTo(rootLen);
+            this.partitionChangeLog = new PartitionChangeLog(ff);
             readTxnSlow();
             openSymbolMaps();
             partitionCount = txFile.getPartitionCount();
@@ -168,6 +181,7 @@ public class TableReader implements Closeable, SymbolTableSource {
             freeColumns();
             freeTempMem();
             Misc.free(txnScoreboard);
+            Misc.free(partitionChangeLog);
             Misc.free(path);
             LOG.debug().$("closed '").utf8(tableName).$('\'').$();
         }
@@ -275,10 +289,29 @@ public class TableReader implements Closeable, SymbolTableSource {
         return end / PARTITIONS_SLOT_SIZE;
     }
 
+    public long getPartitionDataTxnByIndex(int partitionIndex) {
+        return txFile.getPartitionDataTxn(partitionIndex);
+    }
+
+    public long getPartitionNameTxnByIndex(int partitionIndex) {
+        return txFile.getPartitionNameTxn(partitionIndex);
+    }
+
     public long getPartitionTimestampByIndex(int partitionIndex) {
         return txFile.getPartitionTimestamp(partitionIndex);
     }
 
+    /**
+     * Committed row count of partition as recorded in the transaction file. Unlike
+     * {@link #openPartition(int)} this does not map partition files.
+     */
+    public long getPartitionSizeByIndex(int partitionIndex) {
+        if (partitionIndex == partitionCount - 1) {
+            return txFile.getTransientRowCount();
+        }
+        return txFile.getPartitionSize(partitionIndex);
+    }
+
     public int getPartitionedBy() {
         return metadata.getPartitionBy();
     }
@@ -374,6 +407,36 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Reads min/max statistics of column in open partition.
+     *
+     * @param partitionIndex index of open partition
+     * @param columnIndex    index of column
+     * @param zoneMap        statistics sink
+     * @return false when there are no statistics for the column or they do not reflect current partition size
+     */
+    public boolean readZoneMap(int partitionIndex, int columnIndex, ZoneMap zoneMap) {
+        final long partitionSize = getPartitionRowCount(partitionIndex);
+        if (partitionSize < 1) {
+            return false;
+        }
+        final int columnBase = getColumnBase(partitionIndex);
+        if (columns.getQuick(getPrimaryColumnIndex(columnBase, columnIndex)) == NullColumn.INSTANCE
+                || getColumnTop(columnBase, columnIndex) >= partitionSize) {
+            // column was added after partition had been written
+            zoneMap.of(metadata.getColumnType(columnIndex), 0, 0, partitionSize);
+            return true;
+        }
+        try {
+            Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, txFile.getPartitionNameTxn(partitionIndex));
+            return zoneMap.read(ff, TableUtils.zmFile(path, metadata.getColumnName(columnIndex)))
+                    && zoneMap.getRowCount() == partitionSize;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -771,7 +834,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_SIZE);
     }
 
-    long getTxn() {
+    public long getTxn() {
         return txn;
     }
 
@@ -820,17 +883,43 @@ public class TableReader implements Closeable, SymbolTableSource {
             ObjList<MemoryMR> columns,
             int primaryIndex,
             MemoryMR mem,
-            long columnSize
+            long columnSize,
+            boolean compressed
     ) {
-        if (mem != null && mem != NullColumn.INSTANCE) {
-            mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
+        if (mem != null && mem != NullColumn.INSTANCE && (mem instanceof MemoryCMRDecompressImpl) == compressed) {
+            openMemory(path, mem, columnSize);
         } else {
-            mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+            if (mem != NullColumn.INSTANCE) {
+                Misc.free(mem);
+            }
+            if (compressed) {
+                mem = new MemoryCMRDecompressImpl();
+                mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
+            } else if (columnMappingCache != null) {
+                mem = new MemoryCMRSharedImpl(columnMappingCache);
+                openMemory(path, mem, columnSize);
+            } else {
+                mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+            }
             columns.setQuick(primaryIndex, mem);
         }
         return mem;
     }
 
+    private void openMemory(Path path, MemoryMR mem, long columnSize) {
+        if (mem instanceof MemoryCMRSharedImpl) {
+            // files under the same path are only the same file while none of these versions change
+            mappingVersion.clear();
+            mappingVersion.put(metadata.getId())
+                    .put('.').put(txFile.getStructureVersion())
+                    .put('.').put(txFile.getDataVersion())
+                    .put('.').put(txFile.getPartitionTableVersion());
+            ((MemoryCMRSharedImpl) mem).of(ff, path, mappingVersion, columnSize, MemoryTag.MMAP_TABLE_READER);
+        } else {
+            mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
+        }
+    }
+
     private long openPartition0(int partitionIndex) {
         if (txFile.getPartitionCount() < 2 && txFile.getTransientRowCount() == 0) {
             return -1;
@@ -938,7 +1027,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                 // and check later if it was worth it
 
                 Unsafe.getUnsafe().loadFence();
-                txFile.unsafeLoadAll();
+                txFile.unsafeLoadAll(partitionChangeLog, this.txn);
 
                 this.symbolCountSnapshot.clear();
                 this.txFile.unsafeLoadSymbolCounts(this.symbolCountSnapshot);
@@ -1011,7 +1100,8 @@ public class TableReader implements Closeable, SymbolTableSource {
             }
             return;
         }
-        reconcileOpenPartitionsFrom(0);
+        // partitions below the lowest slot written by missed commits are unchanged
+        reconcileOpenPartitionsFrom(Math.min(txFile.getPartitionTableLo(), partitionCount));
     }
 
     private void releaseTxn() {
@@ -1061,20 +1151,28 @@ public class TableReader implements Closeable, SymbolTableSource {
             // When column is added mid-table existence the .top file is only
             // created in the current partition. Older partitions would simply have no
             // column file. This makes it necessary to check for .d file existence
-            if (partitionRowCount > 0 && ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+            // Cold partitions can have column files compressed, compressed file is used only
+            // when raw file does not exist
+            if (partitionRowCount > 0 && (ff.exists(TableUtils.dFile(path.trimTo(plen), name)) || ff.exists(TableUtils.dzFile(path.trimTo(plen), name)))) {
                 final int columnType = metadata.getColumnType(columnIndex);
 
                 if (ColumnType.isVariableLength(columnType)) {
                     long columnSize = columnRowCount * 8L + 8L;
-                    TableUtils.iFile(path.trimTo(plen), name);
-                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize);
+                    final boolean compressed = !ff.exists(TableUtils.iFile(path.trimTo(plen), name));
+                    if (compressed) {
+                        TableUtils.izFile(path.trimTo(plen), name);
+                    }
+                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize, compressed);
                     columnSize = mem2.getLong(columnRowCount * 8L);
                     TableUtils.dFile(path.trimTo(plen), name);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize, false);
                 } else {
                     long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
-                    TableUtils.dFile(path.trimTo(plen), name);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    final boolean compressed = !ff.exists(TableUtils.dFile(path.trimTo(plen), name));
+                    if (compressed) {
+                        TableUtils.dzFile(path.trimTo(plen), name);
+                    }
+                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize, compressed);
                     Misc.free(columns.getAndSetQuick(secondaryIndex, null));
                 }
 
@@ -1185,6 +1283,12 @@ public class TableReader implements Closeable, SymbolTableSource {
         final long prevStructVersion = this.txFile.getStructureVersion();
         final long prevPartitionVersion = this.txFile.getPartitionTableVersion();
 
+        // writer may have created change log after this reader was opened
+        if (!partitionChangeLog.isOpen() && PartitionBy.isPartitioned(metadata.getPartitionBy())) {
+            partitionChangeLog.openRO(path.trimTo(rootLen));
+            path.trimTo(rootLen);
+        }
+
         // reload tx file, this will update the versions
         this.readTxnSlow();
         reloadStruct(prevStructVersion);
@@ -1254,7 +1358,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                             //    instance and the column from disk
                             // 3. Column hasn't been altered and we can skip to next column.
                             MemoryMR col = columns.getQuick(getPrimaryColumnIndex(base, i));
-                            if ((col instanceof MemoryCMRImpl && col.isDeleted()) || col instanceof NullColumn) {
+                            if (((col instanceof MemoryCMRImpl || col instanceof MemoryCMRSharedImpl || col instanceof MemoryCMRDecompressImpl) && col.isDeleted()) || col instanceof NullColumn) {
                                 reloadColumnAt(
                                         path,
                                         columns,
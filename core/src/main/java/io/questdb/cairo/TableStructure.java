@@ -39,6 +39,17 @@ public interface TableStructure {
 
     boolean isSequential(int columnIndex);
 
+    /**
+     * Columns flagged as deduplication keys, together with the designated timestamp, identify
+     * a row. Rows that repeat an existing key are dropped when out-of-order data is committed.
+     *
+     * @param columnIndex index of column
+     * @return true when column is part of UPSERT KEYS
+     */
+    default boolean isDedupKey(int columnIndex) {
+        return false;
+    }
+
     int getPartitionBy();
 
     boolean getSymbolCacheFlag(int columnIndex);
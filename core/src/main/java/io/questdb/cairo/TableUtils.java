@@ -43,6 +43,7 @@ public final class TableUtils {
     public static final String META_FILE_NAME = "_meta";
     public static final String TXN_FILE_NAME = "_txn";
     public static final String TXN_SCOREBOARD_FILE_NAME = "_txn_scoreboard";
+    public static final String PARTITION_CHANGE_LOG_FILE_NAME = "_txn_changes";
     public static final String UPGRADE_FILE_NAME = "_upgrade.d";
     public static final String DETACHED_DIR_MARKER = ".detached";
     public static final String TAB_INDEX_FILE_NAME = "_tab_index.d";
@@ -62,6 +63,8 @@ public final class TableUtils {
     public static final long META_OFFSET_COMMIT_LAG = 24;
     public static final String FILE_SUFFIX_I = ".i";
     public static final String FILE_SUFFIX_D = ".d";
+    public static final String FILE_SUFFIX_DZ = ".dz";
+    public static final String FILE_SUFFIX_IZ = ".iz";
     public static final int LONGS_PER_TX_ATTACHED_PARTITION = 4;
     public static final int LONGS_PER_TX_ATTACHED_PARTITION_MSB = Numbers.msb(LONGS_PER_TX_ATTACHED_PARTITION);
     public static final String DEFAULT_PARTITION_NAME = "default";
@@ -77,6 +80,10 @@ public final class TableUtils {
     static final long TX_OFFSET_TXN = 0;
     static final long TX_OFFSET_DATA_VERSION = 48;
     static final long TX_OFFSET_PARTITION_TABLE_VERSION = 56;
+    // WAL id, segment id and token of the last WAL segment applied to the table
+    static final long TX_OFFSET_WAL_ID = 72;
+    static final long TX_OFFSET_WAL_SEGMENT_ID = 80;
+    static final long TX_OFFSET_WAL_SEGMENT_TOKEN = 88;
     /**
      * TXN file structure
      * struct {
@@ -101,6 +108,7 @@ public final class TableUtils {
     static final long META_OFFSET_PARTITION_BY = 4;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_DEDUP_KEY = 1 << 2;
     static final String TODO_FILE_NAME = "_todo_";
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
@@ -175,6 +183,10 @@ public final class TableUtils {
                     flags |= META_FLAG_BIT_SEQUENTIAL;
                 }
 
+                if (structure.isDedupKey(i)) {
+                    flags |= META_FLAG_BIT_DEDUP_KEY;
+                }
+
                 mem.putLong(flags);
                 mem.putInt(structure.getIndexBlockCapacity(i));
                 mem.putLong(structure.getColumnHash(i));
@@ -272,6 +284,10 @@ public final class TableUtils {
         return path.concat(columnName).put(FILE_SUFFIX_D).$();
     }
 
+    public static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(FILE_SUFFIX_DZ).$();
+    }
+
     public static int exists(FilesFacade ff, Path path, CharSequence root, CharSequence name) {
         return exists(ff, path, root, name, 0, name.length());
     }
@@ -343,6 +359,10 @@ public final class TableUtils {
         return path.concat(columnName).put(FILE_SUFFIX_I).$();
     }
 
+    public static LPSZ izFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(FILE_SUFFIX_IZ).$();
+    }
+
     public static boolean isValidColumnName(CharSequence seq) {
         for (int i = 0, l = seq.length(); i < l; i++) {
             char c = seq.charAt(i);
@@ -827,6 +847,10 @@ public final class TableUtils {
         return path.concat(columnName).put(".top").$();
     }
 
+    static LPSZ zmFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".zm").$();
+    }
+
     static long getColumnFlags(MemoryR metaMem, int columnIndex) {
         return metaMem.getLong(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 4);
     }
@@ -839,6 +863,10 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
 
+    static boolean isColumnDedupKey(MemoryR metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_DEDUP_KEY) != 0;
+    }
+
     static int getIndexBlockCapacity(MemoryR metaMem, int columnIndex) {
         return metaMem.getInt(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 4 + 8);
     }
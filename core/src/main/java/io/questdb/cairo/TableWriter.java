@@ -125,9 +125,14 @@ public class TableWriter implements Closeable {
     private final MemoryMARW todoMem = Vm.getMARWInstance();
     private final TxWriter txWriter;
     private final LongList o3PartitionRemoveCandidates = new LongList();
+    // partition timestamp and name txn of partitions removed by pending replace
+    private final LongList replacedPartitions = new LongList();
+    // partition timestamp, partition name txn and txn of decompressed partitions
+    private final LongList compressedFileRemoveCandidates = new LongList();
     private final ObjectPool<O3MutableAtomicInteger> o3ColumnCounters = new ObjectPool<>(O3MutableAtomicInteger::new, 64);
     private final ObjectPool<O3Basket> o3BasketPool = new ObjectPool<>(O3Basket::new, 64);
     private final TxnScoreboard txnScoreboard;
+    private final PartitionChangeLog partitionChangeLog;
     private final StringSink o3Sink = new StringSink();
     private final StringSink fileNameSink = new StringSink();
     private final FindVisitor removePartitionDirectories = this::removePartitionDirectories0;
@@ -137,6 +142,11 @@ public class TableWriter implements Closeable {
     private final MPSequence o3PartitionUpdatePubSeq;
     private final SCSequence o3PartitionUpdateSubSeq;
     private final boolean o3QuickSortEnabled;
+    // partitions to compute zone maps for once transaction is committed
+    private final LongList zoneMapPartitions = new LongList();
+    // statistics of O3 rows merged into partitions, they are added to statistics of existing rows on commit
+    private final LongList zoneMapO3Stats = new LongList();
+    private final ZoneMap zoneMap;
     private final LongConsumer appendTimestampSetter;
     private final MemoryMR indexMem = Vm.getMRInstance();
     private final MemoryFR slaveMetaMem = new MemoryFCRImpl();
@@ -145,6 +155,10 @@ public class TableWriter implements Closeable {
     // Latest command sequence per command source.
     // Publisher source is identified by a long value
     private final LongLongHashMap cmdSequences = new LongLongHashMap();
+    // non-timestamp columns of UPSERT KEYS and addresses of their data in the partition being deduplicated
+    private final IntList dedupKeyColumns = new IntList();
+    private final LongList dedupKeyAddresses = new LongList();
+    private final LongList dedupKeyColumnTops = new LongList();
     private Row row = regularRow;
     private long todoTxn;
     private MemoryMAT o3TimestampMem;
@@ -179,6 +193,7 @@ public class TableWriter implements Closeable {
     private int rowActon = ROW_ACTION_OPEN_PARTITION;
     private final AlterStatement alterTableStatement = new AlterStatement();
     private long committedMasterRef;
+    private boolean dedupEnabled;
 
 
     public TableWriter(CairoConfiguration configuration, CharSequence tableName) {
@@ -224,6 +239,7 @@ public class TableWriter implements Closeable {
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
         this.tableName = Chars.toString(tableName);
         this.o3QuickSortEnabled = configuration.isO3QuickSortEnabled();
+        this.zoneMap = configuration.isZoneMapsEnabled() ? new ZoneMap() : null;
         this.o3PartitionUpdateQueue = new RingQueue<O3PartitionUpdateTask>(O3PartitionUpdateTask.CONSTRUCTOR, configuration.getO3PartitionUpdateQueueCapacity());
         this.o3PartitionUpdatePubSeq = new MPSequence(this.o3PartitionUpdateQueue.getCycle());
         this.o3PartitionUpdateSubSeq = new SCSequence();
@@ -267,6 +283,10 @@ public class TableWriter implements Closeable {
             this.partitionBy = metaMem.getInt(META_OFFSET_PARTITION_BY);
             this.txWriter = new TxWriter(ff, path, partitionBy);
             this.txnScoreboard = new TxnScoreboard(ff, path.trimTo(rootLen), configuration.getTxnScoreboardEntryCount());
+            this.partitionChangeLog = new PartitionChangeLog(ff);
+            if (PartitionBy.isPartitioned(partitionBy) && partitionChangeLog.openRW(path.trimTo(rootLen))) {
+                txWriter.setPartitionChangeLog(partitionChangeLog);
+            }
             path.trimTo(rootLen);
             // we have to do truncate repair at this stage of constructor
             // because this operation requires metadata
@@ -307,6 +327,7 @@ public class TableWriter implements Closeable {
             }
 
             configureColumnMemory();
+            configureDedupKeys();
             configureTimestampSetter();
             this.appendTimestampSetter = timestampSetter;
             configureAppendPosition();
@@ -330,6 +351,10 @@ public class TableWriter implements Closeable {
         return Unsafe.getUnsafe().getLong(timestampIndex + indexRow * 16);
     }
 
+    private static long getTimestampIndexRow(long timestampIndex, long indexRow) {
+        return Unsafe.getUnsafe().getLong(timestampIndex + indexRow * 16 + Long.BYTES);
+    }
+
     public void addColumn(CharSequence name, int type) {
         addColumn(name, type, configuration.getDefaultSymbolCapacity(), configuration.getDefaultSymbolCacheFlag(), false, 0, false);
     }
@@ -724,6 +749,10 @@ public class TableWriter implements Closeable {
         return metadata;
     }
 
+    public long getMinTimestamp() {
+        return txWriter.getMinTimestamp();
+    }
+
     public long getO3RowCount() {
         return hasO3() ? getO3RowCount0() : 0;
     }
@@ -774,6 +803,13 @@ public class TableWriter implements Closeable {
         return txWriter != null && (txWriter.inTransaction() || hasO3());
     }
 
+    /**
+     * @return true when the WAL segment has been applied by the last committed transaction of the table
+     */
+    public boolean isAppliedWalSegment(int walId, long segmentId, long token) {
+        return txWriter.isAppliedWalSegment(walId, segmentId, token);
+    }
+
     public boolean isOpen() {
         return tempMem16b != 0;
     }
@@ -797,8 +833,10 @@ public class TableWriter implements Closeable {
 
             default: // switch partition
                 bumpMasterRef();
-                if (timestamp > partitionTimestampHi || timestamp < txWriter.getMaxTimestamp()) {
-                    if (timestamp < txWriter.getMaxTimestamp()) {
+                if (timestamp > partitionTimestampHi || timestamp <= txWriter.getMaxTimestamp()) {
+                    // with deduplication enabled a row that repeats max timestamp may repeat a row
+                    // that already exists, it has to go via O3 commit to be checked
+                    if (timestamp < txWriter.getMaxTimestamp() || (dedupEnabled && timestamp == txWriter.getMaxTimestamp())) {
                         return newRowO3(timestamp);
                     }
 
@@ -909,6 +947,7 @@ public class TableWriter implements Closeable {
         txWriter.bumpStructureVersion(this.denseSymbolMapWriters);
 
         metadata.removeColumn(name);
+        configureDedupKeys();
         if (timestamp) {
             metadata.setTimestampIndex(-1);
         } else if (timestampColumnName != null) {
@@ -920,6 +959,107 @@ public class TableWriter implements Closeable {
         LOG.info().$("REMOVED column '").utf8(name).$("' from ").$(path).$();
     }
 
+    /**
+     * Rewrites columns of historic partition into compressed form. Compressed copy of the partition is
+     * written under new name and published with a transaction, the original directory is purged once
+     * readers of earlier transactions release it. Compressed partition remains readable,
+     * {@link TableReader} expands columns into memory when partition is opened. Rows that arrive out
+     * of order into compressed partition cause it to be decompressed before merge.
+     *
+     * @param timestamp any timestamp within partition
+     * @return false when partition does not exist, is not attached or is the active partition
+     */
+    public boolean compressPartition(long timestamp) {
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            return false;
+        }
+        timestamp = getPartitionLo(timestamp);
+        final long maxTimestamp = txWriter.getMaxTimestamp();
+        if (timestamp < getPartitionLo(txWriter.getMinTimestamp()) || timestamp > maxTimestamp) {
+            return false;
+        }
+
+        if (timestamp == getPartitionLo(maxTimestamp)) {
+            LOG.error()
+                    .$("cannot compress active partition [path=").$(path)
+                    .$(", maxTimestamp=").$ts(maxTimestamp)
+                    .$(']').$();
+            return false;
+        }
+
+        if (!txWriter.attachedPartitionsContains(timestamp)) {
+            LOG.error().$("partition is not attached [path=").$(path).$(']').$();
+            return false;
+        }
+
+        try {
+            setStateForTimestamp(path, timestamp, false);
+            final int plen = path.length();
+            if (!ff.exists(path.$())) {
+                LOG.error().$("partition does not exist [path=").$(path).$(']').$();
+                return false;
+            }
+            final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(timestamp);
+            final long srcNameTxn = txWriter.getPartitionNameTxnByIndex(partitionIndex);
+            final long partitionSize = txWriter.getPartitionSizeByIndex(partitionIndex);
+
+            // compressed copy is staged under the name of new transaction
+            TableUtils.setPathForPartition(other.trimTo(rootLen), partitionBy, timestamp, false);
+            TableUtils.txnPartition(other, txWriter.getTxn());
+            final int dstPlen = other.length();
+            if (ff.exists(other.slash$()) && ff.rmdir(other) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not remove [path=").put(other).put(']');
+            }
+            createDirsOrFail(ff, other.trimTo(dstPlen).slash$(), mkDirMode);
+            int compressed = 0;
+            try {
+                final int timestampIndex = metadata.getTimestampIndex();
+                for (int i = 0; i < columnCount; i++) {
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    final int columnType = metadata.getColumnType(i);
+                    final boolean varSize = ColumnType.isVariableLength(columnType);
+                    final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, true);
+                    // timestamp column is always compressed, it marks partition as compressed
+                    if (partitionSize > columnTop
+                            && ColumnCompressor.compress(ff, path, plen, other, dstPlen, columnName, columnType, partitionSize - columnTop, i == timestampIndex)) {
+                        compressed++;
+                    } else if (varSize) {
+                        if (!copyPartitionFile(iFile(path.trimTo(plen), columnName), iFile(other.trimTo(dstPlen), columnName))) {
+                            // column has been compressed earlier
+                            copyPartitionFile(izFile(path.trimTo(plen), columnName), izFile(other.trimTo(dstPlen), columnName));
+                        }
+                    } else if (!copyPartitionFile(dFile(path.trimTo(plen), columnName), dFile(other.trimTo(dstPlen), columnName))) {
+                        copyPartitionFile(dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(dstPlen), columnName));
+                    }
+                    if (varSize) {
+                        copyPartitionFile(dFile(path.trimTo(plen), columnName), dFile(other.trimTo(dstPlen), columnName));
+                    }
+                    copyPartitionFile(topFile(path.trimTo(plen), columnName), topFile(other.trimTo(dstPlen), columnName));
+                    copyPartitionFile(zmFile(path.trimTo(plen), columnName), zmFile(other.trimTo(dstPlen), columnName));
+                    copyPartitionFile(BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(dstPlen), columnName));
+                    copyPartitionFile(BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(dstPlen), columnName));
+                }
+            } catch (Throwable e) {
+                if (ff.rmdir(other.trimTo(dstPlen).slash$()) != 0) {
+                    LOG.error().$("could not remove [path=").$(other).$(", errno=").$(ff.errno()).I$();
+                }
+                throw e;
+            }
+
+            txWriter.updatePartitionSizeByIndexAndTxn(partitionIndex, partitionSize);
+            txWriter.bumpPartitionTableVersion();
+            txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+            LOG.info().$("compressed partition [path=").$(other.trimTo(dstPlen)).$(", columns=").$(compressed).I$();
+            o3PartitionRemoveCandidates.clear();
+            o3PartitionRemoveCandidates.add(timestamp, srcNameTxn);
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+        o3ProcessPartitionRemoveCandidates();
+        return true;
+    }
+
     public boolean removePartition(long timestamp) {
         long minTimestamp = txWriter.getMinTimestamp();
         long maxTimestamp = txWriter.getMaxTimestamp();
@@ -984,6 +1124,59 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Removes partition containing given timestamp together with all partitions that follow it,
+     * including the active one, as part of the current transaction. Rows appended afterwards
+     * replace removed partitions: readers see either removed partitions or rows that replaced
+     * them, never the table without both. Appended partitions are written to directories of
+     * their own, removed ones are purged after commit once readers no longer use them. Rollback
+     * restores removed partitions. Uncommitted rows are rolled back before removal.
+     *
+     * @param timestamp any timestamp in the first partition to remove
+     */
+    public void replacePartitionsFrom(long timestamp) {
+        checkDistressed();
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.instance(0).put("table is not partitioned [table=").put(tableName).put(']');
+        }
+        rollback();
+
+        final long maxTimestamp = txWriter.getMaxTimestamp();
+        if (maxTimestamp == Long.MIN_VALUE) {
+            return;
+        }
+        timestamp = getPartitionLo(timestamp);
+        if (timestamp > maxTimestamp) {
+            return;
+        }
+
+        freeColumns(false);
+        txWriter.beginPartitionSizeUpdate();
+        for (int i = txWriter.getPartitionCount() - 1; i > -1; i--) {
+            final long partitionTimestamp = txWriter.getPartitionTimestamp(i);
+            if (partitionTimestamp < timestamp) {
+                break;
+            }
+            replacedPartitions.add(partitionTimestamp, txWriter.getPartitionNameTxn(i));
+            txWriter.removeAttachedPartitions(partitionTimestamp);
+        }
+        final int partitionCount = txWriter.getPartitionCount();
+        long nextMaxTimestamp = Long.MIN_VALUE;
+        if (partitionCount > 0) {
+            nextMaxTimestamp = readMaxTimestamp(
+                    txWriter.getPartitionTimestamp(partitionCount - 1),
+                    txWriter.getPartitionSize(partitionCount - 1)
+            );
+            txWriter.finishPartitionSizeUpdate(txWriter.getMinTimestamp(), nextMaxTimestamp);
+        }
+        txWriter.beginReplace();
+        configureAppendPosition();
+        LOG.info().$("replacing partitions [name=").$(tableName)
+                .$(", from=").$ts(timestamp)
+                .$(", maxTimestamp=").$ts(nextMaxTimestamp)
+                .I$();
+    }
+
     public void renameColumn(CharSequence currentName, CharSequence newName) {
 
         checkDistressed();
@@ -1320,6 +1513,11 @@ public class TableWriter implements Closeable {
                     masterRef++;
                 }
                 freeColumns(false);
+                zoneMapPartitions.clear();
+                zoneMapO3Stats.clear();
+                if (txWriter.isReplacing()) {
+                    removeReplacingPartitions();
+                }
                 this.txWriter.unsafeLoadAll();
                 rollbackIndexes();
                 rollbackSymbolTables();
@@ -1337,6 +1535,14 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Records WAL segment, which rows are part of the current transaction. The record becomes durable
+     * together with the rows on commit, so that the segment is not applied twice.
+     */
+    public void setAppliedWalSegment(int walId, long segmentId, long token) {
+        txWriter.setAppliedWalSegment(walId, segmentId, token);
+    }
+
     public void setLifecycleManager(LifecycleManager lifecycleManager) {
         this.lifecycleManager = lifecycleManager;
     }
@@ -1867,7 +2073,11 @@ public class TableWriter implements Closeable {
 
             // Bookmark masterRef to track how many rows is in uncommitted state
             this.committedMasterRef = masterRef;
+            o3PartitionRemoveCandidates.add(replacedPartitions);
+            replacedPartitions.clear();
             o3ProcessPartitionRemoveCandidates();
+            processCompressedFileRemoveCandidates();
+            updateZoneMaps();
         }
     }
 
@@ -1893,6 +2103,19 @@ public class TableWriter implements Closeable {
         activeColumns = columns;
     }
 
+    private void configureDedupKeys() {
+        dedupKeyColumns.clear();
+        final int timestampIndex = metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX);
+        dedupEnabled = timestampIndex > -1 && isColumnDedupKey(metaMem, timestampIndex);
+        if (dedupEnabled) {
+            for (int i = 0, n = metaMem.getInt(META_OFFSET_COUNT); i < n; i++) {
+                if (i != timestampIndex && isColumnDedupKey(metaMem, i)) {
+                    dedupKeyColumns.add(i);
+                }
+            }
+        }
+    }
+
     private void configureColumn(int type, boolean indexFlag) {
         final MemoryMAR primary = Vm.getMARInstance();
         final MemoryMAR secondary;
@@ -2036,6 +2259,16 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private boolean copyPartitionFile(LPSZ src, LPSZ dst) {
+        if (!ff.exists(src)) {
+            return false;
+        }
+        if (ff.copy(src, dst) < 0) {
+            throw CairoException.instance(ff.errno()).put("could not copy [from=").put(src).put(", to=").put(dst).put(']');
+        }
+        return true;
+    }
+
     private int copyMetadataAndSetIndexed(int columnIndex, int indexValueBlockSize) {
         try {
             int index = openMetaSwapFile(ff, ddlMem, path, rootLen, configuration.getMaxSwapFileCount());
@@ -2054,6 +2287,9 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isColumnDedupKey(metaMem, i)) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.putLong(getColumnHash(metaMem, i));
@@ -2183,8 +2419,10 @@ public class TableWriter implements Closeable {
             releaseLock(!truncate | tx | performRecovery | distressed);
         } finally {
             Misc.free(txnScoreboard);
+            Misc.free(partitionChangeLog);
             Misc.free(path);
             Misc.free(o3TimestampMemCpy);
+            Misc.free(zoneMap);
             final FanOut commandFanOut = messageBus.getTableWriterCommandFanOut();
             if (commandFanOut != null) {
                 commandFanOut.remove(commandSubSeq);
@@ -2358,6 +2596,13 @@ public class TableWriter implements Closeable {
 
                         final int plen = path.length();
 
+                        // index is built over raw column file
+                        if (ff.exists(dzFile(path.trimTo(plen), columnName))) {
+                            ColumnCompressor.decompress(ff, path, plen, columnName, ColumnType.SYMBOL);
+                            compressedFileRemoveCandidates.add(timestamp);
+                            compressedFileRemoveCandidates.add(txWriter.getPartitionNameTxnByPartitionTimestamp(timestamp));
+                            compressedFileRemoveCandidates.add(txWriter.getTxn());
+                        }
                         TableUtils.dFile(path.trimTo(plen), columnName);
 
                         if (ff.exists(path)) {
@@ -2479,6 +2724,19 @@ public class TableWriter implements Closeable {
                 Vect.quickSortLongIndexAscInPlace(sortedTimestampsAddr, o3RowCount);
             }
 
+            o3DecompressPartitions(sortedTimestampsAddr, o3RowCount);
+
+            if (dedupEnabled) {
+                o3RowCount = o3Dedup(sortedTimestampsAddr, o3RowCount);
+                if (o3RowCount == 0) {
+                    // every row repeats committed data, there is nothing to merge but the rows
+                    // moved out of last partition have to be forgotten
+                    LOG.info().$("o3 rows are duplicates [table=").$(tableName).I$();
+                    setAppendPosition(txWriter.getTransientRowCount(), true);
+                    return false;
+                }
+            }
+
             // we have three frames:
             // partition logical "lo" and "hi" - absolute bounds (partitionLo, partitionHi)
             // partition actual data "lo" and "hi" (dataLo, dataHi)
@@ -2836,6 +3094,282 @@ public class TableWriter implements Closeable {
         return false;
     }
 
+    private void o3DecompressPartitions(long sortedTimestampsAddr, long rowCount) {
+        // o3 merge reads and appends raw column files, compressed partitions
+        // that receive rows have to be expanded first
+        long lo = 0;
+        while (lo < rowCount) {
+            final long partitionTimestamp = partitionFloorMethod.floor(getTimestampIndexValue(sortedTimestampsAddr, lo));
+            final long partitionCeil = partitionCeilMethod.ceil(partitionTimestamp) - 1;
+            final long hi = Vect.boundedBinarySearchIndexT(sortedTimestampsAddr, partitionCeil, lo, rowCount - 1, BinarySearch.SCAN_DOWN);
+            if (partitionTimestamp != lastPartitionTimestamp && txWriter.attachedPartitionsContains(partitionTimestamp)) {
+                decompressPartition(partitionTimestamp);
+            }
+            lo = hi + 1;
+        }
+    }
+
+    private void decompressPartition(long partitionTimestamp) {
+        try {
+            setStateForTimestamp(other, partitionTimestamp, false);
+            final int plen = other.length();
+            final CharSequence timestampName = metadata.getColumnName(metadata.getTimestampIndex());
+            if (ff.exists(dFile(other.trimTo(plen), timestampName)) || !ff.exists(dzFile(other.trimTo(plen), timestampName))) {
+                return;
+            }
+            LOG.info().$("decompressing [path=").$(other.trimTo(plen)).I$();
+            for (int i = 0; i < columnCount; i++) {
+                ColumnCompressor.decompress(ff, other, plen, metadata.getColumnName(i), metadata.getColumnType(i));
+            }
+            compressedFileRemoveCandidates.add(partitionTimestamp);
+            compressedFileRemoveCandidates.add(txWriter.getPartitionNameTxnByPartitionTimestamp(partitionTimestamp));
+            compressedFileRemoveCandidates.add(txWriter.getTxn());
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Removes rows that repeat designated timestamp and UPSERT KEYS values from sorted O3 index. Duplicates
+     * within the O3 batch collapse to the row that was written first and rows that already exist in
+     * committed partitions are dropped. The index is compacted in place.
+     *
+     * @param sortedTimestampsAddr timestamp index sorted by timestamp, 16 bytes per entry
+     * @param rowCount             number of entries in the index
+     * @return number of index entries that remain
+     */
+    private long o3Dedup(long sortedTimestampsAddr, long rowCount) {
+        // collapse duplicates in the batch, index is sorted so equal timestamps are adjacent
+        long count = 0;
+        long runLo = 0;
+        long prevTimestamp = Long.MIN_VALUE;
+        for (long i = 0; i < rowCount; i++) {
+            final long timestamp = getTimestampIndexValue(sortedTimestampsAddr, i);
+            final long row = getTimestampIndexRow(sortedTimestampsAddr, i);
+            if (timestamp != prevTimestamp) {
+                prevTimestamp = timestamp;
+                runLo = count;
+            } else {
+                long k = runLo;
+                for (; k < count; k++) {
+                    final long keptRow = getTimestampIndexRow(sortedTimestampsAddr, k);
+                    if (o3DedupKeysMatch(row, 0, keptRow)) {
+                        if (row < keptRow) {
+                            Unsafe.getUnsafe().putLong(sortedTimestampsAddr + k * 16 + Long.BYTES, row);
+                        }
+                        break;
+                    }
+                }
+                if (k < count) {
+                    continue;
+                }
+            }
+            Unsafe.getUnsafe().putLong(sortedTimestampsAddr + count * 16, timestamp);
+            Unsafe.getUnsafe().putLong(sortedTimestampsAddr + count * 16 + Long.BYTES, row);
+            count++;
+        }
+
+        // drop rows already committed to partitions
+        final long batchRowCount = count;
+        long lo = 0;
+        count = 0;
+        while (lo < batchRowCount) {
+            final long partitionTimestamp = partitionFloorMethod.floor(getTimestampIndexValue(sortedTimestampsAddr, lo));
+            final long partitionCeil = partitionCeilMethod.ceil(partitionTimestamp) - 1;
+            final long hi = Vect.boundedBinarySearchIndexT(sortedTimestampsAddr, partitionCeil, lo, batchRowCount - 1, BinarySearch.SCAN_DOWN);
+            final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+            final long partitionSize;
+            if (partitionIndex < 0) {
+                partitionSize = 0;
+            } else if (partitionTimestamp == lastPartitionTimestamp) {
+                partitionSize = txWriter.transientRowCount;
+            } else {
+                partitionSize = getPartitionSizeByIndex(partitionIndex);
+            }
+
+            if (partitionSize > 0) {
+                count = o3DedupPartition(sortedTimestampsAddr, lo, hi, count, partitionTimestamp, getPartitionNameTxnByIndex(partitionIndex), partitionSize);
+            } else if (count < lo) {
+                Vect.memmove(sortedTimestampsAddr + count * 16, sortedTimestampsAddr + lo * 16, (hi - lo + 1) * 16);
+                count += hi - lo + 1;
+            } else {
+                count = hi + 1;
+            }
+            lo = hi + 1;
+        }
+
+        if (count < rowCount) {
+            LOG.info().$("o3 dedup [table=").$(tableName).$(", rows=").$(rowCount).$(", duplicates=").$(rowCount - count).I$();
+        }
+        return count;
+    }
+
+    private boolean o3DedupKeysMatch(long o3Row, long partitionRow, long otherO3Row) {
+        for (int i = 0, n = dedupKeyColumns.size(); i < n; i++) {
+            final int columnIndex = dedupKeyColumns.getQuick(i);
+            final int size = ColumnType.sizeOf(metadata.getColumnType(columnIndex));
+            final long o3Address = o3Columns.getQuick(getPrimaryColumnIndex(columnIndex)).addressOf(o3Row * size);
+            if (otherO3Row > -1) {
+                if (!o3DedupValuesMatch(o3Address, o3Columns.getQuick(getPrimaryColumnIndex(columnIndex)).addressOf(otherO3Row * size), size)) {
+                    return false;
+                }
+            } else {
+                final long columnTop = dedupKeyColumnTops.getQuick(i);
+                if (partitionRow < columnTop) {
+                    // column has been added after the row was written, the row has null key
+                    if (!o3DedupValueIsNull(o3Address, metadata.getColumnType(columnIndex))) {
+                        return false;
+                    }
+                } else if (!o3DedupValuesMatch(o3Address, dedupKeyAddresses.getQuick(i) + (partitionRow - columnTop) * size, size)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // same null values as null setters write for rows that omit the column
+    private static boolean o3DedupValueIsNull(long address, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                return Unsafe.getUnsafe().getByte(address) == 0;
+            case ColumnType.CHAR:
+            case ColumnType.SHORT:
+                return Unsafe.getUnsafe().getShort(address) == 0;
+            case ColumnType.INT:
+                return Unsafe.getUnsafe().getInt(address) == Numbers.INT_NaN;
+            case ColumnType.SYMBOL:
+                return Unsafe.getUnsafe().getInt(address) == SymbolTable.VALUE_IS_NULL;
+            case ColumnType.FLOAT:
+                return Float.isNaN(Unsafe.getUnsafe().getFloat(address));
+            case ColumnType.DOUBLE:
+                return Double.isNaN(Unsafe.getUnsafe().getDouble(address));
+            case ColumnType.GEOBYTE:
+                return Unsafe.getUnsafe().getByte(address) == GeoHashes.BYTE_NULL;
+            case ColumnType.GEOSHORT:
+                return Unsafe.getUnsafe().getShort(address) == GeoHashes.SHORT_NULL;
+            case ColumnType.GEOINT:
+                return Unsafe.getUnsafe().getInt(address) == GeoHashes.INT_NULL;
+            case ColumnType.GEOLONG:
+                return Unsafe.getUnsafe().getLong(address) == GeoHashes.NULL;
+            case ColumnType.LONG256:
+                for (int offset = 0; offset < Long256.BYTES; offset += Long.BYTES) {
+                    if (Unsafe.getUnsafe().getLong(address + offset) != Numbers.LONG_NaN) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return Unsafe.getUnsafe().getLong(address) == Numbers.LONG_NaN;
+        }
+    }
+
+    private static boolean o3DedupValuesMatch(long address, long otherAddress, int size) {
+        switch (size) {
+            case Byte.BYTES:
+                return Unsafe.getUnsafe().getByte(address) == Unsafe.getUnsafe().getByte(otherAddress);
+            case Short.BYTES:
+                return Unsafe.getUnsafe().getShort(address) == Unsafe.getUnsafe().getShort(otherAddress);
+            case Integer.BYTES:
+                return Unsafe.getUnsafe().getInt(address) == Unsafe.getUnsafe().getInt(otherAddress);
+            default:
+                for (int offset = 0; offset < size; offset += Long.BYTES) {
+                    if (Unsafe.getUnsafe().getLong(address + offset) != Unsafe.getUnsafe().getLong(otherAddress + offset)) {
+                        return false;
+                    }
+                }
+                return true;
+        }
+    }
+
+    private long o3DedupPartition(
+            long sortedTimestampsAddr,
+            long lo,
+            long hi,
+            long count,
+            long partitionTimestamp,
+            long partitionNameTxn,
+            long partitionSize
+    ) {
+        path.trimTo(rootLen);
+        setPathForPartition(path, partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(path, partitionNameTxn);
+        final int plen = path.length();
+        final int keyCount = dedupKeyColumns.size();
+        dedupKeyAddresses.clear();
+        dedupKeyColumnTops.clear();
+        long timestampFd = -1;
+        long timestampAddr = 0;
+        final long timestampSize = partitionSize * Long.BYTES;
+        try {
+            timestampFd = openRO(ff, dFile(path.trimTo(plen), metadata.getColumnName(metadata.getTimestampIndex())), LOG);
+            timestampAddr = mapRO(ff, timestampFd, timestampSize, MemoryTag.MMAP_O3);
+            final long partitionMin = Unsafe.getUnsafe().getLong(timestampAddr);
+            final long partitionMax = Unsafe.getUnsafe().getLong(timestampAddr + timestampSize - Long.BYTES);
+
+            for (long i = lo; i <= hi; i++) {
+                final long timestamp = getTimestampIndexValue(sortedTimestampsAddr, i);
+                final long row = getTimestampIndexRow(sortedTimestampsAddr, i);
+                if (timestamp >= partitionMin && timestamp <= partitionMax) {
+                    long partitionRow = Vect.binarySearch64Bit(timestampAddr, timestamp, 0, partitionSize - 1, BinarySearch.SCAN_UP);
+                    if (partitionRow > -1) {
+                        if (dedupKeyAddresses.size() < keyCount) {
+                            for (int k = 0; k < keyCount; k++) {
+                                final int columnIndex = dedupKeyColumns.getQuick(k);
+                                final CharSequence columnName = metadata.getColumnName(columnIndex);
+                                final long columnTop = Math.min(readColumnTop(ff, path.trimTo(plen), columnName, plen, true), partitionSize);
+                                dedupKeyColumnTops.add(columnTop);
+                                final long columnSize = (partitionSize - columnTop) * ColumnType.sizeOf(metadata.getColumnType(columnIndex));
+                                if (columnSize > 0) {
+                                    final long fd = openRO(ff, dFile(path.trimTo(plen), columnName), LOG);
+                                    try {
+                                        dedupKeyAddresses.add(mapRO(ff, fd, columnSize, MemoryTag.MMAP_O3));
+                                    } finally {
+                                        ff.close(fd);
+                                    }
+                                } else {
+                                    dedupKeyAddresses.add(0);
+                                }
+                            }
+                        }
+
+                        boolean duplicate = false;
+                        for (; partitionRow < partitionSize && Unsafe.getUnsafe().getLong(timestampAddr + partitionRow * Long.BYTES) == timestamp; partitionRow++) {
+                            if (o3DedupKeysMatch(row, partitionRow, -1)) {
+                                duplicate = true;
+                                break;
+                            }
+                        }
+                        if (duplicate) {
+                            continue;
+                        }
+                    }
+                }
+                Unsafe.getUnsafe().putLong(sortedTimestampsAddr + count * 16, timestamp);
+                Unsafe.getUnsafe().putLong(sortedTimestampsAddr + count * 16 + Long.BYTES, row);
+                count++;
+            }
+        } finally {
+            for (int k = 0, n = dedupKeyAddresses.size(); k < n; k++) {
+                final long address = dedupKeyAddresses.getQuick(k);
+                if (address != 0) {
+                    final int columnIndex = dedupKeyColumns.getQuick(k);
+                    final long columnSize = (partitionSize - dedupKeyColumnTops.getQuick(k)) * ColumnType.sizeOf(metadata.getColumnType(columnIndex));
+                    ff.munmap(address, columnSize, MemoryTag.MMAP_O3);
+                }
+            }
+            if (timestampAddr != 0) {
+                ff.munmap(timestampAddr, timestampSize, MemoryTag.MMAP_O3);
+            }
+            if (timestampFd > -1) {
+                ff.close(timestampFd);
+            }
+            path.trimTo(rootLen);
+        }
+        return count;
+    }
+
     private void o3CommitPartitionAsync(
             AtomicInteger columnCounter,
             long maxTimestamp,
@@ -3288,6 +3822,25 @@ public class TableWriter implements Closeable {
                 .$(", partitionSize=").$(partitionSize)
                 .I$();
 
+        if (zoneMap != null) {
+            // previous active partition is complete when o3 rows start new one
+            zoneMapPartitions.add(lastPartitionTimestamp);
+            if (partitionTimestamp != lastPartitionTimestamp) {
+                if (dedupEnabled) {
+                    // deduplication replaces existing rows, their statistics cannot be reused
+                    zoneMapPartitions.add(partitionTimestamp);
+                } else {
+                    o3ZoneMapStats(
+                            partitionTimestamp,
+                            srcDataMax,
+                            partitionIndex > -1 ? txWriter.getPartitionNameTxnByIndex(partitionIndex) : -1,
+                            srcOooPartitionLo,
+                            srcOooPartitionHi
+                    );
+                }
+            }
+        }
+
         if (partitionMutates) {
             final long srcDataTxn = txWriter.getPartitionNameTxnByIndex(partitionIndex);
             LOG.info()
@@ -3305,6 +3858,32 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Computes statistics of O3 rows of the partition while they are still in O3 memory. Statistics
+     * of rows the partition had before are read from zone map files once the transaction is committed.
+     */
+    private void o3ZoneMapStats(long partitionTimestamp, long srcDataMax, long srcNameTxn, long srcOooLo, long srcOooHi) {
+        final long count = srcOooHi - srcOooLo + 1;
+        final int timestampIndex = metadata.getTimestampIndex();
+        // partition updates may be published by O3 jobs and by this thread
+        synchronized (zoneMapO3Stats) {
+            zoneMapO3Stats.add(partitionTimestamp, srcDataMax, srcNameTxn, count);
+            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                final int columnType = metadata.getColumnType(columnIndex);
+                if (columnIndex != timestampIndex && ZoneMap.isSupported(columnType)) {
+                    final long address = o3Columns.getQuick(getPrimaryColumnIndex(columnIndex)).addressOf(srcOooLo << ColumnType.pow2SizeOf(columnType));
+                    zoneMap.of(columnType, address, count, 0);
+                    zoneMapO3Stats.add(zoneMap.getNullCount());
+                    zoneMapO3Stats.add(zoneMap.getMin());
+                    zoneMapO3Stats.add(zoneMap.getMax());
+                } else {
+                    zoneMapO3Stats.add(0, 0);
+                    zoneMapO3Stats.add(0);
+                }
+            }
+        }
+    }
+
     synchronized void o3PartitionUpdateSynchronized(
             long timestampMin,
             long timestampMax,
@@ -3883,15 +4462,69 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void processCompressedFileRemoveCandidates() {
+        // readers that opened compressed files before raw files were restored hold
+        // transactions up to the one decompression happened in
+        final int n = compressedFileRemoveCandidates.size();
+        int pending = 0;
+        for (int i = 0; i < n; i += 3) {
+            final long timestamp = compressedFileRemoveCandidates.getQuick(i);
+            final long nameTxn = compressedFileRemoveCandidates.getQuick(i + 1);
+            final long txn = compressedFileRemoveCandidates.getQuick(i + 2);
+            if (txn < txWriter.getTxn() && txnScoreboard.isTxnAvailable(txn)) {
+                try {
+                    TableUtils.setPathForPartition(other.trimTo(rootLen), partitionBy, timestamp, false);
+                    TableUtils.txnPartitionConditionally(other, nameTxn);
+                    final int plen = other.length();
+                    for (int j = 0; j < columnCount; j++) {
+                        ColumnCompressor.removeCompressed(ff, other, plen, metadata.getColumnName(j), metadata.getColumnType(j));
+                    }
+                } finally {
+                    other.trimTo(rootLen);
+                }
+            } else {
+                compressedFileRemoveCandidates.setQuick(pending++, timestamp);
+                compressedFileRemoveCandidates.setQuick(pending++, nameTxn);
+                compressedFileRemoveCandidates.setQuick(pending++, txn);
+            }
+        }
+        compressedFileRemoveCandidates.setPos(pending);
+    }
+
     void purgeUnusedPartitions() {
         if (PartitionBy.isPartitioned(partitionBy)) {
             removeNonAttachedPartitions();
         }
     }
 
+    private long readMaxTimestamp(long partitionTimestamp, long partitionSize) {
+        setStateForTimestamp(other, partitionTimestamp, false);
+        try {
+            dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
+            if (partitionSize > 0 && ff.exists(other)) {
+                final long fd = TableUtils.openRO(ff, other, LOG);
+                try {
+                    return TableUtils.readLongOrFail(
+                            ff,
+                            fd,
+                            (partitionSize - 1) * Long.BYTES,
+                            tempMem16b,
+                            other
+                    );
+                } finally {
+                    ff.close(fd);
+                }
+            }
+            throw CairoException.instance(0).put("cannot read max timestamp [path=").put(other).put(']');
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
     private long readMinTimestamp(long partitionTimestamp) {
         setStateForTimestamp(other, partitionTimestamp, false);
         try {
+            final int plen = other.length();
             dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
             if (ff.exists(other)) {
                 // read min timestamp value
@@ -3907,9 +4540,13 @@ public class TableWriter implements Closeable {
                 } finally {
                     ff.close(fd);
                 }
-            } else {
-                throw CairoException.instance(0).put("Partition does not exist [path=").put(other).put(']');
             }
+            dzFile(other.trimTo(plen), metadata.getColumnName(metadata.getTimestampIndex()));
+            if (ff.exists(other)) {
+                // compressed partition, first value is stored in the header
+                return ColumnCompressor.readFirstLong(ff, other);
+            }
+            throw CairoException.instance(0).put("Partition does not exist [path=").put(other).put(']');
         } finally {
             other.trimTo(rootLen);
         }
@@ -3984,6 +4621,9 @@ public class TableWriter implements Closeable {
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, izFile(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, zmFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
@@ -4080,6 +4720,25 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void removeReplacingPartitions() {
+        // partitions appended by pending replace are named after current txn, nothing refers to them after rollback
+        replacedPartitions.clear();
+        for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+            if (txWriter.getPartitionNameTxn(i) == txWriter.getTxn()) {
+                try {
+                    setPathForPartition(other, partitionBy, txWriter.getPartitionTimestamp(i), false);
+                    TableUtils.txnPartitionConditionally(other, txWriter.getTxn());
+                    other.slash$();
+                    if (ff.rmdir(other) != 0) {
+                        LOG.error().$("could not remove [path=").$(other).$(", errno=").$(ff.errno()).I$();
+                    }
+                } finally {
+                    other.trimTo(rootLen);
+                }
+            }
+        }
+    }
+
     private void removePartitionDirectories() {
         try {
             ff.iterateDir(path.$(), removePartitionDirectories);
@@ -4210,6 +4869,9 @@ public class TableWriter implements Closeable {
                     int plen = path.length();
                     renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, izFile(path.trimTo(plen), columnName), izFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, zmFile(path.trimTo(plen), columnName), zmFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName));
@@ -4665,7 +5327,7 @@ public class TableWriter implements Closeable {
         final long partitionTimestampHi = TableUtils.setPathForPartition(path, partitionBy, timestamp, true);
         TableUtils.txnPartitionConditionally(
                 path,
-                txWriter.getPartitionNameTxnByPartitionTimestamp(partitionTimestampHi)
+                txWriter.getPartitionNameTxnForWrite(partitionTimestampHi)
         );
         if (updatePartitionInterval) {
             this.partitionTimestampHi = partitionTimestampHi;
@@ -4677,6 +5339,9 @@ public class TableWriter implements Closeable {
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
+        if (zoneMap != null) {
+            zoneMapPartitions.add(partitionFloorMethod.floor(partitionTimestampHi));
+        }
         txWriter.switchPartitions(timestamp);
         openPartition(timestamp);
         setAppendPosition(0, false);
@@ -4706,6 +5371,126 @@ public class TableWriter implements Closeable {
         updateIndexesSlow();
     }
 
+    private void updateZoneMaps() {
+        final int n = zoneMapPartitions.size();
+        if (n == 0 && zoneMapO3Stats.size() == 0) {
+            return;
+        }
+        final long lastPartitionTimestamp = partitionFloorMethod.floor(txWriter.getMaxTimestamp());
+        final int timestampIndex = metadata.getTimestampIndex();
+        try {
+            updateZoneMapsO3(lastPartitionTimestamp);
+            for (int i = 0; i < n; i++) {
+                final long partitionTimestamp = zoneMapPartitions.getQuick(i);
+                // active partition keeps changing, its statistics would be out of date on next commit
+                if (partitionTimestamp == lastPartitionTimestamp || (i > 0 && partitionTimestamp == zoneMapPartitions.getQuick(i - 1))) {
+                    continue;
+                }
+                final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+                if (partitionIndex < 0) {
+                    continue;
+                }
+                final long partitionSize = getPartitionSizeByIndex(partitionIndex);
+                setStateForTimestamp(other, partitionTimestamp, false);
+                final int plen = other.length();
+                for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                    final int columnType = metadata.getColumnType(columnIndex);
+                    if (columnIndex != timestampIndex && ZoneMap.isSupported(columnType)) {
+                        updateZoneMap(other, plen, metadata.getColumnName(columnIndex), columnType, partitionSize);
+                    }
+                }
+                other.trimTo(rootLen);
+            }
+        } catch (CairoException e) {
+            // statistics are optional, scans do not use them when they are missing
+            LOG.error().$("could not update zone maps [table=").$(tableName).$(", errno=").$(e.getErrno()).$(", msg=").$(e.getFlyweightMessage()).I$();
+        } finally {
+            other.trimTo(rootLen);
+            zoneMapPartitions.clear();
+            zoneMapO3Stats.clear();
+        }
+    }
+
+    private void updateZoneMapsO3(long lastPartitionTimestamp) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final int stride = 4 + 3 * columnCount;
+        for (int i = 0, n = zoneMapO3Stats.size(); i < n; i += stride) {
+            final long partitionTimestamp = zoneMapO3Stats.getQuick(i);
+            final long srcDataMax = zoneMapO3Stats.getQuick(i + 1);
+            final long srcNameTxn = zoneMapO3Stats.getQuick(i + 2);
+            final long o3RowCount = zoneMapO3Stats.getQuick(i + 3);
+            if (partitionTimestamp == lastPartitionTimestamp) {
+                continue;
+            }
+            final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+            if (partitionIndex < 0) {
+                continue;
+            }
+            final long partitionSize = getPartitionSizeByIndex(partitionIndex);
+            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                final int columnType = metadata.getColumnType(columnIndex);
+                if (columnIndex == timestampIndex || !ZoneMap.isSupported(columnType)) {
+                    continue;
+                }
+                final CharSequence columnName = metadata.getColumnName(columnIndex);
+                // statistics of rows partition had before the transaction
+                boolean merge = srcDataMax + o3RowCount == partitionSize;
+                if (srcDataMax == 0) {
+                    zoneMap.of(columnType, 0, 0, 0);
+                } else if (merge) {
+                    TableUtils.setPathForPartition(other, partitionBy, partitionTimestamp, false);
+                    TableUtils.txnPartitionConditionally(other, srcNameTxn);
+                    merge = zoneMap.read(ff, zmFile(other, columnName)) && zoneMap.getRowCount() == srcDataMax;
+                    other.trimTo(rootLen);
+                }
+
+                setStateForTimestamp(other, partitionTimestamp, false);
+                final int plen = other.length();
+                if (merge) {
+                    final int offset = i + 4 + 3 * columnIndex;
+                    zoneMap.merge(
+                            columnType,
+                            o3RowCount,
+                            zoneMapO3Stats.getQuick(offset),
+                            zoneMapO3Stats.getQuick(offset + 1),
+                            zoneMapO3Stats.getQuick(offset + 2)
+                    );
+                    zoneMap.write(ff, zmFile(other, columnName));
+                } else {
+                    // statistics are missing or out of date, compute them from partition data
+                    updateZoneMap(other, plen, columnName, columnType, partitionSize);
+                }
+                other.trimTo(rootLen);
+            }
+        }
+    }
+
+    private void updateZoneMap(Path path, int plen, CharSequence columnName, int columnType, long partitionSize) {
+        final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, false);
+        if (!ff.exists(dFile(path.trimTo(plen), columnName))) {
+            return;
+        }
+        final long count = partitionSize - columnTop;
+        if (count > 0) {
+            final long size = count << ColumnType.pow2SizeOf(columnType);
+            final long fd = TableUtils.openRO(ff, path, LOG);
+            try {
+                final long address = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_TABLE_WRITER);
+                try {
+                    zoneMap.of(columnType, address, count, columnTop);
+                } finally {
+                    ff.munmap(address, size, MemoryTag.MMAP_TABLE_WRITER);
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } else {
+            zoneMap.of(columnType, 0, 0, partitionSize);
+        }
+        zoneMap.write(ff, zmFile(path.trimTo(plen), columnName));
+        path.trimTo(plen);
+    }
+
     private void updateIndexesParallel(long lo, long hi) {
         indexSequences.clear();
         indexLatch.setCount(indexCount);
@@ -4851,6 +5636,10 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isColumnDedupKey(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEDUP_KEY;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.putLong(getColumnHash(metaMem, i));
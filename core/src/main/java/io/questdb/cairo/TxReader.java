@@ -28,6 +28,7 @@ import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.std.*;
 import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
@@ -51,6 +52,7 @@ public class TxReader implements Closeable {
     protected int partitionBy;
     protected long partitionTableVersion;
     protected int attachedPartitionsSize = 0;
+    private int partitionTableLo = 0;
     private MemoryMR roTxMem;
 
     public TxReader(FilesFacade ff, @Transient Path path, int partitionBy) {
@@ -193,6 +195,17 @@ public class TxReader implements Closeable {
     }
 
     public void unsafeLoadAll() {
+        unsafeLoadAll(null, -1);
+    }
+
+    /**
+     * Loads transaction file. When partition table version has changed since baseTxn and change log
+     * has all commits since then, only the changed tail of partition table is loaded.
+     *
+     * @param changeLog partition change log of the table, can be null
+     * @param baseTxn   txn of the last stable load the partition table currently reflects
+     */
+    public void unsafeLoadAll(@Nullable PartitionChangeLog changeLog, long baseTxn) {
         this.txn = roTxMem.getLong(TX_OFFSET_TXN);
         this.transientRowCount = roTxMem.getLong(TX_OFFSET_TRANSIENT_ROW_COUNT);
         this.fixedRowCount = roTxMem.getLong(TX_OFFSET_FIXED_ROW_COUNT);
@@ -207,16 +220,32 @@ public class TxReader implements Closeable {
         if (prevSymbolCount != symbolColumnCount) {
             roTxMem.growToFileSize();
         }
-        unsafeLoadPartitions(prevPartitionTableVersion);
+        // partition table moves when symbol count changes
+        final int changedLo = changeLog != null && prevSymbolCount == symbolColumnCount ? changeLog.getPartitionTableLo(baseTxn, txn) : -1;
+        unsafeLoadPartitions(prevPartitionTableVersion, changedLo);
     }
 
-    private void unsafeLoadPartitions(long prevPartitionTableVersion) {
+    /**
+     * @return index of the first partition that could have changed on the last load
+     * with partition table version change, partitions below this index are unchanged
+     */
+    public int getPartitionTableLo() {
+        return partitionTableLo / LONGS_PER_TX_ATTACHED_PARTITION;
+    }
+
+    private void unsafeLoadPartitions(long prevPartitionTableVersion, int changedLo) {
         if (PartitionBy.isPartitioned(partitionBy)) {
             int txAttachedPartitionsSize = roTxMem.getInt(getPartitionTableSizeOffset(symbolColumnCount)) / Long.BYTES;
             if (txAttachedPartitionsSize > 0) {
                 if (prevPartitionTableVersion != partitionTableVersion) {
-                    attachedPartitions.clear();
-                    unsafeLoadPartitions0(txAttachedPartitionsSize, 0);
+                    if (changedLo > -1) {
+                        // last partition size was overwritten by transient row count, reload it too
+                        partitionTableLo = Math.min(changedLo, Math.max(attachedPartitionsSize - LONGS_PER_TX_ATTACHED_PARTITION, 0));
+                    } else {
+                        partitionTableLo = 0;
+                        attachedPartitions.clear();
+                    }
+                    unsafeLoadPartitions0(txAttachedPartitionsSize, partitionTableLo);
                 } else {
                     if (attachedPartitionsSize < txAttachedPartitionsSize) {
                         unsafeLoadPartitions0(
@@ -41,6 +41,13 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
     private long prevMaxTimestamp;
     private long prevMinTimestamp;
     private MemoryCMARW txMem;
+    private PartitionChangeLog partitionChangeLog;
+    // partitions appended in current transaction replace removed ones and are written to directories of their own
+    private boolean replacing;
+    // last applied WAL segment, written out on commit
+    private long walId;
+    private long walSegmentId;
+    private long walSegmentToken;
 
     public TxWriter(FilesFacade ff, @Transient Path path, int partitionBy) {
         super(ff, path, partitionBy);
@@ -70,6 +77,24 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         }
     }
 
+    /**
+     * Starts replacing partitions removed from the end of partition list in current transaction.
+     * Partitions appended until commit are named after current txn, so that their directories
+     * never clash with directories of removed partitions, which readers may still use.
+     */
+    public void beginReplace() {
+        replacing = true;
+        if (getPartitionCount() == 0) {
+            resetTimestamp();
+            fixedRowCount = 0;
+            transientRowCount = 0;
+        }
+        // rows of remaining partitions are not part of the transaction
+        prevTransientRowCount = transientRowCount;
+        prevMaxTimestamp = maxTimestamp;
+        txPartitionCount = 1;
+    }
+
     public void bumpStructureVersion(ObjList<? extends SymbolCountProvider> denseSymbolMapWriters) {
         txMem.putLong(TX_OFFSET_TXN, ++txn);
         Unsafe.getUnsafe().storeFence();
@@ -130,6 +155,10 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
     @Override
     public void unsafeLoadAll() {
         super.unsafeLoadAll();
+        this.replacing = false;
+        this.walId = txMem.getLong(TX_OFFSET_WAL_ID);
+        this.walSegmentId = txMem.getLong(TX_OFFSET_WAL_SEGMENT_ID);
+        this.walSegmentToken = txMem.getLong(TX_OFFSET_WAL_SEGMENT_TOKEN);
         this.prevTransientRowCount = this.transientRowCount;
         this.prevMaxTimestamp = maxTimestamp;
         this.prevMinTimestamp = minTimestamp;
@@ -157,13 +186,20 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         txMem.putLong(TX_OFFSET_MIN_TIMESTAMP, minTimestamp);
         txMem.putLong(TX_OFFSET_MAX_TIMESTAMP, maxTimestamp);
         txMem.putLong(TX_OFFSET_PARTITION_TABLE_VERSION, this.partitionTableVersion);
+        txMem.putLong(TX_OFFSET_WAL_ID, walId);
+        txMem.putLong(TX_OFFSET_WAL_SEGMENT_ID, walSegmentId);
+        txMem.putLong(TX_OFFSET_WAL_SEGMENT_TOKEN, walSegmentToken);
         // store symbol counts
         storeSymbolCounts(symbolCountProviders);
 
         // store attached partitions
         symbolColumnCount = symbolCountProviders.size();
         txPartitionCount = 1;
+        final int partitionTableLo = maxTimestamp != Long.MIN_VALUE ? Math.min(attachedPositionDirtyIndex, attachedPartitions.size()) : attachedPartitions.size();
         saveAttachedPartitionsToTx(symbolColumnCount);
+        if (partitionChangeLog != null) {
+            partitionChangeLog.record(txn, partitionTableLo);
+        }
 
         Unsafe.getUnsafe().storeFence();
         txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
@@ -171,6 +207,7 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
             txMem.sync(commitMode == CommitMode.ASYNC);
         }
         prevTransientRowCount = transientRowCount;
+        replacing = false;
     }
 
     public void finishPartitionSizeUpdate(long minTimestamp, long maxTimestamp) {
@@ -197,14 +234,32 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         return txPartitionCount == 1 ? transientRowCount - prevTransientRowCount : transientRowCount;
     }
 
+    /**
+     * Name txn of directory rows of the partition are written to.
+     */
+    public long getPartitionNameTxnForWrite(long ts) {
+        if (replacing && !attachedPartitionsContains(ts)) {
+            return txn;
+        }
+        return getPartitionNameTxnByPartitionTimestamp(ts);
+    }
+
     public boolean inTransaction() {
-        return txPartitionCount > 1 || transientRowCount != prevTransientRowCount;
+        return txPartitionCount > 1 || transientRowCount != prevTransientRowCount || replacing;
     }
 
     public boolean isActivePartition(long timestamp) {
         return getPartitionTimestampLo(maxTimestamp) == timestamp;
     }
 
+    public boolean isAppliedWalSegment(int walId, long segmentId, long token) {
+        return this.walId == walId && this.walSegmentId == segmentId && this.walSegmentToken == token;
+    }
+
+    public boolean isReplacing() {
+        return replacing;
+    }
+
     public void openFirstPartition(long timestamp) {
         txPartitionCount = 1;
         updateAttachedPartitionSizeByTimestamp(timestamp, 0);
@@ -260,6 +315,12 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         }
     }
 
+    public void setAppliedWalSegment(int walId, long segmentId, long token) {
+        this.walId = walId;
+        this.walSegmentId = segmentId;
+        this.walSegmentToken = token;
+    }
+
     public void switchPartitions(long timestamp) {
         fixedRowCount += transientRowCount;
         prevTransientRowCount = transientRowCount;
@@ -287,6 +348,7 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         txPartitionCount = 1;
         attachedPositionDirtyIndex = 0;
         attachedPartitions.clear();
+        replacing = false;
         resetTxn(txMem, symbolColumnCount, txn, ++dataVersion, ++partitionTableVersion);
     }
 
@@ -308,6 +370,18 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         txMem.putInt(getSymbolWriterTransientIndexOffset(symbolIndex), symCount);
     }
 
+    @Override
+    protected void initPartitionAt(int index, long partitionTimestampLo, long partitionSize) {
+        super.initPartitionAt(index, partitionTimestampLo, partitionSize);
+        if (replacing) {
+            attachedPartitions.setQuick(index + PARTITION_NAME_TX_OFFSET, txn);
+        }
+    }
+
+    void setPartitionChangeLog(PartitionChangeLog partitionChangeLog) {
+        this.partitionChangeLog = partitionChangeLog;
+    }
+
     void bumpPartitionTableVersion() {
         partitionTableVersion++;
     }
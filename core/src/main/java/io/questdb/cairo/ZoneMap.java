@@ -0,0 +1,272 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Min/max statistics of numeric column within single partition. Statistics are kept in
+ * "column.zm" file in partition directory:
+ * <pre>
+ *     long row count | long null count | long min | long max
+ * </pre>
+ * Min and max exclude nulls, values of DOUBLE column are stored as raw long bits. Row count
+ * is that of partition at the time statistics were computed, it includes column top. Readers must
+ * ignore statistics when row count does not match partition size.
+ */
+public class ZoneMap implements Closeable {
+    private static final int FILE_SIZE = 4 * Long.BYTES;
+    private long address;
+    private long rowCount;
+    private long nullCount;
+    private long min;
+    private long max;
+
+    public ZoneMap() {
+        this.address = Unsafe.malloc(FILE_SIZE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, FILE_SIZE, MemoryTag.NATIVE_DEFAULT);
+            address = 0;
+        }
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMaxDouble() {
+        return Double.longBitsToDouble(max);
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public double getMinDouble() {
+        return Double.longBitsToDouble(min);
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Computes statistics of column values.
+     *
+     * @param columnType type of column
+     * @param address    address of column data
+     * @param count      number of values at the address
+     * @param columnTop  number of rows in partition before first column value
+     */
+    public void of(int columnType, long address, long count, long columnTop) {
+        this.rowCount = count + columnTop;
+        this.nullCount = columnTop;
+        long hi = address + (count << ColumnType.pow2SizeOf(columnType));
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                ofByte(address, hi);
+                ofTopAsZero(columnTop);
+                break;
+            case ColumnType.SHORT:
+                ofShort(address, hi);
+                ofTopAsZero(columnTop);
+                break;
+            case ColumnType.INT:
+                ofInt(address, hi);
+                break;
+            case ColumnType.DOUBLE:
+                ofDouble(address, hi);
+                break;
+            default:
+                ofLong(address, hi);
+                break;
+        }
+    }
+
+    /**
+     * Merges statistics of another set of rows of the same column into these statistics.
+     *
+     * @param columnType type of column
+     * @param rowCount   number of rows in the other set
+     * @param nullCount  number of nulls in the other set
+     * @param min        min of the other set
+     * @param max        max of the other set
+     */
+    public void merge(int columnType, long rowCount, long nullCount, long min, long max) {
+        this.rowCount += rowCount;
+        this.nullCount += nullCount;
+        if (ColumnType.tagOf(columnType) == ColumnType.DOUBLE) {
+            this.min = Double.doubleToRawLongBits(Math.min(Double.longBitsToDouble(this.min), Double.longBitsToDouble(min)));
+            this.max = Double.doubleToRawLongBits(Math.max(Double.longBitsToDouble(this.max), Double.longBitsToDouble(max)));
+        } else {
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+        }
+    }
+
+    public boolean read(FilesFacade ff, LPSZ path) {
+        final long fd = ff.openRO(path);
+        if (fd < 0) {
+            return false;
+        }
+        try {
+            if (ff.read(fd, address, FILE_SIZE, 0) != FILE_SIZE) {
+                return false;
+            }
+            rowCount = Unsafe.getUnsafe().getLong(address);
+            nullCount = Unsafe.getUnsafe().getLong(address + Long.BYTES);
+            min = Unsafe.getUnsafe().getLong(address + 2 * Long.BYTES);
+            max = Unsafe.getUnsafe().getLong(address + 3 * Long.BYTES);
+            return true;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    public void write(FilesFacade ff, LPSZ path) {
+        final long fd = ff.openRW(path);
+        if (fd < 0) {
+            throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+        }
+        try {
+            Unsafe.getUnsafe().putLong(address, rowCount);
+            Unsafe.getUnsafe().putLong(address + Long.BYTES, nullCount);
+            Unsafe.getUnsafe().putLong(address + 2 * Long.BYTES, min);
+            Unsafe.getUnsafe().putLong(address + 3 * Long.BYTES, max);
+            if (ff.write(fd, address, FILE_SIZE, 0) != FILE_SIZE) {
+                throw CairoException.instance(ff.errno()).put("could not write [file=").put(path).put(']');
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private void ofByte(long lo, long hi) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long p = lo; p < hi; p++) {
+            final byte value = Unsafe.getUnsafe().getByte(p);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    private void ofDouble(long lo, long hi) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (long p = lo; p < hi; p += Double.BYTES) {
+            final double value = Unsafe.getUnsafe().getDouble(p);
+            if (value != value) {
+                nullCount++;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        this.min = Double.doubleToRawLongBits(min);
+        this.max = Double.doubleToRawLongBits(max);
+    }
+
+    private void ofInt(long lo, long hi) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long p = lo; p < hi; p += Integer.BYTES) {
+            final int value = Unsafe.getUnsafe().getInt(p);
+            if (value == Numbers.INT_NaN) {
+                nullCount++;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    private void ofLong(long lo, long hi) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long p = lo; p < hi; p += Long.BYTES) {
+            final long value = Unsafe.getUnsafe().getLong(p);
+            if (value == Numbers.LONG_NaN) {
+                nullCount++;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    private void ofTopAsZero(long columnTop) {
+        // byte and short do not have null, rows above column top read as 0
+        if (columnTop > 0) {
+            nullCount = 0;
+            min = Math.min(min, 0);
+            max = Math.max(max, 0);
+        }
+    }
+
+    private void ofShort(long lo, long hi) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long p = lo; p < hi; p += Short.BYTES) {
+            final short value = Unsafe.getUnsafe().getShort(p);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        this.min = min;
+        this.max = max;
+    }
+}
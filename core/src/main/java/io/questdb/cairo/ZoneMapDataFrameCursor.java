@@ -0,0 +1,180 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Skips data frames of partitions whose min/max statistics prove that filter cannot
+ * match any row. Filter is a conjunction of "column op constant" predicates, frames that
+ * pass are still filtered row by row.
+ */
+public class ZoneMapDataFrameCursor implements DataFrameCursor {
+    public static final int OP_EQ = 0;
+    public static final int OP_LT = 1;
+    public static final int OP_LE = 2;
+    public static final int OP_GT = 3;
+    public static final int OP_GE = 4;
+
+    private final IntList columnIndexes;
+    private final IntList ops;
+    private final LongList longValues;
+    private final LongList doubleValues;
+    private ZoneMap zoneMap;
+    private DataFrameCursor base;
+
+    public ZoneMapDataFrameCursor(IntList columnIndexes, IntList ops, LongList longValues, LongList doubleValues) {
+        this.columnIndexes = columnIndexes;
+        this.ops = ops;
+        this.longValues = longValues;
+        this.doubleValues = doubleValues;
+    }
+
+    /**
+     * Checks statistics against predicate. Nulls never satisfy comparison with a constant,
+     * except for integer columns where raw null value is the smallest value of the type, which
+     * is why less-than predicates do not prune such columns that contain nulls.
+     *
+     * @param zoneMap     column statistics
+     * @param columnType  type of column
+     * @param op          comparison operator
+     * @param longValue   constant, when doubleValue is NaN
+     * @param doubleValue floating point constant or NaN
+     * @return false when no value in the column can satisfy predicate
+     */
+    public static boolean mayMatch(ZoneMap zoneMap, int columnType, int op, long longValue, double doubleValue) {
+        final boolean doubleColumn = ColumnType.tagOf(columnType) == ColumnType.DOUBLE;
+        if (!doubleColumn && zoneMap.getNullCount() > 0 && (op == OP_LT || op == OP_LE)) {
+            return true;
+        }
+
+        if (zoneMap.getRowCount() == zoneMap.getNullCount()) {
+            return false;
+        }
+
+        if (doubleColumn || doubleValue == doubleValue) {
+            final double min = doubleColumn ? zoneMap.getMinDouble() : zoneMap.getMin();
+            final double max = doubleColumn ? zoneMap.getMaxDouble() : zoneMap.getMax();
+            final double value = doubleValue == doubleValue ? doubleValue : longValue;
+            switch (op) {
+                case OP_LT:
+                    return min < value;
+                case OP_LE:
+                    return min <= value;
+                case OP_GT:
+                    return max > value;
+                case OP_GE:
+                    return max >= value;
+                default:
+                    // floating point equality is approximate
+                    return true;
+            }
+        }
+
+        switch (op) {
+            case OP_LT:
+                return zoneMap.getMin() < longValue;
+            case OP_LE:
+                return zoneMap.getMin() <= longValue;
+            case OP_GT:
+                return zoneMap.getMax() > longValue;
+            case OP_GE:
+                return zoneMap.getMax() >= longValue;
+            default:
+                return zoneMap.getMin() <= longValue && longValue <= zoneMap.getMax();
+        }
+    }
+
+    @Override
+    public void close() {
+        base = Misc.free(base);
+    }
+
+    public void free() {
+        zoneMap = Misc.free(zoneMap);
+    }
+
+    @Override
+    public StaticSymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public TableReader getTableReader() {
+        return base.getTableReader();
+    }
+
+    @Override
+    public @Nullable DataFrame next() {
+        DataFrame frame;
+        while ((frame = base.next()) != null) {
+            if (mayMatch(frame.getPartitionIndex())) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean reload() {
+        return base.reload();
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public void toTop() {
+        base.toTop();
+    }
+
+    ZoneMapDataFrameCursor of(DataFrameCursor base) {
+        if (zoneMap == null) {
+            zoneMap = new ZoneMap();
+        }
+        this.base = base;
+        return this;
+    }
+
+    private boolean mayMatch(int partitionIndex) {
+        final TableReader reader = base.getTableReader();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            if (reader.readZoneMap(partitionIndex, columnIndex, zoneMap)
+                    && !mayMatch(zoneMap, reader.getMetadata().getColumnType(columnIndex), ops.getQuick(i), longValues.getQuick(i), Double.longBitsToDouble(doubleValues.getQuick(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
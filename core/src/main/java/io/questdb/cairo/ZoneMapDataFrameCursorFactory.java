@@ -0,0 +1,82 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.str.CharSink;
+
+public class ZoneMapDataFrameCursorFactory implements DataFrameCursorFactory {
+    private final DataFrameCursorFactory base;
+    private final IntList columnIndexes = new IntList();
+    private final IntList ops = new IntList();
+    private final LongList longValues = new LongList();
+    private final LongList doubleValues = new LongList();
+    private final ZoneMapDataFrameCursor cursor = new ZoneMapDataFrameCursor(columnIndexes, ops, longValues, doubleValues);
+
+    public ZoneMapDataFrameCursorFactory(DataFrameCursorFactory base) {
+        this.base = base;
+    }
+
+    /**
+     * Adds "column op constant" predicate.
+     *
+     * @param columnIndex index of column in table metadata
+     * @param op          one of ZoneMapDataFrameCursor.OP_* constants
+     * @param longValue   integer constant
+     * @param doubleValue floating point constant, NaN when constant is integer
+     */
+    public void add(int columnIndex, int op, long longValue, double doubleValue) {
+        columnIndexes.add(columnIndex);
+        ops.add(op);
+        longValues.add(longValue);
+        doubleValues.add(Double.doubleToRawLongBits(doubleValue));
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+        cursor.free();
+    }
+
+    @Override
+    public DataFrameCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        return cursor.of(base.getCursor(executionContext));
+    }
+
+    public int getPredicateCount() {
+        return columnIndexes.size();
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        base.toSink(sink);
+    }
+}
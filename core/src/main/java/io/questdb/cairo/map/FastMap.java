@@ -229,6 +229,33 @@ public class FastMap implements Map {
         return kLimit - kStart;
     }
 
+    /**
+     * Merges all entries of the source map into this map. Both maps must have been created
+     * with the same key and value types. Entries with keys absent in this map are copied
+     * as is, values of the existing keys are combined via the merge function.
+     *
+     * @param srcMap        map to copy entries from, it is not modified
+     * @param mergeFunction function that combines source value into the destination value
+     */
+    public void merge(FastMap srcMap, MergeFunction mergeFunction) {
+        assert keyDataOffset == srcMap.keyDataOffset;
+        long srcAddress = srcMap.kStart;
+        for (int i = 0, n = srcMap.size; i < n; i++) {
+            // entries are position independent, so we can copy them verbatim
+            // [ len | value block | key offset block | key data block ]
+            final int len = Unsafe.getUnsafe().getInt(srcAddress);
+            key.init();
+            key.checkSize(len - keyDataOffset);
+            Vect.memcpy(key.startAddress, srcAddress, len);
+            key.appendAddress = key.startAddress + len;
+            final MapValue destValue = key.createValue();
+            if (!destValue.isNew()) {
+                mergeFunction.merge(destValue, srcMap.valueOf(srcAddress, false, srcMap.value2));
+            }
+            srcAddress += len;
+        }
+    }
+
     public int getKeyCapacity() {
         return keyCapacity;
     }
@@ -404,6 +431,11 @@ public class FastMap implements Map {
         int hash(long address, int len);
     }
 
+    @FunctionalInterface
+    public interface MergeFunction {
+        void merge(MapValue destValue, MapValue srcValue);
+    }
+
     public class Key implements MapKey {
         private long startAddress;
         private long appendAddress;
@@ -142,6 +142,12 @@ public interface Function extends Closeable {
         return false;
     }
 
+    // If function can be evaluated concurrently by several threads, each using its own
+    // Record instance, e.g. it does not touch shared state such as symbol tables
+    default boolean isReadThreadSafe() {
+        return false;
+    }
+
     // If function is constant for query, e.g. record independent
     // For example now() and bind variables are Runtime Constants
     default boolean isRuntimeConstant() {
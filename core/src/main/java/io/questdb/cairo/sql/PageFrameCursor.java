@@ -25,6 +25,7 @@
 package io.questdb.cairo.sql;
 
 import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.TableReader;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
@@ -48,4 +49,9 @@ public interface PageFrameCursor extends Closeable {
     long size();
 
     SymbolMapReader getSymbolMapReader(int columnIndex);
+
+    /**
+     * @return reader the page frames are taken from, valid until cursor is closed
+     */
+    TableReader getTableReader();
 }
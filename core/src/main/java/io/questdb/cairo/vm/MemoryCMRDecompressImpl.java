@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnCompressor;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only contiguous memory over compressed column file. The file is decoded into native memory
+ * when opened, the file descriptor is kept open to let readers detect file removal.
+ */
+public class MemoryCMRDecompressImpl extends AbstractMemoryCR implements MemoryCMR {
+    private static final Log LOG = LogFactory.getLog(MemoryCMRDecompressImpl.class);
+    private int memoryTag = MemoryTag.MMAP_DEFAULT;
+
+    @Override
+    public void close() {
+        if (pageAddress != 0) {
+            Unsafe.free(pageAddress, size, memoryTag);
+            this.pageAddress = 0;
+            this.size = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            LOG.debug().$("closed [fd=").$(fd).$(']').$();
+            fd = -1;
+        }
+        grownLength = 0;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        grownLength = Math.max(newSize, grownLength);
+        if (newSize > size) {
+            throw CairoException.instance(0).put("compressed column cannot grow [size=").put(size).put(", newSize=").put(newSize).put(']');
+        }
+    }
+
+    @Override
+    public void growToFileSize() {
+        // decoded size is fixed, compressed file length does not describe it
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag) {
+        close();
+        this.ff = ff;
+        this.memoryTag = memoryTag;
+        if (!ff.exists(name)) {
+            throw CairoException.instance(0).put("File not found: ").put(name);
+        }
+        fd = TableUtils.openRO(ff, name, LOG);
+        try {
+            final long fileSize = ff.length(fd);
+            final long z = TableUtils.mapRO(ff, fd, fileSize, memoryTag);
+            try {
+                final long decodedSize = ColumnCompressor.getDecodedSize(z);
+                if (decodedSize < size) {
+                    throw CairoException.instance(0).put("compressed column is too short [file=").put(name)
+                            .put(", size=").put(decodedSize)
+                            .put(", expected=").put(size)
+                            .put(']');
+                }
+                if (decodedSize > 0) {
+                    this.pageAddress = Unsafe.malloc(decodedSize, memoryTag);
+                    this.size = decodedSize;
+                    ColumnCompressor.decode(z, pageAddress);
+                }
+            } finally {
+                ff.munmap(z, fileSize, memoryTag);
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+        LOG.debug().$("open ").$(name).$(" [fd=").$(fd).$(", size=").$(this.size).$(']').$();
+    }
+}
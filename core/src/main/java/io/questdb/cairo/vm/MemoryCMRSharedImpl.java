@@ -0,0 +1,95 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.ColumnMappingCache;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.str.LPSZ;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Read-only contiguous memory backed by mapping from {@link ColumnMappingCache}. Mapping and file descriptor
+ * are owned by the cache and can be shared with other instances that opened same file at the same version.
+ * Memory size is the size requested by the owner, underlying mapping can be larger.
+ */
+public class MemoryCMRSharedImpl extends AbstractMemoryCR implements MemoryCMR {
+    private final ColumnMappingCache cache;
+    private ColumnMappingCache.Mapping mapping;
+    private int memoryTag = MemoryTag.MMAP_DEFAULT;
+
+    public MemoryCMRSharedImpl(ColumnMappingCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void close() {
+        if (mapping != null) {
+            cache.release(mapping);
+            mapping = null;
+        }
+        pageAddress = 0;
+        size = 0;
+        fd = -1;
+        grownLength = 0;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        grownLength = Math.max(newSize, grownLength);
+        if (newSize > size) {
+            try {
+                mapping = cache.extend(mapping, newSize, memoryTag);
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+            pageAddress = mapping.getAddress();
+            size = newSize;
+        }
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag) {
+        // file cannot be matched with mappings of other readers without version, it is not shared
+        of(ff, name, null, size, memoryTag);
+    }
+
+    /**
+     * Opens file and shares its mapping with other memory instances that opened it at the same version.
+     *
+     * @param version table version the file belongs to, null when mapping must not be shared
+     */
+    public void of(FilesFacade ff, LPSZ name, @Nullable CharSequence version, long size, int memoryTag) {
+        close();
+        this.ff = ff;
+        this.memoryTag = memoryTag;
+        this.mapping = cache.acquire(ff, name, version, size, memoryTag);
+        this.fd = mapping.getFd();
+        this.pageAddress = mapping.getAddress();
+        this.size = size;
+    }
+}
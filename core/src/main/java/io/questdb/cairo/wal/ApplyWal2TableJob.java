@@ -0,0 +1,531 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.AbstractQueueConsumerJob;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.WalApplyTask;
+
+/**
+ * Merges committed WAL segments into the table. Rows are appended via {@link TableWriter},
+ * which takes care of out-of-order data with the O3 jobs, so that segments of concurrent
+ * WAL writers can be applied in any order.
+ * <p>
+ * Segments on disk are the source of truth, queue tasks only tell the job which table has
+ * new segments. Segment is committed once its "_meta" file exists and is removed only after
+ * its rows are committed to the table. Table transaction records the last applied segment,
+ * so that a segment, which survived a crash after its rows have been committed, is removed
+ * without being applied again. Segments that cannot be applied, e.g. while table is
+ * busy with another writer, stay on disk and the table is retried at configured interval.
+ * Segments left over by previous run of the server are scheduled when the job is created.
+ */
+public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalApplyTask> {
+    private static final Log LOG = LogFactory.getLog(ApplyWal2TableJob.class);
+    private final CairoEngine engine;
+    private final MicrosecondClock clock;
+    private final long retryInterval;
+    // tables to retry and time of the next attempt, job is shared by workers, guarded by retryTables
+    private final ObjList<String> retryTables = new ObjList<>();
+    private final LongList retryTimes = new LongList();
+
+    public ApplyWal2TableJob(CairoEngine engine) {
+        super(engine.getMessageBus().getWalApplyQueue(), engine.getMessageBus().getWalApplySubSeq());
+        this.engine = engine;
+        this.clock = engine.getConfiguration().getMicrosecondClock();
+        this.retryInterval = engine.getConfiguration().getWalApplyRetryInterval();
+        replayPendingSegments();
+    }
+
+    /**
+     * Appends rows of all committed segments of the table and removes the segments. Segments of
+     * each WAL are applied in the order they have been committed. When a segment fails to apply,
+     * it is left on disk together with the segments that follow it.
+     *
+     * @return false when segments have to be applied later, true otherwise
+     */
+    public static boolean applyPendingSegments(CairoEngine engine, CharSequence tableName) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        final FilesFacade ff = configuration.getFilesFacade();
+        // thread local paths are used by table writer, hence path of our own
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat(tableName);
+            final int tableDirLen = path.length();
+            final IntList walIds = new IntList();
+            findWalIds(ff, path, walIds);
+            if (walIds.size() == 0) {
+                // nothing to apply or table has been dropped together with its WAL
+                return true;
+            }
+
+            final TableWriter writer;
+            try {
+                writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, "walApply");
+            } catch (EntryUnavailableException e) {
+                return false;
+            } catch (CairoException e) {
+                LOG.error().$("could not open writer to apply WAL [table=").$(tableName)
+                        .$(", msg=").$(e.getFlyweightMessage())
+                        .$(", errno=").$(e.getErrno())
+                        .$(']').$();
+                return false;
+            }
+
+            try {
+                final LongList segmentIds = new LongList();
+                for (int i = 0, n = walIds.size(); i < n; i++) {
+                    path.trimTo(tableDirLen).concat(WalWriter.WAL_NAME_BASE).put(walIds.getQuick(i));
+                    segmentIds.clear();
+                    findCommittedSegments(ff, path, segmentIds);
+                    segmentIds.sort();
+                    for (int j = 0, m = segmentIds.size(); j < m; j++) {
+                        if (!applySegment(ff, writer, path, walIds.getQuick(i), segmentIds.getQuick(j))) {
+                            return false;
+                        }
+                    }
+                    removeWalDirIfUnused(ff, path);
+                }
+            } finally {
+                writer.close();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean run(int workerId) {
+        final boolean useful = super.run(workerId);
+        return retryDueTable() || useful;
+    }
+
+    /**
+     * Removes WAL directory once its writer is closed and all segments have been applied.
+     *
+     * @param ff   files facade
+     * @param path path to WAL directory, path is left unchanged
+     */
+    static void removeWalDirIfUnused(FilesFacade ff, Path path) {
+        final int walDirLen = path.length();
+        try {
+            TableUtils.lockName(path);
+            if (ff.exists(path)) {
+                return;
+            }
+            final long p = ff.findFirst(path.trimTo(walDirLen).$());
+            if (p > 0) {
+                try {
+                    do {
+                        if (Files.isDir(ff.findName(p), ff.findType(p))) {
+                            return;
+                        }
+                    } while (ff.findNext(p) > 0);
+                } finally {
+                    ff.findClose(p);
+                }
+            }
+            if (ff.rmdir(path.trimTo(walDirLen).$()) != 0) {
+                LOG.error().$("could not remove WAL [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        } finally {
+            path.trimTo(walDirLen);
+        }
+    }
+
+    private static boolean applySegment(FilesFacade ff, TableWriter writer, Path path, int walId, long segmentId) {
+        final int walDirLen = path.length();
+        try {
+            path.slash().put(segmentId);
+            final long rowCount;
+            try {
+                rowCount = appendSegment(ff, writer, path, walId, segmentId);
+                writer.commit();
+            } catch (Throwable e) {
+                writer.rollback();
+                LOG.error().$("could not apply WAL segment, will retry [path=").$(path).$(", e=").$(e).$(']').$();
+                return false;
+            }
+            LOG.info().$(rowCount > -1 ? "applied WAL segment [table=" : "removing applied WAL segment [table=").$(writer.getTableName())
+                    .$(", walId=").$(walId)
+                    .$(", segment=").$(segmentId)
+                    .$(", rows=").$(rowCount)
+                    .$(']').$();
+            // segment without metadata is not replayed, remove it first
+            final int segmentDirLen = path.length();
+            if (!ff.remove(path.concat(WalWriter.SEGMENT_META_FILE_NAME).$())) {
+                // only the last applied segment is recorded, hence stop before the next one is applied
+                LOG.error().$("could not remove WAL segment metadata, will retry [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                return false;
+            }
+            if (ff.rmdir(path.trimTo(segmentDirLen).$()) != 0) {
+                LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            return true;
+        } finally {
+            path.trimTo(walDirLen);
+        }
+    }
+
+    private static void findCommittedSegments(FilesFacade ff, Path path, LongList segmentIds) {
+        final int walDirLen = path.length();
+        final StringSink nameSink = Misc.getThreadLocalBuilder();
+        final long p = ff.findFirst(path.$());
+        if (p > 0) {
+            try {
+                do {
+                    if (Files.isDir(ff.findName(p), ff.findType(p), nameSink)) {
+                        try {
+                            final long segmentId = Numbers.parseLong(nameSink);
+                            if (ff.exists(path.trimTo(walDirLen).slash().put(segmentId).concat(WalWriter.SEGMENT_META_FILE_NAME).$())) {
+                                segmentIds.add(segmentId);
+                            }
+                        } catch (NumericException ignore) {
+                        }
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+                path.trimTo(walDirLen);
+            }
+        }
+    }
+
+    private static void findWalIds(FilesFacade ff, Path path, IntList walIds) {
+        final int tableDirLen = path.length();
+        final StringSink nameSink = Misc.getThreadLocalBuilder();
+        final long p = ff.findFirst(path.$());
+        if (p > 0) {
+            try {
+                do {
+                    if (Files.isDir(ff.findName(p), ff.findType(p), nameSink) && Chars.startsWith(nameSink, WalWriter.WAL_NAME_BASE)) {
+                        try {
+                            walIds.add(Numbers.parseInt(nameSink, WalWriter.WAL_NAME_BASE.length(), nameSink.length()));
+                        } catch (NumericException ignore) {
+                        }
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+            }
+        }
+        path.trimTo(tableDirLen);
+    }
+
+    /**
+     * Removes segments, which have not been committed, of the WAL abandoned by a writer that
+     * has not been closed, e.g. because the server crashed.
+     */
+    private static void removeUncommittedSegments(FilesFacade ff, Path path) {
+        final int walDirLen = path.length();
+        TableUtils.lockName(path);
+        final long lockFd = TableUtils.lock(ff, path);
+        path.trimTo(walDirLen);
+        if (lockFd == -1) {
+            // writer is alive
+            return;
+        }
+        try {
+            final StringSink nameSink = Misc.getThreadLocalBuilder();
+            final long p = ff.findFirst(path.$());
+            if (p > 0) {
+                try {
+                    do {
+                        if (Files.isDir(ff.findName(p), ff.findType(p), nameSink)) {
+                            try {
+                                final long segmentId = Numbers.parseLong(nameSink);
+                                path.trimTo(walDirLen).slash().put(segmentId);
+                                final int segmentDirLen = path.length();
+                                if (!ff.exists(path.concat(WalWriter.SEGMENT_META_FILE_NAME).$())
+                                        && ff.rmdir(path.trimTo(segmentDirLen).$()) != 0) {
+                                    LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                                }
+                            } catch (NumericException ignore) {
+                            }
+                        }
+                    } while (ff.findNext(p) > 0);
+                } finally {
+                    ff.findClose(p);
+                    path.trimTo(walDirLen);
+                }
+            }
+        } finally {
+            ff.close(lockFd);
+            TableUtils.lockName(path);
+            ff.remove(path);
+            path.trimTo(walDirLen);
+        }
+    }
+
+    /**
+     * Appends rows of the segment to the writer and records the segment as applied in the
+     * pending transaction.
+     *
+     * @return number of rows appended or -1 when the segment has already been applied
+     */
+    private static long appendSegment(FilesFacade ff, TableWriter writer, Path path, int walId, long segmentId) {
+        final int segmentDirLen = path.length();
+        final TableWriterMetadata metadata = writer.getMetadata();
+        final ObjList<MemoryCMR> primaryColumns = new ObjList<>();
+        final ObjList<MemoryCMR> secondaryColumns = new ObjList<>();
+        final IntList writerColumnIndexes = new IntList();
+        final IntList columnTypes = new IntList();
+        MemoryCMR timestampColumn = null;
+        try {
+            final long rowCount;
+            final long token;
+            try (MemoryMR metaMem = Vm.getMRInstance(
+                    ff,
+                    path.concat(WalWriter.SEGMENT_META_FILE_NAME).$(),
+                    ff.length(path),
+                    MemoryTag.MMAP_DEFAULT
+            )) {
+                final int columnCount = metaMem.getInt(0);
+                final int timestampIndex = metaMem.getInt(Integer.BYTES);
+                rowCount = metaMem.getLong(2 * Integer.BYTES);
+                token = metaMem.getLong(2 * Integer.BYTES + Long.BYTES);
+                if (writer.isAppliedWalSegment(walId, segmentId, token)) {
+                    return -1;
+                }
+                long offset = 2 * Integer.BYTES + 2 * Long.BYTES;
+                for (int i = 0; i < columnCount; i++) {
+                    final int columnType = metaMem.getInt(offset);
+                    offset += Integer.BYTES;
+                    final CharSequence columnName = metaMem.getStr(offset);
+                    offset += Vm.getStorageLength(columnName);
+
+                    final int writerIndex = metadata.getColumnIndexQuiet(columnName);
+                    if (i == timestampIndex) {
+                        if (writerIndex != metadata.getTimestampIndex()) {
+                            throw CairoException.instance(0).put("designated timestamp mismatch [column=").put(columnName).put(']');
+                        }
+                        timestampColumn = openColumn(ff, TableUtils.dFile(path.trimTo(segmentDirLen), columnName));
+                        continue;
+                    }
+
+                    if (writerIndex < 0) {
+                        // column has been dropped since the segment was written
+                        LOG.info().$("skipping dropped WAL column [path=").$(path.trimTo(segmentDirLen)).$(", column=").$(columnName).$(']').$();
+                        continue;
+                    }
+
+                    if (metadata.getColumnType(writerIndex) != columnType) {
+                        // values cannot be converted silently, keep the segment until the column is fixed
+                        throw CairoException.instance(0).put("WAL column type mismatch [column=").put(columnName)
+                                .put(", walType=").put(ColumnType.nameOf(columnType))
+                                .put(", tableType=").put(ColumnType.nameOf(metadata.getColumnType(writerIndex)))
+                                .put(']');
+                    }
+
+                    writerColumnIndexes.add(writerIndex);
+                    columnTypes.add(columnType);
+                    primaryColumns.add(openColumn(ff, TableUtils.dFile(path.trimTo(segmentDirLen), columnName)));
+                    secondaryColumns.add(
+                            WalWriter.isVarSize(columnType)
+                                    ? openColumn(ff, TableUtils.iFile(path.trimTo(segmentDirLen), columnName))
+                                    : null
+                    );
+                }
+                if (timestampColumn == null && metadata.getTimestampIndex() > -1) {
+                    throw CairoException.instance(0).put("designated timestamp is missing in WAL segment");
+                }
+            } finally {
+                path.trimTo(segmentDirLen);
+            }
+
+            for (long row = 0; row < rowCount; row++) {
+                final TableWriter.Row r = timestampColumn != null
+                        ? writer.newRow(timestampColumn.getLong(row * Long.BYTES))
+                        : writer.newRow();
+                for (int i = 0, n = writerColumnIndexes.size(); i < n; i++) {
+                    copyValue(
+                            r,
+                            writerColumnIndexes.getQuick(i),
+                            columnTypes.getQuick(i),
+                            primaryColumns.getQuick(i),
+                            secondaryColumns.getQuick(i),
+                            row
+                    );
+                }
+                r.append();
+            }
+            // rolled back together with the rows when commit fails
+            writer.setAppliedWalSegment(walId, segmentId, token);
+            return rowCount;
+        } finally {
+            Misc.free(timestampColumn);
+            Misc.freeObjList(primaryColumns);
+            Misc.freeObjList(secondaryColumns);
+        }
+    }
+
+    private static void copyValue(TableWriter.Row r, int columnIndex, int columnType, MemoryCMR primary, MemoryCMR secondary, long row) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                r.putBool(columnIndex, primary.getBool(row));
+                break;
+            case ColumnType.BYTE:
+                r.putByte(columnIndex, primary.getByte(row));
+                break;
+            case ColumnType.GEOBYTE:
+                r.putGeoHash(columnIndex, primary.getByte(row));
+                break;
+            case ColumnType.SHORT:
+                r.putShort(columnIndex, primary.getShort(row * Short.BYTES));
+                break;
+            case ColumnType.GEOSHORT:
+                r.putGeoHash(columnIndex, primary.getShort(row * Short.BYTES));
+                break;
+            case ColumnType.CHAR:
+                r.putChar(columnIndex, primary.getChar(row * Character.BYTES));
+                break;
+            case ColumnType.INT:
+                r.putInt(columnIndex, primary.getInt(row * Integer.BYTES));
+                break;
+            case ColumnType.GEOINT:
+                r.putGeoHash(columnIndex, primary.getInt(row * Integer.BYTES));
+                break;
+            case ColumnType.FLOAT:
+                r.putFloat(columnIndex, primary.getFloat(row * Float.BYTES));
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                r.putLong(columnIndex, primary.getLong(row * Long.BYTES));
+                break;
+            case ColumnType.GEOLONG:
+                r.putGeoHash(columnIndex, primary.getLong(row * Long.BYTES));
+                break;
+            case ColumnType.DOUBLE:
+                r.putDouble(columnIndex, primary.getDouble(row * Double.BYTES));
+                break;
+            case ColumnType.LONG256:
+                r.putLong256(columnIndex, primary.getLong256A(row * Long256.BYTES));
+                break;
+            case ColumnType.STRING:
+                r.putStr(columnIndex, primary.getStr(secondary.getLong(row * Long.BYTES)));
+                break;
+            case ColumnType.SYMBOL:
+                r.putSym(columnIndex, primary.getStr(secondary.getLong(row * Long.BYTES)));
+                break;
+            case ColumnType.BINARY:
+                r.putBin(columnIndex, primary.getBin(secondary.getLong(row * Long.BYTES)));
+                break;
+            default:
+                throw CairoException.instance(0).put("unsupported column type [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
+    private static MemoryCMR openColumn(FilesFacade ff, LPSZ name) {
+        return Vm.getCMRInstance(ff, name, ff.length(name), MemoryTag.MMAP_DEFAULT);
+    }
+
+    @Override
+    protected boolean doRun(int workerId, long cursor) {
+        final String tableName = queue.get(cursor).getTableName();
+        subSeq.done(cursor);
+        if (!applyPendingSegments(engine, tableName)) {
+            scheduleRetry(tableName, clock.getTicks() + retryInterval);
+        }
+        return true;
+    }
+
+    private void replayPendingSegments() {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        final FilesFacade ff = configuration.getFilesFacade();
+        final StringSink tableName = new StringSink();
+        final IntList walIds = new IntList();
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot());
+            final int rootLen = path.length();
+            final long p = ff.findFirst(path.$());
+            if (p > 0) {
+                try {
+                    do {
+                        if (Files.isDir(ff.findName(p), ff.findType(p), tableName)) {
+                            path.trimTo(rootLen).concat(tableName);
+                            final int tableDirLen = path.length();
+                            walIds.clear();
+                            findWalIds(ff, path, walIds);
+                            for (int i = 0, n = walIds.size(); i < n; i++) {
+                                removeUncommittedSegments(ff, path.trimTo(tableDirLen).concat(WalWriter.WAL_NAME_BASE).put(walIds.getQuick(i)));
+                                removeWalDirIfUnused(ff, path);
+                            }
+                            if (walIds.size() > 0) {
+                                LOG.info().$("scheduled WAL replay [table=").$(tableName).$(']').$();
+                                scheduleRetry(Chars.toString(tableName), 0);
+                            }
+                        }
+                    } while (ff.findNext(p) > 0);
+                } finally {
+                    ff.findClose(p);
+                }
+            }
+        }
+    }
+
+    private boolean retryDueTable() {
+        final long now = clock.getTicks();
+        String tableName = null;
+        synchronized (retryTables) {
+            for (int i = 0, n = retryTables.size(); i < n; i++) {
+                if (retryTimes.getQuick(i) <= now) {
+                    tableName = retryTables.getQuick(i);
+                    retryTables.remove(i);
+                    retryTimes.removeIndex(i);
+                    break;
+                }
+            }
+        }
+        if (tableName == null) {
+            return false;
+        }
+        if (applyPendingSegments(engine, tableName)) {
+            return true;
+        }
+        scheduleRetry(tableName, now + retryInterval);
+        return false;
+    }
+
+    private void scheduleRetry(String tableName, long time) {
+        synchronized (retryTables) {
+            for (int i = 0, n = retryTables.size(); i < n; i++) {
+                if (Chars.equals(retryTables.getQuick(i), tableName)) {
+                    return;
+                }
+            }
+            retryTables.add(tableName);
+            retryTimes.add(time);
+        }
+    }
+}
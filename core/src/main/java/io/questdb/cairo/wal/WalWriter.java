@@ -0,0 +1,642 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.WalApplyTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * Appends rows to a write-ahead log of the table instead of the table itself. Unlike
+ * {@link TableWriter} any number of WAL writers can be open for the same table at the
+ * same time, each of them owns a "wal[N]" directory under the table root. Every commit
+ * closes the current segment of the WAL and hands it over to {@link ApplyWal2TableJob},
+ * which merges the segment into table partitions.
+ * <p>
+ * Segment is a directory with one file per column, laid out the same way as partition
+ * columns, except that symbols are stored as strings. Segment metadata (column names,
+ * types, row count and segment token) is written to "_meta" file of the segment at commit
+ * time. The file is written under a temporary name, synced and renamed, so that "_meta"
+ * is never seen partially written. Token tells apart segments of the same WAL and segment
+ * ids, which can be reused once WAL directory has been removed.
+ */
+public class WalWriter implements Closeable {
+    public static final String WAL_NAME_BASE = "wal";
+    public static final String SEGMENT_META_FILE_NAME = TableUtils.META_FILE_NAME;
+    static final String SEGMENT_META_TEMP_FILE_NAME = TableUtils.META_FILE_NAME + ".tmp";
+    private static final Log LOG = LogFactory.getLog(WalWriter.class);
+    private final FilesFacade ff;
+    private final int mkDirMode;
+    private final long appendPageSize;
+    private final String tableName;
+    private final long structureVersion;
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final int timestampIndex;
+    // two memories per column, secondary memory is only present for variable length columns
+    private final ObjList<MemoryMA> columns = new ObjList<>();
+    // append offsets of the primary and secondary column memories at the start of current row
+    private final LongList rowStartOffsets = new LongList();
+    // row number, which column value has been set for, unset values are written out as nulls on append
+    private final LongList columnRowMarks = new LongList();
+    private final MemoryMA metaMem = Vm.getMAInstance();
+    private final RowImpl row = new RowImpl();
+    private final RingQueue<WalApplyTask> applyQueue;
+    private final Sequence applyPubSeq;
+    private final MicrosecondClock clock;
+    private final Path path = new Path();
+    private final Path other = new Path();
+    private final int walDirLen;
+    private final int walId;
+    private long lockFd = -1;
+    private long segmentId = -1;
+    private long nextSegmentId = 0;
+    private long segmentRowCount;
+
+    public WalWriter(CairoEngine engine, CharSequence tableName) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        final MessageBus messageBus = engine.getMessageBus();
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.appendPageSize = configuration.getDataAppendPageSize();
+        this.applyQueue = messageBus.getWalApplyQueue();
+        this.applyPubSeq = messageBus.getWalApplyPubSeq();
+        this.clock = configuration.getMicrosecondClock();
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            final TableReaderMetadata metadata = reader.getMetadata();
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                columnNames.add(Chars.toString(metadata.getColumnName(i)));
+                columnTypes.add(metadata.getColumnType(i));
+                columnRowMarks.add(-1);
+                rowStartOffsets.add(0);
+                rowStartOffsets.add(0);
+            }
+            this.tableName = reader.getTableName();
+            this.timestampIndex = metadata.getTimestampIndex();
+            this.structureVersion = reader.getVersion();
+        }
+
+        try {
+            path.of(configuration.getRoot()).concat(tableName).concat(WAL_NAME_BASE);
+            final int baseLen = path.length();
+            int id = 1;
+            while (true) {
+                path.trimTo(baseLen).put(id).$();
+                if (ff.mkdir(path, mkDirMode) == 0) {
+                    break;
+                }
+                if (!ff.exists(path)) {
+                    throw CairoException.instance(ff.errno()).put("could not create WAL directory [path=").put(path).put(']');
+                }
+                id++;
+            }
+            this.walId = id;
+            this.walDirLen = path.length();
+            TableUtils.lockName(path.trimTo(walDirLen));
+            lockFd = TableUtils.lock(ff, path);
+            if (lockFd == -1) {
+                final int errno = ff.errno();
+                ff.rmdir(path.trimTo(walDirLen).$());
+                throw CairoException.instance(errno).put("could not lock WAL [path=").put(path).put(']');
+            }
+            path.trimTo(walDirLen);
+            for (int i = 0, n = columnTypes.size(); i < n; i++) {
+                columns.add(Vm.getMAInstance());
+                columns.add(isVarSize(columnTypes.getQuick(i)) ? Vm.getMAInstance() : null);
+            }
+            LOG.info().$("opened WAL [table=").$(tableName).$(", walId=").$(walId).$(']').$();
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    static boolean isVarSize(int columnType) {
+        return ColumnType.isVariableLength(columnType) || ColumnType.isSymbol(columnType);
+    }
+
+    @Override
+    public void close() {
+        if (segmentId > -1) {
+            rollback();
+        }
+        Misc.freeObjList(columns);
+        Misc.free(metaMem);
+        if (lockFd != -1) {
+            ff.close(lockFd);
+            lockFd = -1;
+            TableUtils.lockName(path.trimTo(walDirLen));
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove WAL lock [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            path.trimTo(walDirLen);
+            ApplyWal2TableJob.removeWalDirIfUnused(ff, path);
+        }
+        Misc.free(path);
+        Misc.free(other);
+    }
+
+    /**
+     * Closes current segment and schedules it to be applied to the table. Applying
+     * is asynchronous, rows become visible to readers once {@link ApplyWal2TableJob}
+     * merged the segment.
+     *
+     * @throws CairoException when apply queue is full, rows are kept in the current segment
+     *                        and commit can be retried once the queue has been drained
+     */
+    public void commit() {
+        if (segmentId < 0) {
+            return;
+        }
+        if (segmentRowCount == 0) {
+            rollback();
+            return;
+        }
+        long cursor;
+        while ((cursor = applyPubSeq.next()) == -2) {
+            // contention with other publishers, retry
+        }
+        if (cursor < 0) {
+            throw CairoException.instance(0).put("WAL apply queue is full [table=").put(tableName).put(']');
+        }
+        final long committedSegmentId = segmentId;
+        try {
+            closeSegment();
+        } finally {
+            // queue slot has to be released either way, segment without metadata is not applied
+            applyQueue.get(cursor).of(tableName);
+            applyPubSeq.done(cursor);
+        }
+        LOG.debug().$("committed WAL segment [table=").$(tableName).$(", walId=").$(walId).$(", segment=").$(committedSegmentId).$(']').$();
+    }
+
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getWalId() {
+        return walId;
+    }
+
+    public TableWriter.Row newRow() {
+        return newRow(Numbers.LONG_NaN);
+    }
+
+    public TableWriter.Row newRow(long timestamp) {
+        if (segmentId < 0) {
+            openSegment();
+        }
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            rowStartOffsets.setQuick(2 * i, columns.getQuick(2 * i).getAppendOffset());
+            final MemoryMA secondary = columns.getQuick(2 * i + 1);
+            if (secondary != null) {
+                rowStartOffsets.setQuick(2 * i + 1, secondary.getAppendOffset());
+            }
+        }
+        if (timestampIndex > -1) {
+            if (timestamp == Numbers.LONG_NaN) {
+                throw CairoException.instance(0).put("designated timestamp cannot be null [table=").put(tableName).put(']');
+            }
+            row.putTimestamp(timestampIndex, timestamp);
+        }
+        return row;
+    }
+
+    /**
+     * Discards rows appended since last commit.
+     */
+    public void rollback() {
+        if (segmentId > -1) {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final MemoryMA mem = columns.getQuick(i);
+                if (mem != null) {
+                    mem.close(false);
+                }
+            }
+            if (ff.rmdir(setSegmentPath(segmentId).$()) != 0) {
+                LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            path.trimTo(walDirLen);
+            segmentId = -1;
+        }
+    }
+
+    private void closeSegment() {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MemoryMA mem = columns.getQuick(i);
+            if (mem != null) {
+                mem.sync(false);
+                mem.close(true);
+            }
+        }
+        try {
+            final int segmentDirLen = setSegmentPath(segmentId).length();
+            try {
+                metaMem.of(ff, path.concat(SEGMENT_META_TEMP_FILE_NAME).$(), ff.getPageSize(), MemoryTag.MMAP_TABLE_WRITER);
+                metaMem.putInt(columnTypes.size());
+                metaMem.putInt(timestampIndex);
+                metaMem.putLong(segmentRowCount);
+                metaMem.putLong(clock.getTicks());
+                for (int i = 0, n = columnTypes.size(); i < n; i++) {
+                    metaMem.putInt(columnTypes.getQuick(i));
+                    metaMem.putStr(columnNames.getQuick(i));
+                }
+            } finally {
+                metaMem.close(true);
+            }
+
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open WAL segment metadata [path=").put(path).put(']');
+            }
+            try {
+                if (ff.fsync(fd) != 0) {
+                    throw CairoException.instance(ff.errno()).put("could not sync WAL segment metadata [path=").put(path).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+
+            // segment is committed once "_meta" appears
+            other.of(path).trimTo(segmentDirLen).concat(SEGMENT_META_FILE_NAME).$();
+            if (!ff.rename(path, other)) {
+                throw CairoException.instance(ff.errno()).put("could not commit WAL segment [path=").put(other).put(']');
+            }
+        } finally {
+            path.trimTo(walDirLen);
+        }
+        segmentId = -1;
+    }
+
+    private void openSegment() {
+        final long id = nextSegmentId++;
+        try {
+            if (ff.mkdir(setSegmentPath(id).$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create WAL segment [path=").put(path).put(']');
+            }
+            final int segmentDirLen = path.length();
+            for (int i = 0, n = columnTypes.size(); i < n; i++) {
+                final CharSequence columnName = columnNames.getQuick(i);
+                columns.getQuick(2 * i).of(ff, TableUtils.dFile(path.trimTo(segmentDirLen), columnName), appendPageSize, MemoryTag.MMAP_TABLE_WRITER);
+                final MemoryMA secondary = columns.getQuick(2 * i + 1);
+                if (secondary != null) {
+                    secondary.of(ff, TableUtils.iFile(path.trimTo(segmentDirLen), columnName), appendPageSize, MemoryTag.MMAP_TABLE_WRITER);
+                }
+            }
+            segmentId = id;
+            segmentRowCount = 0;
+        } catch (Throwable e) {
+            segmentId = id;
+            rollback();
+            throw e;
+        } finally {
+            path.trimTo(walDirLen);
+        }
+    }
+
+    private void rowAppend() {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            if (columnRowMarks.getQuick(i) != segmentRowCount) {
+                putNull(i);
+            }
+        }
+        segmentRowCount++;
+    }
+
+    private void rowCancel() {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MemoryMA mem = columns.getQuick(i);
+            if (mem != null) {
+                mem.jumpTo(rowStartOffsets.getQuick(i));
+            }
+        }
+        // forget values set for the row, next row will reuse the same row number
+        for (int i = 0, n = columnRowMarks.size(); i < n; i++) {
+            columnRowMarks.setQuick(i, -1);
+        }
+    }
+
+    private void putNull(int columnIndex) {
+        final MemoryMA primary = columns.getQuick(2 * columnIndex);
+        switch (ColumnType.tagOf(columnTypes.getQuick(columnIndex))) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                primary.putByte((byte) 0);
+                break;
+            case ColumnType.SHORT:
+                primary.putShort((short) 0);
+                break;
+            case ColumnType.CHAR:
+                primary.putChar((char) 0);
+                break;
+            case ColumnType.INT:
+                primary.putInt(Numbers.INT_NaN);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                primary.putLong(Numbers.LONG_NaN);
+                break;
+            case ColumnType.FLOAT:
+                primary.putFloat(Float.NaN);
+                break;
+            case ColumnType.DOUBLE:
+                primary.putDouble(Double.NaN);
+                break;
+            case ColumnType.LONG256:
+                primary.putLong256(Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN);
+                break;
+            case ColumnType.GEOBYTE:
+                primary.putByte(GeoHashes.BYTE_NULL);
+                break;
+            case ColumnType.GEOSHORT:
+                primary.putShort(GeoHashes.SHORT_NULL);
+                break;
+            case ColumnType.GEOINT:
+                primary.putInt(GeoHashes.INT_NULL);
+                break;
+            case ColumnType.GEOLONG:
+                primary.putLong(GeoHashes.NULL);
+                break;
+            case ColumnType.BINARY:
+                columns.getQuick(2 * columnIndex + 1).putLong(primary.getAppendOffset());
+                primary.putNullBin();
+                break;
+            default:
+                // string and symbol
+                columns.getQuick(2 * columnIndex + 1).putLong(primary.getAppendOffset());
+                primary.putNullStr();
+                break;
+        }
+    }
+
+    private Path setSegmentPath(long segmentId) {
+        return path.trimTo(walDirLen).slash().put(segmentId);
+    }
+
+    private class RowImpl implements TableWriter.Row {
+        @Override
+        public void append() {
+            rowAppend();
+        }
+
+        @Override
+        public void cancel() {
+            rowCancel();
+        }
+
+        @Override
+        public void putBin(int columnIndex, long address, long len) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).getAppendOffset());
+            getPrimaryColumn(columnIndex).putBin(address, len);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putBin(int columnIndex, BinarySequence sequence) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).getAppendOffset());
+            getPrimaryColumn(columnIndex).putBin(sequence);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putBool(int columnIndex, boolean value) {
+            getPrimaryColumn(columnIndex).putBool(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putByte(int columnIndex, byte value) {
+            getPrimaryColumn(columnIndex).putByte(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putChar(int columnIndex, char value) {
+            getPrimaryColumn(columnIndex).putChar(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putDate(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putDouble(int columnIndex, double value) {
+            getPrimaryColumn(columnIndex).putDouble(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putFloat(int columnIndex, float value) {
+            getPrimaryColumn(columnIndex).putFloat(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putGeoHash(int columnIndex, long value) {
+            putGeoHash0(columnIndex, value, columnTypes.getQuick(columnIndex));
+        }
+
+        @Override
+        public void putGeoHashDeg(int columnIndex, double lat, double lon) {
+            final int type = columnTypes.getQuick(columnIndex);
+            putGeoHash0(columnIndex, GeoHashes.fromCoordinatesDegUnsafe(lat, lon, ColumnType.getGeoHashBits(type)), type);
+        }
+
+        @Override
+        public void putGeoStr(int columnIndex, CharSequence hash) {
+            long val;
+            final int type = columnTypes.getQuick(columnIndex);
+            if (hash != null) {
+                final int hashLen = hash.length();
+                final int typeBits = ColumnType.getGeoHashBits(type);
+                final int charsRequired = (typeBits - 1) / 5 + 1;
+                if (hashLen < charsRequired) {
+                    val = GeoHashes.NULL;
+                } else {
+                    try {
+                        val = ColumnType.truncateGeoHashBits(
+                                GeoHashes.fromString(hash, 0, charsRequired),
+                                charsRequired * 5,
+                                typeBits
+                        );
+                    } catch (NumericException e) {
+                        val = GeoHashes.NULL;
+                    }
+                }
+            } else {
+                val = GeoHashes.NULL;
+            }
+            putGeoHash0(columnIndex, val, type);
+        }
+
+        @Override
+        public void putInt(int columnIndex, int value) {
+            getPrimaryColumn(columnIndex).putInt(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong(int columnIndex, long value) {
+            getPrimaryColumn(columnIndex).putLong(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
+            getPrimaryColumn(columnIndex).putLong256(l0, l1, l2, l3);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, Long256 value) {
+            getPrimaryColumn(columnIndex).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, CharSequence hexString) {
+            getPrimaryColumn(columnIndex).putLong256(hexString);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, @NotNull CharSequence hexString, int start, int end) {
+            getPrimaryColumn(columnIndex).putLong256(hexString, start, end);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putShort(int columnIndex, short value) {
+            getPrimaryColumn(columnIndex).putShort(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).getAppendOffset());
+            getPrimaryColumn(columnIndex).putStr(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, char value) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).getAppendOffset());
+            getPrimaryColumn(columnIndex).putStr(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value, int pos, int len) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).getAppendOffset());
+            getPrimaryColumn(columnIndex).putStr(value, pos, len);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putSym(int columnIndex, CharSequence value) {
+            // symbol keys are local to the table, WAL keeps symbol values
+            putStr(columnIndex, value);
+        }
+
+        @Override
+        public void putSym(int columnIndex, char value) {
+            putStr(columnIndex, value);
+        }
+
+        @Override
+        public void putSymIndex(int columnIndex, int symIndex) {
+            throw CairoException.instance(0).put("symbol keys are not supported by WAL [table=").put(tableName)
+                    .put(", column=").put(columnNames.getQuick(columnIndex)).put(']');
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, CharSequence value) {
+            long l;
+            try {
+                l = value != null ? IntervalUtils.parseFloorPartialDate(value) : Numbers.LONG_NaN;
+            } catch (NumericException e) {
+                throw CairoException.instance(0).put("Invalid timestamp: ").put(value);
+            }
+            putTimestamp(columnIndex, l);
+        }
+
+        private MemoryMA getPrimaryColumn(int columnIndex) {
+            return columns.getQuick(2 * columnIndex);
+        }
+
+        private MemoryMA getSecondaryColumn(int columnIndex) {
+            return columns.getQuick(2 * columnIndex + 1);
+        }
+
+        private void putGeoHash0(int columnIndex, long value, int type) {
+            final MemoryMA primaryColumn = getPrimaryColumn(columnIndex);
+            switch (ColumnType.tagOf(type)) {
+                case ColumnType.GEOBYTE:
+                    primaryColumn.putByte((byte) value);
+                    break;
+                case ColumnType.GEOSHORT:
+                    primaryColumn.putShort((short) value);
+                    break;
+                case ColumnType.GEOINT:
+                    primaryColumn.putInt((int) value);
+                    break;
+                default:
+                    primaryColumn.putLong(value);
+                    break;
+            }
+            setRowValueNotNull(columnIndex);
+        }
+
+        private void setRowValueNotNull(int columnIndex) {
+            columnRowMarks.setQuick(columnIndex, segmentRowCount);
+        }
+    }
+}
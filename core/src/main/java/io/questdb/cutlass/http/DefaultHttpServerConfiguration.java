@@ -25,7 +25,10 @@
 package io.questdb.cutlass.http;
 
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
+import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
 import io.questdb.griffin.DefaultSqlExecutionCircuitBreakerConfiguration;
 import io.questdb.griffin.SqlExecutionCircuitBreakerConfiguration;
 import io.questdb.network.DefaultIODispatcherConfiguration;
@@ -112,6 +115,25 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         }
     };
 
+    private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new LineHttpProcessorConfiguration() {
+        private final LineTcpReceiverConfiguration lineTcpReceiverConfiguration = new DefaultLineTcpReceiverConfiguration();
+
+        @Override
+        public LineTcpReceiverConfiguration getLineTcpReceiverConfiguration() {
+            return lineTcpReceiverConfiguration;
+        }
+
+        @Override
+        public int getMaxRequestSize() {
+            return 16 * 1024 * 1024;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+    };
+
     public DefaultHttpServerConfiguration() {
         this(new DefaultHttpContextConfiguration());
     }
@@ -150,6 +172,11 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         return jsonQueryProcessorConfiguration;
     }
 
+    @Override
+    public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+        return lineHttpProcessorConfiguration;
+    }
+
     @Override
     public boolean isQueryCacheEnabled() {
         return true;
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+
+/**
+ * Decodes "Transfer-Encoding: chunked" request body. Parser is resumable, input can be split
+ * at any byte. Chunk extensions and trailer headers are skipped.
+ */
+public class HttpChunkedContentParser implements Mutable {
+    private static final int STATE_SIZE = 0;
+    private static final int STATE_SIZE_EXTENSION = 1;
+    private static final int STATE_SIZE_LF = 2;
+    private static final int STATE_DATA = 3;
+    private static final int STATE_DATA_CR = 4;
+    private static final int STATE_DATA_LF = 5;
+    private static final int STATE_TRAILER = 6;
+    private static final int STATE_DONE = 7;
+    // 15 hex digits keep chunk size positive
+    private static final int MAX_SIZE_DIGITS = 15;
+    private int state = STATE_SIZE;
+    private long chunkRemaining;
+    private int sizeDigits;
+    private int trailerLineLen;
+
+    @Override
+    public void clear() {
+        state = STATE_SIZE;
+        chunkRemaining = 0;
+        sizeDigits = 0;
+        trailerLineLen = 0;
+    }
+
+    /**
+     * Parses chunked body and sends chunk data to the listener.
+     *
+     * @return true when the terminating chunk and trailer have been consumed, bytes past that point are ignored
+     * @throws HttpException when body is not valid chunked encoding
+     */
+    public boolean parse(long lo, long hi, HttpContentListener listener) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        long p = lo;
+        while (p < hi && state != STATE_DONE) {
+            if (state == STATE_DATA) {
+                final long len = Math.min(hi - p, chunkRemaining);
+                listener.onContent(p, p + len);
+                p += len;
+                chunkRemaining -= len;
+                if (chunkRemaining == 0) {
+                    state = STATE_DATA_CR;
+                }
+                continue;
+            }
+
+            final byte b = Unsafe.getUnsafe().getByte(p++);
+            switch (state) {
+                case STATE_SIZE:
+                    if (b == '\r' && sizeDigits > 0) {
+                        state = STATE_SIZE_LF;
+                    } else if (b == ';' && sizeDigits > 0) {
+                        state = STATE_SIZE_EXTENSION;
+                    } else {
+                        final int digit = hexDigit(b);
+                        if (digit < 0 || ++sizeDigits > MAX_SIZE_DIGITS) {
+                            throw HttpException.instance("invalid chunk size");
+                        }
+                        chunkRemaining = (chunkRemaining << 4) | digit;
+                    }
+                    break;
+                case STATE_SIZE_EXTENSION:
+                    if (b == '\r') {
+                        state = STATE_SIZE_LF;
+                    }
+                    break;
+                case STATE_SIZE_LF:
+                    expect(b, '\n');
+                    sizeDigits = 0;
+                    state = chunkRemaining > 0 ? STATE_DATA : STATE_TRAILER;
+                    break;
+                case STATE_DATA_CR:
+                    expect(b, '\r');
+                    state = STATE_DATA_LF;
+                    break;
+                case STATE_DATA_LF:
+                    expect(b, '\n');
+                    state = STATE_SIZE;
+                    break;
+                case STATE_TRAILER:
+                    if (b == '\n') {
+                        if (trailerLineLen == 0) {
+                            state = STATE_DONE;
+                        }
+                        trailerLineLen = 0;
+                    } else if (b != '\r') {
+                        trailerLineLen++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return state == STATE_DONE;
+    }
+
+    private static void expect(byte b, char expected) {
+        if (b != expected) {
+            throw HttpException.instance("invalid chunk delimiter");
+        }
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+}
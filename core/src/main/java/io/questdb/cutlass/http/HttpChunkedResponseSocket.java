@@ -43,5 +43,14 @@ public interface HttpChunkedResponseSocket extends CharSink {
 
     void status(int status, CharSequence contentType);
 
+    /**
+     * Copies raw bytes into the response buffer for as long as there is space left in it.
+     *
+     * @param lo address of the first byte to copy
+     * @param hi address past the last byte to copy
+     * @return number of bytes copied, which is less than hi - lo when the buffer fills up
+     */
+    int writeBytes(long lo, long hi);
+
     void shutdownWrite();
 }
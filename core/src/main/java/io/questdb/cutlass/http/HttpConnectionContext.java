@@ -52,6 +52,7 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
     private final boolean dumpNetworkTraffic;
     private final boolean allowDeflateBeforeSend;
     private final MultipartParserState multipartParserState = new MultipartParserState();
+    private final HttpChunkedContentParser chunkedContentParser = new HttpChunkedContentParser();
     private final RetryAttemptAttributes retryAttemptAttributes = new RetryAttemptAttributes();
     private final RescheduleContext retryRescheduleContext = retry -> {
         LOG.info().$("Retry is requested after successful writer allocation. Retry will be re-scheduled [thread=").$(Thread.currentThread().getId()).$(']');
@@ -66,6 +67,8 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
     private int nCompletedRequests;
     private long totalBytesSent;
     private int receivedBytes;
+    private boolean chunkedContent;
+    private long contentRemaining;
 
     public HttpConnectionContext(HttpContextConfiguration configuration) {
         this.nf = configuration.getNetworkFacade();
@@ -105,6 +108,9 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         this.retryAttemptAttributes.lastRunTimestamp = 0;
         this.retryAttemptAttributes.attempt = 0;
         this.receivedBytes = 0;
+        this.chunkedContentParser.clear();
+        this.chunkedContent = false;
+        this.contentRemaining = 0;
     }
 
     @Override
@@ -306,6 +312,69 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         }
     }
 
+    private boolean consumeContent(
+            long fd,
+            HttpRequestProcessor processor,
+            long headerEnd,
+            int read,
+            boolean newRequest,
+            RescheduleContext rescheduleContext
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        if (newRequest) {
+            processor.onHeadersReady(this);
+            chunkedContent = Chars.equalsIgnoreCaseNc(headerParser.getHeader("Transfer-Encoding"), "chunked");
+            chunkedContentParser.clear();
+            contentRemaining = 0;
+            if (!chunkedContent) {
+                final CharSequence contentLength = headerParser.getHeader("Content-Length");
+                if (contentLength != null) {
+                    try {
+                        contentRemaining = Numbers.parseLong(contentLength);
+                    } catch (NumericException e) {
+                        throw HttpException.instance("invalid Content-Length");
+                    }
+                    if (contentRemaining < 0) {
+                        throw HttpException.instance("invalid Content-Length");
+                    }
+                }
+            }
+        }
+
+        processor.resumeRecv(this);
+
+        final HttpContentListener contentListener = (HttpContentListener) processor;
+
+        // part of the content could have arrived together with the header
+        if (newRequest && deliverContent(contentListener, headerEnd, recvBuffer + read)) {
+            completeRequest(processor, rescheduleContext);
+            return true;
+        }
+
+        while (true) {
+            // with known content length do not read past the end of the request
+            final int len = chunkedContent ? recvBufferSize : (int) Math.min(recvBufferSize, contentRemaining);
+            final int n = nf.recv(fd, recvBuffer, len);
+            if (n < 0) {
+                handlePeerDisconnect(DISCONNECT_REASON_PEER_DISCONNECT_AT_CONTENT_RECV);
+                return false;
+            }
+
+            if (n == 0) {
+                LOG.debug().$("peer is slow [content]").$();
+                dispatcher.registerChannel(this, IOOperation.READ);
+                return false;
+            }
+
+            LOG.debug().$("content recv [len=").$(n).$(']').$();
+            dumpBuffer(recvBuffer, n);
+
+            if (deliverContent(contentListener, recvBuffer, recvBuffer + n)) {
+                completeRequest(processor, rescheduleContext);
+                return true;
+            }
+        }
+    }
+
     private boolean consumeMultipart(
             long fd,
             HttpRequestProcessor processor,
@@ -450,6 +519,18 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         return keepGoing;
     }
 
+    private boolean deliverContent(HttpContentListener contentListener, long lo, long hi) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        if (chunkedContent) {
+            return chunkedContentParser.parse(lo, hi, contentListener);
+        }
+        final long len = Math.min(hi - lo, contentRemaining);
+        if (len > 0) {
+            contentListener.onContent(lo, lo + len);
+            contentRemaining -= len;
+        }
+        return contentRemaining == 0;
+    }
+
     private void dumpBuffer(long buffer, int size) {
         if (dumpNetworkTraffic && size > 0) {
             StdoutSink.INSTANCE.put('>');
@@ -536,6 +617,7 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
 
             final boolean multipartRequest = Chars.equalsNc("multipart/form-data", headerParser.getContentType());
             final boolean multipartProcessor = processor instanceof HttpMultipartContentListener;
+            final boolean contentProcessor = processor instanceof HttpContentListener;
 
             if (allowDeflateBeforeSend && Chars.contains(headerParser.getHeader("Accept-Encoding"), "gzip")) {
                 responseSink.setDeflateBeforeSend(true);
@@ -550,6 +632,8 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
                     busyRecv = rejectRequest("Bad request. Multipart POST expected.");
                 } else if (multipartProcessor) {
                     busyRecv = consumeMultipart(fd, processor, headerEnd, read, newRequest, rescheduleContext);
+                } else if (contentProcessor) {
+                    busyRecv = consumeContent(fd, processor, headerEnd, read, newRequest, rescheduleContext);
                 } else {
 
                     // Do not expect any more bytes to be sent to us before
@@ -43,13 +43,16 @@ public class HttpResponseSink implements Closeable, Mutable {
 
     static {
         httpStatusMap.put(200, "OK");
+        httpStatusMap.put(204, "No Content");
         httpStatusMap.put(206, "Partial content");
         httpStatusMap.put(304, "Not Modified");
         httpStatusMap.put(400, "Bad request");
         httpStatusMap.put(404, "Not Found");
+        httpStatusMap.put(413, "Request entity too large");
         httpStatusMap.put(416, "Request range not satisfiable");
         httpStatusMap.put(431, "Headers too large");
         httpStatusMap.put(500, "Internal server error");
+        httpStatusMap.put(503, "Service unavailable");
     }
 
     private final ChunkBuffer buffer;
@@ -576,6 +579,14 @@ public class HttpResponseSink implements Closeable, Mutable {
         public void shutdownWrite() {
             nf.shutdown(fd, Net.SHUT_WR);
         }
+
+        @Override
+        public int writeBytes(long lo, long hi) {
+            final int n = (int) Math.min(hi - lo, buffer.getWriteNAvailable());
+            Vect.memcpy(buffer._wptr, lo, n);
+            buffer.onWrite(n);
+            return n;
+        }
     }
 
     private class ChunkBuffer extends AbstractCharSink implements Closeable {
@@ -29,9 +29,12 @@ import io.questdb.WorkerPoolAwareConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cutlass.http.processors.*;
+import io.questdb.cutlass.text.TextImportJob;
 import io.questdb.griffin.FunctionFactoryCache;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
 import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
+import io.questdb.griffin.engine.table.PageFrameReduceJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.EagerThreadSetup;
@@ -156,6 +159,20 @@ public class HttpServer implements Closeable {
             }
         });
 
+        if (configuration.getLineHttpProcessorConfiguration().isEnabled()) {
+            server.bind(new HttpRequestProcessorFactory() {
+                @Override
+                public HttpRequestProcessor newInstance() {
+                    return new LineHttpProcessor(configuration.getLineHttpProcessorConfiguration(), cairoEngine);
+                }
+
+                @Override
+                public String getUrl() {
+                    return "/write";
+                }
+            });
+        }
+
         server.bind(new HttpRequestProcessorFactory() {
             @Override
             public HttpRequestProcessor newInstance() {
@@ -184,6 +201,9 @@ public class HttpServer implements Closeable {
         workerPool.assign(new ColumnIndexerJob(cairoEngine.getMessageBus()));
         workerPool.assign(new GroupByJob(cairoEngine.getMessageBus()));
         workerPool.assign(new LatestByAllIndexedJob(cairoEngine.getMessageBus()));
+        workerPool.assign(new PageFrameFilterJob(cairoEngine.getMessageBus()));
+        workerPool.assign(new PageFrameReduceJob(cairoEngine.getMessageBus()));
+        workerPool.assign(new TextImportJob(cairoEngine.getMessageBus()));
     }
 
     @Nullable
@@ -276,7 +296,7 @@ public class HttpServer implements Closeable {
             Metrics metrics
     ) {
         final HttpServer s = new HttpServer(configuration, workerPool, localPool);
-        QueryCache.configure(configuration);
+        QueryCache.configure(configuration, cairoEngine.getQueryPlanCache());
         HttpRequestProcessorBuilder jsonQueryProcessorBuilder = () -> new JsonQueryProcessor(
                 configuration.getJsonQueryProcessorConfiguration(),
                 cairoEngine,
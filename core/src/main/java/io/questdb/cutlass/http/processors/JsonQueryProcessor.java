@@ -152,6 +152,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 } catch (ReaderOutOfDateException e) {
                     LOG.info().$(e.getFlyweightMessage()).$();
                     Misc.free(factory);
+                    // other cached instances of this query are stale too
+                    QueryCache.getInstance().remove(state.getQuery());
                     compileQuery(state);
                 }
             } else {
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.http.*;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.ServerDisconnectException;
+
+import java.io.Closeable;
+
+/**
+ * Accepts line protocol over HTTP. Request body, either with "Content-Length" or chunked, is collected
+ * as it arrives, up to the max request size. Once the whole body has been received, rows are written
+ * by the worker thread serving the connection and committed together, any error rolls back the request.
+ * Table writers are not held while the body is being received, so a slow client does not block other
+ * writers of the same tables. Client does not get a response before its rows are committed, which
+ * throttles clients that send data faster than it can be written.
+ */
+public class LineHttpProcessor implements HttpRequestProcessor, HttpContentListener, Closeable {
+    private static final Log LOG = LogFactory.getLog(LineHttpProcessor.class);
+    // Local value has to be static because each thread will have its own instance of
+    // processor. For different threads to lookup the same value from local value map the key,
+    // which is LV, has to be the same between processor instances
+    private static final LocalValue<LineHttpProcessorState> LV = new LocalValue<>();
+    private final LineTcpReceiverConfiguration configuration;
+    private final CairoEngine engine;
+    private final long maxRequestSize;
+    private LineHttpProcessorState transientState;
+
+    public LineHttpProcessor(LineHttpProcessorConfiguration configuration, CairoEngine engine) {
+        this.configuration = configuration.getLineTcpReceiverConfiguration();
+        this.engine = engine;
+        this.maxRequestSize = configuration.getMaxRequestSize();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void onContent(long lo, long hi) {
+        transientState.parse(lo, hi);
+    }
+
+    @Override
+    public void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        final LineHttpProcessorState state = LV.get(context);
+        state.onRequestComplete();
+        switch (state.getStatus()) {
+            case LineHttpProcessorState.STATUS_OK:
+                LOG.debug().$("committed [fd=").$(context.getFd()).$(", measurements=").$(state.getMeasurementCount()).I$();
+                context.simpleResponse().sendStatus(204);
+                break;
+            case LineHttpProcessorState.STATUS_TABLE_BUSY:
+                sendError(context, 503, state);
+                break;
+            case LineHttpProcessorState.STATUS_INTERNAL_ERROR:
+                sendError(context, 500, state);
+                break;
+            case LineHttpProcessorState.STATUS_TOO_LARGE:
+                sendError(context, 413, state);
+                break;
+            default:
+                sendError(context, 400, state);
+                break;
+        }
+    }
+
+    // This processor implements HttpContentListener, methods of which do not have
+    // context. resumeRecv() sets transient state before content is delivered.
+    @Override
+    public void resumeRecv(HttpConnectionContext context) {
+        transientState = LV.get(context);
+        if (transientState == null) {
+            LOG.debug().$("new line protocol state").$();
+            LV.set(context, transientState = new LineHttpProcessorState(configuration, engine, maxRequestSize));
+        }
+        transientState.of(context.getCairoSecurityContext());
+    }
+
+    private static void sendError(HttpConnectionContext context, int code, LineHttpProcessorState state) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        LOG.error().$("rejected [fd=").$(context.getFd()).$(", code=").$(code).$(", error=").$(state.getError()).I$();
+        context.simpleResponse().sendStatus(code, state.getError());
+    }
+}
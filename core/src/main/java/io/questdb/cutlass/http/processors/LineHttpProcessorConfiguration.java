@@ -0,0 +1,48 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+
+public interface LineHttpProcessorConfiguration {
+
+    /**
+     * Line protocol settings, such as maximum measurement size, timestamp precision and default
+     * partitioning of the auto-created tables, are shared with the TCP receiver.
+     *
+     * @return line protocol receiver configuration
+     */
+    LineTcpReceiverConfiguration getLineTcpReceiverConfiguration();
+
+    /**
+     * Request body is collected in memory before its measurements are written, requests that
+     * are larger than this are rejected.
+     *
+     * @return max size of request body in bytes
+     */
+    int getMaxRequestSize();
+
+    boolean isEnabled();
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.*;
+import io.questdb.cutlass.line.tcp.LineTcpBatchWriter;
+import io.questdb.cutlass.line.tcp.LineTcpParser;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+class LineHttpProcessorState implements Mutable, Closeable {
+    static final int STATUS_OK = 0;
+    static final int STATUS_BAD_REQUEST = 1;
+    static final int STATUS_TABLE_BUSY = 2;
+    static final int STATUS_INTERNAL_ERROR = 3;
+    static final int STATUS_TOO_LARGE = 4;
+    private static final Log LOG = LogFactory.getLog(LineHttpProcessorState.class);
+    private final LineTcpParser parser = new LineTcpParser();
+    private final LineTcpBatchWriter batchWriter;
+    private final StringSink error = new StringSink();
+    // request body is collected in this buffer, buffer grows up to max request size
+    // and shrinks back to its initial size once request is over
+    private final long initialBufSize;
+    private final long maxRequestSize;
+    private long buf;
+    private long bufSize;
+    private long bufHi;
+    private long measurementLo;
+    private long measurementCount;
+    private int status = STATUS_OK;
+
+    LineHttpProcessorState(LineTcpReceiverConfiguration configuration, CairoEngine engine, long maxRequestSize) {
+        this.batchWriter = new LineTcpBatchWriter(configuration, engine);
+        this.maxRequestSize = maxRequestSize;
+        // one byte is reserved for new line, which terminates last measurement
+        this.initialBufSize = Math.min(configuration.getMaxMeasurementSize(), maxRequestSize) + 1;
+        this.bufSize = initialBufSize;
+        this.buf = Unsafe.malloc(bufSize, MemoryTag.NATIVE_HTTP_CONN);
+        this.bufHi = buf;
+    }
+
+    @Override
+    public void clear() {
+        // rolls back rows of the request that has not been committed
+        batchWriter.clear();
+        if (bufSize > initialBufSize) {
+            buf = Unsafe.realloc(buf, bufSize, initialBufSize, MemoryTag.NATIVE_HTTP_CONN);
+            bufSize = initialBufSize;
+        }
+        bufHi = buf;
+        measurementLo = 0;
+        measurementCount = 0;
+        status = STATUS_OK;
+        error.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(batchWriter);
+        Misc.free(parser);
+        Unsafe.free(buf, bufSize, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    /**
+     * Collects content of the request. Measurements are parsed and written only when the whole request
+     * has been received, so that table writers are not held while client is sending the request.
+     * Content is ignored once the request has failed.
+     */
+    void parse(long lo, long hi) {
+        if (status != STATUS_OK) {
+            return;
+        }
+        final long len = hi - lo;
+        final long size = bufHi - buf + len;
+        if (size > maxRequestSize) {
+            fail(STATUS_TOO_LARGE).put("request is too large [max=").put(maxRequestSize).put(']');
+            return;
+        }
+        if (size + 1 > bufSize) {
+            final long newSize = Math.min(Math.max(size + 1, bufSize * 2), maxRequestSize + 1);
+            final long used = bufHi - buf;
+            buf = Unsafe.realloc(buf, bufSize, newSize, MemoryTag.NATIVE_HTTP_CONN);
+            bufSize = newSize;
+            bufHi = buf + used;
+        }
+        Vect.memcpy(bufHi, lo, len);
+        bufHi += len;
+    }
+
+    CharSequence getError() {
+        return error;
+    }
+
+    long getMeasurementCount() {
+        return measurementCount;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    LineHttpProcessorState of(CairoSecurityContext securityContext) {
+        batchWriter.of(securityContext);
+        return this;
+    }
+
+    /**
+     * Parses and writes measurements of the request, last measurement does not have to be terminated
+     * with new line, and commits all of them. Table writers are acquired and released within this call.
+     */
+    void onRequestComplete() {
+        if (status == STATUS_OK && bufHi > buf) {
+            parser.of(buf);
+            measurementLo = buf;
+            parseMeasurements(bufHi);
+            if (status == STATUS_OK && measurementLo < bufHi) {
+                Unsafe.getUnsafe().putByte(bufHi++, (byte) '\n');
+                parseMeasurements(bufHi);
+                if (status == STATUS_OK && measurementLo < bufHi) {
+                    fail(STATUS_BAD_REQUEST).put("incomplete measurement [measurement=").put(measurementCount + 1).put(']');
+                }
+            }
+        }
+
+        if (status == STATUS_OK) {
+            try {
+                batchWriter.commit();
+            } catch (CairoException | CairoError e) {
+                LOG.error().$("could not commit line protocol measurements [e=").$(e.getFlyweightMessage()).I$();
+                fail(STATUS_INTERNAL_ERROR).put("commit failed [error=").put(e.getFlyweightMessage()).put(']');
+            }
+        }
+    }
+
+    private StringSink fail(int status) {
+        this.status = status;
+        batchWriter.clear();
+        error.clear();
+        return error;
+    }
+
+    private void parseMeasurements(long hi) {
+        while (true) {
+            switch (parser.parseMeasurement(hi)) {
+                case MEASUREMENT_COMPLETE:
+                    measurementCount++;
+                    try {
+                        batchWriter.append(parser);
+                    } catch (EntryUnavailableException e) {
+                        fail(STATUS_TABLE_BUSY).put(e.getFlyweightMessage());
+                        return;
+                    } catch (CairoException e) {
+                        fail(STATUS_BAD_REQUEST)
+                                .put("could not write measurement [measurement=").put(measurementCount)
+                                .put(", error=").put(e.getFlyweightMessage())
+                                .put(']');
+                        return;
+                    }
+                    parser.startNextMeasurement();
+                    measurementLo = parser.getBufferAddress();
+                    break;
+                case ERROR:
+                    fail(STATUS_BAD_REQUEST)
+                            .put("could not parse measurement [measurement=").put(measurementCount + 1)
+                            .put(", error=").put(parser.getErrorCode().name())
+                            .put(']');
+                    return;
+                default:
+                    return;
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ package io.questdb.cutlass.http.processors;
 
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.http.HttpServerConfiguration;
+import io.questdb.griffin.QueryPlanCache;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.AssociativeCache;
@@ -38,16 +39,28 @@ public final class QueryCache implements Closeable {
     private static final Log LOG = LogFactory.getLog(QueryCache.class);
     private static ThreadLocal<QueryCache> TL_QUERY_CACHE;
     private final AssociativeCache<RecordCursorFactory> cache;
+    // server-wide cache, when enabled it replaces thread local one
+    private final QueryPlanCache planCache;
 
     public QueryCache(int blocks, int rows) {
+        this(blocks, rows, null);
+    }
+
+    public QueryCache(int blocks, int rows, QueryPlanCache planCache) {
         this.cache = new AssociativeCache<>(blocks, rows);
+        this.planCache = planCache;
     }
 
     public static void configure(HttpServerConfiguration configuration) {
-        final boolean enableQueryCache = configuration.isQueryCacheEnabled();
+        configure(configuration, null);
+    }
+
+    public static void configure(HttpServerConfiguration configuration, QueryPlanCache queryPlanCache) {
+        final QueryPlanCache planCache = queryPlanCache != null && queryPlanCache.isEnabled() ? queryPlanCache : null;
+        final boolean enableQueryCache = configuration.isQueryCacheEnabled() && planCache == null;
         final int blockCount = enableQueryCache ? configuration.getQueryCacheBlockCount() : 1;
         final int rowCount = enableQueryCache ? configuration.getQueryCacheRowCount() : 1;
-        TL_QUERY_CACHE = new ThreadLocal<>(() -> new QueryCache(blockCount, rowCount));
+        TL_QUERY_CACHE = new ThreadLocal<>(() -> new QueryCache(blockCount, rowCount, planCache));
     }
 
     public static QueryCache getInstance() {
@@ -61,19 +74,28 @@ public final class QueryCache implements Closeable {
     }
 
     public RecordCursorFactory poll(CharSequence sql) {
+        if (planCache != null) {
+            return planCache.poll(sql);
+        }
         final RecordCursorFactory factory = cache.poll(sql);
         log(factory == null ? "miss" : "hit", sql);
         return factory;
     }
 
     public void push(CharSequence sql, RecordCursorFactory factory) {
-        if (factory != null) {
+        if (planCache != null) {
+            planCache.push(sql, factory);
+        } else if (factory != null) {
             cache.put(sql, factory);
             log("push", sql);
         }
     }
 
     public void remove(CharSequence sql) {
+        if (planCache != null) {
+            planCache.remove(sql);
+            return;
+        }
         cache.put(sql, null);
         log("remove", sql);
     }
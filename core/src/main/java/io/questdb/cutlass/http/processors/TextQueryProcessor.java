@@ -32,6 +32,7 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cutlass.http.*;
+import io.questdb.cutlass.parquet.ParquetEncoder;
 import io.questdb.cutlass.text.TextUtil;
 import io.questdb.cutlass.text.Utf8Exception;
 import io.questdb.griffin.*;
@@ -133,16 +134,35 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     do {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            if (state.parquet) {
+                                if (!state.recordCursorFactory.supportPageFrameCursor()) {
+                                    sendException(context.getChunkedResponseSocket(), 0, "parquet export requires a table scan query", state);
+                                    readyForNextRequest(context);
+                                    return;
+                                }
+                                state.pageFrameCursor = state.recordCursorFactory.getPageFrameCursor(sqlExecutionContext);
+                            } else {
+                                state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            }
                             runQuery = false;
                         } catch (ReaderOutOfDateException e) {
                             info(state).$(e.getFlyweightMessage()).$();
                             state.recordCursorFactory = Misc.free(state.recordCursorFactory);
+                            QueryCache.getInstance().remove(state.query);
                             final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
                             state.recordCursorFactory = cc.getRecordCursorFactory();
                         }
                     } while (runQuery);
                     state.metadata = state.recordCursorFactory.getMetadata();
+                    if (state.pageFrameCursor != null) {
+                        try {
+                            state.getParquetEncoder().of(state.metadata, state.pageFrameCursor);
+                        } catch (CairoException e) {
+                            // error is reported as text
+                            state.pageFrameCursor = Misc.free(state.pageFrameCursor);
+                            throw e;
+                        }
+                    }
                     header(context.getChunkedResponseSocket(), state);
                     resumeSend(context);
                 } catch (CairoException e) {
@@ -189,7 +209,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             HttpConnectionContext context
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         TextQueryProcessorState state = LV.get(context);
-        if (state == null || state.cursor == null) {
+        if (state == null || (state.cursor == null && state.pageFrameCursor == null)) {
             return;
         }
 
@@ -198,6 +218,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         LOG.debug().$("resume [fd=").$(context.getFd()).$(']').$();
 
         final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        if (state.pageFrameCursor != null) {
+            resumeSendParquet(socket, state);
+            readyForNextRequest(context);
+            return;
+        }
         final int columnCount = state.metadata.getColumnCount();
 
         OUT:
@@ -318,11 +343,14 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     }
 
     protected void header(HttpChunkedResponseSocket socket, TextQueryProcessorState state) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        socket.status(200, "text/csv; charset=utf-8");
+        // page frame cursor is only set once parquet export is under way, errors are still sent as text
+        final boolean parquet = state.pageFrameCursor != null;
+        final String extension = parquet ? ".parquet\"" : ".csv\"";
+        socket.status(200, parquet ? "application/vnd.apache.parquet" : "text/csv; charset=utf-8");
         if (state.fileName != null && state.fileName.length() > 0) {
-            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(extension).put(Misc.EOL);
         } else {
-            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(extension).put(Misc.EOL);
         }
 
         socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
@@ -409,6 +437,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         state.skip = skip;
         state.count = 0L;
         state.stop = stop;
+        state.parquet = Chars.equalsNc("parquet", request.getUrlParam("fmt"));
         state.noMeta = Chars.equalsNc("true", request.getUrlParam("nm"));
         state.countRows = Chars.equalsNc("true", request.getUrlParam("count"));
         return true;
@@ -484,6 +513,29 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private void resumeSendParquet(
+            HttpChunkedResponseSocket socket,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        // encoder output is copied to the socket as is, response buffer is sent every time it fills up
+        // and parquetOffset tracks how much of the current encoder portion has been copied already
+        final ParquetEncoder encoder = state.getParquetEncoder();
+        while (true) {
+            if (state.parquetOffset == encoder.getSize()) {
+                if (!encoder.next()) {
+                    sendDone(socket, state);
+                    return;
+                }
+                state.parquetOffset = 0;
+            }
+            final long address = encoder.getAddress();
+            state.parquetOffset += socket.writeBytes(address + state.parquetOffset, address + encoder.getSize());
+            if (state.parquetOffset < encoder.getSize()) {
+                socket.sendChunk(false);
+            }
+        }
+    }
+
     private void sendConfirmation(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
         socket.put("DDL Success\n");
         socket.sendChunk(true);
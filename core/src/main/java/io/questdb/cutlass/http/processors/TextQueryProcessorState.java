@@ -24,11 +24,13 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.parquet.ParquetEncoder;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Rnd;
@@ -53,6 +55,11 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     int columnIndex;
     private boolean queryCacheable = false;
     String fileName;
+    // parquet export streams page frames rather than records
+    boolean parquet = false;
+    PageFrameCursor pageFrameCursor;
+    long parquetOffset;
+    private ParquetEncoder parquetEncoder;
 
     public TextQueryProcessorState(HttpConnectionContext httpConnectionContext) {
         this.httpConnectionContext = httpConnectionContext;
@@ -62,6 +69,11 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     public void clear() {
         metadata = null;
         cursor = Misc.free(cursor);
+        // encoder buffers are sizeable, they are not kept between requests
+        parquetEncoder = Misc.free(parquetEncoder);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        parquetOffset = 0;
+        parquet = false;
         record = null;
         if (null != recordCursorFactory) {
             if (queryCacheable) {
@@ -81,6 +93,8 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     @Override
     public void close() {
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        parquetEncoder = Misc.free(parquetEncoder);
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
 
@@ -88,6 +102,13 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         return httpConnectionContext.getFd();
     }
 
+    ParquetEncoder getParquetEncoder() {
+        if (parquetEncoder == null) {
+            parquetEncoder = new ParquetEncoder();
+        }
+        return parquetEncoder;
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
@@ -90,6 +90,26 @@ public abstract class AbstractLineSender extends AbstractCharSink implements Clo
         lineStart = lo;
     }
 
+    /**
+     * Creates sender without a socket, subclass decides where complete lines go
+     * in {@link #sendToSocket(long, long, long, int)}, which receives -1 as fd.
+     */
+    protected AbstractLineSender(int capacity, Log log) {
+        this.nf = NetworkFacadeImpl.INSTANCE;
+        this.capacity = capacity;
+        this.log = log;
+        sockaddr = 0;
+        fd = -1;
+
+        bufA = Unsafe.malloc(capacity, MemoryTag.NATIVE_DEFAULT);
+        bufB = Unsafe.malloc(capacity, MemoryTag.NATIVE_DEFAULT);
+
+        lo = bufA;
+        hi = lo + capacity;
+        ptr = lo;
+        lineStart = lo;
+    }
+
     public void $(long timestamp) {
         put(' ').put(timestamp);
         $();
@@ -104,10 +124,12 @@ public abstract class AbstractLineSender extends AbstractCharSink implements Clo
 
     @Override
     public void close() {
-        if (nf.close(fd) != 0) {
-            log.error().$("could not close UDP socket [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+        if (fd != -1) {
+            if (nf.close(fd) != 0) {
+                log.error().$("could not close UDP socket [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+            }
+            nf.freeSockAddr(sockaddr);
         }
-        nf.freeSockAddr(sockaddr);
         Unsafe.free(bufA, capacity, MemoryTag.NATIVE_DEFAULT);
         Unsafe.free(bufB, capacity, MemoryTag.NATIVE_DEFAULT);
     }
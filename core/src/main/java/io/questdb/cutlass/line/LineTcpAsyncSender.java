@@ -0,0 +1,420 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.*;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.datetime.millitime.MillisecondClockImpl;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe line protocol sender. Each thread encodes rows into its own off-heap buffer obtained
+ * from {@link #getSender()}. Complete lines are copied into chunks from a bounded pool and handed
+ * to a background I/O thread, which writes them to several TCP connections in round-robin order.
+ * <p>
+ * Thread buffer is published when it fills up, when rows have been waiting for longer than flush
+ * interval or on {@link #flush()}. When all chunks are in flight producers block until I/O thread
+ * returns one, which is the backpressure. Rows sent over different connections are not ordered
+ * relative to each other, out-of-order rows are sorted by the server.
+ * <p>
+ * {@link #close()} sends pending rows and must be called after producers stop sending.
+ */
+public class LineTcpAsyncSender implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LineTcpAsyncSender.class);
+    private static final long QUEUE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private final NetworkFacade nf;
+    private final MillisecondClock clock;
+    private final int bufferCapacity;
+    private final long flushIntervalMillis;
+    private final long sockaddr;
+    private final long[] fds;
+    private final ObjList<Chunk> chunks = new ObjList<>();
+    private final ArrayBlockingQueue<Chunk> freeChunks;
+    private final ArrayBlockingQueue<Chunk> sendQueue;
+    private final CopyOnWriteArrayList<ThreadSender> senders = new CopyOnWriteArrayList<>();
+    private final java.lang.ThreadLocal<ThreadSender> threadSender = new java.lang.ThreadLocal<>();
+    private final Object publishLock = new Object();
+    private final Thread ioThread;
+    private long publishedSeq;
+    private volatile long sentSeq;
+    private volatile boolean closed;
+    private volatile boolean running = true;
+    private volatile int errno = 0;
+
+    /**
+     * @param sendToIPv4Address   server address
+     * @param sendToPort          server port
+     * @param connectionCount     number of TCP connections to spread chunks over
+     * @param bufferCapacity      size of per-thread buffer and of each chunk, this is also the longest line
+     * @param chunkCount          number of chunks that can be in flight before producers block
+     * @param flushIntervalMillis longest time complete rows wait in a thread buffer
+     */
+    public LineTcpAsyncSender(
+            int sendToIPv4Address,
+            int sendToPort,
+            int connectionCount,
+            int bufferCapacity,
+            int chunkCount,
+            long flushIntervalMillis
+    ) {
+        this(NetworkFacadeImpl.INSTANCE, sendToIPv4Address, sendToPort, connectionCount, bufferCapacity, chunkCount, flushIntervalMillis);
+    }
+
+    public LineTcpAsyncSender(
+            NetworkFacade nf,
+            int sendToIPv4Address,
+            int sendToPort,
+            int connectionCount,
+            int bufferCapacity,
+            int chunkCount,
+            long flushIntervalMillis
+    ) {
+        this.nf = nf;
+        this.clock = MillisecondClockImpl.INSTANCE;
+        this.bufferCapacity = bufferCapacity;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.sockaddr = nf.sockaddr(sendToIPv4Address, sendToPort);
+        this.fds = new long[connectionCount];
+        Arrays.fill(fds, -1);
+        this.freeChunks = new ArrayBlockingQueue<>(chunkCount);
+        this.sendQueue = new ArrayBlockingQueue<>(chunkCount);
+        try {
+            for (int i = 0; i < connectionCount; i++) {
+                final long fd = nf.socketTcp(true);
+                fds[i] = fd;
+                if (nf.connect(fd, sockaddr) != 0) {
+                    throw NetworkError.instance(nf.errno(), "could not connect to ").ip(sendToIPv4Address);
+                }
+                nf.setSndBuf(fd, 2 * bufferCapacity);
+            }
+            for (int i = 0; i < chunkCount; i++) {
+                final Chunk chunk = new Chunk(bufferCapacity);
+                chunks.add(chunk);
+                freeChunks.add(chunk);
+            }
+        } catch (Throwable e) {
+            free();
+            throw e;
+        }
+        ioThread = new Thread(this::runIO, "questdb-line-sender-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Sends rows that are pending in all thread buffers and closes connections.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (int i = 0, n = senders.size(); i < n; i++) {
+                final ThreadSender sender = senders.get(i);
+                if (sender.lock.tryLock()) {
+                    try {
+                        sender.publish();
+                    } catch (NetworkError e) {
+                        LOG.error().$("could not send pending rows [error=").$(e.getFlyweightMessage()).$(']').$();
+                    } finally {
+                        sender.lock.unlock();
+                    }
+                } else {
+                    LOG.error().$("sender is in the middle of a row, row is discarded").$();
+                }
+            }
+        } finally {
+            running = false;
+            try {
+                ioThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            free();
+        }
+    }
+
+    /**
+     * Publishes rows of calling thread and waits until they are written to socket.
+     */
+    public void flush() {
+        getSender().flush();
+    }
+
+    /**
+     * @return sender bound to calling thread, it must not be shared with other threads
+     */
+    public AbstractLineSender getSender() {
+        ThreadSender sender = threadSender.get();
+        if (sender == null) {
+            checkOpen();
+            sender = new ThreadSender();
+            senders.add(sender);
+            threadSender.set(sender);
+        }
+        return sender;
+    }
+
+    private void checkError() {
+        if (errno != 0) {
+            throw NetworkError.instance(errno, "could not send to server");
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw NetworkError.instance(0, "sender is closed");
+        }
+        checkError();
+    }
+
+    private void free() {
+        for (int i = 0, n = fds.length; i < n; i++) {
+            if (fds[i] != -1) {
+                nf.close(fds[i], LOG);
+                fds[i] = -1;
+            }
+        }
+        nf.freeSockAddr(sockaddr);
+        Misc.freeObjList(chunks);
+        chunks.clear();
+        for (int i = 0, n = senders.size(); i < n; i++) {
+            senders.get(i).free();
+        }
+        senders.clear();
+    }
+
+    private void flushIdleSenders(long now) {
+        for (int i = 0, n = senders.size(); i < n; i++) {
+            final ThreadSender sender = senders.get(i);
+            if (sender.pendingRows > 0 && now - sender.lastPublishMillis >= flushIntervalMillis && sender.lock.tryLock()) {
+                try {
+                    // row might have been completed since the check above
+                    if (sender.pendingRows > 0) {
+                        // I/O thread must not wait for a free chunk, it is the one returning them
+                        final Chunk chunk = freeChunks.poll();
+                        if (chunk == null) {
+                            return;
+                        }
+                        sender.reservedChunk = chunk;
+                        sender.publish();
+                        if (sender.reservedChunk != null) {
+                            sender.reservedChunk = null;
+                            freeChunks.add(chunk);
+                        }
+                    }
+                } finally {
+                    sender.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void publishChunk(ThreadSender sender, long lo, int len) {
+        Chunk chunk = sender.reservedChunk;
+        if (chunk == null) {
+            chunk = takeFreeChunk();
+        } else {
+            sender.reservedChunk = null;
+        }
+        Vect.memcpy(chunk.address, lo, len);
+        chunk.size = len;
+        synchronized (publishLock) {
+            chunk.seq = ++publishedSeq;
+            sendQueue.add(chunk);
+        }
+        sender.lastPublishedSeq = chunk.seq;
+    }
+
+    private void runIO() {
+        long lastFlushMillis = clock.getTicks();
+        int connection = 0;
+        while (running || !sendQueue.isEmpty()) {
+            Chunk chunk = sendQueue.poll();
+            if (chunk != null) {
+                if (errno == 0) {
+                    long p = chunk.address;
+                    int len = chunk.size;
+                    final long fd = fds[connection];
+                    while (len > 0) {
+                        final int n = nf.send(fd, p, len);
+                        if (n < 0) {
+                            errno = nf.errno();
+                            LOG.error().$("could not send [fd=").$(fd).$(", errno=").$(errno).$(']').$();
+                            break;
+                        }
+                        p += n;
+                        len -= n;
+                    }
+                    connection = (connection + 1) % fds.length;
+                }
+                sentSeq = chunk.seq;
+                freeChunks.add(chunk);
+            } else {
+                LockSupport.parkNanos(QUEUE_POLL_NANOS);
+            }
+
+            final long now = clock.getTicks();
+            if (now - lastFlushMillis >= flushIntervalMillis) {
+                lastFlushMillis = now;
+                if (errno == 0) {
+                    flushIdleSenders(now);
+                }
+            }
+        }
+    }
+
+    private Chunk takeFreeChunk() {
+        while (true) {
+            checkError();
+            try {
+                final Chunk chunk = freeChunks.poll(QUEUE_POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (chunk != null) {
+                    return chunk;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw NetworkError.instance(0, "interrupted while waiting for send buffer");
+            }
+        }
+    }
+
+    private static class Chunk implements Closeable {
+        private final int capacity;
+        private long address;
+        private int size;
+        private long seq;
+
+        private Chunk(int capacity) {
+            this.capacity = capacity;
+            this.address = Unsafe.malloc(capacity, MemoryTag.NATIVE_DEFAULT);
+        }
+
+        @Override
+        public void close() {
+            if (address != 0) {
+                Unsafe.free(address, capacity, MemoryTag.NATIVE_DEFAULT);
+                address = 0;
+            }
+        }
+    }
+
+    private class ThreadSender extends AbstractLineSender {
+        // held by producer from metric() until the row is complete, I/O thread
+        // publishes idle buffers only when it can take the lock
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile int pendingRows;
+        private volatile long lastPublishMillis = clock.getTicks();
+        private long lastPublishedSeq;
+        private Chunk reservedChunk;
+        private boolean freed;
+
+        private ThreadSender() {
+            super(bufferCapacity, LOG);
+        }
+
+        @Override
+        public void $() {
+            super.$();
+            pendingRows++;
+            if (lock.isHeldByCurrentThread()) {
+                try {
+                    if (clock.getTicks() - lastPublishMillis >= flushIntervalMillis) {
+                        publish();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            // thread senders are closed together with the async sender
+        }
+
+        @Override
+        public void flush() {
+            lock.lock();
+            try {
+                checkOpen();
+                publish();
+            } finally {
+                lock.unlock();
+            }
+            while (sentSeq < lastPublishedSeq) {
+                checkError();
+                LockSupport.parkNanos(QUEUE_POLL_NANOS);
+            }
+            checkError();
+        }
+
+        @Override
+        public AbstractLineSender metric(CharSequence metric) {
+            if (!lock.isHeldByCurrentThread()) {
+                checkOpen();
+                lock.lock();
+            }
+            return super.metric(metric);
+        }
+
+        @Override
+        protected long createSocket(int interfaceIPv4Address, int ttl, long sockaddr) {
+            return -1;
+        }
+
+        @Override
+        protected void sendToSocket(long fd, long lo, long sockaddr, int len) {
+            publishChunk(this, lo, len);
+            pendingRows = 0;
+            lastPublishMillis = clock.getTicks();
+        }
+
+        private void free() {
+            if (!freed) {
+                freed = true;
+                super.close();
+            }
+        }
+
+        private void publish() {
+            super.flush();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.ColumnType;
+
+/**
+ * Binary columnar flavour of the line protocol. A client opts in by sending {@link #HANDSHAKE}
+ * as the very first bytes of the connection, text line protocol can never start with a zero byte.
+ * The rest of the stream is a sequence of blocks, each block carries rows of a single table:
+ * <pre>
+ * int    block size in bytes, including this field
+ * int    row count
+ * short  column count
+ * short  table name size, followed by UTF8 table name
+ * long[] designated timestamps in epoch micros, one per row, NULL means server time
+ * column count times:
+ *   short  column name size, followed by UTF8 column name
+ *   byte   column type, one of BOOLEAN, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, TIMESTAMP or SYMBOL
+ *   fixed size types: row count values
+ *   SYMBOL: int dictionary size, dictionary values each as short size followed by UTF8 bytes,
+ *           then row count int keys into the dictionary, -1 is NULL
+ * </pre>
+ * All numbers are little-endian.
+ */
+public final class LineTcpBinaryFormat {
+    public static final int HANDSHAKE = 0x01_42_51_00; // "\0QB" followed by version byte
+    public static final int HANDSHAKE_SIZE = Integer.BYTES;
+    public static final int BLOCK_HEADER_SIZE = Integer.BYTES + Integer.BYTES + Short.BYTES + Short.BYTES;
+    public static final int NULL_SYMBOL_KEY = -1;
+
+    private LineTcpBinaryFormat() {
+    }
+
+    public static boolean isSupportedColumnType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
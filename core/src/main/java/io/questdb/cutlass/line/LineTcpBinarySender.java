@@ -0,0 +1,356 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Sends rows over TCP in {@link LineTcpBinaryFormat}. Rows are buffered column by column and sent as a block
+ * when the block is full, when the table or the set of columns changes or on {@link #flush()}. Block
+ * size is limited by buffer capacity, which must not exceed server's line.tcp.msg.buffer.size.
+ * <p>
+ * Designated timestamps are epoch micros. Strings are held UTF8 encoded, one byte per char.
+ */
+public class LineTcpBinarySender implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LineTcpBinarySender.class);
+    private final NetworkFacade nf;
+    private final int capacity;
+    private final long fd;
+    private final long sockaddr;
+    private final long buf;
+    // row being built
+    private final StringSink rowTable = new StringSink();
+    private final ObjList<StringSink> rowNames = new ObjList<>();
+    private final ObjList<StringSink> rowSymbols = new ObjList<>();
+    private final IntList rowTypes = new IntList();
+    private final LongList rowValues = new LongList();
+    // block being buffered
+    private final StringSink blockTable = new StringSink();
+    private final ObjList<StringSink> blockNames = new ObjList<>();
+    private final IntList blockTypes = new IntList();
+    private final ObjList<LongList> blockValues = new ObjList<>();
+    private final ObjList<CharSequenceIntHashMap> blockDictionaries = new ObjList<>();
+    private final LongList blockTimestamps = new LongList();
+    private int rowColumnCount;
+    private int blockColumnCount;
+    private int blockSize;
+    private boolean hasMetric;
+
+    public LineTcpBinarySender(int sendToIPv4Address, int sendToPort, int bufferCapacity) {
+        this(NetworkFacadeImpl.INSTANCE, sendToIPv4Address, sendToPort, bufferCapacity);
+    }
+
+    public LineTcpBinarySender(NetworkFacade nf, int sendToIPv4Address, int sendToPort, int bufferCapacity) {
+        this.nf = nf;
+        this.capacity = bufferCapacity;
+        this.sockaddr = nf.sockaddr(sendToIPv4Address, sendToPort);
+        this.fd = nf.socketTcp(true);
+        if (nf.connect(fd, sockaddr) != 0) {
+            final int errno = nf.errno();
+            nf.close(fd, LOG);
+            nf.freeSockAddr(sockaddr);
+            throw NetworkError.instance(errno, "could not connect to ").ip(sendToIPv4Address);
+        }
+        nf.setSndBuf(fd, 2 * capacity);
+        this.buf = Unsafe.malloc(capacity, MemoryTag.NATIVE_DEFAULT);
+        Unsafe.getUnsafe().putInt(buf, LineTcpBinaryFormat.HANDSHAKE);
+        send(LineTcpBinaryFormat.HANDSHAKE_SIZE);
+    }
+
+    /**
+     * Completes the row, server assigns designated timestamp.
+     */
+    public void $() {
+        $(Numbers.LONG_NaN);
+    }
+
+    /**
+     * Completes the row.
+     *
+     * @param timestamp designated timestamp in epoch micros
+     */
+    public void $(long timestamp) {
+        if (!hasMetric) {
+            throw CairoException.instance(0).put("metric expected");
+        }
+        if (!isRowInBlockSchema()) {
+            flush();
+            startBlock();
+        }
+        int rowSize = getRowSize();
+        if (blockTimestamps.size() > 0 && blockSize + rowSize > capacity) {
+            flush();
+            startBlock();
+            rowSize = getRowSize();
+        }
+        if (blockSize + rowSize > capacity) {
+            clearRow();
+            throw CairoException.instance(0).put("row too long");
+        }
+
+        blockTimestamps.add(timestamp);
+        for (int i = 0; i < rowColumnCount; i++) {
+            if (rowTypes.getQuick(i) == ColumnType.SYMBOL) {
+                final CharSequenceIntHashMap dictionary = blockDictionaries.getQuick(i);
+                final StringSink value = rowSymbols.getQuick(i);
+                final int index = dictionary.keyIndex(value);
+                final int key;
+                if (index > -1) {
+                    key = dictionary.size();
+                    dictionary.putAt(index, value, key);
+                } else {
+                    key = dictionary.valueAt(index);
+                }
+                blockValues.getQuick(i).add(key);
+            } else {
+                blockValues.getQuick(i).add(rowValues.getQuick(i));
+            }
+        }
+        blockSize += rowSize;
+        clearRow();
+    }
+
+    @Override
+    public void close() {
+        if (nf.close(fd) != 0) {
+            LOG.error().$("could not close TCP socket [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+        }
+        nf.freeSockAddr(sockaddr);
+        Unsafe.free(buf, capacity, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    public LineTcpBinarySender field(CharSequence name, long value) {
+        return column(name, ColumnType.LONG, value);
+    }
+
+    public LineTcpBinarySender field(CharSequence name, double value) {
+        return column(name, ColumnType.DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    public LineTcpBinarySender field(CharSequence name, boolean value) {
+        return column(name, ColumnType.BOOLEAN, value ? 1 : 0);
+    }
+
+    /**
+     * Sends buffered rows. Row that is not yet completed remains buffered.
+     */
+    public void flush() {
+        final int rowCount = blockTimestamps.size();
+        if (rowCount == 0) {
+            return;
+        }
+
+        long p = buf;
+        Unsafe.getUnsafe().putInt(p, blockSize);
+        p += Integer.BYTES;
+        Unsafe.getUnsafe().putInt(p, rowCount);
+        p += Integer.BYTES;
+        Unsafe.getUnsafe().putShort(p, (short) blockColumnCount);
+        p += Short.BYTES;
+        p = putString(p, blockTable);
+        for (int r = 0; r < rowCount; r++) {
+            Unsafe.getUnsafe().putLong(p, blockTimestamps.getQuick(r));
+            p += Long.BYTES;
+        }
+
+        for (int i = 0; i < blockColumnCount; i++) {
+            p = putString(p, blockNames.getQuick(i));
+            final int columnType = blockTypes.getQuick(i);
+            Unsafe.getUnsafe().putByte(p, (byte) columnType);
+            p += Byte.BYTES;
+            final LongList values = blockValues.getQuick(i);
+            switch (columnType) {
+                case ColumnType.SYMBOL:
+                    final ObjList<CharSequence> dictionary = blockDictionaries.getQuick(i).keys();
+                    Unsafe.getUnsafe().putInt(p, dictionary.size());
+                    p += Integer.BYTES;
+                    for (int k = 0, n = dictionary.size(); k < n; k++) {
+                        p = putString(p, dictionary.getQuick(k));
+                    }
+                    for (int r = 0; r < rowCount; r++) {
+                        Unsafe.getUnsafe().putInt(p, (int) values.getQuick(r));
+                        p += Integer.BYTES;
+                    }
+                    break;
+                case ColumnType.BOOLEAN:
+                    for (int r = 0; r < rowCount; r++) {
+                        Unsafe.getUnsafe().putByte(p, (byte) values.getQuick(r));
+                        p += Byte.BYTES;
+                    }
+                    break;
+                default:
+                    for (int r = 0; r < rowCount; r++) {
+                        Unsafe.getUnsafe().putLong(p, values.getQuick(r));
+                        p += Long.BYTES;
+                    }
+                    break;
+            }
+        }
+        assert p - buf == blockSize;
+        send((int) (p - buf));
+        startBlock();
+    }
+
+    public LineTcpBinarySender metric(CharSequence metric) {
+        if (hasMetric) {
+            throw CairoException.instance(0).put("duplicate metric");
+        }
+        hasMetric = true;
+        rowTable.clear();
+        rowTable.encodeUtf8(metric);
+        return this;
+    }
+
+    public LineTcpBinarySender tag(CharSequence name, CharSequence value) {
+        column(name, ColumnType.SYMBOL, 0);
+        final StringSink sink = rowSymbols.getQuick(rowColumnCount - 1);
+        sink.clear();
+        sink.encodeUtf8(value);
+        return this;
+    }
+
+    private static int getColumnHeaderSize(CharSequence nameUtf8, int columnType) {
+        return Short.BYTES + nameUtf8.length() + Byte.BYTES + (columnType == ColumnType.SYMBOL ? Integer.BYTES : 0);
+    }
+
+    private static long putString(long p, CharSequence utf8) {
+        final int len = utf8.length();
+        Unsafe.getUnsafe().putShort(p, (short) len);
+        p += Short.BYTES;
+        Chars.asciiStrCpy(utf8, len, p);
+        return p + len;
+    }
+
+    private static StringSink sinkAt(ObjList<StringSink> sinks, int index) {
+        StringSink sink = sinks.getQuiet(index);
+        if (sink == null) {
+            sink = new StringSink();
+            sinks.extendAndSet(index, sink);
+        }
+        return sink;
+    }
+
+    private void clearRow() {
+        hasMetric = false;
+        rowColumnCount = 0;
+    }
+
+    private LineTcpBinarySender column(CharSequence name, int columnType, long value) {
+        if (!hasMetric) {
+            throw CairoException.instance(0).put("metric expected");
+        }
+        final StringSink sink = sinkAt(rowNames, rowColumnCount);
+        sink.clear();
+        sink.encodeUtf8(name);
+        sinkAt(rowSymbols, rowColumnCount);
+        rowTypes.extendAndSet(rowColumnCount, columnType);
+        rowValues.extendAndSet(rowColumnCount, value);
+        rowColumnCount++;
+        return this;
+    }
+
+    private int getRowSize() {
+        int size = Long.BYTES;
+        for (int i = 0; i < rowColumnCount; i++) {
+            final int columnType = rowTypes.getQuick(i);
+            switch (columnType) {
+                case ColumnType.SYMBOL:
+                    final StringSink value = rowSymbols.getQuick(i);
+                    size += Integer.BYTES;
+                    if (!blockDictionaries.getQuick(i).contains(value)) {
+                        size += Short.BYTES + value.length();
+                    }
+                    break;
+                case ColumnType.BOOLEAN:
+                    size += Byte.BYTES;
+                    break;
+                default:
+                    size += Long.BYTES;
+                    break;
+            }
+        }
+        return size;
+    }
+
+    private boolean isRowInBlockSchema() {
+        if (blockColumnCount != rowColumnCount || !Chars.equals(blockTable, rowTable)) {
+            return false;
+        }
+        for (int i = 0; i < rowColumnCount; i++) {
+            if (blockTypes.getQuick(i) != rowTypes.getQuick(i) || !Chars.equals(blockNames.getQuick(i), rowNames.getQuick(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void send(int len) {
+        long p = buf;
+        while (len > 0) {
+            final int n = nf.send(fd, p, len);
+            if (n < 0) {
+                throw NetworkError.instance(nf.errno()).put("send error");
+            }
+            p += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Starts new block with the schema of the row being built.
+     */
+    private void startBlock() {
+        blockTimestamps.clear();
+        blockTable.clear();
+        blockTable.put(rowTable);
+        blockSize = LineTcpBinaryFormat.BLOCK_HEADER_SIZE + blockTable.length();
+        blockColumnCount = rowColumnCount;
+        for (int i = 0; i < rowColumnCount; i++) {
+            final StringSink name = sinkAt(blockNames, i);
+            name.clear();
+            name.put(rowNames.getQuick(i));
+            final int columnType = rowTypes.getQuick(i);
+            blockTypes.extendAndSet(i, columnType);
+            LongList values = blockValues.getQuiet(i);
+            if (values == null) {
+                blockValues.extendAndSet(i, values = new LongList());
+                blockDictionaries.extendAndSet(i, new CharSequenceIntHashMap());
+            }
+            values.clear();
+            blockDictionaries.getQuick(i).clear();
+            blockSize += getColumnHeaderSize(name, columnType);
+        }
+    }
+}
@@ -112,6 +112,16 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 100;
     }
 
+    @Override
+    public double getMaxLoadRatio() {
+        return 1.9;
+    }
+
+    @Override
+    public long getWriterLoadBalanceInterval() {
+        return 10_000;
+    }
+
     @Override
     public String getAuthDbPath() {
         return null;
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.FloatingDirectCharSink;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Writes measurements on the thread that parses them. Unlike {@link LineTcpMeasurementScheduler} rows are
+ * not committed until {@link #commit()} is called, which makes it possible to treat a batch of measurements
+ * as a single transaction per table. Table writers are held from the first measurement of the batch
+ * until the batch is either committed or cleared, clearing the batch rolls back all uncommitted rows.
+ * Details of the tables are kept once the batch is over, so that the next batch to the same tables does
+ * not allocate them again.
+ */
+public class LineTcpBatchWriter implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(LineTcpBatchWriter.class);
+    private final LineTcpReceiverConfiguration configuration;
+    private final CairoEngine engine;
+    // keyed by table name as UTF8 bytes stored in chars, same as in network IO job
+    private final CharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf8 = new CharSequenceObjHashMap<>();
+    // details of the tables of previous batches, their writers have been released
+    private final CharSequenceObjHashMap<TableUpdateDetails> idleTableUpdateDetailsUtf8 = new CharSequenceObjHashMap<>();
+    private final ObjList<SymbolCache> unusedSymbolCaches = new ObjList<>();
+    private final TableStructureAdapter tableStructureAdapter;
+    private final MemoryMARW ddlMem = Vm.getMARWInstance();
+    private final Path path = new Path();
+    private final StringSink tableNameSink = new StringSink();
+    private final StringSink charSink = new StringSink();
+    private final FloatingDirectCharSink floatingCharSink = new FloatingDirectCharSink();
+    private final LineTcpMeasurementEvent event;
+    private final long eventBufSize;
+    private long eventBuf;
+    private CairoSecurityContext securityContext;
+    private long rowCount;
+
+    public LineTcpBatchWriter(LineTcpReceiverConfiguration configuration, CairoEngine engine) {
+        this.configuration = configuration;
+        this.engine = engine;
+        this.tableStructureAdapter = new TableStructureAdapter(engine.getConfiguration(), configuration.getDefaultPartitionBy());
+        this.eventBufSize = LineTcpMeasurementScheduler.getEventSlotSize(configuration.getMaxMeasurementSize());
+        this.eventBuf = Unsafe.malloc(eventBufSize, MemoryTag.NATIVE_DEFAULT);
+        this.event = new LineTcpMeasurementEvent(
+                eventBuf,
+                eventBufSize,
+                configuration.getMicrosecondClock(),
+                configuration.getTimestampAdapter()
+        );
+    }
+
+    /**
+     * Appends measurement the parser has just completed to its table. Table is created when it does not exist.
+     *
+     * @param parser parser positioned at a complete measurement
+     * @throws CairoException when table cannot be created, its writer is busy or measurement cannot be written,
+     *                        rows appended before the failure remain uncommitted
+     */
+    public void append(LineTcpParser parser) {
+        TableUpdateDetails tud = tableUpdateDetailsUtf8.get(parser.getMeasurementName());
+        if (tud == null) {
+            tud = openTable(parser);
+        }
+        event.createMeasurementEvent(tud, parser, floatingCharSink, 0);
+        event.appendRow(charSink, floatingCharSink);
+        rowCount++;
+    }
+
+    @Override
+    public void clear() {
+        ObjList<CharSequence> tableNames = tableUpdateDetailsUtf8.keys();
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            final CharSequence tableName = tableNames.getQuick(i);
+            final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableName);
+            // returning writer to pool rolls back uncommitted rows
+            tud.releaseWriter(false);
+            // table structure can change before the next batch, cached columns and symbols are dropped
+            tud.getThreadLocalDetails(0).clear();
+            idleTableUpdateDetailsUtf8.put(tableName, tud);
+        }
+        tableUpdateDetailsUtf8.clear();
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        ObjList<CharSequence> tableNames = idleTableUpdateDetailsUtf8.keys();
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            idleTableUpdateDetailsUtf8.get(tableNames.getQuick(i)).closeLocals();
+        }
+        idleTableUpdateDetailsUtf8.clear();
+        Misc.freeObjList(unusedSymbolCaches);
+        Misc.free(ddlMem);
+        Misc.free(path);
+        Misc.free(floatingCharSink);
+        if (eventBuf != 0) {
+            Unsafe.free(eventBuf, eventBufSize, MemoryTag.NATIVE_DEFAULT);
+            eventBuf = 0;
+        }
+    }
+
+    /**
+     * Commits all tables written to since the last commit and releases their writers. Tables
+     * are committed one after another, when a commit fails, tables committed before it remain committed
+     * and uncommitted rows of the remaining tables are rolled back.
+     *
+     * @throws CairoException when table writer cannot commit
+     */
+    public void commit() {
+        try {
+            ObjList<CharSequence> tableNames = tableUpdateDetailsUtf8.keys();
+            for (int i = 0, n = tableNames.size(); i < n; i++) {
+                final TableWriter writer = tableUpdateDetailsUtf8.get(tableNames.getQuick(i)).getWriter();
+                if (writer != null) {
+                    writer.commit();
+                }
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public LineTcpBatchWriter of(CairoSecurityContext securityContext) {
+        this.securityContext = securityContext;
+        return this;
+    }
+
+    private TableUpdateDetails openTable(LineTcpParser parser) {
+        final DirectByteCharSequence tableNameUtf8 = parser.getMeasurementName();
+        tableNameSink.clear();
+        Chars.utf8Decode(tableNameUtf8.getLo(), tableNameUtf8.getHi(), tableNameSink);
+        int status = engine.getStatus(securityContext, path, tableNameSink);
+        if (status != TableUtils.TABLE_EXISTS) {
+            TableStructureAdapter tsa = tableStructureAdapter.of(tableNameSink, parser);
+            for (int i = 0, n = tsa.getColumnCount(); i < n; i++) {
+                if (tsa.getColumnType(i) == LineTcpParser.ENTITY_TYPE_NULL) {
+                    throw CairoException.instance(0).put("unknown column type [columnName=").put(tsa.getColumnName(i)).put(']');
+                }
+            }
+            LOG.info().$("creating table [tableName=").$(tableNameSink).$(']').$();
+            engine.createTable(securityContext, ddlMem, path, tsa);
+        }
+
+        final TableWriter writer = engine.getWriter(securityContext, tableNameSink, "httpIlp");
+
+        // mangled image of UTF8 table name, see LineTcpMeasurementScheduler
+        tableNameSink.clear();
+        tableNameSink.put(tableNameUtf8);
+        final int index = idleTableUpdateDetailsUtf8.keyIndex(tableNameSink);
+        if (index < 0) {
+            final TableUpdateDetails tud = idleTableUpdateDetailsUtf8.valueAtQuick(index);
+            idleTableUpdateDetailsUtf8.removeAt(index);
+            if (tud.reuse(writer)) {
+                tableUpdateDetailsUtf8.put(tableNameSink.toString(), tud);
+                return tud;
+            }
+            tud.closeLocals();
+        }
+
+        final TableUpdateDetails tud = new TableUpdateDetails(configuration, engine, writer, unusedSymbolCaches);
+        tableUpdateDetailsUtf8.put(tableNameSink.toString(), tud);
+        return tud;
+    }
+}
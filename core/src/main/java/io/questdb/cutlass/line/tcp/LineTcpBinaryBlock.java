@@ -0,0 +1,240 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cutlass.line.LineTcpBinaryFormat;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectByteCharSequence;
+
+/**
+ * Flyweight over a block of {@link LineTcpBinaryFormat}. The block is validated by the network thread
+ * before it is copied to the queue, writer thread then parses the copy.
+ */
+class LineTcpBinaryBlock implements Mutable {
+    private final DirectByteCharSequence tableName = new DirectByteCharSequence();
+    private final DirectByteCharSequence flyweight = new DirectByteCharSequence();
+    // lo, hi pairs of column names
+    private final LongList columnNames = new LongList();
+    private final IntList columnTypes = new IntList();
+    private final LongList columnData = new LongList();
+    // index of the first symbol of column in symbols list and dictionary size
+    private final IntList dictionaryOffsets = new IntList();
+    private final IntList dictionarySizes = new IntList();
+    // lo, hi pairs of symbol values
+    private final LongList symbols = new LongList();
+    private long lo;
+    private int size;
+    private int rowCount;
+    private String error;
+
+    @Override
+    public void clear() {
+        columnNames.clear();
+        columnTypes.clear();
+        columnData.clear();
+        dictionaryOffsets.clear();
+        dictionarySizes.clear();
+        symbols.clear();
+        tableName.clear();
+        size = 0;
+        rowCount = 0;
+        error = null;
+    }
+
+    int getColumnCount() {
+        return columnTypes.size();
+    }
+
+    long getColumnDataAddress(int columnIndex) {
+        return columnData.getQuick(columnIndex);
+    }
+
+    DirectByteCharSequence getColumnName(int columnIndex) {
+        return flyweight.of(columnNames.getQuick(2 * columnIndex), columnNames.getQuick(2 * columnIndex + 1));
+    }
+
+    int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    String getError() {
+        return error;
+    }
+
+    long getLo() {
+        return lo;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getSymbolCount(int columnIndex) {
+        return dictionarySizes.getQuick(columnIndex);
+    }
+
+    DirectByteCharSequence getSymbol(int columnIndex, int key) {
+        final int index = 2 * (dictionaryOffsets.getQuick(columnIndex) + key);
+        return flyweight.of(symbols.getQuick(index), symbols.getQuick(index + 1));
+    }
+
+    DirectByteCharSequence getTableName() {
+        return tableName;
+    }
+
+    long getTimestampAddress() {
+        return lo + LineTcpBinaryFormat.BLOCK_HEADER_SIZE + tableName.length();
+    }
+
+    /**
+     * Parses block starting at lo.
+     *
+     * @param lo      address of the block
+     * @param hi      end of received data
+     * @param maxSize largest block accepted
+     * @return BUFFER_UNDERFLOW when block has not been fully received, ERROR when block is malformed,
+     * {@link #getError()} describes the problem
+     */
+    ParseResult of(long lo, long hi, int maxSize) {
+        clear();
+        this.lo = lo;
+        if (hi - lo < Integer.BYTES) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+        size = Unsafe.getUnsafe().getInt(lo);
+        if (size < LineTcpBinaryFormat.BLOCK_HEADER_SIZE || size > maxSize) {
+            return error("invalid block size");
+        }
+        if (hi - lo < size) {
+            return ParseResult.BUFFER_UNDERFLOW;
+        }
+
+        final long limit = lo + size;
+        long p = lo + Integer.BYTES;
+        rowCount = Unsafe.getUnsafe().getInt(p);
+        p += Integer.BYTES;
+        final int columnCount = Unsafe.getUnsafe().getShort(p);
+        p += Short.BYTES;
+        final int tableNameSize = Unsafe.getUnsafe().getShort(p);
+        p += Short.BYTES;
+        if (rowCount < 0 || columnCount < 0 || tableNameSize < 1) {
+            return error("invalid block header");
+        }
+        if (p + tableNameSize > limit) {
+            return error("block overflow");
+        }
+        tableName.of(p, p + tableNameSize);
+        p += tableNameSize;
+
+        p += (long) rowCount * Long.BYTES;
+        for (int i = 0; i < columnCount; i++) {
+            if (p + Short.BYTES > limit) {
+                return error("block overflow");
+            }
+            final int nameSize = Unsafe.getUnsafe().getShort(p);
+            p += Short.BYTES;
+            if (nameSize < 1) {
+                return error("invalid column name");
+            }
+            if (p + nameSize + Byte.BYTES > limit) {
+                return error("block overflow");
+            }
+            columnNames.add(p, p + nameSize);
+            p += nameSize;
+            final int columnType = Unsafe.getUnsafe().getByte(p);
+            p += Byte.BYTES;
+            if (!LineTcpBinaryFormat.isSupportedColumnType(columnType)) {
+                return error("unsupported column type");
+            }
+            columnTypes.add(columnType);
+            dictionaryOffsets.add(symbols.size() / 2);
+
+            if (columnType == ColumnType.SYMBOL) {
+                if (p + Integer.BYTES > limit) {
+                    return error("block overflow");
+                }
+                final int dictionarySize = Unsafe.getUnsafe().getInt(p);
+                p += Integer.BYTES;
+                if (dictionarySize < 0) {
+                    return error("invalid symbol dictionary");
+                }
+                for (int k = 0; k < dictionarySize; k++) {
+                    if (p + Short.BYTES > limit) {
+                        return error("block overflow");
+                    }
+                    final int valueSize = Unsafe.getUnsafe().getShort(p);
+                    p += Short.BYTES;
+                    if (valueSize < 0 || p + valueSize > limit) {
+                        return error("invalid symbol dictionary");
+                    }
+                    symbols.add(p, p + valueSize);
+                    p += valueSize;
+                }
+                dictionarySizes.add(dictionarySize);
+                if (p + (long) rowCount * Integer.BYTES > limit) {
+                    return error("block overflow");
+                }
+                columnData.add(p);
+                for (int r = 0; r < rowCount; r++) {
+                    final int key = Unsafe.getUnsafe().getInt(p);
+                    if (key < LineTcpBinaryFormat.NULL_SYMBOL_KEY || key >= dictionarySize) {
+                        return error("symbol key out of dictionary range");
+                    }
+                    p += Integer.BYTES;
+                }
+            } else {
+                dictionarySizes.add(0);
+                final long dataSize = (long) rowCount * ColumnType.sizeOf(columnType);
+                if (p + dataSize > limit) {
+                    return error("block overflow");
+                }
+                columnData.add(p);
+                p += dataSize;
+            }
+        }
+
+        if (p != limit) {
+            return error("block size mismatch");
+        }
+        return ParseResult.BLOCK_COMPLETE;
+    }
+
+    private ParseResult error(String error) {
+        this.error = error;
+        return ParseResult.ERROR;
+    }
+
+    enum ParseResult {
+        BLOCK_COMPLETE, BUFFER_UNDERFLOW, ERROR
+    }
+}
@@ -25,6 +25,7 @@
 package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.line.LineTcpBinaryFormat;
 import io.questdb.cutlass.line.tcp.LineTcpParser.ParseResult;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -42,12 +43,17 @@ import io.questdb.std.str.FloatingDirectCharSink;
 class LineTcpConnectionContext implements IOContext, Mutable {
     private static final Log LOG = LogFactory.getLog(LineTcpConnectionContext.class);
     private static final long QUEUE_FULL_LOG_HYSTERESIS_IN_MS = 10_000;
+    private static final int PROTOCOL_UNKNOWN = 0;
+    private static final int PROTOCOL_TEXT = 1;
+    private static final int PROTOCOL_BINARY = 2;
     protected final NetworkFacade nf;
     private final LineTcpMeasurementScheduler scheduler;
     private final MillisecondClock milliClock;
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
     private final LineTcpParser parser = new LineTcpParser();
     private final FloatingDirectCharSink floatingDirectCharSink = new FloatingDirectCharSink();
+    private final LineTcpBinaryBlock binaryBlock = new LineTcpBinaryBlock();
+    private final int maxBinaryBlockSize;
     protected long fd;
     protected IODispatcher<LineTcpConnectionContext> dispatcher;
     protected long recvBufStart;
@@ -57,6 +63,7 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     protected long recvBufStartOfMeasurement;
     private long lastQueueFullLogMillis = 0;
     private boolean goodMeasurement;
+    private int protocol;
 
     LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler) {
         nf = configuration.getNetworkFacade();
@@ -64,6 +71,10 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         this.milliClock = configuration.getMillisecondClock();
         recvBufStart = Unsafe.malloc(configuration.getNetMsgBufferSize(), MemoryTag.NATIVE_DEFAULT);
         recvBufEnd = recvBufStart + configuration.getNetMsgBufferSize();
+        maxBinaryBlockSize = (int) Math.min(
+                configuration.getNetMsgBufferSize(),
+                LineTcpMeasurementScheduler.getEventSlotSize(configuration.getMaxMeasurementSize())
+        );
         clear();
     }
 
@@ -71,6 +82,7 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     public void clear() {
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        protocol = PROTOCOL_UNKNOWN;
         resetParser();
     }
 
@@ -165,6 +177,14 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     }
 
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
+        if (protocol != PROTOCOL_TEXT) {
+            if (protocol == PROTOCOL_UNKNOWN && !negotiateProtocol()) {
+                return peerDisconnected ? IOContextResult.NEEDS_DISCONNECT : IOContextResult.NEEDS_READ;
+            }
+            if (protocol == PROTOCOL_BINARY) {
+                return parseBinaryBlocks(netIoJob);
+            }
+        }
         while (true) {
             try {
                 ParseResult rc = goodMeasurement ? parser.parseMeasurement(recvBufPos) : parser.skipMeasurement(recvBufPos);
@@ -225,6 +245,86 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         }
     }
 
+    /**
+     * Binary line protocol is requested by the client sending {@link LineTcpBinaryFormat#HANDSHAKE} ahead of
+     * any data. Text protocol is assumed otherwise, a measurement can never start with zero byte.
+     *
+     * @return false when more data is required to decide
+     */
+    private boolean negotiateProtocol() {
+        final long len = recvBufPos - recvBufStart;
+        if (len == 0) {
+            return false;
+        }
+        if (Unsafe.getUnsafe().getByte(recvBufStart) != 0) {
+            protocol = PROTOCOL_TEXT;
+            return true;
+        }
+        if (len < LineTcpBinaryFormat.HANDSHAKE_SIZE) {
+            return false;
+        }
+        if (Unsafe.getUnsafe().getInt(recvBufStart) != LineTcpBinaryFormat.HANDSHAKE) {
+            LOG.error().$('[').$(fd).$("] unsupported binary line protocol handshake").$();
+            peerDisconnected = true;
+            return false;
+        }
+        LOG.info().$('[').$(fd).$("] binary line protocol").$();
+        protocol = PROTOCOL_BINARY;
+        recvBufStartOfMeasurement = recvBufStart + LineTcpBinaryFormat.HANDSHAKE_SIZE;
+        return true;
+    }
+
+    private IOContextResult parseBinaryBlocks(NetworkIOJob netIoJob) {
+        while (true) {
+            try {
+                switch (binaryBlock.of(recvBufStartOfMeasurement, recvBufPos, maxBinaryBlockSize)) {
+                    case BLOCK_COMPLETE:
+                        if (scheduler.scheduleBinaryBlock(netIoJob, binaryBlock)) {
+                            if (checkQueueFullLogHysteresis()) {
+                                LOG.debug().$('[').$(fd).$("] queue full").$();
+                            }
+                            return IOContextResult.QUEUE_FULL;
+                        }
+                        recvBufStartOfMeasurement += binaryBlock.getSize();
+                        if (recvBufStartOfMeasurement == recvBufPos) {
+                            recvBufStartOfMeasurement = recvBufPos = recvBufStart;
+                        }
+                        break;
+                    case BUFFER_UNDERFLOW:
+                        if (recvBufPos == recvBufEnd) {
+                            // block is guaranteed to fit the buffer when it starts at the beginning of it
+                            final long len = recvBufPos - recvBufStartOfMeasurement;
+                            Vect.memmove(recvBufStart, recvBufStartOfMeasurement, len);
+                            recvBufStartOfMeasurement = recvBufStart;
+                            recvBufPos = recvBufStart + len;
+                        }
+                        if (!read()) {
+                            if (peerDisconnected) {
+                                return IOContextResult.NEEDS_DISCONNECT;
+                            }
+                            return IOContextResult.NEEDS_READ;
+                        }
+                        break;
+                    default:
+                        LOG.error().$('[').$(fd).$("] could not parse binary block [error=").$(binaryBlock.getError())
+                                .$(", maxSize=").$(maxBinaryBlockSize)
+                                .I$();
+                        return IOContextResult.NEEDS_DISCONNECT;
+                }
+            } catch (CairoException ex) {
+                LOG.error().
+                        $('[').$(fd).$("] could not process binary line data [table=").$(binaryBlock.getTableName())
+                        .$(", msg=").$(ex.getFlyweightMessage())
+                        .$(", errno=").$(ex.getErrno())
+                        .I$();
+                return IOContextResult.NEEDS_DISCONNECT;
+            } catch (Throwable ex) {
+                LOG.error().$('[').$(fd).$("] could not process binary line data [table=").$(binaryBlock.getTableName()).$(", ex=").$(ex).I$();
+                return IOContextResult.NEEDS_DISCONNECT;
+            }
+        }
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
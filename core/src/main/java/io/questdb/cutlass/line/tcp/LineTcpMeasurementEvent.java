@@ -27,6 +27,7 @@ package io.questdb.cutlass.line.tcp;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cutlass.line.LineProtoTimestampAdapter;
+import io.questdb.cutlass.line.LineTcpBinaryFormat;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
@@ -44,6 +45,10 @@ class LineTcpMeasurementEvent implements Closeable {
     private final MicrosecondClock clock;
     private final LineProtoTimestampAdapter timestampAdapter;
     private final long bufSize;
+    private final LineTcpBinaryBlock binaryBlock = new LineTcpBinaryBlock();
+    private final IntList binaryColumnIndexes = new IntList();
+    private final IntList binarySymbolIndexes = new IntList();
+    private boolean binary;
     private int writerWorkerId;
     private TableUpdateDetails tableUpdateDetails;
     private long bufLo;
@@ -81,6 +86,136 @@ class LineTcpMeasurementEvent implements Closeable {
     }
 
     void append(StringSink charSink, FloatingDirectCharSink floatingCharSink) {
+        try {
+            if (binary) {
+                appendBinaryBlock(charSink);
+            } else {
+                appendRow(charSink, floatingCharSink);
+                tableUpdateDetails.handleRowAppended();
+            }
+        } catch (CairoException ex) {
+            LOG.error()
+                    .$("could not write line protocol measurement [tableName=").$(tableUpdateDetails.getTableNameUtf16())
+                    .$(", ex=").$(ex.getFlyweightMessage())
+                    .$(", errno=").$(ex.getErrno())
+                    .I$();
+        }
+    }
+
+    private void appendBinaryBlock(StringSink charSink) {
+        binaryBlock.of(bufLo, bufLo + bufSize, (int) bufSize);
+        final TableWriter writer = tableUpdateDetails.getWriter();
+        final int columnCount = binaryBlock.getColumnCount();
+
+        // resolve columns and symbol dictionaries once per block
+        binaryColumnIndexes.clear();
+        binarySymbolIndexes.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final DirectByteCharSequence columnName = binaryBlock.getColumnName(i);
+            charSink.clear();
+            if (!Chars.utf8Decode(columnName.getLo(), columnName.getHi(), charSink)) {
+                throw CairoException.instance(0).put("invalid UTF8 in column name");
+            }
+            final int columnType = binaryBlock.getColumnType(i);
+            int colIndex = writer.getMetadata().getColumnIndexQuiet(charSink);
+            if (colIndex < 0) {
+                if (!TableUtils.isValidInfluxColumnName(charSink)) {
+                    throw CairoException.instance(0)
+                            .put("invalid column name [table=").put(writer.getTableName())
+                            .put(", columnName=").put(charSink)
+                            .put(']');
+                }
+                writer.addColumn(charSink, columnType);
+                colIndex = writer.getMetadata().getColumnIndexQuiet(charSink);
+            } else if (colIndex == writer.getMetadata().getTimestampIndex()) {
+                throw CairoException.instance(0)
+                        .put("designated timestamp cannot be sent as a column [table=").put(writer.getTableName())
+                        .put(", columnName=").put(charSink)
+                        .put(']');
+            } else if (ColumnType.tagOf(writer.getMetadata().getColumnType(colIndex)) != columnType) {
+                throw CairoException.instance(0)
+                        .put("cast error for line protocol column [table=").put(writer.getTableName())
+                        .put(", columnName=").put(charSink)
+                        .put(", columnType=").put(ColumnType.nameOf(writer.getMetadata().getColumnType(colIndex)))
+                        .put(", sentType=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+            binaryColumnIndexes.add(colIndex);
+
+            if (columnType == ColumnType.SYMBOL) {
+                for (int k = 0, n = binaryBlock.getSymbolCount(i); k < n; k++) {
+                    final DirectByteCharSequence value = binaryBlock.getSymbol(i, k);
+                    charSink.clear();
+                    if (!Chars.utf8Decode(value.getLo(), value.getHi(), charSink)) {
+                        throw CairoException.instance(0).put("invalid UTF8 in symbol value");
+                    }
+                    binarySymbolIndexes.add(writer.getSymbolIndex(colIndex, charSink));
+                }
+            }
+        }
+
+        final long timestampAddress = binaryBlock.getTimestampAddress();
+        for (int r = 0, rowCount = binaryBlock.getRowCount(); r < rowCount; r++) {
+            long timestamp = Unsafe.getUnsafe().getLong(timestampAddress + (long) r * Long.BYTES);
+            if (timestamp == Numbers.LONG_NaN) {
+                timestamp = clock.getTicks();
+            }
+            final TableWriter.Row row = writer.newRow(timestamp);
+            try {
+                for (int i = 0, symbolOffset = 0; i < columnCount; i++) {
+                    final int colIndex = binaryColumnIndexes.getQuick(i);
+                    final long data = binaryBlock.getColumnDataAddress(i);
+                    switch (binaryBlock.getColumnType(i)) {
+                        case ColumnType.BOOLEAN:
+                            row.putBool(colIndex, Unsafe.getUnsafe().getByte(data + r) != 0);
+                            break;
+                        case ColumnType.BYTE:
+                            row.putByte(colIndex, Unsafe.getUnsafe().getByte(data + r));
+                            break;
+                        case ColumnType.SHORT:
+                            row.putShort(colIndex, Unsafe.getUnsafe().getShort(data + (long) r * Short.BYTES));
+                            break;
+                        case ColumnType.INT:
+                            row.putInt(colIndex, Unsafe.getUnsafe().getInt(data + (long) r * Integer.BYTES));
+                            break;
+                        case ColumnType.LONG:
+                            row.putLong(colIndex, Unsafe.getUnsafe().getLong(data + (long) r * Long.BYTES));
+                            break;
+                        case ColumnType.FLOAT:
+                            row.putFloat(colIndex, Unsafe.getUnsafe().getFloat(data + (long) r * Float.BYTES));
+                            break;
+                        case ColumnType.DOUBLE:
+                            row.putDouble(colIndex, Unsafe.getUnsafe().getDouble(data + (long) r * Double.BYTES));
+                            break;
+                        case ColumnType.TIMESTAMP:
+                            row.putTimestamp(colIndex, Unsafe.getUnsafe().getLong(data + (long) r * Long.BYTES));
+                            break;
+                        case ColumnType.SYMBOL: {
+                            final int key = Unsafe.getUnsafe().getInt(data + (long) r * Integer.BYTES);
+                            if (key != LineTcpBinaryFormat.NULL_SYMBOL_KEY) {
+                                row.putSymIndex(colIndex, binarySymbolIndexes.getQuick(symbolOffset + key));
+                            }
+                            symbolOffset += binaryBlock.getSymbolCount(i);
+                            break;
+                        }
+                        default:
+                            break;
+                    }
+                }
+                row.append();
+            } catch (CairoException ex) {
+                row.cancel();
+                throw ex;
+            }
+            tableUpdateDetails.handleRowAppended();
+        }
+    }
+
+    /**
+     * Appends measurement to the table writer. Unlike {@link #append(StringSink, FloatingDirectCharSink)}
+     * this method neither commits nor swallows errors, the row is cancelled and the exception is rethrown.
+     */
+    void appendRow(StringSink charSink, FloatingDirectCharSink floatingCharSink) {
         TableWriter.Row row = null;
         try {
             TableWriter writer = tableUpdateDetails.getWriter();
@@ -390,19 +525,26 @@ class LineTcpMeasurementEvent implements Closeable {
                 }
             }
             row.append();
-            tableUpdateDetails.handleRowAppended();
         } catch (CairoException ex) {
-            LOG.error()
-                    .$("could not write line protocol measurement [tableName=").$(tableUpdateDetails.getTableNameUtf16())
-                    .$(", ex=").$(ex.getFlyweightMessage())
-                    .$(", errno=").$(ex.getErrno())
-                    .I$();
             if (row != null) {
                 row.cancel();
             }
+            throw ex;
         }
     }
 
+    void createBinaryBlockEvent(TableUpdateDetails tableUpdateDetails, LineTcpBinaryBlock block) {
+        writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+        if (block.getSize() > bufSize) {
+            throw CairoException.instance(0).put("queue buffer overflow");
+        }
+        this.tableUpdateDetails = tableUpdateDetails;
+        tableUpdateDetails.updateLastMeasurementMillis();
+        binary = true;
+        Vect.memcpy(bufLo, block.getLo(), block.getSize());
+        writerWorkerId = tableUpdateDetails.getWriterThreadId();
+    }
+
     void createMeasurementEvent(
             TableUpdateDetails tableUpdateDetails,
             LineTcpParser parser,
@@ -410,6 +552,7 @@ class LineTcpMeasurementEvent implements Closeable {
             int workerId
     ) {
         writerWorkerId = LineTcpMeasurementEventType.ALL_WRITERS_INCOMPLETE_EVENT;
+        binary = false;
         final TableUpdateDetails.ThreadLocalDetails localDetails = tableUpdateDetails.getThreadLocalDetails(workerId);
         final BoolList processedCols = localDetails.getProcessedCols();
         final LowerCaseCharSequenceHashSet addedCols = localDetails.getAddedCols();
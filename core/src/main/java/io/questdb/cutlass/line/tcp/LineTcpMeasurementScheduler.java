@@ -55,7 +55,12 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final CharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf16;
     private final CharSequenceObjHashMap<TableUpdateDetails> idleTableUpdateDetailsUtf16;
     private final long[] loadByWriterThread;
+    private final long[] rowsPerSecondByWriterThread;
+    private final long[] bytesPerSecondByWriterThread;
     private final long writerIdleTimeout;
+    private final long loadBalanceInterval;
+    private final double maxLoadRatio;
+    private final LineTcpMetrics metrics;
     private final NetworkIOJob[] netIoJobs;
     private final StringSink[] tableNameSinks;
     private final TableStructureAdapter tableStructureAdapter;
@@ -64,19 +69,24 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final LineTcpReceiverConfiguration configuration;
     private Sequence pubSeq;
     private LineTcpReceiver.SchedulerListener listener;
+    private volatile long lastLoadBalanceMillis;
+    // table currently migrating to another writer thread, only one migration at a time is allowed
+    private TableUpdateDetails migratingTable;
 
     LineTcpMeasurementScheduler(
             LineTcpReceiverConfiguration lineConfiguration,
             CairoEngine engine,
             WorkerPool ioWorkerPool,
             IODispatcher<LineTcpConnectionContext> dispatcher,
-            WorkerPool writerWorkerPool
+            WorkerPool writerWorkerPool,
+            LineTcpMetrics metrics
     ) {
         this.engine = engine;
         this.securityContext = lineConfiguration.getCairoSecurityContext();
         CairoConfiguration cairoConfiguration = engine.getConfiguration();
         this.configuration = lineConfiguration;
         MillisecondClock milliClock = cairoConfiguration.getMillisecondClock();
+        this.metrics = metrics;
         int n = ioWorkerPool.getWorkerCount();
         this.netIoJobs = new NetworkIOJob[n];
         this.tableNameSinks = new StringSink[n];
@@ -93,6 +103,9 @@ class LineTcpMeasurementScheduler implements Closeable {
         tableUpdateDetailsUtf16 = new CharSequenceObjHashMap<>();
         idleTableUpdateDetailsUtf16 = new CharSequenceObjHashMap<>();
         loadByWriterThread = new long[writerWorkerPool.getWorkerCount()];
+        rowsPerSecondByWriterThread = new long[writerWorkerPool.getWorkerCount()];
+        bytesPerSecondByWriterThread = new long[writerWorkerPool.getWorkerCount()];
+        metrics.setWriterLoad(rowsPerSecondByWriterThread, bytesPerSecondByWriterThread);
         int maxMeasurementSize = lineConfiguration.getMaxMeasurementSize();
         int queueSize = lineConfiguration.getWriterQueueCapacity();
         queue = new RingQueue<>(
@@ -144,6 +157,9 @@ class LineTcpMeasurementScheduler implements Closeable {
 
         this.tableStructureAdapter = new TableStructureAdapter(cairoConfiguration, configuration.getDefaultPartitionBy());
         writerIdleTimeout = lineConfiguration.getWriterIdleTimeout();
+        loadBalanceInterval = lineConfiguration.getWriterLoadBalanceInterval();
+        maxLoadRatio = lineConfiguration.getMaxLoadRatio();
+        lastLoadBalanceMillis = lineConfiguration.getMillisecondClock().getTicks();
     }
 
     @Override
@@ -216,6 +232,30 @@ class LineTcpMeasurementScheduler implements Closeable {
         return false;
     }
 
+    public boolean doLoadBalance(long millis) {
+        if (millis - lastLoadBalanceMillis < loadBalanceInterval) {
+            return false;
+        }
+        tableUpdateDetailsLock.writeLock().lock();
+        try {
+            final long elapsed = millis - lastLoadBalanceMillis;
+            if (elapsed < loadBalanceInterval) {
+                // another IO thread got here first
+                return false;
+            }
+            lastLoadBalanceMillis = millis;
+            unsafeCalcLoadRates(elapsed);
+            return unsafeRebalance();
+        } finally {
+            tableUpdateDetailsLock.writeLock().unlock();
+        }
+    }
+
+    @TestOnly
+    long getWriterThreadRowsPerSecond(int threadId) {
+        return rowsPerSecondByWriterThread[threadId];
+    }
+
     public boolean processWriterReleaseEvent(LineTcpMeasurementEvent event, int workerId) {
         tableUpdateDetailsLock.readLock().lock();
         try {
@@ -223,6 +263,10 @@ class LineTcpMeasurementScheduler implements Closeable {
             if (tab.getWriterThreadId() != workerId) {
                 return true;
             }
+            if (tab.isHandOffPending()) {
+                // previous writer thread still owns the writer, retry once it has released the table
+                return false;
+            }
             if (tableUpdateDetailsUtf16.keyIndex(tab.getTableNameUtf16()) < 0) {
                 // Table must have been re-assigned to an IO thread
                 return true;
@@ -239,7 +283,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         return true;
     }
 
-    private static long getEventSlotSize(int maxMeasurementSize) {
+    static long getEventSlotSize(int maxMeasurementSize) {
         return Numbers.ceilPow2((long) (maxMeasurementSize / 4) * (Integer.BYTES + Double.BYTES + 1));
     }
 
@@ -256,8 +300,12 @@ class LineTcpMeasurementScheduler implements Closeable {
         return seq;
     }
 
-    private TableUpdateDetails getTableUpdateDetailsFromSharedArea(@NotNull NetworkIOJob netIoJob, @NotNull LineTcpParser parser) {
-        final DirectByteCharSequence tableNameUtf8 = parser.getMeasurementName();
+    private TableUpdateDetails getTableUpdateDetailsFromSharedArea(
+            @NotNull NetworkIOJob netIoJob,
+            @NotNull DirectByteCharSequence tableNameUtf8,
+            LineTcpParser parser,
+            LineTcpBinaryBlock block
+    ) {
         final StringSink tableNameUtf16 = tableNameSinks[netIoJob.getWorkerId()];
         tableNameUtf16.clear();
         Chars.utf8Decode(tableNameUtf8.getLo(), tableNameUtf8.getHi(), tableNameUtf16);
@@ -272,7 +320,9 @@ class LineTcpMeasurementScheduler implements Closeable {
                 int status = engine.getStatus(securityContext, path, tableNameUtf16, 0, tableNameUtf16.length());
                 if (status != TableUtils.TABLE_EXISTS) {
                     // validate that parser entities do not contain NULLs
-                    TableStructureAdapter tsa = tableStructureAdapter.of(tableNameUtf16, parser);
+                    TableStructureAdapter tsa = parser != null
+                            ? tableStructureAdapter.of(tableNameUtf16, parser)
+                            : tableStructureAdapter.of(tableNameUtf16, block);
                     for (int i = 0, n = tsa.getColumnCount(); i < n; i++) {
                         if (tsa.getColumnType(i) == LineTcpParser.ENTITY_TYPE_NULL) {
                             throw CairoException.instance(0).put("unknown column type [columnName=").put(tsa.getColumnName(i)).put(']');
@@ -321,12 +371,47 @@ class LineTcpMeasurementScheduler implements Closeable {
         this.listener = listener;
     }
 
+    boolean scheduleBinaryBlock(NetworkIOJob netIoJob, LineTcpBinaryBlock block) {
+        TableUpdateDetails tableUpdateDetails;
+        try {
+            tableUpdateDetails = netIoJob.getLocalTableDetails(block.getTableName());
+            if (tableUpdateDetails == null) {
+                tableUpdateDetails = getTableUpdateDetailsFromSharedArea(netIoJob, block.getTableName(), null, block);
+            }
+        } catch (EntryUnavailableException ex) {
+            // Table writer is locked
+            LOG.info().$("could not get table writer [tableName=").$(block.getTableName()).$(", ex=`").$(ex.getFlyweightMessage()).$("`]").$();
+            return true;
+        } catch (CairoException ex) {
+            // Table could not be created
+            LOG.info()
+                    .$("could not create table [tableName=").$(block.getTableName())
+                    .$(", ex=`").$(ex.getFlyweightMessage())
+                    .$("`, errno=").$(ex.getErrno())
+                    .I$();
+            return false;
+        }
+
+        long seq = getNextPublisherEventSequence();
+        if (seq > -1) {
+            try {
+                queue.get(seq).createBinaryBlockEvent(tableUpdateDetails, block);
+            } finally {
+                pubSeq.done(seq);
+            }
+            tableUpdateDetails.addEventsProcessedSinceReshuffle(block.getRowCount());
+            tableUpdateDetails.addBytesProcessedSinceReshuffle(block.getSize());
+            return false;
+        }
+        return true;
+    }
+
     boolean scheduleEvent(NetworkIOJob netIoJob, LineTcpParser parser, FloatingDirectCharSink floatingDirectCharSink) {
         TableUpdateDetails tableUpdateDetails;
         try {
             tableUpdateDetails = netIoJob.getLocalTableDetails(parser.getMeasurementName());
             if (tableUpdateDetails == null) {
-                tableUpdateDetails = getTableUpdateDetailsFromSharedArea(netIoJob, parser);
+                tableUpdateDetails = getTableUpdateDetailsFromSharedArea(netIoJob, parser.getMeasurementName(), parser, null);
             }
         } catch (EntryUnavailableException ex) {
             // Table writer is locked
@@ -355,7 +440,8 @@ class LineTcpMeasurementScheduler implements Closeable {
                 pubSeq.done(seq);
             }
             tableUpdateDetails.incrementEventsProcessedSinceReshuffle();
-        return false;
+            tableUpdateDetails.addBytesProcessedSinceReshuffle(parser.getBufferAddress() - parser.getMeasurementName().getLo());
+            return false;
         }
         return true;
     }
@@ -388,6 +474,90 @@ class LineTcpMeasurementScheduler implements Closeable {
         return tableUpdateDetails;
     }
 
+    private void unsafeCalcLoadRates(long elapsedMillis) {
+        Arrays.fill(rowsPerSecondByWriterThread, 0);
+        Arrays.fill(bytesPerSecondByWriterThread, 0);
+        ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            final TableUpdateDetails tab = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+            if (tab != null) {
+                tab.updateLoad(elapsedMillis);
+                final int threadId = tab.getWriterThreadId();
+                rowsPerSecondByWriterThread[threadId] += tab.getRowsPerSecond();
+                bytesPerSecondByWriterThread[threadId] += tab.getBytesPerSecond();
+            }
+        }
+    }
+
+    private boolean unsafeRebalance() {
+        if (maxLoadRatio < 1 || rowsPerSecondByWriterThread.length < 2) {
+            return false;
+        }
+        if (migratingTable != null) {
+            if (migratingTable.isHandOffPending()) {
+                return false;
+            }
+            migratingTable = null;
+        }
+
+        int fromThreadId = 0;
+        int toThreadId = 0;
+        for (int i = 1, n = rowsPerSecondByWriterThread.length; i < n; i++) {
+            if (rowsPerSecondByWriterThread[i] > rowsPerSecondByWriterThread[fromThreadId]) {
+                fromThreadId = i;
+            }
+            if (rowsPerSecondByWriterThread[i] < rowsPerSecondByWriterThread[toThreadId]) {
+                toThreadId = i;
+            }
+        }
+        final long maxLoad = rowsPerSecondByWriterThread[fromThreadId];
+        final long minLoad = rowsPerSecondByWriterThread[toThreadId];
+        if (maxLoad == 0 || maxLoad <= maxLoadRatio * minLoad) {
+            return false;
+        }
+
+        // pick the table that brings the two threads closest to each other, moving a table
+        // with load greater or equal to the load difference would not improve the balance
+        final long loadDiff = maxLoad - minLoad;
+        TableUpdateDetails candidate = null;
+        long candidateDistance = Long.MAX_VALUE;
+        ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            final TableUpdateDetails tab = tableUpdateDetailsUtf16.get(tableNames.getQuick(n));
+            if (tab != null && tab.getWriterThreadId() == fromThreadId && tab.isAssignedToJob()) {
+                final long load = tab.getRowsPerSecond();
+                if (load > 0 && load < loadDiff) {
+                    final long distance = Math.abs(loadDiff - 2 * load);
+                    if (distance < candidateDistance) {
+                        candidate = tab;
+                        candidateDistance = distance;
+                    }
+                }
+            }
+        }
+
+        if (candidate == null) {
+            return false;
+        }
+
+        final long load = candidate.getRowsPerSecond();
+        candidate.startHandOff(toThreadId, pubSeq);
+        migratingTable = candidate;
+        rowsPerSecondByWriterThread[fromThreadId] -= load;
+        rowsPerSecondByWriterThread[toThreadId] += load;
+        bytesPerSecondByWriterThread[fromThreadId] -= candidate.getBytesPerSecond();
+        bytesPerSecondByWriterThread[toThreadId] += candidate.getBytesPerSecond();
+        metrics.tableMigrated();
+        LOG.info().$("migrating table to another writer thread [tableName=").$(candidate.getTableNameUtf16())
+                .$(", fromThreadId=").$(fromThreadId)
+                .$(", toThreadId=").$(toThreadId)
+                .$(", rowsPerSecond=").$(load)
+                .$(", fromThreadRowsPerSecond=").$(maxLoad)
+                .$(", toThreadRowsPerSecond=").$(minLoad)
+                .I$();
+        return true;
+    }
+
     private void unsafeCalcThreadLoad() {
         Arrays.fill(loadByWriterThread, 0);
         ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.metrics.Counter;
+import io.questdb.metrics.MetricsRegistry;
+import io.questdb.metrics.VirtualGaugeWithOneLabel;
+
+public class LineTcpMetrics {
+    private static final long[] EMPTY = new long[0];
+    private final Counter tableMigrationsCounter;
+    private volatile long[] rowsPerSecondByWriterThread = EMPTY;
+    private volatile long[] bytesPerSecondByWriterThread = EMPTY;
+
+    public LineTcpMetrics(MetricsRegistry metricsRegistry) {
+        this.tableMigrationsCounter = metricsRegistry.newCounter("line_tcp_table_migrations");
+        metricsRegistry.newVirtualGauge("line_tcp_writer_rows_per_second", "thread", new VirtualGaugeWithOneLabel.StatProvider() {
+            @Override
+            public int getLabelCount() {
+                return rowsPerSecondByWriterThread.length;
+            }
+
+            @Override
+            public long getValue(int label0) {
+                return rowsPerSecondByWriterThread[label0];
+            }
+        });
+        metricsRegistry.newVirtualGauge("line_tcp_writer_bytes_per_second", "thread", new VirtualGaugeWithOneLabel.StatProvider() {
+            @Override
+            public int getLabelCount() {
+                return bytesPerSecondByWriterThread.length;
+            }
+
+            @Override
+            public long getValue(int label0) {
+                return bytesPerSecondByWriterThread[label0];
+            }
+        });
+    }
+
+    void setWriterLoad(long[] rowsPerSecondByWriterThread, long[] bytesPerSecondByWriterThread) {
+        this.rowsPerSecondByWriterThread = rowsPerSecondByWriterThread;
+        this.bytesPerSecondByWriterThread = bytesPerSecondByWriterThread;
+    }
+
+    void tableMigrated() {
+        tableMigrationsCounter.inc();
+    }
+}
@@ -114,6 +114,10 @@ class LineTcpNetworkIOJob implements NetworkIOJob, Job {
             }
         }
 
+        if (scheduler.doLoadBalance(millis)) {
+            busy = true;
+        }
+
         return busy;
     }
 
@@ -24,6 +24,7 @@
 
 package io.questdb.cutlass.line.tcp;
 
+import io.questdb.Metrics;
 import io.questdb.WorkerPoolAwareConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.log.Log;
@@ -53,7 +54,8 @@ public class LineTcpReceiver implements Closeable {
             CairoEngine engine,
             WorkerPool ioWorkerPool,
             WorkerPool writerWorkerPool,
-            ObjList<WorkerPool> dedicatedPools
+            ObjList<WorkerPool> dedicatedPools,
+            Metrics metrics
     ) {
         this.contextFactory = new LineTcpConnectionContextFactory(lineConfiguration);
         this.dispatcher = IODispatchers.create(
@@ -62,7 +64,14 @@ public class LineTcpReceiver implements Closeable {
         );
         this.dedicatedPools = dedicatedPools;
         ioWorkerPool.assign(dispatcher);
-        scheduler = new LineTcpMeasurementScheduler(lineConfiguration, engine, ioWorkerPool, dispatcher, writerWorkerPool);
+        scheduler = new LineTcpMeasurementScheduler(
+                lineConfiguration,
+                engine,
+                ioWorkerPool,
+                dispatcher,
+                writerWorkerPool,
+                metrics.lineTcp()
+        );
 
         final Closeable cleaner = contextFactory::closeContextPool;
         for (int i = 0, n = ioWorkerPool.getWorkerCount(); i < n; i++) {
@@ -78,6 +87,17 @@ public class LineTcpReceiver implements Closeable {
             WorkerPool sharedWorkerPool,
             Log log,
             CairoEngine cairoEngine
+    ) {
+        return create(lineConfiguration, sharedWorkerPool, log, cairoEngine, Metrics.disabled());
+    }
+
+    @Nullable
+    public static LineTcpReceiver create(
+            LineTcpReceiverConfiguration lineConfiguration,
+            WorkerPool sharedWorkerPool,
+            Log log,
+            CairoEngine cairoEngine,
+            Metrics metrics
     ) {
         if (!lineConfiguration.isEnabled()) {
             return null;
@@ -94,7 +114,7 @@ public class LineTcpReceiver implements Closeable {
             writerWorkerPool.assignCleaner(Path.CLEANER);
             dedicatedPools.add(writerWorkerPool);
         }
-        LineTcpReceiver lineTcpReceiver = new LineTcpReceiver(lineConfiguration, cairoEngine, ioWorkerPool, writerWorkerPool, dedicatedPools);
+        LineTcpReceiver lineTcpReceiver = new LineTcpReceiver(lineConfiguration, cairoEngine, ioWorkerPool, writerWorkerPool, dedicatedPools, metrics);
         if (ioWorkerPool != sharedWorkerPool) {
             ioWorkerPool.start(log);
         }
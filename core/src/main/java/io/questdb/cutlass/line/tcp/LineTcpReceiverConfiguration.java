@@ -52,6 +52,15 @@ public interface LineTcpReceiverConfiguration {
      */
     long getMaintenanceInterval();
 
+    /**
+     * Maximum ratio between the most and the least loaded writer threads before the
+     * scheduler migrates a table from the former to the latter. Load is measured in rows
+     * per second. Values below 1 disable table migration.
+     *
+     * @return maximum tolerated writer load ratio
+     */
+    double getMaxLoadRatio();
+
     int getMaxMeasurementSize();
 
     MicrosecondClock getMicrosecondClock();
@@ -60,6 +69,15 @@ public interface LineTcpReceiverConfiguration {
 
     long getWriterIdleTimeout();
 
+    /**
+     * Interval in milliseconds between writer thread load measurements. Each measurement
+     * recalculates rows and bytes per second for every active table and may trigger
+     * migration of a single table to a less loaded writer thread.
+     *
+     * @return interval in milliseconds
+     */
+    long getWriterLoadBalanceInterval();
+
     IODispatcherConfiguration getNetDispatcherConfiguration();
 
     int getNetMsgBufferSize();
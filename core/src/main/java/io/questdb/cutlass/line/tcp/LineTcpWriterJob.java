@@ -51,6 +51,8 @@ class LineTcpWriterJob implements Job, Closeable {
     private final long maintenanceInterval;
     private final LineTcpMeasurementScheduler scheduler;
     private long lastMaintenanceMillis = 0;
+    // last queue cursor processed by this job, used to find out when migrating tables can be released
+    private long lastCursor = -1;
 
     LineTcpWriterJob(
             int workerId,
@@ -87,6 +89,7 @@ class LineTcpWriterJob implements Job, Closeable {
     public boolean run(int workerId) {
         assert this.workerId == workerId;
         boolean busy = drainQueue();
+        handOffTables();
         if (!busy && !doMaintenance()) {
             tickWriters();
         }
@@ -106,6 +109,21 @@ class LineTcpWriterJob implements Job, Closeable {
         return true;
     }
 
+    private void handOffTables() {
+        for (int n = assignedTables.size() - 1; n > -1; n--) {
+            final TableUpdateDetails tab = assignedTables.getQuick(n);
+            if (tab.isHandOffPending() && tab.getWriterThreadId() != workerId && tab.getHandOffSequence() <= lastCursor) {
+                assignedTables.remove(n);
+                tab.handOff();
+                LOG.info()
+                        .$("released table to another writer thread [tableName=").$(tab.getTableNameUtf16())
+                        .$(", fromThreadId=").$(workerId)
+                        .$(", toThreadId=").$(tab.getWriterThreadId())
+                        .I$();
+            }
+        }
+    }
+
     private void tickWriters() {
         for (int n = 0, sz = assignedTables.size(); n < sz; n++) {
             assignedTables.getQuick(n).tick();
@@ -131,6 +149,11 @@ class LineTcpWriterJob implements Job, Closeable {
 
                 if (event.getWriterWorkerId() == workerId) {
                     final TableUpdateDetails tab = event.getTableUpdateDetails();
+                    if (tab.isHandOffPending() && tab.getWriterThreadId() == workerId) {
+                        // table is being migrated to this thread, the previous writer thread
+                        // is yet to process older measurements and release the table
+                        return busy;
+                    }
                     try {
                         if (!tab.isAssignedToJob()) {
                             assignedTables.add(tab);
@@ -166,6 +189,7 @@ class LineTcpWriterJob implements Job, Closeable {
             // until cursor value is released
             if (eventProcessed) {
                 sequence.done(cursor);
+                lastCursor = cursor;
             } else {
                 return false;
             }
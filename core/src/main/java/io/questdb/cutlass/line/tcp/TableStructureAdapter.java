@@ -26,13 +26,15 @@ package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.*;
 import io.questdb.std.Chars;
+import io.questdb.std.IntList;
 import io.questdb.std.LowerCaseCharSequenceHashSet;
 import io.questdb.std.ObjList;
 
 class TableStructureAdapter implements TableStructure {
     private static final String DEFAULT_TIMESTAMP_FIELD = "timestamp";
     private final LowerCaseCharSequenceHashSet entityNames = new LowerCaseCharSequenceHashSet();
-    private final ObjList<LineTcpParser.ProtoEntity> entities = new ObjList<>();
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
     private final CairoConfiguration cairoConfiguration;
     private final int defaultPartitionBy;
     private CharSequence tableName;
@@ -45,7 +47,7 @@ class TableStructureAdapter implements TableStructure {
 
     @Override
     public int getColumnCount() {
-        final int size = entities.size();
+        final int size = columnNames.size();
         return timestampIndex == -1 ? size + 1 : size;
     }
 
@@ -55,7 +57,7 @@ class TableStructureAdapter implements TableStructure {
         if (columnIndex == getTimestampIndex()) {
             return DEFAULT_TIMESTAMP_FIELD;
         }
-        CharSequence colName = entities.get(columnIndex).getName().toString();
+        CharSequence colName = columnNames.get(columnIndex).toString();
         if (TableUtils.isValidColumnName(colName)) {
             return colName;
         }
@@ -67,7 +69,7 @@ class TableStructureAdapter implements TableStructure {
         if (columnIndex == getTimestampIndex()) {
             return ColumnType.TIMESTAMP;
         }
-        return DefaultColumnTypes.DEFAULT_COLUMN_TYPES[entities.get(columnIndex).getType()];
+        return columnTypes.get(columnIndex);
     }
 
     @Override
@@ -112,7 +114,7 @@ class TableStructureAdapter implements TableStructure {
 
     @Override
     public int getTimestampIndex() {
-        return timestampIndex == -1 ? entities.size() : timestampIndex;
+        return timestampIndex == -1 ? columnNames.size() : timestampIndex;
     }
 
     @Override
@@ -126,19 +128,37 @@ class TableStructureAdapter implements TableStructure {
     }
 
     TableStructureAdapter of(CharSequence tableName, LineTcpParser parser) {
-        this.tableName = tableName;
-        entityNames.clear();
-        entities.clear();
+        clear(tableName);
         for (int i = 0; i < parser.getEntityCount(); i++) {
             final LineTcpParser.ProtoEntity entity = parser.getEntity(i);
-            final CharSequence name = entity.getName();
-            if (entityNames.add(name)) {
-                if (Chars.equals(name, DEFAULT_TIMESTAMP_FIELD)) {
-                    timestampIndex = entities.size();
-                }
-                entities.add(entity);
-            }
+            addColumn(entity.getName(), DefaultColumnTypes.DEFAULT_COLUMN_TYPES[entity.getType()]);
+        }
+        return this;
+    }
+
+    TableStructureAdapter of(CharSequence tableName, LineTcpBinaryBlock block) {
+        clear(tableName);
+        for (int i = 0, n = block.getColumnCount(); i < n; i++) {
+            addColumn(block.getColumnName(i).toString(), block.getColumnType(i));
         }
         return this;
     }
+
+    private void addColumn(CharSequence name, int columnType) {
+        if (entityNames.add(name)) {
+            if (Chars.equals(name, DEFAULT_TIMESTAMP_FIELD)) {
+                timestampIndex = columnNames.size();
+            }
+            columnNames.add(name);
+            columnTypes.add(columnType);
+        }
+    }
+
+    private void clear(CharSequence tableName) {
+        this.tableName = tableName;
+        entityNames.clear();
+        columnNames.clear();
+        columnTypes.clear();
+        timestampIndex = -1;
+    }
 }
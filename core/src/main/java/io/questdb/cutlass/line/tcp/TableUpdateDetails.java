@@ -29,6 +29,7 @@ import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.mp.Sequence;
 import io.questdb.std.*;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.DirectByteCharSequence;
@@ -45,12 +46,21 @@ public class TableUpdateDetails implements Closeable {
     private final CairoEngine engine;
     private final MillisecondClock millisecondClock;
     private final long writerTickRowsCountMod;
-    private int writerThreadId;
+    // writer thread id is changed by the scheduler when table is migrated to another writer thread
+    private volatile int writerThreadId;
     // Number of rows processed since the last reshuffle, this is an estimate because it is incremented by
     // multiple threads without synchronisation
     private long eventsProcessedSinceReshuffle = 0;
+    // Number of line protocol bytes processed since the last reshuffle, same as above this is an estimate
+    private long bytesProcessedSinceReshuffle = 0;
+    private long rowsPerSecond;
+    private long bytesPerSecond;
     private TableWriter writer;
-    private boolean assignedToJob = false;
+    private volatile boolean assignedToJob = false;
+    // hand-off is pending while the previous writer thread still owns the table writer
+    private volatile boolean handOffPending = false;
+    // queue sequence the previous writer thread has to process before it can release the table
+    private volatile long handOffSequence = Long.MAX_VALUE;
     private long lastMeasurementMillis = Long.MAX_VALUE;
     private long lastCommitMillis;
     private int networkIOOwnerCount = 0;
@@ -62,14 +72,29 @@ public class TableUpdateDetails implements Closeable {
             int writerThreadId,
             NetworkIOJob[] netIoJobs
     ) {
-        this.writerThreadId = writerThreadId;
-        this.engine = engine;
-        final int n = netIoJobs.length;
-        this.localDetailsArray = new ThreadLocalDetails[n];
-        for (int i = 0; i < n; i++) {
+        this(engine, writer, writerThreadId, netIoJobs.length);
+        for (int i = 0, n = netIoJobs.length; i < n; i++) {
             this.localDetailsArray[i] = new ThreadLocalDetails(
                     configuration, netIoJobs[i].getUnusedSymbolCaches(), writer.getMetadata().getColumnCount());
         }
+    }
+
+    // used when measurements are parsed and written by the same thread
+    TableUpdateDetails(
+            LineTcpReceiverConfiguration configuration,
+            CairoEngine engine,
+            TableWriter writer,
+            ObjList<SymbolCache> unusedSymbolCaches
+    ) {
+        this(engine, writer, 0, 1);
+        this.localDetailsArray[0] = new ThreadLocalDetails(
+                configuration, unusedSymbolCaches, writer.getMetadata().getColumnCount());
+    }
+
+    private TableUpdateDetails(CairoEngine engine, TableWriter writer, int writerThreadId, int localDetailsCount) {
+        this.writerThreadId = writerThreadId;
+        this.engine = engine;
+        this.localDetailsArray = new ThreadLocalDetails[localDetailsCount];
         CairoConfiguration cairoConfiguration = engine.getConfiguration();
         this.millisecondClock = cairoConfiguration.getMillisecondClock();
         this.writerTickRowsCountMod = cairoConfiguration.getWriterTickRowsCountMod();
@@ -127,6 +152,14 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    public void addBytesProcessedSinceReshuffle(long bytes) {
+        bytesProcessedSinceReshuffle += bytes;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
     public long getEventsProcessedSinceReshuffle() {
         return eventsProcessedSinceReshuffle;
     }
@@ -139,6 +172,10 @@ public class TableUpdateDetails implements Closeable {
         return networkIOOwnerCount;
     }
 
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
     public String getTableNameUtf16() {
         return tableNameUtf16;
     }
@@ -151,10 +188,18 @@ public class TableUpdateDetails implements Closeable {
         ++eventsProcessedSinceReshuffle;
     }
 
+    public void addEventsProcessedSinceReshuffle(int events) {
+        eventsProcessedSinceReshuffle += events;
+    }
+
     public boolean isAssignedToJob() {
         return assignedToJob;
     }
 
+    public boolean isHandOffPending() {
+        return handOffPending;
+    }
+
     public void setAssignedToJob(boolean assignedToJob) {
         this.assignedToJob = assignedToJob;
     }
@@ -169,6 +214,10 @@ public class TableUpdateDetails implements Closeable {
                 .I$();
     }
 
+    long getHandOffSequence() {
+        return handOffSequence;
+    }
+
     int getSymbolIndex(ThreadLocalDetails localDetails, int colIndex, CharSequence symValue) {
         if (colIndex >= 0) {
             return localDetails.getSymbolIndex(colIndex, symValue);
@@ -177,7 +226,7 @@ public class TableUpdateDetails implements Closeable {
     }
 
     ThreadLocalDetails getThreadLocalDetails(int workerId) {
-        lastMeasurementMillis = millisecondClock.getTicks();
+        updateLastMeasurementMillis();
         return localDetailsArray[workerId];
     }
 
@@ -185,6 +234,10 @@ public class TableUpdateDetails implements Closeable {
         return timestampIndex;
     }
 
+    void updateLastMeasurementMillis() {
+        lastMeasurementMillis = millisecondClock.getTicks();
+    }
+
     TableWriter getWriter() {
         return writer;
     }
@@ -210,6 +263,26 @@ public class TableUpdateDetails implements Closeable {
         return true;
     }
 
+    /**
+     * Called by the previous writer thread once it has processed all measurements
+     * published before the migration. Writer is committed so that the next writer
+     * thread starts with a clean transaction.
+     */
+    void handOff() {
+        if (null != writer) {
+            LOG.debug().$("hand-off commit [table=").$(writer.getTableName()).I$();
+            try {
+                writer.commit();
+            } catch (Throwable e) {
+                LOG.error().$("could not commit [table=").$(writer.getTableName()).$(",ex=").$(e).I$();
+                writer = Misc.free(writer);
+            }
+        }
+        lastCommitMillis = millisecondClock.getTicks();
+        assignedToJob = false;
+        handOffPending = false;
+    }
+
     void handleWriterThreadMaintenance(long ticks, long maintenanceInterval) {
         if (ticks - lastCommitMillis < maintenanceInterval) {
             return;
@@ -225,6 +298,49 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    /**
+     * Starts migration of the table to another writer thread. New measurements are
+     * routed to the new thread right away, but the new thread will not process them
+     * until the previous thread has drained the older ones and called {@link #handOff()}.
+     *
+     * @param toThreadId        id of the writer thread to migrate the table to
+     * @param publisherSequence the previous writer thread releases the table once it has processed
+     *                          all events up to the current value of this sequence
+     */
+    void startHandOff(int toThreadId, Sequence publisherSequence) {
+        handOffSequence = Long.MAX_VALUE;
+        handOffPending = true;
+        writerThreadId = toThreadId;
+        // measurements published from this point on are routed to the new thread,
+        // hence the sequence must be read after the thread id is updated
+        handOffSequence = publisherSequence.current();
+    }
+
+    void updateLoad(long elapsedMillis) {
+        if (elapsedMillis > 0) {
+            rowsPerSecond = eventsProcessedSinceReshuffle * 1000 / elapsedMillis;
+            bytesPerSecond = bytesProcessedSinceReshuffle * 1000 / elapsedMillis;
+        }
+        eventsProcessedSinceReshuffle = 0;
+        bytesProcessedSinceReshuffle = 0;
+    }
+
+    /**
+     * Attaches details, which have been released, to a new writer of the same table.
+     *
+     * @return false when the table has been re-created with different designated timestamp
+     */
+    boolean reuse(TableWriter writer) {
+        if (writer.getMetadata().getTimestampIndex() != timestampIndex) {
+            return false;
+        }
+        this.writer = writer;
+        for (int n = 0; n < localDetailsArray.length; n++) {
+            localDetailsArray[n].columnCount = writer.getMetadata().getColumnCount();
+        }
+        return true;
+    }
+
     void releaseWriter(boolean commit) {
         if (null != writer) {
             LOG.debug().$("release commit [table=").$(writer.getTableName()).I$();
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.IntList;
+
+/**
+ * Minimal writer of the Thrift compact protocol, which Parquet uses to encode page headers
+ * and file footer. Only the subset of the protocol that Parquet metadata requires is implemented.
+ */
+class CompactProtocolWriter {
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_STRUCT = 12;
+    private final IntList fieldIdStack = new IntList();
+    private MemoryCARW mem;
+    private int lastFieldId;
+
+    void fieldBinary(int fieldId, CharSequence value) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        writeBinary(value);
+    }
+
+    void fieldI32(int fieldId, int value) {
+        fieldHeader(fieldId, TYPE_I32);
+        writeI32(value);
+    }
+
+    void fieldI64(int fieldId, long value) {
+        fieldHeader(fieldId, TYPE_I64);
+        writeI64(value);
+    }
+
+    void fieldList(int fieldId, byte elementType, int size) {
+        fieldHeader(fieldId, TYPE_LIST);
+        if (size < 15) {
+            mem.putByte((byte) (size << 4 | elementType));
+        } else {
+            mem.putByte((byte) (0xf0 | elementType));
+            writeVarLong(size);
+        }
+    }
+
+    void fieldStruct(int fieldId) {
+        fieldHeader(fieldId, TYPE_STRUCT);
+        structBegin();
+    }
+
+    CompactProtocolWriter of(MemoryCARW mem) {
+        this.mem = mem;
+        this.lastFieldId = 0;
+        this.fieldIdStack.clear();
+        return this;
+    }
+
+    void structBegin() {
+        fieldIdStack.add(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    void structEnd() {
+        mem.putByte((byte) 0);
+        final int n = fieldIdStack.size() - 1;
+        lastFieldId = fieldIdStack.getQuick(n);
+        fieldIdStack.setPos(n);
+    }
+
+    void writeBinary(CharSequence value) {
+        writeVarLong(ParquetEncoder.utf8Length(value));
+        ParquetEncoder.putUtf8(mem, value);
+    }
+
+    void writeI32(int value) {
+        writeVarLong(((value << 1) ^ (value >> 31)) & 0xffffffffL);
+    }
+
+    void writeI64(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void fieldHeader(int fieldId, byte type) {
+        final int delta = fieldId - lastFieldId;
+        if (delta > 0 && delta < 16) {
+            mem.putByte((byte) (delta << 4 | type));
+        } else {
+            mem.putByte(type);
+            writeI32((short) fieldId);
+        }
+        lastFieldId = fieldId;
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+}
@@ -0,0 +1,753 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectCharSequence;
+
+import java.io.Closeable;
+
+/**
+ * Streams the content of a {@link PageFrameCursor} as an uncompressed Parquet file. Each call to
+ * {@link #next()} encodes the next portion of the file into a reusable native buffer, exposed via
+ * {@link #getAddress()} and {@link #getSize()}, so that the caller can write it to a file or a socket
+ * without the whole result ever being materialized. Every page frame becomes a row group and columns
+ * are split into data pages of roughly {@link #PAGE_SIZE} bytes. SYMBOL columns are dictionary encoded
+ * straight from the symbol table keys stored in the frame.
+ */
+public class ParquetEncoder implements Closeable, Mutable {
+    public static final int PAGE_SIZE = 1024 * 1024;
+    private static final String CREATED_BY = "QuestDB";
+    private static final int MAGIC = 0x31524150; // "PAR1"
+    // physical types
+    private static final int TYPE_BOOLEAN = 0;
+    private static final int TYPE_INT32 = 1;
+    private static final int TYPE_INT64 = 2;
+    private static final int TYPE_FLOAT = 4;
+    private static final int TYPE_DOUBLE = 5;
+    private static final int TYPE_BYTE_ARRAY = 6;
+    // converted types
+    private static final int CONVERTED_NONE = -1;
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+    private static final int CONVERTED_TIMESTAMP_MICROS = 10;
+    private static final int CONVERTED_UINT_16 = 12;
+    private static final int CONVERTED_INT_8 = 15;
+    private static final int CONVERTED_INT_16 = 16;
+    private static final int REPETITION_REQUIRED = 0;
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    private static final int ENCODING_RLE_DICTIONARY = 8;
+    private static final int PAGE_TYPE_DATA = 0;
+    private static final int PAGE_TYPE_DICTIONARY = 2;
+    private static final int STATE_HEADER = 0;
+    private static final int STATE_FRAMES = 1;
+    private static final int STATE_FOOTER = 2;
+    private static final int STATE_DONE = 3;
+    // column chunk metadata entries: data page offset, dictionary page offset (-1 when none), chunk size
+    private static final int CHUNK_META_SIZE = 3;
+    private final LongList chunkMeta = new LongList();
+    private final IntList convertedTypes = new IntList();
+    private final DirectCharSequence charSequence = new DirectCharSequence();
+    private final MemoryCARW levels;
+    private final MemoryCARW out;
+    private final IntList physicalTypes = new IntList();
+    private final IntList repetitions = new IntList();
+    private final LongList rowGroupRows = new LongList();
+    private final CompactProtocolWriter thrift = new CompactProtocolWriter();
+    private final MemoryCARW values;
+    private int columnCount;
+    private int columnIndex;
+    private PageFrameCursor cursor;
+    private long fileOffset;
+    private PageFrame frame;
+    private long frameRowCount;
+    private RecordMetadata metadata;
+    private long rowLo;
+    private int state = STATE_DONE;
+    private long varAddress;
+
+    public ParquetEncoder() {
+        this.out = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        this.values = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        this.levels = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    public static void putUtf8(MemoryCARW mem, CharSequence cs) {
+        for (int i = 0, n = cs.length(); i < n; i++) {
+            final char c = cs.charAt(i);
+            if (c < 0x80) {
+                mem.putByte((byte) c);
+            } else if (c < 0x800) {
+                mem.putByte((byte) (0xc0 | (c >> 6)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, cs.charAt(++i));
+                mem.putByte((byte) (0xf0 | (cp >> 18)));
+                mem.putByte((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                mem.putByte((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                mem.putByte((byte) (0x80 | (cp & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate cannot be represented in UTF-8
+                mem.putByte((byte) '?');
+            } else {
+                mem.putByte((byte) (0xe0 | (c >> 12)));
+                mem.putByte((byte) (0x80 | ((c >> 6) & 0x3f)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    public static int utf8Length(CharSequence cs) {
+        int len = 0;
+        for (int i = 0, n = cs.length(); i < n; i++) {
+            final char c = cs.charAt(i);
+            if (c < 0x80) {
+                len++;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                len += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                len++;
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    @Override
+    public void clear() {
+        cursor = null;
+        metadata = null;
+        frame = null;
+        state = STATE_DONE;
+        chunkMeta.clear();
+        rowGroupRows.clear();
+        physicalTypes.clear();
+        repetitions.clear();
+        convertedTypes.clear();
+        fileOffset = 0;
+        out.jumpTo(0);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(out);
+        Misc.free(values);
+        Misc.free(levels);
+    }
+
+    /**
+     * @return address of the portion of the file encoded by the last call to {@link #next()}
+     */
+    public long getAddress() {
+        return out.getAddress();
+    }
+
+    /**
+     * @return size in bytes of the portion of the file encoded by the last call to {@link #next()}
+     */
+    public long getSize() {
+        return out.getAppendOffset();
+    }
+
+    /**
+     * Encodes next portion of the file.
+     *
+     * @return false when the whole file, including the footer, has been encoded
+     */
+    public boolean next() {
+        fileOffset += out.getAppendOffset();
+        out.jumpTo(0);
+        switch (state) {
+            case STATE_HEADER:
+                out.putInt(MAGIC);
+                state = STATE_FRAMES;
+                return true;
+            case STATE_FRAMES:
+                if (frame == null && !nextFrame()) {
+                    encodeFooter();
+                    state = STATE_FOOTER;
+                    return true;
+                }
+                encodeDataPage();
+                if (rowLo == frameRowCount) {
+                    chunkMeta.setQuick(chunkMeta.size() - 1, position() - chunkMeta.getQuick(chunkMeta.size() - 1));
+                    if (++columnIndex < columnCount) {
+                        beginColumnChunk();
+                    } else {
+                        frame = null;
+                    }
+                }
+                return true;
+            case STATE_FOOTER:
+                state = STATE_DONE;
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Prepares the encoder to stream page frames of the given cursor. The cursor remains
+     * owned by the caller and must stay open until {@link #next()} returns false.
+     *
+     * @param metadata metadata of the page frame columns
+     * @param cursor   page frames to encode
+     * @return this encoder
+     * @throws CairoException when metadata contains a column type Parquet export does not support
+     */
+    public ParquetEncoder of(RecordMetadata metadata, PageFrameCursor cursor) {
+        clear();
+        this.columnCount = metadata.getColumnCount();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                    addColumnType(TYPE_BOOLEAN, REPETITION_REQUIRED, CONVERTED_NONE);
+                    break;
+                case ColumnType.BYTE:
+                    addColumnType(TYPE_INT32, REPETITION_REQUIRED, CONVERTED_INT_8);
+                    break;
+                case ColumnType.SHORT:
+                    addColumnType(TYPE_INT32, REPETITION_REQUIRED, CONVERTED_INT_16);
+                    break;
+                case ColumnType.CHAR:
+                    addColumnType(TYPE_INT32, REPETITION_REQUIRED, CONVERTED_UINT_16);
+                    break;
+                case ColumnType.INT:
+                    addColumnType(TYPE_INT32, REPETITION_OPTIONAL, CONVERTED_NONE);
+                    break;
+                case ColumnType.LONG:
+                    addColumnType(TYPE_INT64, REPETITION_OPTIONAL, CONVERTED_NONE);
+                    break;
+                case ColumnType.DATE:
+                    addColumnType(TYPE_INT64, REPETITION_OPTIONAL, CONVERTED_TIMESTAMP_MILLIS);
+                    break;
+                case ColumnType.TIMESTAMP:
+                    addColumnType(TYPE_INT64, REPETITION_OPTIONAL, CONVERTED_TIMESTAMP_MICROS);
+                    break;
+                case ColumnType.FLOAT:
+                    addColumnType(TYPE_FLOAT, REPETITION_REQUIRED, CONVERTED_NONE);
+                    break;
+                case ColumnType.DOUBLE:
+                    addColumnType(TYPE_DOUBLE, REPETITION_REQUIRED, CONVERTED_NONE);
+                    break;
+                case ColumnType.STRING:
+                case ColumnType.SYMBOL:
+                    addColumnType(TYPE_BYTE_ARRAY, REPETITION_OPTIONAL, CONVERTED_UTF8);
+                    break;
+                case ColumnType.BINARY:
+                    addColumnType(TYPE_BYTE_ARRAY, REPETITION_OPTIONAL, CONVERTED_NONE);
+                    break;
+                default:
+                    throw CairoException.instance(0)
+                            .put("unsupported column type for parquet export [column=").put(metadata.getColumnName(i))
+                            .put(", type=").put(ColumnType.nameOf(columnType))
+                            .put(']');
+            }
+        }
+        this.metadata = metadata;
+        this.cursor = cursor;
+        this.state = STATE_HEADER;
+        return this;
+    }
+
+    private static void putLevelRun(MemoryCARW mem, int level, long count) {
+        // RLE run of the hybrid encoding, bit width of definition levels is 1
+        putUleb128(mem, count << 1);
+        mem.putByte((byte) level);
+    }
+
+    static void putUleb128(MemoryCARW mem, long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+
+    private void addColumnType(int physicalType, int repetition, int convertedType) {
+        physicalTypes.add(physicalType);
+        repetitions.add(repetition);
+        convertedTypes.add(convertedType);
+    }
+
+    private void beginColumnChunk() {
+        rowLo = 0;
+        varAddress = frame.getPageAddress(columnIndex);
+        chunkMeta.add(-1);
+        chunkMeta.add(-1);
+        chunkMeta.add(position());
+        if (ColumnType.isSymbol(metadata.getColumnType(columnIndex))) {
+            encodeDictionaryPage();
+        }
+    }
+
+    private void encodeBinaries(long lo, long hi) {
+        int level = -1;
+        long runLo = lo;
+        long r = lo;
+        for (; r < hi && values.getAppendOffset() < PAGE_SIZE; r++) {
+            final long len = Unsafe.getUnsafe().getLong(varAddress);
+            final int rowLevel;
+            if (len == TableUtils.NULL_LEN) {
+                varAddress += Long.BYTES;
+                rowLevel = 0;
+            } else {
+                values.putInt((int) len);
+                values.putBlockOfBytes(varAddress + Long.BYTES, len);
+                varAddress += Long.BYTES + len;
+                rowLevel = 1;
+            }
+            if (rowLevel != level) {
+                if (r > runLo) {
+                    putLevelRun(levels, level, r - runLo);
+                }
+                level = rowLevel;
+                runLo = r;
+            }
+        }
+        putLevelRun(levels, level, r - runLo);
+        rowLo = r;
+    }
+
+    private void encodeBooleans(long address, long lo, long hi) {
+        int bits = 0;
+        int acc = 0;
+        for (long r = lo; r < hi; r++) {
+            if (address != 0 && Unsafe.getUnsafe().getByte(address + r) != 0) {
+                acc |= 1 << bits;
+            }
+            if (++bits == 8) {
+                values.putByte((byte) acc);
+                acc = 0;
+                bits = 0;
+            }
+        }
+        if (bits > 0) {
+            values.putByte((byte) acc);
+        }
+    }
+
+    private void encodeDataPage() {
+        levels.jumpTo(0);
+        values.jumpTo(0);
+        final long lo = rowLo;
+        final long address = frame.getPageAddress(columnIndex);
+        final int columnType = metadata.getColumnType(columnIndex);
+        int encoding = ENCODING_PLAIN;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                rowLo = Math.min(frameRowCount, lo + PAGE_SIZE * 8L);
+                encodeBooleans(address, lo, rowLo);
+                break;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                rowLo = Math.min(frameRowCount, lo + PAGE_SIZE / Integer.BYTES);
+                encodeSmallInts(address, ColumnType.tagOf(columnType), lo, rowLo);
+                break;
+            case ColumnType.INT:
+                rowLo = Math.min(frameRowCount, lo + PAGE_SIZE / Integer.BYTES);
+                encodeInts(address, lo, rowLo);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                rowLo = Math.min(frameRowCount, lo + PAGE_SIZE / Long.BYTES);
+                encodeLongs(address, lo, rowLo);
+                break;
+            case ColumnType.FLOAT:
+                rowLo = Math.min(frameRowCount, lo + PAGE_SIZE / Float.BYTES);
+                encodeFloats(address, lo, rowLo);
+                break;
+            case ColumnType.DOUBLE:
+                rowLo = Math.min(frameRowCount, lo + PAGE_SIZE / Double.BYTES);
+                encodeDoubles(address, lo, rowLo);
+                break;
+            case ColumnType.SYMBOL:
+                rowLo = Math.min(frameRowCount, lo + PAGE_SIZE / Integer.BYTES);
+                encodeSymbolKeys(address, lo, rowLo);
+                encoding = ENCODING_RLE_DICTIONARY;
+                break;
+            case ColumnType.STRING:
+                if (address == 0) {
+                    rowLo = frameRowCount;
+                    putLevelRun(levels, 0, rowLo - lo);
+                } else {
+                    encodeStrings(lo, frameRowCount);
+                }
+                break;
+            default:
+                // BINARY, the only other type allowed by of()
+                if (address == 0) {
+                    rowLo = frameRowCount;
+                    putLevelRun(levels, 0, rowLo - lo);
+                } else {
+                    encodeBinaries(lo, frameRowCount);
+                }
+                break;
+        }
+
+        final boolean optional = repetitions.getQuick(columnIndex) == REPETITION_OPTIONAL;
+        final long levelsSize = levels.getAppendOffset();
+        final long valuesSize = values.getAppendOffset();
+        final int pageSize = (int) ((optional ? Integer.BYTES + levelsSize : 0) + valuesSize);
+        final int dataPageOffsetIndex = chunkMeta.size() - CHUNK_META_SIZE;
+        if (chunkMeta.getQuick(dataPageOffsetIndex) == -1) {
+            chunkMeta.setQuick(dataPageOffsetIndex, position());
+        }
+
+        thrift.of(out);
+        thrift.structBegin();
+        thrift.fieldI32(1, PAGE_TYPE_DATA);
+        thrift.fieldI32(2, pageSize);
+        thrift.fieldI32(3, pageSize);
+        thrift.fieldStruct(5);
+        thrift.fieldI32(1, (int) (rowLo - lo));
+        thrift.fieldI32(2, encoding);
+        thrift.fieldI32(3, ENCODING_RLE);
+        thrift.fieldI32(4, ENCODING_RLE);
+        thrift.structEnd();
+        thrift.structEnd();
+
+        if (optional) {
+            out.putInt((int) levelsSize);
+            out.putBlockOfBytes(levels.getAddress(), levelsSize);
+        }
+        if (valuesSize > 0) {
+            out.putBlockOfBytes(values.getAddress(), valuesSize);
+        }
+    }
+
+    private void encodeDictionaryPage() {
+        values.jumpTo(0);
+        final SymbolMapReader symbolMapReader = cursor.getSymbolMapReader(columnIndex);
+        final int symbolCount = symbolMapReader.getSymbolCount();
+        for (int key = 0; key < symbolCount; key++) {
+            final CharSequence value = symbolMapReader.valueOf(key);
+            values.putInt(utf8Length(value));
+            putUtf8(values, value);
+        }
+
+        final int pageSize = (int) values.getAppendOffset();
+        chunkMeta.setQuick(chunkMeta.size() - 2, position());
+        thrift.of(out);
+        thrift.structBegin();
+        thrift.fieldI32(1, PAGE_TYPE_DICTIONARY);
+        thrift.fieldI32(2, pageSize);
+        thrift.fieldI32(3, pageSize);
+        thrift.fieldStruct(7);
+        thrift.fieldI32(1, symbolCount);
+        thrift.fieldI32(2, ENCODING_PLAIN);
+        thrift.structEnd();
+        thrift.structEnd();
+        if (pageSize > 0) {
+            out.putBlockOfBytes(values.getAddress(), pageSize);
+        }
+    }
+
+    private void encodeDoubles(long address, long lo, long hi) {
+        if (address != 0) {
+            values.putBlockOfBytes(address + (lo << 3), (hi - lo) << 3);
+        } else {
+            for (long r = lo; r < hi; r++) {
+                values.putDouble(Double.NaN);
+            }
+        }
+    }
+
+    private void encodeFloats(long address, long lo, long hi) {
+        if (address != 0) {
+            values.putBlockOfBytes(address + (lo << 2), (hi - lo) << 2);
+        } else {
+            for (long r = lo; r < hi; r++) {
+                values.putFloat(Float.NaN);
+            }
+        }
+    }
+
+    private void encodeFooter() {
+        thrift.of(out);
+        thrift.structBegin();
+        thrift.fieldI32(1, 1);
+        thrift.fieldList(2, CompactProtocolWriter.TYPE_STRUCT, columnCount + 1);
+        thrift.structBegin();
+        thrift.fieldBinary(4, "schema");
+        thrift.fieldI32(5, columnCount);
+        thrift.structEnd();
+        for (int i = 0; i < columnCount; i++) {
+            thrift.structBegin();
+            thrift.fieldI32(1, physicalTypes.getQuick(i));
+            thrift.fieldI32(3, repetitions.getQuick(i));
+            thrift.fieldBinary(4, metadata.getColumnName(i));
+            if (convertedTypes.getQuick(i) != CONVERTED_NONE) {
+                thrift.fieldI32(6, convertedTypes.getQuick(i));
+            }
+            thrift.structEnd();
+        }
+
+        long totalRows = 0;
+        for (int i = 0, n = rowGroupRows.size(); i < n; i++) {
+            totalRows += rowGroupRows.getQuick(i);
+        }
+        thrift.fieldI64(3, totalRows);
+
+        final int rowGroupCount = rowGroupRows.size();
+        thrift.fieldList(4, CompactProtocolWriter.TYPE_STRUCT, rowGroupCount);
+        for (int g = 0; g < rowGroupCount; g++) {
+            final long rowCount = rowGroupRows.getQuick(g);
+            long rowGroupSize = 0;
+            thrift.structBegin();
+            thrift.fieldList(1, CompactProtocolWriter.TYPE_STRUCT, columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final int meta = (g * columnCount + i) * CHUNK_META_SIZE;
+                final long dataPageOffset = chunkMeta.getQuick(meta);
+                final long dictionaryPageOffset = chunkMeta.getQuick(meta + 1);
+                final long chunkSize = chunkMeta.getQuick(meta + 2);
+                final boolean dictionary = dictionaryPageOffset != -1;
+                rowGroupSize += chunkSize;
+
+                thrift.structBegin();
+                thrift.fieldI64(2, dictionary ? dictionaryPageOffset : dataPageOffset);
+                thrift.fieldStruct(3);
+                thrift.fieldI32(1, physicalTypes.getQuick(i));
+                thrift.fieldList(2, CompactProtocolWriter.TYPE_I32, dictionary ? 3 : 2);
+                thrift.writeI32(ENCODING_PLAIN);
+                thrift.writeI32(ENCODING_RLE);
+                if (dictionary) {
+                    thrift.writeI32(ENCODING_RLE_DICTIONARY);
+                }
+                thrift.fieldList(3, CompactProtocolWriter.TYPE_BINARY, 1);
+                thrift.writeBinary(metadata.getColumnName(i));
+                thrift.fieldI32(4, 0); // UNCOMPRESSED
+                thrift.fieldI64(5, rowCount);
+                thrift.fieldI64(6, chunkSize);
+                thrift.fieldI64(7, chunkSize);
+                thrift.fieldI64(9, dataPageOffset);
+                if (dictionary) {
+                    thrift.fieldI64(11, dictionaryPageOffset);
+                }
+                thrift.structEnd();
+                thrift.structEnd();
+            }
+            thrift.fieldI64(2, rowGroupSize);
+            thrift.fieldI64(3, rowCount);
+            thrift.structEnd();
+        }
+        thrift.fieldBinary(6, CREATED_BY);
+        thrift.structEnd();
+
+        out.putInt((int) out.getAppendOffset());
+        out.putInt(MAGIC);
+    }
+
+    private void encodeInts(long address, long lo, long hi) {
+        if (address == 0) {
+            putLevelRun(levels, 0, hi - lo);
+            return;
+        }
+        long r = lo;
+        while (r < hi) {
+            long runLo = r;
+            while (r < hi && Unsafe.getUnsafe().getInt(address + (r << 2)) != Numbers.INT_NaN) {
+                r++;
+            }
+            if (r > runLo) {
+                putLevelRun(levels, 1, r - runLo);
+                values.putBlockOfBytes(address + (runLo << 2), (r - runLo) << 2);
+            }
+            runLo = r;
+            while (r < hi && Unsafe.getUnsafe().getInt(address + (r << 2)) == Numbers.INT_NaN) {
+                r++;
+            }
+            if (r > runLo) {
+                putLevelRun(levels, 0, r - runLo);
+            }
+        }
+    }
+
+    private void encodeLongs(long address, long lo, long hi) {
+        if (address == 0) {
+            putLevelRun(levels, 0, hi - lo);
+            return;
+        }
+        long r = lo;
+        while (r < hi) {
+            long runLo = r;
+            while (r < hi && Unsafe.getUnsafe().getLong(address + (r << 3)) != Numbers.LONG_NaN) {
+                r++;
+            }
+            if (r > runLo) {
+                putLevelRun(levels, 1, r - runLo);
+                values.putBlockOfBytes(address + (runLo << 3), (r - runLo) << 3);
+            }
+            runLo = r;
+            while (r < hi && Unsafe.getUnsafe().getLong(address + (r << 3)) == Numbers.LONG_NaN) {
+                r++;
+            }
+            if (r > runLo) {
+                putLevelRun(levels, 0, r - runLo);
+            }
+        }
+    }
+
+    private void encodeSmallInts(long address, short columnTypeTag, long lo, long hi) {
+        for (long r = lo; r < hi; r++) {
+            final int value;
+            if (address == 0) {
+                value = 0;
+            } else if (columnTypeTag == ColumnType.BYTE) {
+                value = Unsafe.getUnsafe().getByte(address + r);
+            } else if (columnTypeTag == ColumnType.SHORT) {
+                value = Unsafe.getUnsafe().getShort(address + (r << 1));
+            } else {
+                value = Unsafe.getUnsafe().getChar(address + (r << 1));
+            }
+            values.putInt(value);
+        }
+    }
+
+    private void encodeStrings(long lo, long hi) {
+        int level = -1;
+        long runLo = lo;
+        long r = lo;
+        for (; r < hi && values.getAppendOffset() < PAGE_SIZE; r++) {
+            final int len = Unsafe.getUnsafe().getInt(varAddress);
+            final int rowLevel;
+            if (len == TableUtils.NULL_LEN) {
+                varAddress += Integer.BYTES;
+                rowLevel = 0;
+            } else {
+                final long lenOffset = values.getAppendOffset();
+                final long charsLo = varAddress + Integer.BYTES;
+                values.putInt(0);
+                putUtf8(values, charSequence.of(charsLo, charsLo + ((long) len << 1)));
+                values.putInt(lenOffset, (int) (values.getAppendOffset() - lenOffset - Integer.BYTES));
+                varAddress = charsLo + ((long) len << 1);
+                rowLevel = 1;
+            }
+            if (rowLevel != level) {
+                if (r > runLo) {
+                    putLevelRun(levels, level, r - runLo);
+                }
+                level = rowLevel;
+                runLo = r;
+            }
+        }
+        putLevelRun(levels, level, r - runLo);
+        rowLo = r;
+    }
+
+    private void encodeSymbolKeys(long address, long lo, long hi) {
+        // keys are written as a single bit-packed run, padded to a multiple of 8 values
+        final int symbolCount = cursor.getSymbolMapReader(columnIndex).getSymbolCount();
+        final int bitWidth = symbolCount > 1 ? 32 - Integer.numberOfLeadingZeros(symbolCount - 1) : 1;
+        values.putByte((byte) bitWidth);
+        if (address == 0) {
+            putLevelRun(levels, 0, hi - lo);
+            return;
+        }
+        long nonNullCount = 0;
+        long r = lo;
+        while (r < hi) {
+            long runLo = r;
+            while (r < hi && Unsafe.getUnsafe().getInt(address + (r << 2)) > -1) {
+                r++;
+            }
+            if (r > runLo) {
+                putLevelRun(levels, 1, r - runLo);
+                nonNullCount += r - runLo;
+            }
+            runLo = r;
+            while (r < hi && Unsafe.getUnsafe().getInt(address + (r << 2)) < 0) {
+                r++;
+            }
+            if (r > runLo) {
+                putLevelRun(levels, 0, r - runLo);
+            }
+        }
+
+        final long groupCount = (nonNullCount + 7) >>> 3;
+        if (groupCount == 0) {
+            return;
+        }
+        putUleb128(values, groupCount << 1 | 1);
+        final long packedLo = values.getAppendOffset();
+        long acc = 0;
+        int bits = 0;
+        for (r = lo; r < hi; r++) {
+            final int key = Unsafe.getUnsafe().getInt(address + (r << 2));
+            if (key > -1) {
+                acc |= (long) key << bits;
+                bits += bitWidth;
+                while (bits >= 8) {
+                    values.putByte((byte) acc);
+                    acc >>>= 8;
+                    bits -= 8;
+                }
+            }
+        }
+        if (bits > 0) {
+            values.putByte((byte) acc);
+        }
+        final long packedHi = packedLo + groupCount * bitWidth;
+        while (values.getAppendOffset() < packedHi) {
+            values.putByte((byte) 0);
+        }
+    }
+
+    private boolean nextFrame() {
+        while ((frame = cursor.next()) != null) {
+            frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            if (frameRowCount > 0) {
+                rowGroupRows.add(frameRowCount);
+                columnIndex = 0;
+                beginColumnChunk();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long position() {
+        return fileOffset + out.getAppendOffset();
+    }
+}
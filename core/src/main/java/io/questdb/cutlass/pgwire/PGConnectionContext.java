@@ -121,6 +121,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private final DirectCharSink utf8Sink;
     private final TypeManager typeManager;
     private final AssociativeCache<TypesAndInsert> typesAndInsertCache;
+    private final QueryPlanCache queryPlanCache;
     private final CharSequenceObjHashMap<NamedStatementWrapper> namedStatementMap;
     private final CharSequenceObjHashMap<Portal> namedPortalMap;
     private final IntList syncActions = new IntList(4);
@@ -172,6 +173,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
 
     public PGConnectionContext(CairoEngine engine, PGWireConfiguration configuration, SqlExecutionContextImpl sqlExecutionContext) {
         this.engine = engine;
+        this.queryPlanCache = engine.getQueryPlanCache();
         this.utf8Sink = new DirectCharSink(engine.getConfiguration().getTextConfiguration().getUtf8SinkSize());
         this.typeManager = new TypeManager(engine.getConfiguration().getTextConfiguration(), utf8Sink);
         this.nf = configuration.getNetworkFacade();
@@ -563,6 +565,11 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         responseAsciiSink.put(record.getBool(columnIndex) ? 't' : 'f');
     }
 
+    private void appendBooleanColumnBin(Record record, int columnIndex) {
+        responseAsciiSink.putNetworkInt(Byte.BYTES);
+        responseAsciiSink.put(record.getBool(columnIndex) ? (byte) 1 : (byte) 0);
+    }
+
     private void appendByteColumn(Record record, int columnIndex) {
         long a = responseAsciiSink.skip();
         responseAsciiSink.put((int) record.getByte(columnIndex));
@@ -598,7 +605,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     }
 
     private void appendDateColumnBin(Record record, int columnIndex) {
-        final long longValue = record.getLong(columnIndex);
+        final long longValue = record.getDate(columnIndex);
         if (longValue != Numbers.LONG_NaN) {
             responseAsciiSink.putNetworkInt(Long.BYTES);
             // PG epoch starts at 2000 rather than 1970
@@ -731,6 +738,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                     appendIntCol(record, i);
                     break;
                 case ColumnType.NULL:
+                case BINARY_TYPE_NULL:
                 case ColumnType.STRING:
                 case BINARY_TYPE_STRING:
                     appendStrColumn(record, i);
@@ -779,9 +787,11 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                     appendDateColumn(record, i);
                     break;
                 case ColumnType.BOOLEAN:
-                case BINARY_TYPE_BOOLEAN:
                     appendBooleanColumn(record, i);
                     break;
+                case BINARY_TYPE_BOOLEAN:
+                    appendBooleanColumnBin(record, i);
+                    break;
                 case ColumnType.BYTE:
                     appendByteColumn(record, i);
                     break;
@@ -798,15 +808,19 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                     appendLong256Column(record, i);
                     break;
                 case ColumnType.GEOBYTE:
+                case BINARY_TYPE_GEOBYTE:
                     putGeoHashStringByteValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOSHORT:
+                case BINARY_TYPE_GEOSHORT:
                     putGeoHashStringShortValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOINT:
+                case BINARY_TYPE_GEOINT:
                     putGeoHashStringIntValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOLONG:
+                case BINARY_TYPE_GEOLONG:
                     putGeoHashStringLongValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 default:
@@ -875,7 +889,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     }
 
     private void appendTimestampColumnBin(Record record, int columnIndex) {
-        final long longValue = record.getLong(columnIndex);
+        final long longValue = record.getTimestamp(columnIndex);
         if (longValue == Numbers.LONG_NaN) {
             responseAsciiSink.setNullValue();
         } else {
@@ -1007,7 +1021,13 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         // we do not want to overwrite cache entries and potentially
         // leak memory
         if (typesAndSelect != null) {
-            typesAndSelectCache.put(queryText, typesAndSelect);
+            if (queryPlanCache.isEnabled() && typesAndSelect.getTypes().size() == 0) {
+                // factories without bind variables can be shared with other connections and threads
+                queryPlanCache.push(queryText, typesAndSelect.detachFactory());
+                typesAndSelect.close();
+            } else {
+                typesAndSelectCache.put(queryText, typesAndSelect);
+            }
             // clear selectAndTypes so that context doesn't accidentally
             // free the factory when context finishes abnormally
             this.typesAndSelect = null;
@@ -1046,6 +1066,16 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                 return false;
             }
 
+            // server-wide cache holds queries without bind variables only
+            final RecordCursorFactory sharedFactory = queryPlanCache.poll(queryText);
+            if (sharedFactory != null) {
+                bindVariableService.clear();
+                typesAndSelect = typesAndSelectPool.pop();
+                typesAndSelect.of(sharedFactory, bindVariableService);
+                queryTag = TAG_SELECT;
+                return false;
+            }
+
             // not cached - compile to see what it is
             final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext);
             sqlExecutionContext.storeTelemetry(cc.getType(), Telemetry.ORIGIN_POSTGRES);
@@ -1713,7 +1743,13 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
 
         if (typesAndSelect != null) {
             short columnFormatCodeCount = getShort(lo, msgLimit, "could not read result set column format codes");
-            if (columnFormatCodeCount > 0) {
+            if (columnFormatCodeCount == 0) {
+                // no codes means text for all columns, reset formats that previous bind might have left on the statement
+                final RecordMetadata m = typesAndSelect.getFactory().getMetadata();
+                for (int i = 0, n = m.getColumnCount(); i < n; i++) {
+                    activeSelectColumnTypes.setQuick(2 * i, m.getColumnType(i));
+                }
+            } else {
 
                 final RecordMetadata m = typesAndSelect.getFactory().getMetadata();
                 final int columnCount = m.getColumnCount();
@@ -1728,14 +1764,12 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                             lo += Short.BYTES;
                             final short code = getShortUnsafe(lo);
                             activeSelectColumnTypes.setQuick(2 * i, toColumnBinaryType(code, m.getColumnType(i)));
-                            activeSelectColumnTypes.setQuick(2 * i + 1, 0);
                         }
                     } else if (columnFormatCodeCount == 1) {
                         lo += Short.BYTES;
                         final short code = getShortUnsafe(lo);
                         for (int i = 0; i < columnCount; i++) {
                             activeSelectColumnTypes.setQuick(2 * i, toColumnBinaryType(code, m.getColumnType(i)));
-                            activeSelectColumnTypes.setQuick(2 * i + 1, 0);
                         }
                     } else {
                         LOG.error()
@@ -2259,6 +2293,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                 } catch (ReaderOutOfDateException e) {
                     LOG.info().$(e.getFlyweightMessage()).$();
                     currentFactory = Misc.free(currentFactory);
+                    queryPlanCache.remove(queryText);
                     compileQuery(compiler);
                     buildSelectColumnTypes();
                 } catch (Throwable e) {
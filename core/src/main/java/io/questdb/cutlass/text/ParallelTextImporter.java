@@ -0,0 +1,577 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.str.DirectCharSink;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.TextImportTask;
+
+import java.io.Closeable;
+
+/**
+ * Imports text file using the shared worker pool. The file is memory mapped and split into
+ * chunks at line ends that are not inside quoted values. Structure is detected once from the head of
+ * the file, as serial import would do, and chunks are then parsed concurrently, each into a table of
+ * its own that has the same layout as the destination table. Rows of these tables are already bucketed
+ * into partitions, sorted and converted to column types. The final step merges chunk tables on timestamp,
+ * so that rows are appended to the destination in order, without out-of-order merges, and commits them
+ * in a single transaction. Import either succeeds as a whole or leaves the destination unchanged.
+ */
+public class ParallelTextImporter implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(ParallelTextImporter.class);
+    private static final String TEMP_TABLE_PREFIX = "sys.copy.";
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final MessageBus messageBus;
+    private final FilesFacade ff;
+    private final ObjList<TextImportChunk> chunks = new ObjList<>();
+    private final LongList boundaries = new LongList();
+    private final LongList columnErrorCounts = new LongList();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final Path path = new Path();
+    private final StringSink tempTableName = new StringSink();
+    private final DirectCharSink utf8Sink;
+    private final TypeManager typeManager;
+    private final TextLexer textLexer;
+    private final CairoTextWriter textWriter;
+    private final TextDelimiterScanner textDelimiterScanner;
+    private final MemoryMARW ddlMem = Vm.getMARWInstance();
+    private final TempTableStructure tempTableStructure = new TempTableStructure();
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final ObjList<TableReader> mergeReaders = new ObjList<>();
+    private final ObjList<RecordCursor> mergeCursors = new ObjList<>();
+    // timestamp of current row of each chunk cursor, cursor is removed from the list once exhausted
+    private final LongList mergeTimestamps = new LongList();
+    private final int textAnalysisMaxLines;
+    private final int textAnalysisBufferSize;
+    private CharSequence tableName;
+    private boolean overwrite;
+    private boolean durable;
+    private int atomicity;
+    private int partitionBy;
+    private CharSequence timestampCol;
+    private boolean forceHeaders = false;
+    private boolean skipRowsWithExtraValues = true;
+    private byte columnDelimiter = -1;
+    private int tempTableCount;
+    private long parsedLineCount;
+    private long errorLineCount;
+    private long writtenLineCount;
+
+    public ParallelTextImporter(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.messageBus = engine.getMessageBus();
+        this.ff = configuration.getFilesFacade();
+        final TextConfiguration textConfiguration = configuration.getTextConfiguration();
+        this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
+        this.typeManager = new TypeManager(textConfiguration, utf8Sink);
+        this.textLexer = new TextLexer(textConfiguration, typeManager);
+        this.textWriter = new CairoTextWriter(engine, path, typeManager);
+        this.textDelimiterScanner = new TextDelimiterScanner(textConfiguration);
+        this.textAnalysisMaxLines = textConfiguration.getTextAnalysisMaxLines();
+        this.textAnalysisBufferSize = configuration.getSqlCopyBufferSize();
+    }
+
+    @Override
+    public void clear() {
+        textWriter.clear();
+        textLexer.clear();
+        typeManager.clear();
+        for (int i = 0, n = chunks.size(); i < n; i++) {
+            chunks.getQuick(i).clear();
+        }
+        boundaries.clear();
+        columnErrorCounts.clear();
+        forceHeaders = false;
+        skipRowsWithExtraValues = true;
+        columnDelimiter = -1;
+        tempTableCount = 0;
+        parsedLineCount = 0;
+        errorLineCount = 0;
+        writtenLineCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(chunks);
+        Misc.free(textWriter);
+        Misc.free(textLexer);
+        Misc.free(textDelimiterScanner);
+        Misc.free(path);
+        Misc.free(utf8Sink);
+        Misc.free(ddlMem);
+    }
+
+    public void configureColumnDelimiter(byte columnDelimiter) {
+        this.columnDelimiter = columnDelimiter;
+        assert this.columnDelimiter > 0;
+    }
+
+    public void configureDestination(CharSequence tableName, boolean overwrite, boolean durable, int atomicity, int partitionBy, CharSequence timestampCol) {
+        this.tableName = tableName;
+        this.overwrite = overwrite;
+        this.durable = durable;
+        this.atomicity = atomicity;
+        this.partitionBy = partitionBy;
+        this.timestampCol = timestampCol;
+        textDelimiterScanner.setTableName(tableName);
+        textLexer.setTableName(tableName);
+    }
+
+    public LongList getColumnErrorCounts() {
+        return columnErrorCounts;
+    }
+
+    public long getErrorLineCount() {
+        return errorLineCount;
+    }
+
+    public long getParsedLineCount() {
+        return parsedLineCount;
+    }
+
+    public long getWrittenLineCount() {
+        return writtenLineCount;
+    }
+
+    /**
+     * Imports file into the configured destination table.
+     *
+     * @param fileName            absolute path of the file
+     * @param chunkCount          desired number of chunks, usually the number of threads that can work on import.
+     *                            Actual number may be smaller when file has too few lines.
+     * @param cairoSecurityContext security context
+     * @throws TextException when text structure cannot be processed
+     */
+    public void load(LPSZ fileName, int chunkCount, CairoSecurityContext cairoSecurityContext) throws TextException {
+        final long fd = ff.openRO(fileName);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open file [path=").put(fileName).put(']');
+        }
+        try {
+            final long fileLen = ff.length(fd);
+            if (fileLen < 1) {
+                return;
+            }
+            final long address = ff.mmap(fd, fileLen, 0, Files.MAP_RO, MemoryTag.MMAP_DEFAULT);
+            if (address == -1) {
+                throw CairoException.instance(ff.errno()).put("could not mmap file [path=").put(fileName).put(']');
+            }
+            try {
+                load(address, fileLen, Math.max(1, chunkCount), cairoSecurityContext);
+            } finally {
+                ff.munmap(address, fileLen, MemoryTag.MMAP_DEFAULT);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    public void setForceHeaders(boolean forceHeaders) {
+        this.forceHeaders = forceHeaders;
+    }
+
+    public void setSkipRowsWithExtraValues(boolean skipRowsWithExtraValues) {
+        this.skipRowsWithExtraValues = skipRowsWithExtraValues;
+    }
+
+    private static void rethrow(Throwable e) throws TextException {
+        if (e instanceof TextException) {
+            throw (TextException) e;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw CairoException.instance(0).put(e.getMessage());
+    }
+
+    private void checkErrors(int chunkCount) throws TextException {
+        for (int i = 0; i < chunkCount; i++) {
+            final Throwable e = chunks.getQuick(i).getError();
+            if (e != null) {
+                rethrow(e);
+            }
+        }
+    }
+
+    private void dispatch(byte phase, int chunkCount) throws TextException {
+        final RingQueue<TextImportTask> queue = messageBus.getTextImportQueue();
+        final Sequence pubSeq = messageBus.getTextImportPubSeq();
+        final Sequence subSeq = messageBus.getTextImportSubSeq();
+
+        doneLatch.reset();
+        int queuedCount = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            final TextImportChunk chunk = chunks.getQuick(i);
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                chunk.run(phase);
+            } else {
+                queue.get(seq).of(phase, chunk, doneLatch);
+                pubSeq.done(seq);
+                queuedCount++;
+            }
+        }
+
+        // process our own queue, this guarantees progress
+        // when there are no workers or all of them are busy
+        while (doneLatch.getCount() > -queuedCount) {
+            final long seq = subSeq.next();
+            if (seq > -1) {
+                queue.get(seq).run();
+                subSeq.done(seq);
+            }
+        }
+        doneLatch.await(queuedCount);
+        checkErrors(chunkCount);
+    }
+
+    private void dropTempTables(CairoSecurityContext cairoSecurityContext) {
+        for (int i = 0; i < tempTableCount; i++) {
+            final CharSequence name = chunks.getQuick(i).getTableName();
+            try {
+                engine.remove(cairoSecurityContext, path, name);
+            } catch (CairoException e) {
+                LOG.error().$("could not remove temporary table [table=").$(name)
+                        .$(", errno=").$(e.getErrno())
+                        .$(", error=").$(e.getFlyweightMessage())
+                        .$(']').$();
+            }
+        }
+        tempTableCount = 0;
+    }
+
+    /**
+     * Splits file into at most chunkCount chunks. Candidate split points are evenly spaced and each
+     * is moved forward to the end of the first line that starts at or after it. Whether a line end
+     * is inside quoted value depends on the number of quotes before it, so chunks are scanned concurrently
+     * for both possible states and the actual state is resolved here by summing up quote counts.
+     *
+     * @return number of chunks
+     */
+    private int findChunkBoundaries(long address, long fileLen, int chunkCount) throws TextException {
+        final long fileHi = address + fileLen;
+        final long chunkSize = fileLen / chunkCount;
+        for (int i = 0; i < chunkCount; i++) {
+            nextChunk(i).of(address + i * chunkSize, i == chunkCount - 1 ? fileHi : address + (i + 1) * chunkSize);
+        }
+
+        if (chunkCount > 1) {
+            dispatch(TextImportTask.PHASE_BOUNDARY_CHECK, chunkCount);
+        }
+
+        boundaries.clear();
+        boundaries.add(address);
+        long quoteCount = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            final TextImportChunk chunk = chunks.getQuick(i);
+            if (i > 0) {
+                final long newLine = chunk.getNewLine((quoteCount & 1) == 1);
+                if (newLine > -1 && newLine + 1 < fileHi) {
+                    boundaries.add(newLine + 1);
+                }
+            }
+            quoteCount += chunk.getQuoteCount();
+        }
+        boundaries.add(fileHi);
+
+        final int count = boundaries.size() - 1;
+        for (int i = 0; i < count; i++) {
+            chunks.getQuick(i).of(boundaries.getQuick(i), boundaries.getQuick(i + 1));
+        }
+        return count;
+    }
+
+    private void load(long address, long fileLen, int chunkCount, CairoSecurityContext cairoSecurityContext) throws TextException {
+        // detect structure on the head of the file, same as serial import does
+        final long analysisHi = address + Math.min(fileLen, textAnalysisBufferSize);
+        final byte delimiter = columnDelimiter > 0 ? columnDelimiter : textDelimiterScanner.scan(address, analysisHi);
+        textLexer.of(delimiter);
+        textLexer.analyseStructure(address, analysisHi, textAnalysisMaxLines, forceHeaders, null, null);
+        final boolean header = textLexer.isHeaderDetected();
+        final ObjList<CharSequence> names = textLexer.getColumnNames();
+        final ObjList<TypeAdapter> types = textLexer.getColumnTypes();
+
+        chunkCount = findChunkBoundaries(address, fileLen, chunkCount);
+        LOG.info().$("parallel import [table=").$(tableName)
+                .$(", size=").$(fileLen)
+                .$(", chunks=").$(chunkCount)
+                .$(']').$();
+
+        // chunks take copies of detected types before writer overrides them
+        // with the types of existing table, each chunk then repeats the override for itself
+        textWriter.of(tableName, overwrite, durable, atomicity, partitionBy, timestampCol);
+        for (int i = 0; i < chunkCount; i++) {
+            tempTableName.clear();
+            tempTableName.put(TEMP_TABLE_PREFIX).put(tableName).put('.').put(i);
+            chunks.getQuick(i).of(
+                    tempTableName,
+                    names,
+                    types,
+                    delimiter,
+                    header && i == 0,
+                    skipRowsWithExtraValues,
+                    atomicity,
+                    partitionBy,
+                    timestampCol,
+                    cairoSecurityContext
+            );
+        }
+        textWriter.prepareTable(cairoSecurityContext, names, types);
+
+        try {
+            final TableWriter writer = textWriter.getWriter();
+            for (int i = 0; i < chunkCount; i++) {
+                final CharSequence name = chunks.getQuick(i).getTableName();
+                if (engine.getStatus(cairoSecurityContext, path, name) != TableUtils.TABLE_DOES_NOT_EXIST) {
+                    // left behind by import that did not finish
+                    engine.remove(cairoSecurityContext, path, name);
+                }
+                engine.createTable(cairoSecurityContext, ddlMem, path, tempTableStructure.of(name, writer));
+                tempTableCount++;
+            }
+
+            dispatch(TextImportTask.PHASE_IMPORT, chunkCount);
+            merge(writer, chunkCount, cairoSecurityContext);
+        } finally {
+            dropTempTables(cairoSecurityContext);
+        }
+    }
+
+    private void merge(TableWriter writer, int chunkCount, CairoSecurityContext cairoSecurityContext) {
+        final RecordMetadata metadata = writer.getMetadata();
+        final int timestampIndex = metadata.getTimestampIndex();
+        entityColumnFilter.of(metadata.getColumnCount());
+        // chunk tables are created from writer metadata, column types match exactly
+        final SqlCompiler.RecordToRowCopier copier = SqlCompiler.assembleRecordToRowCopier(asm, metadata, metadata, entityColumnFilter);
+
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                final TableReader reader = engine.getReader(cairoSecurityContext, chunks.getQuick(i).getTableName());
+                mergeReaders.add(reader);
+                mergeCursors.add(reader.getCursor());
+            }
+
+            if (timestampIndex > -1) {
+                mergeOnTimestamp(writer, copier, timestampIndex, chunkCount);
+            } else {
+                for (int i = 0; i < chunkCount; i++) {
+                    final RecordCursor cursor = mergeCursors.getQuick(i);
+                    final Record record = cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        final TableWriter.Row row = writer.newRow();
+                        copier.copy(record, row);
+                        row.append();
+                    }
+                }
+            }
+            textWriter.commit();
+        } catch (Throwable e) {
+            // nothing has been committed, destination is left as it was
+            writer.rollback();
+            throw e;
+        } finally {
+            mergeCursors.clear();
+            Misc.freeObjList(mergeReaders);
+            mergeReaders.clear();
+        }
+
+        columnErrorCounts.seed(metadata.getColumnCount(), 0);
+        for (int i = 0; i < chunkCount; i++) {
+            final TextImportChunk chunk = chunks.getQuick(i);
+            parsedLineCount += chunk.getParsedLineCount();
+            errorLineCount += chunk.getErrorLineCount();
+            final LongList chunkErrorCounts = chunk.getColumnErrorCounts();
+            for (int j = 0, n = Math.min(chunkErrorCounts.size(), columnErrorCounts.size()); j < n; j++) {
+                columnErrorCounts.setQuick(j, columnErrorCounts.getQuick(j) + chunkErrorCounts.getQuick(j));
+            }
+        }
+        writtenLineCount = textWriter.getWrittenLineCount();
+        LOG.info().$("merged [table=").$(tableName)
+                .$(", chunks=").$(chunkCount)
+                .$(", rows=").$(writtenLineCount)
+                .$(']').$();
+    }
+
+    /**
+     * Appends rows of chunk tables in timestamp order. Chunk tables are sorted, so the smallest
+     * current timestamp among chunk cursors is the next row of the destination. Equal timestamps are
+     * taken from the earlier chunk first, which keeps their order in the file.
+     */
+    private void mergeOnTimestamp(TableWriter writer, SqlCompiler.RecordToRowCopier copier, int timestampIndex, int chunkCount) {
+        mergeTimestamps.clear();
+        for (int i = 0; i < chunkCount; i++) {
+            final RecordCursor cursor = mergeCursors.getQuick(i);
+            if (cursor.hasNext()) {
+                mergeTimestamps.add(cursor.getRecord().getTimestamp(timestampIndex));
+            } else {
+                mergeCursors.setQuick(i, null);
+                mergeTimestamps.add(0);
+            }
+        }
+
+        while (true) {
+            int next = -1;
+            long nextTimestamp = 0;
+            for (int i = 0; i < chunkCount; i++) {
+                if (mergeCursors.getQuick(i) != null && (next == -1 || mergeTimestamps.getQuick(i) < nextTimestamp)) {
+                    next = i;
+                    nextTimestamp = mergeTimestamps.getQuick(i);
+                }
+            }
+            if (next == -1) {
+                break;
+            }
+
+            final RecordCursor cursor = mergeCursors.getQuick(next);
+            final Record record = cursor.getRecord();
+            final TableWriter.Row row = writer.newRow(nextTimestamp);
+            copier.copy(record, row);
+            row.append();
+            if (cursor.hasNext()) {
+                mergeTimestamps.setQuick(next, record.getTimestamp(timestampIndex));
+            } else {
+                mergeCursors.setQuick(next, null);
+            }
+        }
+    }
+
+    private TextImportChunk nextChunk(int index) {
+        if (index < chunks.size()) {
+            return chunks.getQuick(index);
+        }
+        final TextImportChunk chunk = new TextImportChunk(engine);
+        chunks.add(chunk);
+        return chunk;
+    }
+
+    private class TempTableStructure implements TableStructure {
+        private CharSequence tableName;
+        private RecordMetadata metadata;
+        private int partitionBy;
+
+        @Override
+        public int getColumnCount() {
+            return metadata.getColumnCount();
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            return metadata.getColumnName(columnIndex);
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            return metadata.getColumnType(columnIndex);
+        }
+
+        @Override
+        public long getColumnHash(int columnIndex) {
+            return metadata.getColumnHash(columnIndex);
+        }
+
+        @Override
+        public int getIndexBlockCapacity(int columnIndex) {
+            return configuration.getIndexValueBlockSize();
+        }
+
+        @Override
+        public boolean isIndexed(int columnIndex) {
+            // chunk tables are read once, sequentially, index would be wasted
+            return false;
+        }
+
+        @Override
+        public boolean isSequential(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionBy() {
+            return partitionBy;
+        }
+
+        @Override
+        public boolean getSymbolCacheFlag(int columnIndex) {
+            return configuration.getDefaultSymbolCacheFlag();
+        }
+
+        @Override
+        public int getSymbolCapacity(int columnIndex) {
+            return configuration.getDefaultSymbolCapacity();
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return tableName;
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            return metadata.getTimestampIndex();
+        }
+
+        @Override
+        public int getMaxUncommittedRows() {
+            return configuration.getMaxUncommittedRows();
+        }
+
+        @Override
+        public long getCommitLag() {
+            return configuration.getCommitLag();
+        }
+
+        TempTableStructure of(CharSequence tableName, TableWriter writer) {
+            this.tableName = tableName;
+            this.metadata = writer.getMetadata();
+            this.partitionBy = writer.getPartitionBy();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectCharSink;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.TextImportTask;
+
+import java.io.Closeable;
+
+/**
+ * Slice of the input file that is processed by one thread of parallel import. A chunk
+ * is first used to scan its byte range for line ends that are safe to split the file at,
+ * then to parse the rows between the final boundaries into a table of its own.
+ * Each chunk owns its lexer, type manager and writer, none of which are thread-safe.
+ */
+public class TextImportChunk implements Closeable, Mutable {
+    private final DirectCharSink utf8Sink;
+    private final TypeManager typeManager;
+    private final TextLexer textLexer;
+    private final CairoTextWriter textWriter;
+    private final Path path = new Path();
+    private final StringSink tableName = new StringSink();
+    private final ObjList<TypeAdapter> types = new ObjList<>();
+    private long lo;
+    private long hi;
+    private long quoteCount;
+    private long newLineEven;
+    private long newLineOdd;
+    private boolean header;
+    private byte columnDelimiter;
+    private boolean skipLinesWithExtraValues;
+    private ObjList<CharSequence> names;
+    private CharSequence timestampCol;
+    private int atomicity;
+    private int partitionBy;
+    private CairoSecurityContext securityContext;
+    private long writtenLineCount;
+    private Throwable error;
+
+    public TextImportChunk(CairoEngine engine) {
+        final TextConfiguration textConfiguration = engine.getConfiguration().getTextConfiguration();
+        this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
+        this.typeManager = new TypeManager(textConfiguration, utf8Sink);
+        this.textLexer = new TextLexer(textConfiguration, typeManager);
+        this.textWriter = new CairoTextWriter(engine, path, typeManager);
+    }
+
+    @Override
+    public void clear() {
+        textWriter.clear();
+        textLexer.clear();
+        typeManager.clear();
+        types.clear();
+        names = null;
+        timestampCol = null;
+        securityContext = null;
+        writtenLineCount = 0;
+        error = null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(textWriter);
+        Misc.free(textLexer);
+        Misc.free(path);
+        Misc.free(utf8Sink);
+    }
+
+    /**
+     * Counts quotes in the chunk and finds first line end for either quote state at the
+     * start of the chunk. The state itself is known only when all preceding chunks are
+     * scanned, so that choice is left to the caller.
+     */
+    public void findLineBoundaries() {
+        long quotes = 0;
+        long even = -1;
+        long odd = -1;
+        for (long p = lo; p < hi; p++) {
+            final byte b = Unsafe.getUnsafe().getByte(p);
+            if (b == '"') {
+                quotes++;
+            } else if (b == '\n') {
+                if ((quotes & 1) == 0) {
+                    if (even == -1) {
+                        even = p;
+                    }
+                } else if (odd == -1) {
+                    odd = p;
+                }
+            }
+        }
+        this.quoteCount = quotes;
+        this.newLineEven = even;
+        this.newLineOdd = odd;
+    }
+
+    public LongList getColumnErrorCounts() {
+        return textWriter.getColumnErrorCounts();
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public long getErrorLineCount() {
+        return textLexer.getErrorCount();
+    }
+
+    public long getParsedLineCount() {
+        return textLexer.getLineCount();
+    }
+
+    public CharSequence getTableName() {
+        return tableName;
+    }
+
+    public long getWrittenLineCount() {
+        return writtenLineCount;
+    }
+
+    public void importRows() throws TextException {
+        textWriter.of(tableName, false, false, atomicity, partitionBy, timestampCol);
+        textWriter.prepareTable(securityContext, names, types);
+        try {
+            textLexer.of(columnDelimiter);
+            textLexer.setTableName(tableName);
+            textLexer.setSkipLinesWithExtraValues(skipLinesWithExtraValues);
+            textLexer.restart(header);
+            textLexer.parse(lo, hi, Integer.MAX_VALUE, textWriter.getTextListener());
+            textLexer.parseLast();
+            textWriter.commit();
+            writtenLineCount = textWriter.getWrittenLineCount();
+        } finally {
+            textWriter.closeWriter();
+        }
+    }
+
+    public void run(byte phase) {
+        try {
+            if (phase == TextImportTask.PHASE_BOUNDARY_CHECK) {
+                findLineBoundaries();
+            } else {
+                importRows();
+            }
+        } catch (Throwable e) {
+            error = e;
+        }
+    }
+
+    void of(long lo, long hi) {
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    void of(
+            CharSequence tableName,
+            ObjList<CharSequence> names,
+            ObjList<TypeAdapter> detectedTypes,
+            byte columnDelimiter,
+            boolean header,
+            boolean skipLinesWithExtraValues,
+            int atomicity,
+            int partitionBy,
+            CharSequence timestampCol,
+            CairoSecurityContext securityContext
+    ) {
+        this.tableName.clear();
+        this.tableName.put(tableName);
+        this.names = names;
+        this.types.clear();
+        for (int i = 0, n = detectedTypes.size(); i < n; i++) {
+            types.add(typeManager.nextTypeAdapter(detectedTypes.getQuick(i)));
+        }
+        this.columnDelimiter = columnDelimiter;
+        this.header = header;
+        this.skipLinesWithExtraValues = skipLinesWithExtraValues;
+        this.atomicity = atomicity;
+        this.partitionBy = partitionBy;
+        this.timestampCol = timestampCol;
+        this.securityContext = securityContext;
+    }
+
+    long getHi() {
+        return hi;
+    }
+
+    long getLo() {
+        return lo;
+    }
+
+    long getNewLine(boolean inQuote) {
+        return inQuote ? newLineOdd : newLineEven;
+    }
+
+    long getQuoteCount() {
+        return quoteCount;
+    }
+}
@@ -49,6 +49,14 @@ public class DateUtf8Adapter extends AbstractTypeAdapter implements Mutable {
         this.locale = null;
     }
 
+    public DateFormat getFormat() {
+        return format;
+    }
+
+    public DateLocale getLocale() {
+        return locale;
+    }
+
     @Override
     public int getType() {
         return ColumnType.DATE;
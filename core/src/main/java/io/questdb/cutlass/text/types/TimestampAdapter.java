@@ -42,6 +42,14 @@ public class TimestampAdapter extends AbstractTypeAdapter implements Mutable {
         this.locale = null;
     }
 
+    public DateFormat getFormat() {
+        return format;
+    }
+
+    public DateLocale getLocale() {
+        return locale;
+    }
+
     @Override
     public int getType() {
         return ColumnType.TIMESTAMP;
@@ -147,6 +147,30 @@ public class TypeManager implements Mutable {
         return adapter;
     }
 
+    /**
+     * Returns adapter of the same type and format as the one supplied, which may belong
+     * to another type manager. Adapters that decode UTF8 share the manager's sink and therefore
+     * cannot be used by two threads at the same time; these are re-created here. Stateless adapters
+     * are returned as is.
+     */
+    public TypeAdapter nextTypeAdapter(TypeAdapter adapter) {
+        if (adapter instanceof DateUtf8Adapter) {
+            final DateUtf8Adapter dateAdapter = (DateUtf8Adapter) adapter;
+            return nextDateAdapter().of(dateAdapter.getFormat(), dateAdapter.getLocale());
+        }
+        if (adapter instanceof TimestampUtf8Adapter) {
+            final TimestampUtf8Adapter timestampAdapter = (TimestampUtf8Adapter) adapter;
+            return nextTimestampAdapter(true, timestampAdapter.getFormat(), timestampAdapter.getLocale());
+        }
+        if (adapter instanceof SymbolAdapter) {
+            return nextSymbolAdapter(adapter.isIndexed());
+        }
+        if (adapter instanceof StringAdapter) {
+            return stringAdapter;
+        }
+        return adapter;
+    }
+
     public TypeAdapter nextSymbolAdapter(boolean indexed) {
         return indexed ? indexedSymbolAdapter : notIndexedSymbolAdapter;
     }
@@ -46,6 +46,7 @@ public class AlterStatement implements Mutable {
     public final static short RENAME_COLUMN = 10;
     public final static short SET_PARAM_MAX_UNCOMMITTED_ROWS = 11;
     public final static short SET_PARAM_COMMIT_LAG = 12;
+    public final static short COMPRESS_PARTITION = 13;
 
     private final static Log LOG = LogFactory.getLog(AlterStatement.class);
 
@@ -82,6 +83,9 @@ public class AlterStatement implements Mutable {
                 case ATTACH_PARTITION:
                     applyAttachPartition(tableWriter);
                     break;
+                case COMPRESS_PARTITION:
+                    applyCompressPartition(tableWriter);
+                    break;
                 case ADD_INDEX:
                     applyAddIndex(tableWriter);
                     break;
@@ -308,6 +312,30 @@ public class AlterStatement implements Mutable {
         }
     }
 
+    private void applyCompressPartition(TableWriter tableWriter) throws SqlException {
+        for (int i = 0, n = longList.size(); i < n; i++) {
+            long partitionTimestamp = longList.getQuick(i);
+            try {
+                if (!tableWriter.compressPartition(partitionTimestamp)) {
+                    throw putPartitionName(SqlException.$(tableNamePosition, "could not compress partition '"),
+                            tableWriter.getPartitionBy(),
+                            partitionTimestamp).put('\'');
+                }
+            } catch (CairoException e) {
+                LOG.error().$("failed to compress partition [table=").$(tableName)
+                        .$(",ts=").$ts(partitionTimestamp)
+                        .$(",errno=").$(e.getErrno())
+                        .$(",error=").$(e.getFlyweightMessage())
+                        .I$();
+
+                throw putPartitionName(SqlException.$(tableNamePosition, "could not compress partition '"),
+                        tableWriter.getPartitionBy(),
+                        partitionTimestamp).put("'. ")
+                        .put(e.getFlyweightMessage());
+            }
+        }
+    }
+
     private void applyDropPartition(TableWriter tableWriter) throws SqlException {
         for (int i = 0, n = longList.size(); i < n; i++) {
             long partitionTimestamp = longList.getQuick(i);
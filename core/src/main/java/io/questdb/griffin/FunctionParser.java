@@ -69,6 +69,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     private RecordMetadata metadata;
     private SqlCodeGenerator sqlCodeGenerator;
     private SqlExecutionContext sqlExecutionContext;
+    private boolean deterministic = true;
 
     public FunctionParser(CairoConfiguration configuration, FunctionFactoryCache functionFactoryCache) {
         this.configuration = configuration;
@@ -135,6 +136,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     @Override
     public void clear() {
         this.sqlExecutionContext = null;
+        this.deterministic = true;
     }
 
     public Function createBindVariable(SqlExecutionContext sqlExecutionContext, int position, CharSequence name) throws SqlException {
@@ -156,6 +158,14 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         return functionFactoryCache;
     }
 
+    /**
+     * @return false when functions created since last {@link #clear()} depend on bind variables, clock or
+     * random generator, e.g. result of the query cannot be reused between executions
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
     /**
      * Creates function instance. When node type is {@link ExpressionNode#LITERAL} a column or parameter
      * function is returned. We will be using the supplied {@link #metadata} to resolve type of column. When node token
@@ -338,9 +348,22 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
             LOG.error().$("NULL function").$(" [signature=").$(factory.getSignature()).$(",class=").$(factory.getClass().getName()).$(']').$();
             throw SqlException.position(position).put("bad function factory (NULL), check log");
         }
+        if (deterministic && isNonDeterministic(factory)) {
+            deterministic = false;
+        }
         return function;
     }
 
+    private static boolean isNonDeterministic(FunctionFactory factory) {
+        if (factory.isRuntimeConstant()) {
+            return true;
+        }
+        final String signature = factory.getSignature();
+        return Chars.startsWith(signature, "rnd_")
+                || Chars.startsWith(signature, "systimestamp(")
+                || Chars.startsWith(signature, "sysdate(");
+    }
+
     private long convertToTimestamp(CharSequence str, int position) throws SqlException {
         try {
             return IntervalUtils.parseFloorPartialDate(str);
@@ -696,6 +719,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     }
 
     private Function createIndexParameter(int variableIndex, int position) throws SqlException {
+        deterministic = false;
         Function function = getBindVariableService().getFunction(variableIndex);
         if (function == null) {
             // bind variable is undefined
@@ -705,6 +729,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     }
 
     private Function createNamedParameter(int position, CharSequence name) throws SqlException {
+        deterministic = false;
         Function function = getBindVariableService().getFunction(name);
         if (function == null) {
             throw SqlException.position(position).put("undefined bind variable: ").put(name);
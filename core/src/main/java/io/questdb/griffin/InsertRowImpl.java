@@ -30,6 +30,7 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.TableWriter;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.cairo.wal.WalWriter;
 import io.questdb.griffin.model.IntervalUtils;
 import io.questdb.std.NumericException;
 import io.questdb.std.ObjList;
@@ -65,10 +66,13 @@ public class InsertRowImpl {
     }
 
     private TableWriter.Row getRowWithStringTimestamp(TableWriter tableWriter) {
+        return tableWriter.newRow(getStringTimestamp());
+    }
+
+    private long getStringTimestamp() {
         CharSequence tsStr = timestampFunction.getStr(null);
         try {
-            long timestamp = IntervalUtils.parseFloorPartialDate(tsStr);
-            return tableWriter.newRow(timestamp);
+            return IntervalUtils.parseFloorPartialDate(tsStr);
         } catch (NumericException e) {
             throw CairoException.instance(0).put("Invalid timestamp: ").put(tsStr);
         }
@@ -92,6 +96,19 @@ public class InsertRowImpl {
         row.append();
     }
 
+    public void append(WalWriter writer) {
+        final TableWriter.Row row;
+        if (timestampFunction == null) {
+            row = writer.newRow();
+        } else if (!ColumnType.isString(timestampFunction.getType())) {
+            row = writer.newRow(timestampFunction.getTimestamp(null));
+        } else {
+            row = writer.newRow(getStringTimestamp());
+        }
+        copier.copy(virtualRecord, row);
+        row.append();
+    }
+
     @FunctionalInterface
     private interface RowFactory {
         TableWriter.Row getRow(TableWriter tableWriter);
@@ -25,9 +25,11 @@
 package io.questdb.griffin;
 
 import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.EntryUnavailableException;
 import io.questdb.cairo.TableWriter;
 import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.wal.WalWriter;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 
@@ -35,6 +37,7 @@ public class InsertStatementImpl implements InsertStatement {
     private final long structureVersion;
     private final String tableName;
     private final InsertMethodImpl insertMethod = new InsertMethodImpl();
+    private final WalInsertMethodImpl walInsertMethod = new WalInsertMethodImpl();
     private final ObjList<InsertRowImpl> insertRows = new ObjList<>();
     private final CairoEngine engine;
 
@@ -61,7 +64,15 @@ public class InsertStatementImpl implements InsertStatement {
     public InsertMethod createMethod(SqlExecutionContext executionContext, WriterSource writerSource) throws SqlException {
         initContext(executionContext);
         if (insertMethod.writer == null) {
-            final TableWriter writer = writerSource.getWriter(executionContext.getCairoSecurityContext(), tableName, "insert");
+            final TableWriter writer;
+            try {
+                writer = writerSource.getWriter(executionContext.getCairoSecurityContext(), tableName, "insert");
+            } catch (EntryUnavailableException e) {
+                if (engine.getConfiguration().isWalEnabled()) {
+                    return createWalMethod(executionContext);
+                }
+                throw e;
+            }
             if (writer.getStructureVersion() != getStructureVersion()) {
                 writer.close();
                 throw WriterOutOfDateException.INSTANCE;
@@ -84,6 +95,7 @@ public class InsertStatementImpl implements InsertStatement {
     @Override
     public void detachWriter() {
         insertMethod.close();
+        walInsertMethod.close();
     }
 
     @Override
@@ -91,6 +103,18 @@ public class InsertStatementImpl implements InsertStatement {
         insertRows.add(row);
     }
 
+    private InsertMethod createWalMethod(SqlExecutionContext executionContext) {
+        if (walInsertMethod.walWriter == null) {
+            final WalWriter walWriter = engine.getWalWriter(executionContext.getCairoSecurityContext(), tableName);
+            if (walWriter.getStructureVersion() != getStructureVersion()) {
+                walWriter.close();
+                throw WriterOutOfDateException.INSTANCE;
+            }
+            walInsertMethod.walWriter = walWriter;
+        }
+        return walInsertMethod;
+    }
+
     private void initContext(SqlExecutionContext executionContext) throws SqlException {
         for (int i = 0, n = insertRows.size(); i < n; i++) {
             InsertRowImpl row = insertRows.get(i);
@@ -127,4 +151,33 @@ public class InsertStatementImpl implements InsertStatement {
             writer = Misc.free(writer);
         }
     }
+
+    private class WalInsertMethodImpl implements InsertMethod {
+        private WalWriter walWriter = null;
+
+        @Override
+        public long execute() {
+            for (int i = 0, n = insertRows.size(); i < n; i++) {
+                InsertRowImpl row = insertRows.get(i);
+                row.append(walWriter);
+            }
+            return 1;
+        }
+
+        @Override
+        public void commit() {
+            walWriter.commit();
+        }
+
+        @Override
+        public TableWriter popWriter() {
+            // rows of the pending transaction need exclusive table writer
+            throw EntryUnavailableException.instance("wal");
+        }
+
+        @Override
+        public void close() {
+            walWriter = Misc.free(walWriter);
+        }
+    }
 }
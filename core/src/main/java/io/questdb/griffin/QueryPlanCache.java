@@ -0,0 +1,225 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.Misc;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-wide cache of compiled SELECT factories shared by all worker threads and protocols.
+ * <p>
+ * Factories are not thread-safe, so cache keeps a small pool of idle instances for each query.
+ * poll() hands instance out exclusively and push() returns it after cursor is closed. Queries are
+ * keyed by SQL text with insignificant whitespace removed. Factories that find their tables
+ * changed throw ReaderOutOfDateException, callers are expected to recompile and remove() stale
+ * pool of the query.
+ */
+public class QueryPlanCache implements Closeable {
+    private static final Log LOG = LogFactory.getLog(QueryPlanCache.class);
+    private static final ThreadLocal<StringSink> tlSink = new ThreadLocal<>(StringSink::new);
+    private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final boolean enabled;
+    private final int capacity;
+    private final int poolSize;
+    private final QueryPlanCacheMetrics metrics;
+    private volatile boolean closed = false;
+
+    public QueryPlanCache(CairoConfiguration configuration, QueryPlanCacheMetrics metrics) {
+        this.enabled = configuration.isQueryPlanCacheEnabled();
+        this.capacity = configuration.getQueryPlanCacheCapacity();
+        this.poolSize = configuration.getQueryPlanCachePoolSize();
+        this.metrics = metrics;
+    }
+
+    // collapses whitespace outside of quotes and removes trailing semicolons
+    static CharSequence normalize(CharSequence sql, StringSink sink) {
+        sink.clear();
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0, n = sql.length(); i < n; i++) {
+            final char c = sql.charAt(i);
+            if (quote != 0) {
+                sink.put(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && sink.length() > 0) {
+                sink.put(' ');
+            }
+            space = false;
+            if (c == '\'' || c == '"') {
+                quote = c;
+            }
+            sink.put(c);
+        }
+        int len = sink.length();
+        while (len > 0 && (sink.charAt(len - 1) == ';' || sink.charAt(len - 1) == ' ')) {
+            len--;
+        }
+        sink.clear(len);
+        return sink;
+    }
+
+    public void clear() {
+        for (CharSequence key : entries.keySet()) {
+            remove0(key);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RecordCursorFactory poll(CharSequence sql) {
+        if (!enabled) {
+            return null;
+        }
+        final Entry entry = entries.get(normalize(sql, tlSink.get()));
+        final RecordCursorFactory factory = entry != null ? entry.pop(clock.incrementAndGet()) : null;
+        if (factory != null) {
+            metrics.hit();
+        } else {
+            metrics.miss();
+        }
+        return factory;
+    }
+
+    public void push(CharSequence sql, RecordCursorFactory factory) {
+        if (factory == null) {
+            return;
+        }
+        if (!enabled || closed) {
+            factory.close();
+            return;
+        }
+        final CharSequence key = normalize(sql, tlSink.get());
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= capacity) {
+                evictLeastRecentlyUsed();
+            }
+            final Entry newEntry = new Entry(poolSize, clock.incrementAndGet());
+            entry = entries.putIfAbsent(Chars.toString(key), newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        if (!entry.push(factory)) {
+            factory.close();
+        }
+    }
+
+    public void remove(CharSequence sql) {
+        if (enabled) {
+            remove0(normalize(sql, tlSink.get()));
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        CharSequence oldestKey = null;
+        long oldestTick = Long.MAX_VALUE;
+        for (Map.Entry<CharSequence, Entry> e : entries.entrySet()) {
+            final long tick = e.getValue().lastAccessTick;
+            if (tick < oldestTick) {
+                oldestTick = tick;
+                oldestKey = e.getKey();
+            }
+        }
+        if (oldestKey != null) {
+            remove0(oldestKey);
+        }
+    }
+
+    private void remove0(CharSequence key) {
+        final Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.close();
+            LOG.info().$("removed [sql=").utf8(key).$(']').$();
+        }
+    }
+
+    private static class Entry implements Closeable {
+        private final RecordCursorFactory[] factories;
+        private int count;
+        private boolean closed;
+        private volatile long lastAccessTick;
+
+        private Entry(int poolSize, long tick) {
+            this.factories = new RecordCursorFactory[poolSize];
+            this.lastAccessTick = tick;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            for (int i = 0; i < count; i++) {
+                factories[i] = Misc.free(factories[i]);
+            }
+            count = 0;
+        }
+
+        synchronized RecordCursorFactory pop(long tick) {
+            lastAccessTick = tick;
+            if (count > 0) {
+                final RecordCursorFactory factory = factories[--count];
+                factories[count] = null;
+                return factory;
+            }
+            return null;
+        }
+
+        synchronized boolean push(RecordCursorFactory factory) {
+            if (closed || count == factories.length) {
+                return false;
+            }
+            factories[count++] = factory;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.RecordChain;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-wide cache of materialized SELECT results. Result is stored together with versions of
+ * the tables it was computed from and reused for as long as none of these tables changed, which
+ * suits dashboards that repeat the same queries over mostly immutable data.
+ * <p>
+ * Results are read via cursor that is not thread-safe, so poll() hands entry out exclusively and
+ * push() returns it after cursor is closed. Memory held by idle entries is limited and least
+ * recently used entries are evicted when the limit is reached. Queries are keyed the same way
+ * as by {@link QueryPlanCache}.
+ */
+public class QueryResultCache implements Closeable {
+    private static final Log LOG = LogFactory.getLog(QueryResultCache.class);
+    private static final ThreadLocal<StringSink> tlSink = new ThreadLocal<>(StringSink::new);
+    private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong memoryUsed = new AtomicLong();
+    private final boolean enabled;
+    private final long memoryLimit;
+    private final long pageSize;
+    private final QueryResultCacheMetrics metrics;
+    private volatile boolean closed = false;
+
+    public QueryResultCache(CairoConfiguration configuration, QueryResultCacheMetrics metrics) {
+        this.enabled = configuration.isQueryResultCacheEnabled();
+        this.memoryLimit = configuration.getQueryResultCacheMemoryLimit();
+        this.pageSize = configuration.getQueryResultCachePageSize();
+        this.metrics = metrics;
+    }
+
+    public void clear() {
+        for (CharSequence key : entries.keySet()) {
+            remove0(key);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    public long getMemoryUsed() {
+        return memoryUsed.get();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes cached result of the query out of cache. Caller must check table versions of the entry
+     * and either return it via {@link #push(CharSequence, Entry)} or close it.
+     *
+     * @param sql query text
+     * @return cached result or null
+     */
+    public Entry poll(CharSequence sql) {
+        if (!enabled) {
+            return null;
+        }
+        final Entry entry = entries.remove(QueryPlanCache.normalize(sql, tlSink.get()));
+        if (entry != null) {
+            memoryUsed.addAndGet(-entry.size);
+        }
+        return entry;
+    }
+
+    public void push(CharSequence sql, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        // chain memory is allocated page by page
+        entry.size = (entry.chain.getAppendOffset() / pageSize + 1) * pageSize;
+        if (!enabled || closed || entry.size > memoryLimit) {
+            entry.close();
+            return;
+        }
+        entry.lastAccessTick = clock.incrementAndGet();
+        while (memoryUsed.get() + entry.size > memoryLimit && entries.size() > 0) {
+            evictLeastRecentlyUsed();
+        }
+        memoryUsed.addAndGet(entry.size);
+        final Entry prev = entries.put(Chars.toString(QueryPlanCache.normalize(sql, tlSink.get())), entry);
+        if (prev != null) {
+            memoryUsed.addAndGet(-prev.size);
+            prev.close();
+        }
+    }
+
+    public void recordHit() {
+        metrics.hit();
+    }
+
+    public void recordMiss() {
+        metrics.miss();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        CharSequence oldestKey = null;
+        long oldestTick = Long.MAX_VALUE;
+        for (Map.Entry<CharSequence, Entry> e : entries.entrySet()) {
+            final long tick = e.getValue().lastAccessTick;
+            if (tick < oldestTick) {
+                oldestTick = tick;
+                oldestKey = e.getKey();
+            }
+        }
+        if (oldestKey != null) {
+            remove0(oldestKey);
+        }
+    }
+
+    private void remove0(CharSequence key) {
+        final Entry entry = entries.remove(key);
+        if (entry != null) {
+            memoryUsed.addAndGet(-entry.size);
+            entry.close();
+            LOG.info().$("removed [sql=").utf8(key).$(']').$();
+        }
+    }
+
+    /**
+     * Materialized result of a query. Table versions are opaque to the cache, they are compared
+     * by the factory that produced the result.
+     */
+    public static class Entry implements Closeable {
+        private final RecordChain chain;
+        private final LongList tableVersions = new LongList();
+        private long rowCount;
+        private long size;
+        private volatile long lastAccessTick;
+
+        public Entry(RecordChain chain) {
+            this.chain = chain;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(chain);
+        }
+
+        public RecordChain getChain() {
+            return chain;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        public LongList getTableVersions() {
+            return tableVersions;
+        }
+
+        public void setRowCount(long rowCount) {
+            this.rowCount = rowCount;
+        }
+    }
+}
@@ -47,6 +47,7 @@ import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
 import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.RadixSortLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -205,6 +206,16 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return model.getOrderByDirectionAdvice().getQuick(index);
     }
 
+    // joins that come after given position in the join order and rely on master to be ordered by timestamp
+    private static boolean isTimestampRequiredDownstream(ObjList<QueryModel> joinModels, IntList ordered, int position) {
+        for (int i = position + 1, n = ordered.size(); i < n; i++) {
+            if (joinsRequiringTimestamp[joinModels.getQuick(ordered.getQuick(i)).getJoinType()]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean allGroupsFirstLastWithSingleSymbolFilter(QueryModel model, RecordMetadata metadata) {
         final ObjList<QueryColumn> columns = model.getColumns();
         for (int i = 0, n = columns.size(); i < n; i++) {
@@ -511,10 +522,11 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     }
 
     private RecordCursorFactory createHashJoin(
-            RecordMetadata metadata,
+            JoinRecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            boolean masterOrderRequired
     ) {
         /*
          * JoinContext provides the following information:
@@ -583,6 +595,22 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 false
         );
 
+        // spilled join emits rows one partition at a time, which breaks the order of master timestamp;
+        // spill only when nothing downstream relies on that order and do not advertise timestamp then
+        final long memoryBudget = masterOrderRequired ? 0 : configuration.getSqlHashJoinMemoryBudget();
+        if (memoryBudget > 0) {
+            metadata.setTimestampIndex(-1);
+        }
+
+        // master records are copied only when the join spills to disk
+        entityColumnFilter.of(masterMetadata.getColumnCount());
+        RecordSink masterSink = RecordSinkFactory.getInstance(
+                asm,
+                masterMetadata,
+                entityColumnFilter,
+                false
+        );
+
         if (joinType == JOIN_INNER) {
             return new HashJoinRecordCursorFactory(
                     configuration,
@@ -592,9 +620,11 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     keyTypes,
                     valueTypes,
                     masterKeySink,
+                    masterSink,
                     slaveKeySink,
                     slaveSink,
-                    masterMetadata.getColumnCount()
+                    masterMetadata.getColumnCount(),
+                    memoryBudget
             );
         }
 
@@ -606,9 +636,11 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 keyTypes,
                 valueTypes,
                 masterKeySink,
+                masterSink,
                 slaveKeySink,
                 slaveSink,
-                masterMetadata.getColumnCount()
+                masterMetadata.getColumnCount(),
+                memoryBudget
         );
     }
 
@@ -748,7 +780,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     LOG.info()
                             .$("JIT enabled for (sub)query [tableName=").utf8(model.getName())
                             .$(", fd=").$(executionContext.getRequestFd()).$(']').$();
-                    return new CompiledFilterRecordCursorFactory(configuration, factory, bindVarFunctions, f, jitFilter);
+                    return new CompiledFilterRecordCursorFactory(
+                            configuration,
+                            factory,
+                            bindVarFunctions,
+                            f,
+                            jitFilter
+                    );
                 } catch (SqlException | LimitOverflowException ex) {
                     LOG.debug()
                             .$("JIT cannot be applied to (sub)query [tableName=").utf8(model.getName())
@@ -778,6 +816,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         IntList ordered = model.getOrderedJoinModels();
         RecordCursorFactory master = null;
         CharSequence masterAlias = null;
+        final boolean timestampRequired = executionContext.isTimestampRequired();
 
         try {
             int n = ordered.size();
@@ -949,7 +988,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                         master,
                                         slave,
-                                        joinType
+                                        joinType,
+                                        timestampRequired || isTimestampRequiredDownstream(joinModels, ordered, i)
                                 );
                                 masterAlias = null;
                                 break;
@@ -1328,14 +1368,30 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 recordCursorFactory,
                                 recordComparatorCompiler.compile(metadata, listColumnFilterA),
                                 loFunc, hiFunc);
-                    } else {
-                        return new SortedLightRecordCursorFactory(
-                                configuration,
-                                orderedMetadata,
-                                recordCursorFactory,
-                                recordComparatorCompiler.compile(metadata, listColumnFilterA)
-                        );
                     }
+
+                    if (listColumnFilterA.size() == 1) {
+                        final int filter = listColumnFilterA.getQuick(0);
+                        final int index = (filter > 0 ? filter : -filter) - 1;
+                        final int columnType = metadata.getColumnType(index);
+                        if (RadixSortLightRecordCursorFactory.isSupported(columnType)) {
+                            return new RadixSortLightRecordCursorFactory(
+                                    configuration,
+                                    orderedMetadata,
+                                    recordCursorFactory,
+                                    index,
+                                    columnType,
+                                    filter < 0
+                            );
+                        }
+                    }
+
+                    return new SortedLightRecordCursorFactory(
+                            configuration,
+                            orderedMetadata,
+                            recordCursorFactory,
+                            recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                    );
                 }
 
                 // when base record cursor does not support random access
@@ -1601,6 +1657,35 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
                 if (isFillNone) {
 
+                    // time zone with daylight saving makes sample periods depend on the preceding rows
+                    if (timezoneName == null
+                            && isParallelGroupBySupported(configuration.isSqlParallelSampleByEnabled(), factory, groupByFunctions, executionContext)) {
+                        final ObjList<ObjList<GroupByFunction>> slotFunctions = prepareSlotFunctions(
+                                model,
+                                metadata,
+                                executionContext,
+                                groupByFunctions,
+                                recordFunctions,
+                                true
+                        );
+                        keyTypes.add(ColumnType.TIMESTAMP); // sample period is the last key
+                        return new ParallelSampleByRecordCursorFactory(
+                                configuration,
+                                factory,
+                                listColumnFilterA,
+                                asm,
+                                keyTypes,
+                                valueTypes,
+                                groupByMetadata,
+                                slotFunctions,
+                                recordFunctions,
+                                timestampSampler,
+                                timestampIndex,
+                                offsetFunc,
+                                offsetFuncPos
+                        );
+                    }
+
                     if (keyTypes.getColumnCount() == 0) {
                         // this sample by is not keyed
                         return new SampleByFillNoneNotKeyedRecordCursorFactory(
@@ -2320,6 +2405,30 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 );
             }
 
+            if (isParallelGroupBySupported(configuration.isSqlParallelGroupByEnabled(), factory, groupByFunctions, executionContext)) {
+                final ObjList<ObjList<GroupByFunction>> slotFunctions = prepareSlotFunctions(
+                        model,
+                        metadata,
+                        executionContext,
+                        groupByFunctions,
+                        recordFunctions,
+                        false
+                );
+                return new ParallelGroupByRecordCursorFactory(
+                        configuration,
+                        factory,
+                        listColumnFilterA,
+                        asm,
+                        keyTypes,
+                        valueTypes,
+                        groupByMetadata,
+                        slotFunctions,
+                        recordFunctions,
+                        // partial results can be reused only when they depend on table data alone
+                        configuration.isQueryResultCacheEnabled() && functionParser.isDeterministic() && !hasNativeState(groupByFunctions)
+                );
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     configuration,
                     factory,
@@ -2878,6 +2987,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     }
                 }
 
+                if (intrinsicModel.filter != null && configuration.isZoneMapsEnabled() && PartitionBy.isPartitioned(reader.getPartitionedBy())) {
+                    dfcFactory = generateZoneMapFilter(dfcFactory, intrinsicModel.filter, readerMeta, executionContext);
+                }
+
                 model.setWhereClause(intrinsicModel.filter);
                 return new DataFrameRecordCursorFactory(
                         configuration,
@@ -2936,6 +3049,149 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private DataFrameCursorFactory generateZoneMapFilter(
+            DataFrameCursorFactory dfcFactory,
+            ExpressionNode filter,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) {
+        final ZoneMapDataFrameCursorFactory zoneMapFactory = new ZoneMapDataFrameCursorFactory(dfcFactory);
+        addZoneMapPredicates(zoneMapFactory, filter, metadata, executionContext);
+        if (zoneMapFactory.getPredicateCount() > 0) {
+            return zoneMapFactory;
+        }
+        return dfcFactory;
+    }
+
+    private void addZoneMapPredicates(
+            ZoneMapDataFrameCursorFactory zoneMapFactory,
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) {
+        if (node.type != ExpressionNode.OPERATION || node.paramCount != 2) {
+            return;
+        }
+
+        if (isAndKeyword(node.token)) {
+            addZoneMapPredicates(zoneMapFactory, node.lhs, metadata, executionContext);
+            addZoneMapPredicates(zoneMapFactory, node.rhs, metadata, executionContext);
+            return;
+        }
+
+        int op = zoneMapOp(node.token);
+        if (op < 0) {
+            return;
+        }
+
+        ExpressionNode column = node.lhs;
+        ExpressionNode constant = node.rhs;
+        if (column.type != ExpressionNode.LITERAL) {
+            column = node.rhs;
+            constant = node.lhs;
+            op = flipZoneMapOp(op);
+        }
+
+        if (column.type != ExpressionNode.LITERAL || constant.type == ExpressionNode.LITERAL) {
+            return;
+        }
+
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex < 0 || columnIndex == metadata.getTimestampIndex()) {
+            return;
+        }
+
+        final int columnType = metadata.getColumnType(columnIndex);
+        if (!ZoneMap.isSupported(columnType)) {
+            return;
+        }
+
+        final Function function;
+        try {
+            function = functionParser.parseFunction(constant, metadata, executionContext);
+        } catch (SqlException e) {
+            // filter compilation reports the error
+            return;
+        }
+
+        try {
+            if (!function.isConstant()) {
+                return;
+            }
+            final int constantType = ColumnType.tagOf(function.getType());
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    // date and timestamp constants have to be of the same unit
+                    if (constantType == ColumnType.tagOf(columnType)) {
+                        final long value = function.getLong(null);
+                        if (value != Numbers.LONG_NaN) {
+                            zoneMapFactory.add(columnIndex, op, value, Double.NaN);
+                        }
+                    }
+                    break;
+                default:
+                    switch (constantType) {
+                        case ColumnType.BYTE:
+                        case ColumnType.SHORT:
+                        case ColumnType.INT:
+                        case ColumnType.LONG:
+                            final long value = function.getLong(null);
+                            if (value != Numbers.LONG_NaN) {
+                                zoneMapFactory.add(columnIndex, op, value, Double.NaN);
+                            }
+                            break;
+                        case ColumnType.FLOAT:
+                        case ColumnType.DOUBLE:
+                            final double d = function.getDouble(null);
+                            if (d == d) {
+                                zoneMapFactory.add(columnIndex, op, 0, d);
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    break;
+            }
+        } finally {
+            Misc.free(function);
+        }
+    }
+
+    private static int flipZoneMapOp(int op) {
+        switch (op) {
+            case ZoneMapDataFrameCursor.OP_LT:
+                return ZoneMapDataFrameCursor.OP_GT;
+            case ZoneMapDataFrameCursor.OP_LE:
+                return ZoneMapDataFrameCursor.OP_GE;
+            case ZoneMapDataFrameCursor.OP_GT:
+                return ZoneMapDataFrameCursor.OP_LT;
+            case ZoneMapDataFrameCursor.OP_GE:
+                return ZoneMapDataFrameCursor.OP_LE;
+            default:
+                return op;
+        }
+    }
+
+    private static int zoneMapOp(CharSequence token) {
+        if (Chars.equals(token, '=')) {
+            return ZoneMapDataFrameCursor.OP_EQ;
+        }
+        if (Chars.equals(token, '<')) {
+            return ZoneMapDataFrameCursor.OP_LT;
+        }
+        if (Chars.equals(token, "<=")) {
+            return ZoneMapDataFrameCursor.OP_LE;
+        }
+        if (Chars.equals(token, '>')) {
+            return ZoneMapDataFrameCursor.OP_GT;
+        }
+        if (Chars.equals(token, ">=")) {
+            return ZoneMapDataFrameCursor.OP_GE;
+        }
+        return -1;
+    }
+
     private int prepareLatestByColumnIndexes(ObjList<ExpressionNode> latestBy, GenericRecordMetadata myMeta) throws SqlException {
         keyTypes.clear();
         listColumnFilterA.clear();
@@ -3059,6 +3315,75 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return metadata.getTimestampIndex();
     }
 
+    private static boolean hasNativeState(ObjList<GroupByFunction> groupByFunctions) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            if (groupByFunctions.getQuick(i).hasNativeState()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isParallelGroupBySupported(
+            boolean enabled,
+            RecordCursorFactory factory,
+            ObjList<GroupByFunction> groupByFunctions,
+            SqlExecutionContext executionContext
+    ) {
+        if (!enabled
+                || executionContext.getWorkerCount() < 2
+                || !factory.supportPageFrameCursor()) {
+            return false;
+        }
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            if (!groupByFunctions.getQuick(i).supportsParallelism()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ObjList<ObjList<GroupByFunction>> prepareSlotFunctions(
+            QueryModel model,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions,
+            boolean sampleBy
+    ) throws SqlException {
+        // each worker and the query thread aggregate into their own map with their own functions
+        final int slotCount = executionContext.getWorkerCount() + 1;
+        final ObjList<ObjList<GroupByFunction>> slotFunctions = new ObjList<>(slotCount);
+        slotFunctions.add(groupByFunctions);
+        try {
+            for (int i = 1; i < slotCount; i++) {
+                final ObjList<GroupByFunction> functions = new ObjList<>(groupByFunctions.size());
+                slotFunctions.add(functions);
+                arrayColumnTypes.clear();
+                if (sampleBy) {
+                    // sample by reserves the first value, function values must be laid out the same way in every slot
+                    arrayColumnTypes.add(ColumnType.TIMESTAMP);
+                }
+                GroupByUtils.prepareGroupByFunctions(
+                        model,
+                        metadata,
+                        functionParser,
+                        executionContext,
+                        functions,
+                        groupByFunctionPositions,
+                        arrayColumnTypes
+                );
+            }
+        } catch (Throwable e) {
+            for (int i = 1, n = slotFunctions.size(); i < n; i++) {
+                Misc.freeObjList(slotFunctions.getQuick(i));
+            }
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+        return slotFunctions;
+    }
+
     private boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equals(ast.token, name) && ast.rhs.type == LITERAL;
     }
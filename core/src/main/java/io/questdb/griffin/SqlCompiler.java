@@ -32,15 +32,19 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cutlass.parquet.ParquetEncoder;
 import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.ParallelTextImporter;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
+import io.questdb.griffin.engine.CachedResultRecordCursorFactory;
 import io.questdb.griffin.engine.functions.cast.CastCharToStrFunctionFactory;
 import io.questdb.griffin.engine.functions.cast.CastStrToGeoHashFunctionFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowSearchPathCursorFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowStandardConformingStringsCursorFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowTimeZoneFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowTransactionIsolationLevelCursorFactory;
+import io.questdb.griffin.engine.matview.MatViewDefinition;
 import io.questdb.griffin.engine.table.ShowColumnsRecordCursorFactory;
 import io.questdb.griffin.engine.table.TableListRecordCursorFactory;
 import io.questdb.griffin.model.*;
@@ -48,6 +52,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.datetime.DateFormat;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
@@ -93,6 +98,7 @@ public class SqlCompiler implements Closeable {
     private final ExecutableMethod insertAsSelectMethod = this::insertAsSelect;
     private final ExecutableMethod createTableMethod = this::createTable;
     private final TextLoader textLoader;
+    private ParallelTextImporter parallelTextImporter;
     private final FilesFacade ff;
     private final TimestampValueRecord partitionFunctionRec = new TimestampValueRecord();
 
@@ -891,6 +897,7 @@ public class SqlCompiler implements Closeable {
         Misc.free(path);
         Misc.free(renamePath);
         Misc.free(textLoader);
+        parallelTextImporter = Misc.free(parallelTextImporter);
     }
 
     @NotNull
@@ -917,6 +924,38 @@ public class SqlCompiler implements Closeable {
         return executor.execute(executionContext);
     }
 
+    /**
+     * Compiles query of materialized view for refresh. Rows of base table prior to given
+     * timestamp are filtered out, which lets refresh re-compute only the tail of the view.
+     *
+     * @param view          view definition
+     * @param fromTimestamp lowest timestamp of base table rows to aggregate, Long.MIN_VALUE to aggregate all rows
+     * @return factory of the view rows
+     * @throws SqlException when view query no longer compiles, e.g. when base table has changed
+     */
+    public RecordCursorFactory compileMatViewRefresh(
+            MatViewDefinition view,
+            long fromTimestamp,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        clear();
+        lexer.of(view.getQuery());
+        codeGenerator.clear();
+        final ExecutionModel model = parser.parse(lexer, executionContext);
+        if (model.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(0, "materialized view query expected");
+        }
+        final QueryModel queryModel = (QueryModel) model;
+        if (fromTimestamp != Long.MIN_VALUE) {
+            final CharacterStoreEntry cse = characterStore.newEntry();
+            cse.put('\'');
+            TimestampFormatUtils.appendDateTimeUSec(cse, fromTimestamp);
+            cse.put('\'');
+            addTimestampLowerBound(queryModel, view.getBaseTableName(), view.getBaseTimestampColumn(), cse.toImmutable());
+        }
+        return generate(optimiser.optimise(queryModel, executionContext), executionContext);
+    }
+
     public CairoEngine getEngine() {
         return engine;
     }
@@ -961,6 +1000,59 @@ public class SqlCompiler implements Closeable {
         return tok;
     }
 
+    private static QueryModel findSampleByModel(QueryModel model) {
+        while (model != null) {
+            if (model.getSampleBy() != null) {
+                return model;
+            }
+            final ObjList<QueryModel> joinModels = model.getJoinModels();
+            for (int i = 1, n = joinModels.size(); i < n; i++) {
+                final QueryModel m = findSampleByModel(joinModels.getQuick(i));
+                if (m != null) {
+                    return m;
+                }
+            }
+            final QueryModel m = findSampleByModel(model.getUnionModel());
+            if (m != null) {
+                return m;
+            }
+            model = model.getNestedModel();
+        }
+        return null;
+    }
+
+    private void addTimestampLowerBound(QueryModel model, CharSequence tableName, CharSequence timestampColumn, CharSequence lowerBound) {
+        while (model != null) {
+            final ExpressionNode modelTableName = model.getTableName();
+            if (
+                    modelTableName != null
+                            && modelTableName.type == ExpressionNode.LITERAL
+                            && Chars.equalsIgnoreCase(GenericLexer.unquote(modelTableName.token), tableName)
+            ) {
+                final ExpressionNode filter = sqlNodePool.next().of(ExpressionNode.OPERATION, ">=", 0, 0);
+                filter.paramCount = 2;
+                filter.lhs = sqlNodePool.next().of(ExpressionNode.LITERAL, timestampColumn, 0, 0);
+                filter.rhs = sqlNodePool.next().of(ExpressionNode.CONSTANT, lowerBound, 0, 0);
+                final ExpressionNode where = model.getWhereClause();
+                if (where == null) {
+                    model.setWhereClause(filter);
+                } else {
+                    final ExpressionNode and = sqlNodePool.next().of(ExpressionNode.OPERATION, "and", 0, 0);
+                    and.paramCount = 2;
+                    and.lhs = where;
+                    and.rhs = filter;
+                    model.setWhereClause(and);
+                }
+            }
+            final ObjList<QueryModel> joinModels = model.getJoinModels();
+            for (int i = 1, n = joinModels.size(); i < n; i++) {
+                addTimestampLowerBound(joinModels.getQuick(i), tableName, timestampColumn, lowerBound);
+            }
+            addTimestampLowerBound(model.getUnionModel(), tableName, timestampColumn, lowerBound);
+            model = model.getNestedModel();
+        }
+    }
+
     private CompiledQuery alterSystemLockWriter(SqlExecutionContext executionContext) throws SqlException {
         final int tableNamePosition = lexer.getPosition();
         CharSequence tok = GenericLexer.unquote(expectToken(lexer, "table name"));
@@ -1025,6 +1117,13 @@ public class SqlCompiler implements Closeable {
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
                     }
+                } else if (SqlKeywords.isCompressKeyword(tok)) {
+                    tok = expectToken(lexer, "'partition'");
+                    if (SqlKeywords.isPartitionKeyword(tok)) {
+                        return alterTableDropOrAttachPartition(reader, PartitionAction.COMPRESS, executionContext);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
+                    }
                 } else if (SqlKeywords.isRenameKeyword(tok)) {
                     tok = expectToken(lexer, "'column'");
                     if (SqlKeywords.isColumnKeyword(tok)) {
@@ -1440,10 +1539,12 @@ public class SqlCompiler implements Closeable {
         if (SqlKeywords.isListKeyword(tok)) {
             return alterTableDropOrAttachPartitionByList(reader, pos, action);
         } else if (SqlKeywords.isWhereKeyword(tok)) {
-            if (action != PartitionAction.DROP) {
-                throw SqlException.$(pos, "WHERE clause can only be used with DROP PARTITION command");
+            if (action == PartitionAction.ATTACH) {
+                throw SqlException.$(pos, "WHERE clause can only be used with DROP or COMPRESS PARTITION command");
             }
-            AlterStatementBuilder alterPartitionStatement = alterQueryBuilder.ofDropPartition(pos, tableName, reader.getMetadata().getId());
+            AlterStatementBuilder alterPartitionStatement = action == PartitionAction.DROP
+                    ? alterQueryBuilder.ofDropPartition(pos, tableName, reader.getMetadata().getId())
+                    : alterQueryBuilder.ofCompressPartition(pos, tableName, reader.getMetadata().getId());
             ExpressionNode expr = parser.expr(lexer, (QueryModel) null);
             String designatedTimestampColumnName = null;
             int tsIndex = readerMetadata.getTimestampIndex();
@@ -1492,10 +1593,12 @@ public class SqlCompiler implements Closeable {
         AlterStatementBuilder partitions;
         if (action == PartitionAction.DROP) {
             partitions = alterQueryBuilder.ofDropPartition(pos, tableName, reader.getMetadata().getId());
+        } else if (action == PartitionAction.COMPRESS) {
+            partitions = alterQueryBuilder.ofCompressPartition(pos, tableName, reader.getMetadata().getId());
         } else {
             partitions = alterQueryBuilder.ofAttachPartition(pos, tableName, reader.getMetadata().getId());
         }
-        assert action == PartitionAction.DROP || action == PartitionAction.ATTACH;
+        assert action == PartitionAction.DROP || action == PartitionAction.ATTACH || action == PartitionAction.COMPRESS;
         int semicolonPos = -1;
         do {
             CharSequence tok = maybeExpectToken(lexer, "partition name", semicolonPos < 0);
@@ -1638,9 +1741,11 @@ public class SqlCompiler implements Closeable {
         switch (executionModel.getModelType()) {
             case ExecutionModel.QUERY:
                 LOG.info().$("plan [q=`").$((QueryModel) executionModel).$("`, fd=").$(executionContext.getRequestFd()).$(']').$();
-                return compiledQuery.of(generate((QueryModel) executionModel, executionContext));
+                return compiledQuery.of(maybeCacheResult(generate((QueryModel) executionModel, executionContext)));
             case ExecutionModel.CREATE_TABLE:
                 return createTableWithRetries(executionModel, executionContext);
+            case ExecutionModel.CREATE_MAT_VIEW:
+                return createMatView((CreateMatViewModel) executionModel, executionContext);
             case ExecutionModel.COPY:
                 return executeCopy(executionContext, (CopyModel) executionModel);
             case ExecutionModel.RENAME_TABLE:
@@ -1764,6 +1869,9 @@ public class SqlCompiler implements Closeable {
 
     private void copyTable(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
         try {
+            if (configuration.isSqlCopyParallelEnabled() && copyTableParallel(executionContext, model)) {
+                return;
+            }
             int len = configuration.getSqlCopyBufferSize();
             long buf = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
             try {
@@ -1806,6 +1914,32 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private boolean copyTableParallel(SqlExecutionContext executionContext, CopyModel model) throws SqlException, TextException {
+        final CharSequence name = GenericLexer.assertNoDots(GenericLexer.unquote(model.getFileName().token), model.getFileName().position);
+        path.of(configuration.getInputRoot()).concat(name).$();
+        final long maxChunkCount = ff.length(path) / configuration.getSqlCopyParallelMinChunkSize();
+        if (maxChunkCount < 2) {
+            // small or missing file, serial import will do
+            return false;
+        }
+        if (parallelTextImporter == null) {
+            parallelTextImporter = new ParallelTextImporter(engine);
+        }
+        try {
+            parallelTextImporter.configureDestination(model.getTableName().token, false, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
+            parallelTextImporter.setForceHeaders(model.isHeader());
+            parallelTextImporter.setSkipRowsWithExtraValues(false);
+            parallelTextImporter.load(
+                    path,
+                    (int) Math.min(maxChunkCount, executionContext.getWorkerCount() + 1),
+                    executionContext.getCairoSecurityContext()
+            );
+        } finally {
+            parallelTextImporter.clear();
+        }
+        return true;
+    }
+
     private TableWriter copyTableData(CharSequence tableName, RecordCursor cursor, RecordMetadata cursorMetadata) {
         TableWriter writer = new TableWriter(configuration, tableName, messageBus, false, DefaultLifecycleManager.INSTANCE);
         try {
@@ -1885,6 +2019,92 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofCreateTable();
     }
 
+    /**
+     * Creates materialized view. View is a regular table populated from its query and
+     * refreshed by {@link io.questdb.griffin.engine.matview.MatViewRefreshJob} after base table commits.
+     * <code>
+     * create materialized view x as (select ts, sym, avg(price) from trades sample by 1h align to calendar)
+     * </code>
+     * Refresh re-computes SAMPLE BY buckets from the earliest changed partition of base table onwards,
+     * hence query must read from a single partitioned table and produce calendar-aligned buckets.
+     */
+    private CompiledQuery createMatView(CreateMatViewModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode name = model.getName();
+        final String viewName = Chars.toString(name.token);
+        final String query = model.getQuery();
+        final int queryPosition = model.getQueryPosition();
+
+        if (engine.getStatus(executionContext.getCairoSecurityContext(), path, viewName) != TableUtils.TABLE_DOES_NOT_EXIST) {
+            throw SqlException.$(name.position, "table already exists");
+        }
+
+        final ObjList<CharSequence> tableNames = optimiser.getQueryTableNames();
+        if (tableNames.size() == 0 || optimiser.queryUsesFunctionSources()) {
+            throw SqlException.$(queryPosition, "materialized view query must select from a single table");
+        }
+        final String baseTableName = Chars.toString(tableNames.getQuick(0));
+        for (int i = 1, n = tableNames.size(); i < n; i++) {
+            if (!Chars.equals(tableNames.getQuick(i), baseTableName)) {
+                throw SqlException.$(queryPosition, "materialized view query must select from a single table");
+            }
+        }
+
+        final QueryModel sampleByModel = findSampleByModel(model.getQueryModel());
+        if (sampleByModel == null) {
+            throw SqlException.$(queryPosition, "materialized view query must use SAMPLE BY");
+        }
+        final ExpressionNode sampleBy = sampleByModel.getSampleBy();
+        if (sampleByModel.getSampleByUnit() != null) {
+            throw SqlException.$(sampleBy.position, "materialized view requires constant SAMPLE BY interval");
+        }
+        if (sampleByModel.getSampleByFill().size() > 0) {
+            throw SqlException.$(sampleBy.position, "FILL is not supported by materialized views");
+        }
+        final ExpressionNode offset = sampleByModel.getSampleByOffset();
+        if (sampleByModel.getSampleByTimezoneName() != null || offset == null || !Chars.equals(offset.token, "'00:00'")) {
+            throw SqlException.$(sampleBy.position, "materialized view requires ALIGN TO CALENDAR without time zone and offset");
+        }
+
+        final String timestampColumn;
+        try (RecordCursorFactory factory = generate(model.getQueryModel(), executionContext)) {
+            if (!functionParser.isDeterministic()) {
+                throw SqlException.$(queryPosition, "materialized view query must be deterministic");
+            }
+            final RecordMetadata metadata = factory.getMetadata();
+            if (metadata.getTimestampIndex() < 0) {
+                throw SqlException.$(queryPosition, "materialized view query must select designated timestamp");
+            }
+            timestampColumn = Chars.toString(metadata.getColumnName(metadata.getTimestampIndex()));
+        }
+
+        final MatViewDefinition definition;
+        final int partitionBy;
+        try (TableReader baseReader = engine.getReader(executionContext.getCairoSecurityContext(), baseTableName)) {
+            partitionBy = baseReader.getPartitionedBy();
+            if (!PartitionBy.isPartitioned(partitionBy)) {
+                throw SqlException.$(queryPosition, "base table of materialized view must be partitioned");
+            }
+            final TableReaderMetadata baseMetadata = baseReader.getMetadata();
+            definition = new MatViewDefinition(
+                    viewName,
+                    baseTableName,
+                    Chars.toString(baseMetadata.getColumnName(baseMetadata.getTimestampIndex())),
+                    Chars.toString(sampleBy.token),
+                    query
+            );
+            // view is populated after this snapshot, commits made in between are picked up by the first refresh
+            definition.getRefreshLo(baseReader);
+            definition.refreshed();
+        }
+
+        compile(
+                "create table '" + viewName + "' as (" + query + ") timestamp(" + timestampColumn + ") partition by " + PartitionBy.toString(partitionBy),
+                executionContext
+        );
+        engine.getMatViewRegistry().create(definition);
+        return compiledQuery.ofCreateTable();
+    }
+
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
              final RecordCursor cursor = factory.getCursor(executionContext)
@@ -1954,6 +2174,10 @@ public class SqlCompiler implements Closeable {
 
     @NotNull
     private CompiledQuery executeCopy(SqlExecutionContext executionContext, CopyModel executionModel) throws SqlException {
+        if (executionModel.isExport()) {
+            exportTable(executionContext, executionModel);
+            return compiledQuery.ofCopyLocal();
+        }
         setupTextLoaderFromModel(executionModel);
         if (Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
             return compiledQuery.ofCopyRemote(textLoader);
@@ -1962,6 +2186,47 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofCopyLocal();
     }
 
+    private void exportTable(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        final ExpressionNode fileName = model.getFileName();
+        final CharSequence name = GenericLexer.assertNoDots(GenericLexer.unquote(fileName.token), fileName.position);
+        try (RecordCursorFactory factory = generate(optimiser.optimise(model.getQueryModel(), executionContext), executionContext)) {
+            if (!factory.supportPageFrameCursor()) {
+                throw SqlException.$(model.getTableName().position, "table does not support export");
+            }
+            // encoder buffers are only allocated for the duration of export
+            try (
+                    PageFrameCursor cursor = factory.getPageFrameCursor(executionContext);
+                    ParquetEncoder parquetEncoder = new ParquetEncoder()
+            ) {
+                try {
+                    parquetEncoder.of(factory.getMetadata(), cursor);
+                } catch (CairoException e) {
+                    throw SqlException.$(model.getTableName().position, e.getFlyweightMessage());
+                }
+                path.of(configuration.getInputRoot()).concat(name).$();
+                final long fd = ff.openRW(path);
+                if (fd == -1) {
+                    throw SqlException.$(fileName.position, "could not open file [errno=").put(ff.errno()).put(", path=").put(path).put(']');
+                }
+                try {
+                    long offset = 0;
+                    while (parquetEncoder.next()) {
+                        final long size = parquetEncoder.getSize();
+                        if (ff.write(fd, parquetEncoder.getAddress(), size, offset) != size) {
+                            throw SqlException.$(fileName.position, "could not write file [errno=").put(ff.errno()).put(']');
+                        }
+                        offset += size;
+                    }
+                    // file may have existed and been longer
+                    ff.truncate(fd, offset);
+                    LOG.info().$("exported [table=").$(model.getTableName().token).$(", path=").$(path).$(", size=").$(offset).$(']').$();
+                } finally {
+                    ff.close(fd);
+                }
+            }
+        }
+    }
+
     private CompiledQuery executeWithRetries(
             ExecutableMethod method,
             ExecutionModel executionModel,
@@ -1987,6 +2252,29 @@ public class SqlCompiler implements Closeable {
         return codeGenerator.generate(queryModel, executionContext);
     }
 
+    // results are cached only when they depend on nothing but content of the tables query reads
+    private RecordCursorFactory maybeCacheResult(RecordCursorFactory factory) {
+        if (
+                !engine.getQueryResultCache().isEnabled()
+                        || optimiser.queryUsesFunctionSources()
+                        || optimiser.getQueryTableNames().size() == 0
+                        || !functionParser.isDeterministic()
+        ) {
+            return factory;
+        }
+        final RecordMetadata metadata = factory.getMetadata();
+        entityColumnFilter.of(metadata.getColumnCount());
+        return new CachedResultRecordCursorFactory(
+                configuration,
+                engine,
+                factory,
+                lexer.getContent(),
+                optimiser.getQueryTableNames(),
+                optimiser.getQueryTableVersions(),
+                RecordSinkFactory.getInstance(asm, metadata, entityColumnFilter, true)
+        );
+    }
+
     private CompiledQuery insert(ExecutionModel executionModel, SqlExecutionContext executionContext) throws SqlException {
         final InsertModel model = (InsertModel) executionModel;
         final ExpressionNode name = model.getTableName();
@@ -2566,6 +2854,17 @@ public class SqlCompiler implements Closeable {
         if (PartitionBy.isPartitioned(model.getPartitionBy()) && model.getTimestampIndex() == -1 && metadata.getTimestampIndex() == -1) {
             throw SqlException.position(0).put("timestamp is not defined");
         }
+
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (model.isDedupKey(i)) {
+                final int index = typeCast.keyIndex(i);
+                final int type = index < 0 ? typeCast.valueAt(index) : metadata.getColumnType(i);
+                if (ColumnType.isVariableLength(type)) {
+                    throw SqlException.position(0).put("deduplication key must be a fixed size column [column=")
+                            .put(metadata.getColumnName(i)).put(", type=").put(ColumnType.nameOf(type)).put(']');
+                }
+            }
+        }
     }
 
     // used in tests
@@ -2611,6 +2910,7 @@ public class SqlCompiler implements Closeable {
     public final static class PartitionAction {
         public static final int DROP = 1;
         public static final int ATTACH = 2;
+        public static final int COMPRESS = 3;
     }
 
     private static class TableStructureAdapter implements TableStructure {
@@ -2648,6 +2948,11 @@ public class SqlCompiler implements Closeable {
             return model.isIndexed(columnIndex);
         }
 
+        @Override
+        public boolean isDedupKey(int columnIndex) {
+            return model.isDedupKey(columnIndex);
+        }
+
         @Override
         public boolean isSequential(int columnIndex) {
             return model.isSequential(columnIndex);
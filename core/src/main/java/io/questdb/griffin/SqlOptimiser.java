@@ -99,7 +99,10 @@ class SqlOptimiser {
     private final ObjList<ExpressionNode> orderByAdvice = new ObjList<>();
     private final LowerCaseCharSequenceObjHashMap<QueryColumn> tmpCursorAliases = new LowerCaseCharSequenceObjHashMap<>();
     private final ObjList<Function> functionsInFlight = new ObjList<>();
+    private final ObjList<CharSequence> queryTableNames = new ObjList<>();
+    private final LongList queryTableVersions = new LongList();
     private int defaultAliasCount = 0;
+    private boolean queryUsesFunctionSources = false;
     private ObjList<JoinContext> emittedJoinClauses;
 
     SqlOptimiser(
@@ -666,6 +669,21 @@ class SqlOptimiser {
         clausesToSteal.clear();
         tmpCursorAliases.clear();
         functionsInFlight.clear();
+        queryTableNames.clear();
+        queryTableVersions.clear();
+        queryUsesFunctionSources = false;
+    }
+
+    private void addQueryTable(TableReader reader) {
+        final String tableName = reader.getTableName();
+        for (int i = 0, n = queryTableNames.size(); i < n; i++) {
+            if (Chars.equals(queryTableNames.getQuick(i), tableName)) {
+                return;
+            }
+        }
+        queryTableNames.add(tableName);
+        queryTableVersions.add(reader.getMetadata().getId());
+        queryTableVersions.add(reader.getVersion());
     }
 
     private void collectAlias(QueryModel parent, int modelIndex, QueryModel model) throws SqlException {
@@ -1864,6 +1882,7 @@ class SqlOptimiser {
             model.setTableVersion(r.getVersion());
             model.setTableId(r.getMetadata().getId());
             copyColumnsFromMetadata(model, r.getMetadata(), false);
+            addQueryTable(r);
         } catch (EntryLockedException e) {
             throw SqlException.position(tableNamePosition).put("table is locked: ").put(tableLookupSequence);
         } catch (CairoException e) {
@@ -1871,6 +1890,28 @@ class SqlOptimiser {
         }
     }
 
+    /**
+     * @return names of tables read by the last optimised query, valid until {@link #clear()}
+     */
+    ObjList<CharSequence> getQueryTableNames() {
+        return queryTableNames;
+    }
+
+    /**
+     * @return pairs of table id and structure version, in the same order as {@link #getQueryTableNames()}
+     */
+    LongList getQueryTableVersions() {
+        return queryTableVersions;
+    }
+
+    /**
+     * @return true when last optimised query selects from functions, such as long_sequence() or tables(),
+     * rather than from tables only
+     */
+    boolean queryUsesFunctionSources() {
+        return queryUsesFunctionSources;
+    }
+
     QueryModel optimise(QueryModel model, SqlExecutionContext sqlExecutionContext) throws SqlException {
         final QueryModel rewrittenModel;
         try {
@@ -2153,6 +2194,7 @@ class SqlOptimiser {
 
     private void parseFunctionAndEnumerateColumns(@NotNull QueryModel model, @NotNull SqlExecutionContext executionContext) throws SqlException {
         assert model.getTableNameFunction() == null;
+        queryUsesFunctionSources = true;
         final Function function = functionParser.parseFunction(model.getTableName(), AnyRecordMetadata.INSTANCE, executionContext);
         if (!ColumnType.isCursor(function.getType())) {
             throw SqlException.$(model.getTableName().position, "function must return CURSOR");
@@ -54,6 +54,7 @@ public final class SqlParser {
     private final ObjectPool<WithClauseModel> withClauseModelPool;
     private final ObjectPool<InsertModel> insertModelPool;
     private final ObjectPool<CopyModel> copyModelPool;
+    private final ObjectPool<CreateMatViewModel> createMatViewModelPool;
     private final ExpressionParser expressionParser;
     private final CairoConfiguration configuration;
     private final PostOrderTreeTraversalAlgo traversalAlgo;
@@ -86,6 +87,7 @@ public final class SqlParser {
         this.withClauseModelPool = new ObjectPool<>(WithClauseModel.FACTORY, configuration.getWithClauseModelPoolCapacity());
         this.insertModelPool = new ObjectPool<>(InsertModel.FACTORY, configuration.getInsertPoolCapacity());
         this.copyModelPool = new ObjectPool<>(CopyModel.FACTORY, configuration.getCopyPoolCapacity());
+        this.createMatViewModelPool = new ObjectPool<>(CreateMatViewModel.FACTORY, configuration.getCreateTableModelPoolCapacity());
         this.configuration = configuration;
         this.traversalAlgo = traversalAlgo;
         this.characterStore = characterStore;
@@ -162,6 +164,7 @@ public final class SqlParser {
         insertModelPool.clear();
         expressionTreeBuilder.reset();
         copyModelPool.clear();
+        createMatViewModelPool.clear();
     }
 
     private CharSequence createColumnAlias(ExpressionNode node, QueryModel model) {
@@ -419,7 +422,8 @@ public final class SqlParser {
         ExpressionNode tableName = expectExpr(lexer);
         CharSequence tok = tok(lexer, "'from' or 'to'");
 
-        if (isFromKeyword(tok)) {
+        final boolean export = isToKeyword(tok);
+        if (export || isFromKeyword(tok)) {
             final ExpressionNode fileName = expectExpr(lexer);
             if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
                 throw SqlException.$(fileName.position, "file name expected");
@@ -427,14 +431,31 @@ public final class SqlParser {
             CopyModel model = copyModelPool.next();
             model.setTableName(tableName);
             model.setFileName(fileName);
+            model.setExport(export);
+            if (export) {
+                // exported table is read via "select * from table" so that data is streamed page frame at a time
+                final QueryModel queryModel = queryModelPool.next();
+                queryModel.addBottomUpColumn(SqlUtil.nextColumn(queryColumnPool, expressionNodePool, "*", "*"));
+                final QueryModel nestedModel = queryModelPool.next();
+                nestedModel.setTableName(literal(tableName.token, tableName.position));
+                queryModel.setSelectModelType(QueryModel.SELECT_MODEL_CHOOSE);
+                queryModel.setNestedModel(nestedModel);
+                model.setQueryModel(queryModel);
+            }
 
             tok = optTok(lexer);
             if (tok != null && isWithKeyword(tok)) {
                 tok = tok(lexer, "copy option");
                 while (tok != null) {
-                    if (isHeaderKeyword(tok)) {
+                    if (!export && isHeaderKeyword(tok)) {
                         model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
                         tok = optTok(lexer);
+                    } else if (export && isFormatKeyword(tok)) {
+                        // parquet is the only export format at the moment
+                        if (!isParquetKeyword(tok(lexer, "'parquet'"))) {
+                            throw SqlException.$(lexer.lastTokenPosition(), "'parquet' expected");
+                        }
+                        tok = optTok(lexer);
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
                     }
@@ -442,11 +463,33 @@ public final class SqlParser {
             }
             return model;
         }
-        throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
+        throw SqlException.$(lexer.lastTokenPosition(), "'from' or 'to' expected");
+    }
+
+    private ExecutionModel parseCreateMatView(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final CreateMatViewModel model = createMatViewModelPool.next();
+        final CharSequence viewName = tok(lexer, "view name");
+        model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(viewName), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+        final int queryLo = lexer.getPosition();
+        model.setQueryModel(optimiser.optimise(parseDml(lexer, null), executionContext));
+        expectTok(lexer, ')');
+        // view keeps text of the query rather than the model, the query is re-compiled on every refresh
+        model.setQuery(Chars.toString(lexer.getContent().subSequence(queryLo, lexer.lastTokenPosition())).trim(), queryLo);
+        return model;
     }
 
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
-        expectTok(lexer, "table");
+        final CharSequence tok = optTok(lexer);
+        if (tok != null && isMaterializedKeyword(tok)) {
+            expectTok(lexer, "view");
+            return parseCreateMatView(lexer, executionContext);
+        }
+        if (tok == null) {
+            throw SqlException.position(lexer.getPosition()).put("'table' expected");
+        }
+        expectTok(lexer, tok, "table");
         return parseCreateTable(lexer, executionContext);
     }
 
@@ -536,6 +579,11 @@ public final class SqlParser {
         model.setMaxUncommittedRows(maxUncommittedRows);
         model.setCommitLag(commitLag);
 
+        if (tok != null && isDedupKeyword(tok)) {
+            parseCreateTableDedupKeys(lexer, model);
+            tok = optTok(lexer);
+        }
+
         if (tok == null || Chars.equals(tok, ';')) {
             return model;
         }
@@ -709,6 +757,39 @@ public final class SqlParser {
         }
     }
 
+    private void parseCreateTableDedupKeys(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        final int dedupPosition = lexer.lastTokenPosition();
+        if (!PartitionBy.isPartitioned(model.getPartitionBy())) {
+            throw SqlException.$(dedupPosition, "deduplication is supported only for partitioned tables");
+        }
+        expectTok(lexer, "upsert");
+        expectTok(lexer, "keys");
+        expectTok(lexer, '(');
+        while (true) {
+            final int columnIndex = getCreateTableColumnIndex(model, expectLiteral(lexer).token, lexer.lastTokenPosition());
+            // column types of "create as select" are validated by compiler
+            final int columnType = model.getColumnType(columnIndex);
+            if (columnType > -1 && ColumnType.isVariableLength(columnType)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "deduplication key must be a fixed size column [type=").put(ColumnType.nameOf(columnType)).put(']');
+            }
+            model.setDedupKeyFlag(columnIndex);
+
+            CharSequence tok = tok(lexer, "',' or ')'");
+            if (Chars.equals(tok, ')')) {
+                break;
+            }
+
+            if (!Chars.equals(tok, ',')) {
+                throw err(lexer, "',' or ')' expected");
+            }
+        }
+
+        final int timestampIndex = model.getTimestampIndex();
+        if (timestampIndex == -1 || !model.isDedupKey(timestampIndex)) {
+            throw SqlException.$(dedupPosition, "UPSERT KEYS must include designated timestamp");
+        }
+    }
+
     private void parseCreateTableIndexDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
         expectTok(lexer, '(');
         final int columnIndex = getCreateTableColumnIndex(model, expectLiteral(lexer).token, lexer.lastTokenPosition());
@@ -949,7 +1030,8 @@ public final class SqlParser {
                 if (isCalendarKeyword(tok)) {
                     tok = optTok(lexer);
 
-                    if (tok != null) {
+                    // closing brace ends sub-query, e.g. 'create table x as (... align to calendar)'
+                    if (tok != null && !Chars.equals(tok, ')')) {
                         if (isTimeKeyword(tok)) {
                             expectZone(lexer);
                             model.setSampleByTimezoneName(expectExpr(lexer));
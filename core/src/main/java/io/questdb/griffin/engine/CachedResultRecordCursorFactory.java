@@ -0,0 +1,417 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.QueryResultCache;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Serves query result from {@link QueryResultCache} while none of the tables the query reads
+ * has changed. Otherwise, result of the base factory is streamed to the client and copied aside
+ * as it goes. Copy is offered to the cache once cursor is closed, provided the client has read
+ * the whole result and the copy has not outgrown the maximum result size. Larger results are
+ * never cached, they are streamed only. Symbol columns are stored as strings, cached result
+ * cannot be linked to symbol tables of the readers it was computed from.
+ */
+public class CachedResultRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final CairoEngine engine;
+    private final QueryResultCache cache;
+    private final RecordCursorFactory base;
+    private final String sql;
+    private final ObjList<String> tableNames = new ObjList<>();
+    // table id and structure version per table name
+    private final LongList tableStructureVersions = new LongList();
+    // txn and data version per table name, as of the current execution
+    private final LongList tableVersions = new LongList();
+    private final ArrayColumnTypes columnTypes = new ArrayColumnTypes();
+    private final RecordSink recordSink;
+    private final long pageSize;
+    private final long maxResultSize;
+    private final CachedResultRecordCursor cursor = new CachedResultRecordCursor();
+
+    public CachedResultRecordCursorFactory(
+            CairoConfiguration configuration,
+            CairoEngine engine,
+            RecordCursorFactory base,
+            CharSequence sql,
+            @Transient ObjList<CharSequence> tableNames,
+            @Transient LongList tableStructureVersions,
+            RecordSink recordSink
+    ) {
+        super(base.getMetadata());
+        this.engine = engine;
+        this.cache = engine.getQueryResultCache();
+        this.base = base;
+        this.sql = Chars.toString(sql);
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            this.tableNames.add(Chars.toString(tableNames.getQuick(i)));
+        }
+        this.tableStructureVersions.add(tableStructureVersions);
+        final RecordMetadata metadata = base.getMetadata();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int type = metadata.getColumnType(i);
+            columnTypes.add(ColumnType.isSymbol(type) ? ColumnType.STRING : type);
+        }
+        this.recordSink = recordSink;
+        this.pageSize = configuration.getQueryResultCachePageSize();
+        this.maxResultSize = configuration.getQueryResultCacheMaxResultSize();
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        readTableVersions(executionContext);
+        QueryResultCache.Entry entry = cache.poll(sql);
+        if (entry != null && isCurrent(entry.getTableVersions())) {
+            cache.recordHit();
+            cursor.of(entry);
+            return cursor;
+        }
+        Misc.free(entry);
+        cache.recordMiss();
+        entry = new QueryResultCache.Entry(new RecordChain(columnTypes, recordSink, pageSize, Integer.MAX_VALUE));
+        try {
+            cursor.of(base.getCursor(executionContext), entry);
+        } catch (Throwable e) {
+            entry.close();
+            throw e;
+        }
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        // cached result supports random access, but it is not known upfront whether result is cached
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private boolean isCurrent(LongList entryVersions) {
+        if (entryVersions.size() != tableVersions.size()) {
+            return false;
+        }
+        for (int i = 0, n = tableVersions.size(); i < n; i++) {
+            if (entryVersions.getQuick(i) != tableVersions.getQuick(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readTableVersions(SqlExecutionContext executionContext) {
+        tableVersions.clear();
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            try (
+                    TableReader reader = engine.getReader(
+                            executionContext.getCairoSecurityContext(),
+                            tableNames.getQuick(i),
+                            (int) tableStructureVersions.getQuick(2 * i),
+                            tableStructureVersions.getQuick(2 * i + 1)
+                    )
+            ) {
+                tableVersions.add(reader.getTxn());
+                tableVersions.add(reader.getDataVersion());
+            }
+        }
+    }
+
+    private static class CachedResultRecord implements Record {
+        private Record base;
+
+        @Override
+        public BinarySequence getBin(int col) {
+            return base.getBin(col);
+        }
+
+        @Override
+        public long getBinLen(int col) {
+            return base.getBinLen(col);
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return base.getBool(col);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return base.getByte(col);
+        }
+
+        @Override
+        public char getChar(int col) {
+            return base.getChar(col);
+        }
+
+        @Override
+        public long getDate(int col) {
+            return base.getDate(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return base.getDouble(col);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return base.getFloat(col);
+        }
+
+        @Override
+        public byte getGeoByte(int col) {
+            return base.getGeoByte(col);
+        }
+
+        @Override
+        public int getGeoInt(int col) {
+            return base.getGeoInt(col);
+        }
+
+        @Override
+        public long getGeoLong(int col) {
+            return base.getGeoLong(col);
+        }
+
+        @Override
+        public short getGeoShort(int col) {
+            return base.getGeoShort(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            return base.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            return base.getLong(col);
+        }
+
+        @Override
+        public void getLong256(int col, CharSink sink) {
+            base.getLong256(col, sink);
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return base.getLong256A(col);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            return base.getLong256B(col);
+        }
+
+        @Override
+        public long getRowId() {
+            return base.getRowId();
+        }
+
+        @Override
+        public short getShort(int col) {
+            return base.getShort(col);
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return base.getStr(col);
+        }
+
+        @Override
+        public void getStr(int col, CharSink sink) {
+            base.getStr(col, sink);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return base.getStrB(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return base.getStrLen(col);
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            return base.getStr(col);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            return base.getStrB(col);
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return base.getTimestamp(col);
+        }
+
+        private void of(Record base) {
+            this.base = base;
+        }
+    }
+
+    private class CachedResultRecordCursor implements RecordCursor {
+        private final CachedResultRecord recordA = new CachedResultRecord();
+        private final CachedResultRecord recordB = new CachedResultRecord();
+        // cursor of the base factory when result is computed rather than served from cache
+        private RecordCursor baseCursor;
+        private Record baseRecord;
+        // cached result or copy of the result being computed, null once copy is abandoned
+        private QueryResultCache.Entry entry;
+        private RecordChain chain;
+        private boolean complete;
+        private long offset;
+        private long rowCount;
+
+        @Override
+        public void close() {
+            if (baseCursor != null) {
+                baseCursor = Misc.free(baseCursor);
+                baseRecord = null;
+                if (!complete) {
+                    abandon();
+                }
+            }
+            if (entry != null) {
+                cache.push(sql, entry);
+                entry = null;
+                chain = null;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return baseCursor != null ? baseRecord : recordA;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (baseCursor != null) {
+                return baseCursor.getSymbolTable(columnIndex);
+            }
+            return RecordCursor.super.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor == null) {
+                return chain.hasNext();
+            }
+            if (baseCursor.hasNext()) {
+                if (entry != null) {
+                    offset = chain.put(baseRecord, offset);
+                    rowCount++;
+                    if (chain.getAppendOffset() > maxResultSize) {
+                        abandon();
+                    }
+                }
+                return true;
+            }
+            if (entry != null && !complete) {
+                complete = true;
+                entry.setRowCount(rowCount);
+                // versions are read before base cursor is opened, result may be newer than versions say,
+                // which causes a needless recompute rather than a stale hit
+                entry.getTableVersions().add(tableVersions);
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return baseCursor != null ? baseCursor.getRecordB() : recordB;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            if (baseCursor != null) {
+                baseCursor.recordAt(record, atRowId);
+            } else {
+                chain.recordAt(((CachedResultRecord) record).base, atRowId);
+            }
+        }
+
+        @Override
+        public void toTop() {
+            if (baseCursor != null) {
+                // rows are copied once, a copy that has not reached the end yet is of no use
+                if (!complete) {
+                    abandon();
+                }
+                baseCursor.toTop();
+            } else {
+                chain.toTop();
+            }
+        }
+
+        @Override
+        public long size() {
+            return baseCursor != null ? baseCursor.size() : entry.getRowCount();
+        }
+
+        private void abandon() {
+            entry = Misc.free(entry);
+            chain = null;
+        }
+
+        private void of(QueryResultCache.Entry entry) {
+            this.baseCursor = null;
+            this.baseRecord = null;
+            this.entry = entry;
+            this.chain = entry.getChain();
+            recordA.of(chain.getRecord());
+            recordB.of(chain.getRecordB());
+            chain.toTop();
+        }
+
+        private void of(RecordCursor baseCursor, QueryResultCache.Entry entry) {
+            this.baseCursor = baseCursor;
+            this.baseRecord = baseCursor.getRecord();
+            this.entry = entry;
+            this.chain = entry.getChain();
+            this.complete = false;
+            this.offset = -1L;
+            this.rowCount = 0;
+        }
+    }
+}
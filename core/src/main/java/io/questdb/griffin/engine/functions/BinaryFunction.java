@@ -48,6 +48,11 @@ public interface BinaryFunction extends Function {
         return getLeft().isConstant() && getRight().isConstant();
     }
 
+    @Override
+    default boolean isReadThreadSafe() {
+        return getLeft().isReadThreadSafe() && getRight().isReadThreadSafe();
+    }
+
     @Override
     default void toTop() {
         getLeft().toTop();
@@ -49,10 +49,29 @@ public interface GroupByFunction extends Function {
 
     void computeNext(MapValue mapValue, Record record);
 
+    /**
+     * @return true when map value holds address of memory owned by this function. Such values are
+     * valid only until the function is re-initialised and must not be kept between executions.
+     */
+    default boolean hasNativeState() {
+        return false;
+    }
+
     default boolean isScalar() {
         return true;
     }
 
+    /**
+     * Merges partial aggregate state of the same group, computed by another worker, into destValue.
+     * Only called when {@link #supportsParallelism()} returns true.
+     *
+     * @param destValue map value to merge into
+     * @param srcValue  map value produced by another instance of this function
+     */
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
@@ -84,4 +103,8 @@ public interface GroupByFunction extends Function {
     default void setShort(MapValue mapValue, short value) {
         throw new UnsupportedOperationException();
     }
+
+    default boolean supportsParallelism() {
+        return false;
+    }
 }
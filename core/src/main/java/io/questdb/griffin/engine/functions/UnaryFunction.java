@@ -52,6 +52,11 @@ public interface UnaryFunction extends Function {
         getArg().init(symbolTableSource, executionContext);
     }
 
+    @Override
+    default boolean isReadThreadSafe() {
+        return getArg().isReadThreadSafe();
+    }
+
     default boolean isRuntimeConstant() {
         return getArg().isRuntimeConstant();
     }
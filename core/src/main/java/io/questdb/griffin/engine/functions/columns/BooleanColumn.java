@@ -34,6 +34,11 @@ import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COL
 public class BooleanColumn extends BooleanFunction implements ScalarFunction {
     private static final ObjList<BooleanColumn> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
 
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
+
     static {
         COLUMNS.setPos(STATIC_COLUMN_COUNT);
         for (int i = 0; i < STATIC_COLUMN_COUNT; i++) {
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Base of approx_count_distinct() implementations. Map value holds address of the group's
+ * {@link HyperLogLog} sketch. Sketches are carved out of native pages owned by this function,
+ * addresses stay valid until the function is re-initialised, so sketches of other instances
+ * can be merged into this instance's map values.
+ */
+public abstract class AbstractApproxCountDistinctGroupByFunction extends LongFunction implements GroupByFunction, UnaryFunction {
+    private static final long NULL_SKETCH = -1;
+    private static final int PAGE_SKETCH_COUNT_MSB = 6;
+    private static final long PAGE_SIZE = HyperLogLog.SIZE << PAGE_SKETCH_COUNT_MSB;
+    protected final Function arg;
+    private final LongList pages = new LongList();
+    private int sketchCount;
+    private int valueIndex;
+
+    public AbstractApproxCountDistinctGroupByFunction(@NotNull Function arg) {
+        this.arg = arg;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = pages.size(); i < n; i++) {
+            Unsafe.free(pages.getQuick(i), PAGE_SIZE, MemoryTag.NATIVE_DEFAULT);
+        }
+        pages.clear();
+        sketchCount = 0;
+        arg.close();
+    }
+
+    @Override
+    public boolean hasNativeState() {
+        return true;
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record) {
+        final long sketch = newSketch();
+        add(sketch, record);
+        mapValue.putLong(valueIndex, sketch);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record) {
+        add(mapValue.getLong(valueIndex), record);
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        final long sketch = rec.getLong(valueIndex);
+        if (sketch == NULL_SKETCH) {
+            return Numbers.LONG_NaN;
+        }
+        return sketch != 0 ? HyperLogLog.estimate(sketch) : 0;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        sketchCount = 0;
+        arg.init(symbolTableSource, executionContext);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        final long srcSketch = srcValue.getLong(valueIndex);
+        if (srcSketch == 0 || srcSketch == NULL_SKETCH) {
+            return;
+        }
+        final long destSketch = destValue.getLong(valueIndex);
+        if (destSketch == 0 || destSketch == NULL_SKETCH) {
+            destValue.putLong(valueIndex, srcSketch);
+        } else {
+            HyperLogLog.merge(destSketch, srcSketch);
+        }
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        columnTypes.add(ColumnType.LONG);
+    }
+
+    @Override
+    public void setEmpty(MapValue mapValue) {
+        mapValue.putLong(valueIndex, 0);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        mapValue.putLong(valueIndex, NULL_SKETCH);
+    }
+
+    @Override
+    public boolean supportsParallelism() {
+        return arg.isReadThreadSafe();
+    }
+
+    @Override
+    public void toTop() {
+        // sketches are reused once map values that point to them are recomputed
+        sketchCount = 0;
+        arg.toTop();
+    }
+
+    /**
+     * Adds value of the argument to the sketch, null values are skipped.
+     */
+    protected abstract void add(long sketch, Record record);
+
+    private long newSketch() {
+        final int page = sketchCount >>> PAGE_SKETCH_COUNT_MSB;
+        if (page == pages.size()) {
+            pages.add(Unsafe.malloc(PAGE_SIZE, MemoryTag.NATIVE_DEFAULT));
+        }
+        final long sketch = pages.getQuick(page) + ((sketchCount & ((1L << PAGE_SKETCH_COUNT_MSB) - 1)) << HyperLogLog.PRECISION);
+        sketchCount++;
+        HyperLogLog.clear(sketch);
+        return sketch;
+    }
+}
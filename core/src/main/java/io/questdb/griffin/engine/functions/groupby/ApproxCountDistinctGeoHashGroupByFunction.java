@@ -0,0 +1,63 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import org.jetbrains.annotations.NotNull;
+
+public class ApproxCountDistinctGeoHashGroupByFunction extends AbstractApproxCountDistinctGroupByFunction {
+    private final int typeTag;
+
+    public ApproxCountDistinctGeoHashGroupByFunction(@NotNull Function arg) {
+        super(arg);
+        this.typeTag = ColumnType.tagOf(arg.getType());
+    }
+
+    @Override
+    protected void add(long sketch, Record record) {
+        final long val;
+        switch (typeTag) {
+            case ColumnType.GEOBYTE:
+                val = arg.getGeoByte(record);
+                break;
+            case ColumnType.GEOSHORT:
+                val = arg.getGeoShort(record);
+                break;
+            case ColumnType.GEOINT:
+                val = arg.getGeoInt(record);
+                break;
+            default:
+                val = arg.getGeoLong(record);
+                break;
+        }
+        // all geohash null values widen to the same -1
+        if (val != GeoHashes.NULL) {
+            HyperLogLog.add(sketch, val);
+        }
+    }
+}
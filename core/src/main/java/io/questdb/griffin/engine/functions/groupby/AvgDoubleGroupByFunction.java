@@ -64,6 +64,12 @@ public class AvgDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addDouble(valueIndex, srcValue.getDouble(valueIndex));
+        destValue.addLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -71,6 +77,11 @@ public class AvgDoubleGroupByFunction extends DoubleFunction implements GroupByF
         columnTypes.add(ColumnType.LONG);
     }
 
+    @Override
+    public boolean supportsParallelism() {
+        return arg.isReadThreadSafe();
+    }
+
     @Override
     public void setDouble(MapValue mapValue, double value) {
         mapValue.putDouble(valueIndex, value);
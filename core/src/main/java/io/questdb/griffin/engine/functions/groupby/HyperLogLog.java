@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * HyperLogLog sketch kept in native memory, one byte per register. Sketches of the same
+ * precision merge by taking register-wise maximum, which lets partial aggregates computed
+ * by different workers be combined without loss.
+ */
+final class HyperLogLog {
+    static final int PRECISION = 12;
+    static final int REGISTER_COUNT = 1 << PRECISION;
+    static final long SIZE = REGISTER_COUNT;
+    private static final double ALPHA_MM = 0.7213 / (1 + 1.079 / REGISTER_COUNT) * REGISTER_COUNT * REGISTER_COUNT;
+    private static final double[] INVERSE_POW2 = new double[Long.SIZE - PRECISION + 2];
+
+    private HyperLogLog() {
+    }
+
+    static void add(long sketch, long value) {
+        final long hash = mix(value);
+        final long index = hash >>> (Long.SIZE - PRECISION);
+        // guard bit caps the rank when remaining hash bits are all zero
+        final byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        final long p = sketch + index;
+        if (Unsafe.getUnsafe().getByte(p) < rank) {
+            Unsafe.getUnsafe().putByte(p, rank);
+        }
+    }
+
+    static void clear(long sketch) {
+        Vect.memset(sketch, SIZE, 0);
+    }
+
+    static long estimate(long sketch) {
+        double sum = 0;
+        int zeros = 0;
+        for (long p = sketch, lim = sketch + SIZE; p < lim; p++) {
+            final byte rank = Unsafe.getUnsafe().getByte(p);
+            sum += INVERSE_POW2[rank];
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        final double estimate = ALPHA_MM / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeros > 0) {
+            // linear counting is more accurate for small cardinalities
+            return Math.round(REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    static long hash(CharSequence value) {
+        // FNV-1a, final mix is applied by add()
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    static long hash(long l0, long l1, long l2, long l3) {
+        long h = mix(l0);
+        h = mix(h ^ l1);
+        h = mix(h ^ l2);
+        return h ^ l3;
+    }
+
+    static void merge(long destSketch, long srcSketch) {
+        for (long i = 0; i < SIZE; i++) {
+            final byte rank = Unsafe.getUnsafe().getByte(srcSketch + i);
+            if (Unsafe.getUnsafe().getByte(destSketch + i) < rank) {
+                Unsafe.getUnsafe().putByte(destSketch + i, rank);
+            }
+        }
+    }
+
+    // murmur3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    static {
+        for (int i = 0; i < INVERSE_POW2.length; i++) {
+            INVERSE_POW2[i] = Math.pow(2, -i);
+        }
+    }
+}
@@ -57,12 +57,26 @@ public class MaxDateGroupByFunction extends DateFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long dest = destValue.getDate(valueIndex);
+        long src = srcValue.getDate(valueIndex);
+        if (src > dest) {
+            destValue.putDate(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.DATE);
     }
 
+    @Override
+    public boolean supportsParallelism() {
+        return arg.isReadThreadSafe();
+    }
+
     @Override
     public void setNull(MapValue mapValue) {
         mapValue.putDate(valueIndex, Numbers.LONG_NaN);
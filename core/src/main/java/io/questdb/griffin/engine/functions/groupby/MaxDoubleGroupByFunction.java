@@ -56,12 +56,26 @@ public class MaxDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        double dest = destValue.getDouble(valueIndex);
+        double src = srcValue.getDouble(valueIndex);
+        if (src > dest || Double.isNaN(dest)) {
+            destValue.putDouble(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.DOUBLE);
     }
 
+    @Override
+    public boolean supportsParallelism() {
+        return arg.isReadThreadSafe();
+    }
+
     @Override
     public void setDouble(MapValue mapValue, double value) {
         mapValue.putDouble(valueIndex, value);
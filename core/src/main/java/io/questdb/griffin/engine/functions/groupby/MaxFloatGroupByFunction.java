@@ -51,17 +51,31 @@ public class MaxFloatGroupByFunction extends FloatFunction implements GroupByFun
     public void computeNext(MapValue mapValue, Record record) {
         float max = mapValue.getFloat(valueIndex);
         float next = arg.getFloat(record);
-        if (next > max) {
+        if (next > max || Float.isNaN(max)) {
             mapValue.putFloat(valueIndex, next);
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        float dest = destValue.getFloat(valueIndex);
+        float src = srcValue.getFloat(valueIndex);
+        if (src > dest || Float.isNaN(dest)) {
+            destValue.putFloat(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.FLOAT);
     }
 
+    @Override
+    public boolean supportsParallelism() {
+        return arg.isReadThreadSafe();
+    }
+
     @Override
     public void setFloat(MapValue mapValue, float value) {
         mapValue.putFloat(valueIndex, value);
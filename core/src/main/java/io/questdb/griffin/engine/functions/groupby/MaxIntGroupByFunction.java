@@ -58,12 +58,26 @@ public class MaxIntGroupByFunction extends IntFunction implements GroupByFunctio
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        int dest = destValue.getInt(valueIndex);
+        int src = srcValue.getInt(valueIndex);
+        if (src > dest) {
+            destValue.putInt(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.INT);
     }
 
+    @Override
+    public boolean supportsParallelism() {
+        return arg.isReadThreadSafe();
+    }
+
     @Override
     public void setInt(MapValue mapValue, int value) {
         mapValue.putInt(valueIndex, value);
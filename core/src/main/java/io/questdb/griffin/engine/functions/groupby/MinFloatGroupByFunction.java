@@ -56,12 +56,26 @@ public class MinFloatGroupByFunction extends FloatFunction implements GroupByFun
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        float dest = destValue.getFloat(valueIndex);
+        float src = srcValue.getFloat(valueIndex);
+        if (src < dest || Float.isNaN(dest)) {
+            destValue.putFloat(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
         columnTypes.add(ColumnType.FLOAT);
     }
 
+    @Override
+    public boolean supportsParallelism() {
+        return arg.isReadThreadSafe();
+    }
+
     @Override
     public void setFloat(MapValue mapValue, float value) {
         mapValue.putFloat(valueIndex, value);
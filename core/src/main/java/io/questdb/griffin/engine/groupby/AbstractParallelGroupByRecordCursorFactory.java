@@ -0,0 +1,345 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.PageAddressCache;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.PageFrameReduceTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base for factories that aggregate page frames of the base factory in parallel. Each page frame
+ * is published to the page frame reduce queue and aggregated by a worker into a map of its own
+ * slot, using its own copy of group by functions. Slot maps are merged once all frames are done.
+ * The query thread takes part in aggregation, so the query completes when there are no workers.
+ */
+public abstract class AbstractParallelGroupByRecordCursorFactory implements RecordCursorFactory {
+
+    protected final RecordCursorFactory base;
+    protected final RecordMetadata metadata;
+    protected final ObjList<Function> recordFunctions;
+    protected final RecordSink mapSink;
+    protected final PageAddressCache pageAddressCache;
+    protected final LongList frameRowCounts = new LongList();
+    // partition index and first partition row per frame
+    protected final IntList framePartitionIndexes = new IntList();
+    protected final LongList framePartitionLos = new LongList();
+    protected final FastMap.MergeFunction mergeFunction = this::merge;
+    // group by functions of slot 0 are also referenced by record functions
+    private final ObjList<ObjList<GroupByFunction>> slotFunctions;
+    private final ObjList<FastMap> slotMaps;
+    private final ObjList<PageFrameRecord> slotRecords;
+    // 0 - slot is free, 1 - slot is in use by a thread
+    private final AtomicIntegerArray slotLocks;
+    private final int slotCount;
+    private final PageFrameReducer reducer = this::reduce;
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final CairoConfiguration configuration;
+    private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+    private volatile Throwable error;
+
+    public AbstractParallelGroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<ObjList<GroupByFunction>> slotFunctions,
+            ObjList<Function> recordFunctions
+    ) {
+        try {
+            this.configuration = configuration;
+            this.base = base;
+            this.metadata = groupByMetadata;
+            this.recordFunctions = recordFunctions;
+            this.slotFunctions = slotFunctions;
+            this.slotCount = slotFunctions.size();
+            this.keyTypes.addAll(keyTypes);
+            this.valueTypes.addAll(valueTypes);
+            // record sink is stateless, slots can share it
+            this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+            this.slotMaps = new ObjList<>(slotCount);
+            this.slotRecords = new ObjList<>(slotCount);
+            for (int i = 0; i < slotCount; i++) {
+                // maps are allocated lazily, not every slot is used by every query
+                slotMaps.add(null);
+                slotRecords.add(new PageFrameRecord());
+            }
+            this.slotLocks = new AtomicIntegerArray(slotCount);
+            this.pageAddressCache = new PageAddressCache(configuration);
+        } catch (Throwable e) {
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        // group by functions of slot 0 are freed as part of record functions
+        Misc.freeObjList(recordFunctions);
+        for (int i = 1; i < slotCount; i++) {
+            Misc.freeObjList(slotFunctions.getQuick(i));
+        }
+        Misc.freeObjList(slotMaps);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Aggregates rows of the given page frame into the map of the calling thread's slot.
+     */
+    protected abstract void aggregateFrame(
+            FastMap map,
+            PageFrameRecord record,
+            ObjList<GroupByFunction> groupByFunctions,
+            int frameIndex
+    );
+
+    /**
+     * Aggregates page frames collected by {@link #collectFrames(PageFrameCursor)} and
+     * merges partial results. Record functions are initialized with symbol tables of the
+     * page frame cursor.
+     *
+     * @return map with the merged result, it is owned by the factory
+     */
+    protected FastMap aggregateFrames(
+            PageFrameCursor pageFrameCursor,
+            int frameCount,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        initSlots(pageFrameCursor, executionContext);
+        dispatch(0, frameCount, executionContext.getMessageBus(), executionContext.getCircuitBreaker());
+        final FastMap resultMap = mergeSlotMaps();
+        initRecordFunctions(pageFrameCursor, executionContext);
+        return resultMap;
+    }
+
+    /**
+     * Aggregates page frames in the given range. Slots must be prepared by {@link #initSlots(PageFrameCursor, SqlExecutionContext)}.
+     *
+     * @return map with the merged result of the range, it is no longer owned by the factory and the caller must close it
+     */
+    protected FastMap aggregateFrameRange(int frameLo, int frameHi, SqlExecutionContext executionContext) {
+        dispatch(frameLo, frameHi, executionContext.getMessageBus(), executionContext.getCircuitBreaker());
+        final FastMap resultMap = mergeSlotMaps();
+        // slot allocates new map when it is used next time
+        slotMaps.setQuick(slotMaps.indexOf(resultMap), null);
+        return resultMap;
+    }
+
+    /**
+     * Caches page addresses of all frames upfront, so that workers never
+     * read the cache while it is being extended.
+     *
+     * @return number of page frames
+     */
+    protected int collectFrames(PageFrameCursor pageFrameCursor) {
+        pageAddressCache.of(base.getMetadata());
+        frameRowCounts.clear();
+        framePartitionIndexes.clear();
+        framePartitionLos.clear();
+        int frameCount = 0;
+        PageFrame frame;
+        while ((frame = pageFrameCursor.next()) != null) {
+            pageAddressCache.add(frameCount++, frame);
+            frameRowCounts.add(frame.getPartitionHi() - frame.getPartitionLo());
+            framePartitionIndexes.add(frame.getPartitionIndex());
+            framePartitionLos.add(frame.getPartitionLo());
+        }
+        return frameCount;
+    }
+
+    protected FastMap createMap() {
+        return new FastMap(
+                configuration.getSqlMapPageSize(),
+                keyTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+    }
+
+    /**
+     * Initializes record functions with symbol tables of the page frame cursor.
+     */
+    protected void initRecordFunctions(PageFrameCursor pageFrameCursor, SqlExecutionContext executionContext) throws SqlException {
+        Function.init(recordFunctions, pageFrameCursor::getSymbolMapReader, executionContext);
+    }
+
+    /**
+     * Prepares group by functions, records and maps of all slots to aggregate frames of the page frame cursor.
+     */
+    protected void initSlots(PageFrameCursor pageFrameCursor, SqlExecutionContext executionContext) throws SqlException {
+        final SymbolTableSource symbolTableSource = pageFrameCursor::getSymbolMapReader;
+        for (int i = 0; i < slotCount; i++) {
+            Function.init(slotFunctions.getQuick(i), symbolTableSource, executionContext);
+            slotRecords.getQuick(i).of(pageFrameCursor, pageAddressCache);
+            final FastMap map = slotMaps.getQuick(i);
+            if (map != null) {
+                map.clear();
+            }
+        }
+    }
+
+    protected void merge(MapValue destValue, MapValue srcValue) {
+        final ObjList<GroupByFunction> groupByFunctions = slotFunctions.getQuick(0);
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            groupByFunctions.getQuick(i).merge(destValue, srcValue);
+        }
+    }
+
+    private int acquireSlot(int workerId) {
+        // the last slot is reserved for the query thread
+        int slot = workerId > -1 ? workerId % (slotCount - 1) : slotCount - 1;
+        while (!slotLocks.compareAndSet(slot, 0, 1)) {
+            slot = (slot + 1) % slotCount;
+            if (slot == 0) {
+                LockSupport.parkNanos(1);
+            }
+        }
+        return slot;
+    }
+
+    private void dispatch(int frameLo, int frameHi, MessageBus messageBus, SqlExecutionCircuitBreaker circuitBreaker) {
+        final RingQueue<PageFrameReduceTask> queue = messageBus.getPageFrameReduceQueue();
+        final Sequence pubSeq = messageBus.getPageFrameReducePubSeq();
+        final Sequence subSeq = messageBus.getPageFrameReduceSubSeq();
+        int queuedCount = 0;
+        doneLatch.reset();
+        error = null;
+
+        try {
+            for (int frameIndex = frameLo; frameIndex < frameHi; frameIndex++) {
+                circuitBreaker.test();
+                long seq;
+                while ((seq = pubSeq.next()) == -2) {
+                    // contention with other publishers, retry
+                }
+                if (seq < 0) {
+                    // queue is full, aggregate the frame on the query thread
+                    reduce(-1, frameIndex);
+                } else {
+                    queue.get(seq).of(reducer, frameIndex, doneLatch);
+                    pubSeq.done(seq);
+                    queuedCount++;
+                }
+            }
+        } finally {
+            // in-flight tasks write into slot maps, so we wait for them even on error;
+            // process our own queue to avoid deadlock when there are no workers to pick up the tasks
+            while (doneLatch.getCount() > -queuedCount) {
+                long seq = subSeq.next();
+                if (seq > -1) {
+                    queue.get(seq).run(-1);
+                    subSeq.done(seq);
+                }
+            }
+            doneLatch.await(queuedCount);
+        }
+
+        final Throwable th = error;
+        if (th != null) {
+            error = null;
+            if (th instanceof RuntimeException) {
+                throw (RuntimeException) th;
+            }
+            if (th instanceof Error) {
+                throw (Error) th;
+            }
+            throw CairoException.instance(0).put("group by failed [error=").put(th.getMessage()).put(']');
+        }
+    }
+
+    private FastMap mergeSlotMaps() {
+        // merge into the largest map to copy as few entries as possible
+        int destSlot = -1;
+        for (int i = 0; i < slotCount; i++) {
+            final FastMap map = slotMaps.getQuick(i);
+            if (map != null && (destSlot == -1 || map.size() > slotMaps.getQuick(destSlot).size())) {
+                destSlot = i;
+            }
+        }
+
+        if (destSlot == -1) {
+            // there were no rows to aggregate
+            final FastMap map = createMap();
+            slotMaps.setQuick(0, map);
+            return map;
+        }
+
+        final FastMap destMap = slotMaps.getQuick(destSlot);
+        for (int i = 0; i < slotCount; i++) {
+            final FastMap srcMap = slotMaps.getQuick(i);
+            if (i != destSlot && srcMap != null && srcMap.size() > 0) {
+                destMap.merge(srcMap, mergeFunction);
+                srcMap.restoreInitialCapacity();
+                srcMap.clear();
+            }
+        }
+        return destMap;
+    }
+
+    private void reduce(int workerId, int frameIndex) {
+        final int slot = acquireSlot(workerId);
+        try {
+            if (error == null) {
+                FastMap map = slotMaps.getQuick(slot);
+                if (map == null) {
+                    map = createMap();
+                    slotMaps.setQuick(slot, map);
+                }
+                aggregateFrame(map, slotRecords.getQuick(slot), slotFunctions.getQuick(slot), frameIndex);
+            }
+        } catch (Throwable th) {
+            error = th;
+        } finally {
+            slotLocks.set(slot, 0);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keyed group by that aggregates page frames of the base factory in parallel.
+ * <p>
+ * When partial results are cached, each partition is aggregated into a map of its own and the maps
+ * are kept until the next execution. Partitions that have not changed since then are not read again,
+ * their maps are merged into the result as they are. Partition is considered unchanged while its
+ * timestamp, name and data txn, row count and the range of rows the query reads stay the same.
+ */
+public class ParallelGroupByRecordCursorFactory extends AbstractParallelGroupByRecordCursorFactory {
+    private static final int PARTIAL_KEY_SIZE = 6;
+    private final ParallelGroupByRecordCursor cursor;
+    private final long partialsMemoryLimit;
+    // partial results ordered by partition, as of the last execution
+    private ObjList<FastMap> partials = new ObjList<>();
+    private ObjList<FastMap> nextPartials = new ObjList<>();
+    // partition timestamp, name txn, data txn, row count, first and last row read per partial result
+    private LongList partialKeys = new LongList();
+    private LongList nextPartialKeys = new LongList();
+    private long partialsDataVersion = -1;
+    private boolean cachePartials;
+    private FastMap resultMap;
+
+    public ParallelGroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<ObjList<GroupByFunction>> slotFunctions,
+            ObjList<Function> recordFunctions,
+            boolean cachePartials
+    ) {
+        super(configuration, base, listColumnFilter, asm, keyTypes, valueTypes, groupByMetadata, slotFunctions, recordFunctions);
+        this.cursor = new ParallelGroupByRecordCursor(recordFunctions);
+        this.cachePartials = cachePartials;
+        this.partialsMemoryLimit = configuration.getQueryResultCacheMaxResultSize();
+    }
+
+    @Override
+    public void close() {
+        freePartials();
+        resultMap = Misc.free(resultMap);
+        super.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            final int frameCount = collectFrames(pageFrameCursor);
+            final FastMap map = cachePartials
+                    ? aggregatePartitions(pageFrameCursor, frameCount, executionContext)
+                    : aggregateFrames(pageFrameCursor, frameCount, executionContext);
+            cursor.of(pageFrameCursor, map.getCursor());
+            return cursor;
+        } catch (Throwable e) {
+            pageAddressCache.clear();
+            pageFrameCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    protected void aggregateFrame(
+            FastMap map,
+            PageFrameRecord record,
+            ObjList<GroupByFunction> groupByFunctions,
+            int frameIndex
+    ) {
+        final int functionCount = groupByFunctions.size();
+        record.jumpTo(frameIndex);
+        for (long row = 0, rowCount = frameRowCounts.getQuick(frameIndex); row < rowCount; row++) {
+            record.setIndex(row);
+            final MapKey key = map.withKey();
+            mapSink.copy(record, key);
+            final MapValue value = key.createValue();
+            GroupByUtils.updateFunctions(groupByFunctions, functionCount, value, record);
+        }
+    }
+
+    private FastMap aggregatePartitions(
+            PageFrameCursor pageFrameCursor,
+            int frameCount,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final TableReader reader = pageFrameCursor.getTableReader();
+        if (reader.getDataVersion() != partialsDataVersion) {
+            // table has been truncated, symbol keys of partial results are no longer valid
+            freePartials();
+            partialsDataVersion = reader.getDataVersion();
+        }
+
+        initSlots(pageFrameCursor, executionContext);
+        long memoryUsed = 0;
+        try {
+            int partialIndex = 0;
+            int frameLo = 0;
+            while (frameLo < frameCount) {
+                final int partitionIndex = framePartitionIndexes.getQuick(frameLo);
+                int frameHi = frameLo + 1;
+                while (frameHi < frameCount && framePartitionIndexes.getQuick(frameHi) == partitionIndex) {
+                    frameHi++;
+                }
+                final long partitionTimestamp = reader.getPartitionTimestampByIndex(partitionIndex);
+                final long nameTxn = reader.getPartitionNameTxnByIndex(partitionIndex);
+                final long dataTxn = reader.getPartitionDataTxnByIndex(partitionIndex);
+                final long partitionSize = reader.getPartitionSizeByIndex(partitionIndex);
+                final long rowLo = framePartitionLos.getQuick(frameLo);
+                final long rowHi = framePartitionLos.getQuick(frameHi - 1) + frameRowCounts.getQuick(frameHi - 1);
+
+                // partials of partitions that have been dropped or changed
+                while (partialIndex < partials.size() && partialKeys.getQuick(partialIndex * PARTIAL_KEY_SIZE) < partitionTimestamp) {
+                    partialIndex++;
+                }
+
+                FastMap partial = null;
+                if (partialIndex < partials.size()) {
+                    final int k = partialIndex * PARTIAL_KEY_SIZE;
+                    if (partialKeys.getQuick(k) == partitionTimestamp
+                            && partialKeys.getQuick(k + 1) == nameTxn
+                            && partialKeys.getQuick(k + 2) == dataTxn
+                            && partialKeys.getQuick(k + 3) == partitionSize
+                            && partialKeys.getQuick(k + 4) == rowLo
+                            && partialKeys.getQuick(k + 5) == rowHi
+                    ) {
+                        partial = partials.getQuick(partialIndex);
+                        partials.setQuick(partialIndex++, null);
+                    }
+                }
+                if (partial == null) {
+                    partial = aggregateFrameRange(frameLo, frameHi, executionContext);
+                }
+                nextPartials.add(partial);
+                nextPartialKeys.add(partitionTimestamp);
+                nextPartialKeys.add(nameTxn);
+                nextPartialKeys.add(dataTxn);
+                nextPartialKeys.add(partitionSize);
+                nextPartialKeys.add(rowLo);
+                nextPartialKeys.add(rowHi);
+                memoryUsed += partial.getAreaSize();
+                frameLo = frameHi;
+            }
+        } catch (Throwable e) {
+            Misc.freeObjList(nextPartials);
+            nextPartials.clear();
+            nextPartialKeys.clear();
+            throw e;
+        } finally {
+            // partials that have not been reused belong to partitions that are gone or changed
+            Misc.freeObjList(partials);
+            partials.clear();
+            partialKeys.clear();
+        }
+
+        ObjList<FastMap> tmpPartials = partials;
+        partials = nextPartials;
+        nextPartials = tmpPartials;
+        LongList tmpKeys = partialKeys;
+        partialKeys = nextPartialKeys;
+        nextPartialKeys = tmpKeys;
+
+        if (resultMap == null) {
+            resultMap = createMap();
+        } else {
+            resultMap.clear();
+        }
+        for (int i = 0, n = partials.size(); i < n; i++) {
+            resultMap.merge(partials.getQuick(i), mergeFunction);
+        }
+
+        if (memoryUsed > partialsMemoryLimit) {
+            // too many groups per partition, keeping partial results costs more than recomputing them
+            freePartials();
+            cachePartials = false;
+        }
+        initRecordFunctions(pageFrameCursor, executionContext);
+        return resultMap;
+    }
+
+    private void freePartials() {
+        Misc.freeObjList(partials);
+        partials.clear();
+        partialKeys.clear();
+    }
+
+    private class ParallelGroupByRecordCursor extends AbstractVirtualFunctionRecordCursor {
+        private PageFrameCursor pageFrameCursor;
+
+        public ParallelGroupByRecordCursor(ObjList<Function> functions) {
+            super(functions, true);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            pageAddressCache.clear();
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+
+        public void of(PageFrameCursor pageFrameCursor, RecordCursor mapCursor) {
+            this.pageFrameCursor = pageFrameCursor;
+            of(mapCursor);
+        }
+    }
+}
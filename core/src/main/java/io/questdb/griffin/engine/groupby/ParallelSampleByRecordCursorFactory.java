@@ -0,0 +1,228 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.columns.TimestampColumn;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import org.jetbrains.annotations.NotNull;
+
+import static io.questdb.std.datetime.microtime.Timestamps.MINUTE_MICROS;
+
+/**
+ * Sample by with FILL(NONE) and without time zone that aggregates page frames of the base
+ * factory in parallel. Sample period is the last map key. The first value of each map entry
+ * is the id of the first row that contributed to the entry, result is sorted by it to
+ * reproduce the order of the serial sample by.
+ */
+public class ParallelSampleByRecordCursorFactory extends AbstractParallelGroupByRecordCursorFactory {
+
+    private static final int FIRST_ROW_ID_VALUE_INDEX = 0;
+    private final ParallelSampleByRecordCursor cursor;
+    private final TimestampSampler timestampSampler;
+    private final Function offsetFunc;
+    private final int offsetFuncPos;
+    private final int timestampIndex;
+    private final PageFrameRecord firstRecord = new PageFrameRecord();
+    // pairs of (first row id, map entry address)
+    private final DirectLongList sortedEntries;
+
+    /**
+     * @param keyTypes key types of the sample by, the last key is the sample period of TIMESTAMP type
+     */
+    public ParallelSampleByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<ObjList<GroupByFunction>> slotFunctions,
+            ObjList<Function> recordFunctions,
+            TimestampSampler timestampSampler,
+            int timestampIndex,
+            Function offsetFunc,
+            int offsetFuncPos
+    ) {
+        super(configuration, base, listColumnFilter, asm, keyTypes, valueTypes, groupByMetadata, slotFunctions, recordFunctions);
+        // sample period is read from the last map key
+        final int periodColumnIndex = valueTypes.getColumnCount() + keyTypes.getColumnCount() - 1;
+        for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+            if (recordFunctions.getQuick(i) == null) {
+                recordFunctions.setQuick(i, TimestampColumn.newInstance(periodColumnIndex));
+            }
+        }
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.offsetFunc = offsetFunc;
+        this.offsetFuncPos = offsetFuncPos;
+        this.sortedEntries = new DirectLongList(configuration.getSqlMapKeyCapacity() * 2L, MemoryTag.NATIVE_SAMPLE_BY_LONG_LIST);
+        this.cursor = new ParallelSampleByRecordCursor(recordFunctions);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        Misc.free(offsetFunc);
+        Misc.free(sortedEntries);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            final int frameCount = collectFrames(pageFrameCursor);
+            if (frameCount > 0) {
+                offsetFunc.init(pageFrameCursor::getSymbolMapReader, executionContext);
+                final CharSequence offset = offsetFunc.getStr(null);
+                if (offset != null) {
+                    final long val = Timestamps.parseOffset(offset);
+                    if (val == Numbers.LONG_NaN) {
+                        throw SqlException.$(offsetFuncPos, "invalid offset: ").put(offset);
+                    }
+                    timestampSampler.setStart(Numbers.decodeLowInt(val) * MINUTE_MICROS);
+                } else {
+                    // align sample periods to the first observation
+                    firstRecord.of(pageFrameCursor, pageAddressCache);
+                    timestampSampler.setStart(firstRecord.getTimestamp(timestampIndex));
+                }
+            }
+            final FastMap map = aggregateFrames(pageFrameCursor, frameCount, executionContext);
+            sortEntries(map);
+            cursor.of(pageFrameCursor, map.getCursor());
+            return cursor;
+        } catch (Throwable e) {
+            pageAddressCache.clear();
+            pageFrameCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    protected void aggregateFrame(
+            FastMap map,
+            PageFrameRecord record,
+            ObjList<GroupByFunction> groupByFunctions,
+            int frameIndex
+    ) {
+        final int functionCount = groupByFunctions.size();
+        record.jumpTo(frameIndex);
+        for (long row = 0, rowCount = frameRowCounts.getQuick(frameIndex); row < rowCount; row++) {
+            record.setIndex(row);
+            final MapKey key = map.withKey();
+            mapSink.copy(record, key);
+            key.putTimestamp(timestampSampler.round(record.getTimestamp(timestampIndex)));
+            final MapValue value = key.createValue();
+            // a slot may aggregate frames out of order, so the smallest row id wins
+            final long rowId = record.getRowId();
+            if (value.isNew() || rowId < value.getLong(FIRST_ROW_ID_VALUE_INDEX)) {
+                value.putLong(FIRST_ROW_ID_VALUE_INDEX, rowId);
+            }
+            GroupByUtils.updateFunctions(groupByFunctions, functionCount, value, record);
+        }
+    }
+
+    @Override
+    protected void merge(MapValue destValue, MapValue srcValue) {
+        final long srcRowId = srcValue.getLong(FIRST_ROW_ID_VALUE_INDEX);
+        if (srcRowId < destValue.getLong(FIRST_ROW_ID_VALUE_INDEX)) {
+            destValue.putLong(FIRST_ROW_ID_VALUE_INDEX, srcRowId);
+        }
+        super.merge(destValue, srcValue);
+    }
+
+    private void sortEntries(FastMap map) {
+        sortedEntries.clear();
+        final RecordCursor mapCursor = map.getCursor();
+        final Record mapRecord = mapCursor.getRecord();
+        while (mapCursor.hasNext()) {
+            sortedEntries.add(mapRecord.getLong(FIRST_ROW_ID_VALUE_INDEX));
+            sortedEntries.add(mapRecord.getRowId());
+        }
+        Vect.sortLongIndexAscInPlace(sortedEntries.getAddress(), sortedEntries.size() / 2);
+    }
+
+    private class ParallelSampleByRecordCursor extends AbstractVirtualFunctionRecordCursor {
+        private PageFrameCursor pageFrameCursor;
+        private long index;
+
+        public ParallelSampleByRecordCursor(ObjList<Function> functions) {
+            super(functions, false);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            pageAddressCache.clear();
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < sortedEntries.size()) {
+                baseCursor.recordAt(baseCursor.getRecord(), sortedEntries.get(index + 1));
+                index += 2;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return sortedEntries.size() / 2;
+        }
+
+        @Override
+        public void toTop() {
+            super.toTop();
+            index = 0;
+        }
+
+        public void of(PageFrameCursor pageFrameCursor, RecordCursor mapCursor) {
+            this.pageFrameCursor = pageFrameCursor;
+            this.index = 0;
+            of(mapCursor);
+        }
+    }
+}
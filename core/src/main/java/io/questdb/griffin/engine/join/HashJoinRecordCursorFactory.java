@@ -34,6 +34,7 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.engine.EmptyTableRecordCursor;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 
@@ -43,7 +44,7 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory masterFactory;
     private final RecordCursorFactory slaveFactory;
     private final RecordSink masterSink;
-    private final RecordSink slaveKeySink;
+    private final HashJoinSpill spill;
     private final HashJoinRecordCursor cursor;
 
     public HashJoinRecordCursorFactory(
@@ -54,10 +55,11 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             @Transient ColumnTypes joinColumnTypes,
             @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
             RecordSink masterSink,
+            RecordSink masterChainSink,
             RecordSink slaveKeySink,
             RecordSink slaveChainSink,
-            int columnSplit
-
+            int columnSplit,
+            long memoryBudget
     ) {
         super(metadata);
         this.masterFactory = masterFactory;
@@ -65,7 +67,16 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         joinKeyMap = MapFactory.createMap(configuration, joinColumnTypes, valueTypes);
         slaveChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
         this.masterSink = masterSink;
-        this.slaveKeySink = slaveKeySink;
+        this.spill = new HashJoinSpill(
+                configuration,
+                masterFactory.getMetadata(),
+                masterChainSink,
+                masterSink,
+                slaveFactory.getMetadata(),
+                slaveChainSink,
+                slaveKeySink,
+                memoryBudget
+        );
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
     }
 
@@ -73,6 +84,7 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
     public void close() {
         joinKeyMap.close();
         slaveChain.close();
+        spill.close();
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -80,14 +92,22 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
         RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        RecordCursor masterCursor = null;
         try {
-            buildMapOfSlaveRecords(slaveCursor, executionContext.getCircuitBreaker());
+            final boolean spilled = spill.build(slaveCursor, joinKeyMap, slaveChain, circuitBreaker);
+            masterCursor = masterFactory.getCursor(executionContext);
+            if (spilled) {
+                spill.spillMaster(masterCursor, circuitBreaker);
+            }
         } catch (Throwable e) {
+            Misc.free(masterCursor);
             slaveCursor.close();
+            spill.clear();
             throw e;
         }
-        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
+        cursor.of(masterCursor, slaveCursor, circuitBreaker);
         return cursor;
     }
 
@@ -96,10 +116,6 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         return false;
     }
 
-    private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
-        HashOuterJoinRecordCursorFactory.buildMap(slaveCursor, slaveCursor.getRecord(), joinKeyMap, slaveKeySink, slaveChain, circuitBreaker);
-    }
-
     private class HashJoinRecordCursor implements NoRandomAccessRecordCursor {
         private final JoinRecord recordA;
         private final RecordChain slaveChain;
@@ -107,7 +123,10 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         private final int columnSplit;
         private RecordCursor masterCursor;
         private RecordCursor slaveCursor;
+        // master records are read from spill partitions when the join has spilled
+        private RecordCursor probeCursor;
         private Record masterRecord;
+        private SqlExecutionCircuitBreaker circuitBreaker;
         private boolean useSlaveCursor;
 
         public HashJoinRecordCursor(int columnSplit, Map joinKeyMap, RecordChain slaveChain) {
@@ -121,6 +140,8 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         public void close() {
             masterCursor = Misc.free(masterCursor);
             slaveCursor = Misc.free(slaveCursor);
+            probeCursor = null;
+            spill.clear();
         }
 
         @Override
@@ -147,35 +168,55 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
                 return true;
             }
 
-            while (masterCursor.hasNext()) {
-                MapKey key = joinKeyMap.withKey();
-                key.put(masterRecord, masterSink);
-                MapValue value = key.findValue();
-                if (value != null) {
-                    slaveChain.of(value.getLong(0));
-                    // we know cursor has values
-                    // advance to get first value
-                    slaveChain.hasNext();
-                    useSlaveCursor = true;
-                    return true;
+            do {
+                while (probeCursor.hasNext()) {
+                    MapKey key = joinKeyMap.withKey();
+                    key.put(masterRecord, masterSink);
+                    MapValue value = key.findValue();
+                    if (value != null) {
+                        slaveChain.of(value.getLong(0));
+                        // we know cursor has values
+                        // advance to get first value
+                        slaveChain.hasNext();
+                        useSlaveCursor = true;
+                        return true;
+                    }
                 }
-            }
+            } while (nextPartition());
             return false;
         }
 
         @Override
         public void toTop() {
-            masterCursor.toTop();
+            if (spill.isActive()) {
+                spill.toTop();
+                ofProbeCursor(EmptyTableRecordCursor.INSTANCE);
+            } else {
+                masterCursor.toTop();
+            }
             useSlaveCursor = false;
         }
 
-        void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
+        private boolean nextPartition() {
+            if (spill.isActive() && spill.nextPartition(joinKeyMap, slaveChain, circuitBreaker)) {
+                ofProbeCursor(spill.getMasterPartition());
+                return true;
+            }
+            return false;
+        }
+
+        private void ofProbeCursor(RecordCursor probeCursor) {
+            this.probeCursor = probeCursor;
+            this.masterRecord = probeCursor.getRecord();
+            recordA.of(masterRecord, slaveChain.getRecord());
+        }
+
+        void of(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
             this.masterCursor = masterCursor;
             this.slaveCursor = slaveCursor;
-            this.masterRecord = masterCursor.getRecord();
-            Record slaveRecord = slaveChain.getRecord();
+            this.circuitBreaker = circuitBreaker;
             this.slaveChain.setSymbolTableResolver(slaveCursor);
-            recordA.of(masterRecord, slaveRecord);
+            ofProbeCursor(spill.isActive() ? EmptyTableRecordCursor.INSTANCE : masterCursor);
             useSlaveCursor = false;
         }
     }
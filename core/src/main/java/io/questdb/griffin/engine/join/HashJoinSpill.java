@@ -0,0 +1,389 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkSPI;
+import io.questdb.cairo.SpillRecordChain;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.SqlExecutionCircuitBreaker;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Grace hash join state of full hash joins. Once the slave side exceeds the memory budget both sides
+ * of the join are hashed on join key into partitions kept in spill files. Equal keys always land in the
+ * same pair of partitions, so the join is done one pair at a time and only the slave rows of a single
+ * partition are held in the join map.
+ */
+public class HashJoinSpill implements Closeable, Mutable {
+    private final ObjList<SpillRecordChain> masterPartitions = new ObjList<>();
+    private final ObjList<SpillRecordChain> slavePartitions = new ObjList<>();
+    private final LongList masterTails = new LongList();
+    private final LongList slaveTails = new LongList();
+    private final KeyHasher hasher = new KeyHasher();
+    private final CairoConfiguration configuration;
+    private final ColumnTypes masterTypes;
+    private final RecordSink masterChainSink;
+    private final RecordSink masterKeySink;
+    private final ColumnTypes slaveTypes;
+    private final RecordSink slaveChainSink;
+    private final RecordSink slaveKeySink;
+    private final long memoryBudget;
+    private final int partitionCount;
+    private final long extendSegmentSize;
+    private boolean active = false;
+    private int partitionIndex = 0;
+
+    public HashJoinSpill(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes masterTypes,
+            RecordSink masterChainSink,
+            RecordSink masterKeySink,
+            @Transient ColumnTypes slaveTypes,
+            RecordSink slaveChainSink,
+            RecordSink slaveKeySink,
+            long memoryBudget
+    ) {
+        this.configuration = configuration;
+        // partitions are created on first spill, keep our own copy of column types until then
+        this.masterTypes = new ArrayColumnTypes().addAll(masterTypes);
+        this.masterChainSink = masterChainSink;
+        this.masterKeySink = masterKeySink;
+        this.slaveTypes = new ArrayColumnTypes().addAll(slaveTypes);
+        this.slaveChainSink = slaveChainSink;
+        this.slaveKeySink = slaveKeySink;
+        this.memoryBudget = memoryBudget;
+        this.partitionCount = Numbers.ceilPow2(Math.max(configuration.getSqlHashJoinSpillPartitions(), 2));
+        // partitions are expected to be a fraction of the memory budget, do not grow files by more than that
+        this.extendSegmentSize = Math.min(
+                configuration.getSqlHashJoinValuePageSize(),
+                Math.max(memoryBudget / partitionCount, 1)
+        );
+    }
+
+    /**
+     * Builds join key map of slave records. When the slave chain outgrows the memory budget
+     * the records are moved to partitions instead and the map is left empty.
+     *
+     * @return true when slave records have been spilled and the join has to be done partition by partition
+     */
+    public boolean build(
+            RecordCursor slaveCursor,
+            Map joinKeyMap,
+            RecordChain slaveChain,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        clear();
+        joinKeyMap.clear();
+        slaveChain.clear();
+        slaveChain.setSymbolTableResolver(slaveCursor);
+
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            circuitBreaker.test();
+            if (active) {
+                addSlave(record);
+            } else {
+                HashOuterJoinRecordCursorFactory.addToMap(record, joinKeyMap, slaveKeySink, slaveChain);
+                if (memoryBudget > 0 && slaveChain.getAppendOffset() > memoryBudget) {
+                    spillSlaveChain(slaveCursor, joinKeyMap, slaveChain, circuitBreaker);
+                }
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = masterPartitions.size(); i < n; i++) {
+            masterPartitions.getQuick(i).clear();
+        }
+        for (int i = 0, n = slavePartitions.size(); i < n; i++) {
+            slavePartitions.getQuick(i).clear();
+        }
+        masterTails.setAll(masterTails.size(), -1L);
+        slaveTails.setAll(slaveTails.size(), -1L);
+        active = false;
+        partitionIndex = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(masterPartitions);
+        Misc.freeObjList(slavePartitions);
+    }
+
+    /**
+     * @return master records of the partition selected by the last call to {@link #nextPartition}
+     */
+    public RecordCursor getMasterPartition() {
+        return masterPartitions.getQuick(partitionIndex - 1);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Rebuilds join key map from slave records of the next partition that has master records.
+     *
+     * @return false when all partitions have been joined
+     */
+    public boolean nextPartition(Map joinKeyMap, RecordChain slaveChain, SqlExecutionCircuitBreaker circuitBreaker) {
+        while (partitionIndex < masterPartitions.size()) {
+            final int index = partitionIndex++;
+            final SpillRecordChain masterPartition = masterPartitions.getQuick(index);
+            masterPartition.toTop();
+            if (masterTails.getQuick(index) == -1L) {
+                continue;
+            }
+            final SpillRecordChain slavePartition = slavePartitions.getQuick(index);
+            slavePartition.toTop();
+            HashOuterJoinRecordCursorFactory.buildMap(
+                    slavePartition,
+                    slavePartition.getRecord(),
+                    joinKeyMap,
+                    slaveKeySink,
+                    slaveChain,
+                    circuitBreaker
+            );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves all master records into partitions, must be called after slave records have been spilled.
+     */
+    public void spillMaster(RecordCursor masterCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        final Record record = masterCursor.getRecord();
+        for (int i = 0, n = masterPartitions.size(); i < n; i++) {
+            masterPartitions.getQuick(i).setSymbolTableResolver(masterCursor);
+        }
+        while (masterCursor.hasNext()) {
+            circuitBreaker.test();
+            final int index = partitionOf(record, masterKeySink);
+            masterTails.setQuick(index, masterPartitions.getQuick(index).put(record, masterTails.getQuick(index)));
+        }
+    }
+
+    public void toTop() {
+        partitionIndex = 0;
+    }
+
+    private void addSlave(Record record) {
+        final int index = partitionOf(record, slaveKeySink);
+        slaveTails.setQuick(index, slavePartitions.getQuick(index).put(record, slaveTails.getQuick(index)));
+    }
+
+    private int partitionOf(Record record, RecordSink keySink) {
+        hasher.reset();
+        keySink.copy(record, hasher);
+        return (int) hasher.hash() & (partitionCount - 1);
+    }
+
+    private void spillSlaveChain(
+            RecordCursor slaveCursor,
+            Map joinKeyMap,
+            RecordChain slaveChain,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        while (masterPartitions.size() < partitionCount) {
+            masterPartitions.add(new SpillRecordChain(configuration, masterTypes, masterChainSink, extendSegmentSize));
+        }
+        while (slavePartitions.size() < partitionCount) {
+            slavePartitions.add(new SpillRecordChain(configuration, slaveTypes, slaveChainSink, extendSegmentSize));
+        }
+        masterTails.setAll(partitionCount, -1L);
+        slaveTails.setAll(partitionCount, -1L);
+        for (int i = 0; i < partitionCount; i++) {
+            slavePartitions.getQuick(i).setSymbolTableResolver(slaveCursor);
+        }
+        final RecordCursor mapCursor = joinKeyMap.getCursor();
+        final MapRecord mapRecord = joinKeyMap.getRecord();
+        final Record chainRecord = slaveChain.getRecord();
+        while (mapCursor.hasNext()) {
+            circuitBreaker.test();
+            slaveChain.of(mapRecord.getValue().getLong(0));
+            while (slaveChain.hasNext()) {
+                addSlave(chainRecord);
+            }
+        }
+        joinKeyMap.clear();
+        slaveChain.clear();
+        active = true;
+    }
+
+    /**
+     * Hashes join key the same way for both sides of the join. Key sinks write identical
+     * values for equal keys, symbols included, as they are written as strings.
+     */
+    private static class KeyHasher implements RecordSinkSPI {
+        private long h;
+
+        @Override
+        public void putBin(BinarySequence value) {
+            if (value == null) {
+                mix(-1L);
+            } else {
+                final long len = value.length();
+                for (long i = 0; i < len; i++) {
+                    mix(value.byteAt(i));
+                }
+                mix(len);
+            }
+        }
+
+        @Override
+        public void putBool(boolean value) {
+            mix(value ? 1 : 0);
+        }
+
+        @Override
+        public void putByte(byte value) {
+            mix(value);
+        }
+
+        @Override
+        public void putDate(long value) {
+            mix(value);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            mix(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putFloat(float value) {
+            mix(Float.floatToRawIntBits(value));
+        }
+
+        @Override
+        public void putInt(int value) {
+            mix(value);
+        }
+
+        @Override
+        public void putLong(long value) {
+            mix(value);
+        }
+
+        @Override
+        public void putLong256(Long256 value) {
+            mix(value.getLong0());
+            mix(value.getLong1());
+            mix(value.getLong2());
+            mix(value.getLong3());
+        }
+
+        @Override
+        public void putShort(short value) {
+            mix(value);
+        }
+
+        @Override
+        public void putChar(char value) {
+            mix(value);
+        }
+
+        @Override
+        public void putStr(CharSequence value) {
+            if (value == null) {
+                mix(-1L);
+            } else {
+                putStr(value, 0, value.length());
+            }
+        }
+
+        @Override
+        public void putStr(CharSequence value, int lo, int hi) {
+            for (int i = lo; i < hi; i++) {
+                mix(value.charAt(i));
+            }
+            mix(hi - lo);
+        }
+
+        @Override
+        public void putStrLowerCase(CharSequence value) {
+            if (value == null) {
+                mix(-1L);
+            } else {
+                putStrLowerCase(value, 0, value.length());
+            }
+        }
+
+        @Override
+        public void putStrLowerCase(CharSequence value, int lo, int hi) {
+            for (int i = lo; i < hi; i++) {
+                mix(Character.toLowerCase(value.charAt(i)));
+            }
+            mix(hi - lo);
+        }
+
+        @Override
+        public void putRecord(Record value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putTimestamp(long value) {
+            mix(value);
+        }
+
+        @Override
+        public void skip(int bytes) {
+        }
+
+        long hash() {
+            // murmur3 finalizer, low bits pick the partition
+            long x = h;
+            x ^= x >>> 33;
+            x *= 0xff51afd7ed558ccdL;
+            x ^= x >>> 33;
+            x *= 0xc4ceb9fe1a85ec53L;
+            x ^= x >>> 33;
+            return x;
+        }
+
+        void reset() {
+            h = 0;
+        }
+
+        private void mix(long value) {
+            h = h * 31 + value;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.engine.EmptyTableRecordCursor;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 
@@ -43,7 +44,7 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
     private final RecordCursorFactory masterFactory;
     private final RecordCursorFactory slaveFactory;
     private final RecordSink masterSink;
-    private final RecordSink slaveKeySink;
+    private final HashJoinSpill spill;
     private final HashOuterJoinRecordCursor cursor;
 
     public HashOuterJoinRecordCursorFactory(
@@ -54,10 +55,11 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
             @Transient ColumnTypes joinColumnTypes,
             @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
             RecordSink masterSink,
+            RecordSink masterChainSink,
             RecordSink slaveKeySink,
             RecordSink slaveChainSink,
-            int columnSplit
-
+            int columnSplit,
+            long memoryBudget
     ) {
         super(metadata);
         this.masterFactory = masterFactory;
@@ -65,7 +67,16 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
         joinKeyMap = MapFactory.createMap(configuration, joinColumnTypes, valueTypes);
         slaveChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
         this.masterSink = masterSink;
-        this.slaveKeySink = slaveKeySink;
+        this.spill = new HashJoinSpill(
+                configuration,
+                masterFactory.getMetadata(),
+                masterChainSink,
+                masterSink,
+                slaveFactory.getMetadata(),
+                slaveChainSink,
+                slaveKeySink,
+                memoryBudget
+        );
         this.cursor = new HashOuterJoinRecordCursor(
                 columnSplit,
                 joinKeyMap,
@@ -86,16 +97,20 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
         slaveChain.clear();
         while (slaveCursor.hasNext()) {
             circuitBreaker.test();
-            MapKey key = joinKeyMap.withKey();
-            key.put(record, slaveKeySink);
-            MapValue value = key.createValue();
-            if (value.isNew()) {
-                long offset = slaveChain.put(record, -1);
-                value.putLong(0, offset);
-                value.putLong(1, offset);
-            } else {
-                value.putLong(1, slaveChain.put(record, value.getLong(1)));
-            }
+            addToMap(record, joinKeyMap, slaveKeySink, slaveChain);
+        }
+    }
+
+    static void addToMap(Record record, Map joinKeyMap, RecordSink slaveKeySink, RecordChain slaveChain) {
+        MapKey key = joinKeyMap.withKey();
+        key.put(record, slaveKeySink);
+        MapValue value = key.createValue();
+        if (value.isNew()) {
+            long offset = slaveChain.put(record, -1);
+            value.putLong(0, offset);
+            value.putLong(1, offset);
+        } else {
+            value.putLong(1, slaveChain.put(record, value.getLong(1)));
         }
     }
 
@@ -103,6 +118,7 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
     public void close() {
         joinKeyMap.close();
         slaveChain.close();
+        spill.close();
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -110,14 +126,22 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
         RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        RecordCursor masterCursor = null;
         try {
-            buildMapOfSlaveRecords(slaveCursor, executionContext.getCircuitBreaker());
+            final boolean spilled = spill.build(slaveCursor, joinKeyMap, slaveChain, circuitBreaker);
+            masterCursor = masterFactory.getCursor(executionContext);
+            if (spilled) {
+                spill.spillMaster(masterCursor, circuitBreaker);
+            }
         } catch (Throwable e) {
+            Misc.free(masterCursor);
             slaveCursor.close();
+            spill.clear();
             throw e;
         }
-        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
+        cursor.of(masterCursor, slaveCursor, circuitBreaker);
         return cursor;
     }
 
@@ -126,10 +150,6 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
         return false;
     }
 
-    private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
-        buildMap(slaveCursor, slaveCursor.getRecord(), joinKeyMap, slaveKeySink, slaveChain, circuitBreaker);
-    }
-
     private class HashOuterJoinRecordCursor implements NoRandomAccessRecordCursor {
         private final OuterJoinRecord record;
         private final RecordChain slaveChain;
@@ -137,7 +157,10 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
         private final int columnSplit;
         private RecordCursor masterCursor;
         private RecordCursor slaveCursor;
+        // master records are read from spill partitions when the join has spilled
+        private RecordCursor probeCursor;
         private Record masterRecord;
+        private SqlExecutionCircuitBreaker circuitBreaker;
         private boolean useSlaveCursor;
 
         public HashOuterJoinRecordCursor(int columnSplit, Map joinKeyMap, RecordChain slaveChain, Record nullRecord) {
@@ -151,6 +174,8 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
         public void close() {
             masterCursor = Misc.free(masterCursor);
             slaveCursor = Misc.free(slaveCursor);
+            probeCursor = null;
+            spill.clear();
         }
 
         @Override
@@ -177,39 +202,59 @@ public class HashOuterJoinRecordCursorFactory extends AbstractRecordCursorFactor
                 return true;
             }
 
-            if (masterCursor.hasNext()) {
-                MapKey key = joinKeyMap.withKey();
-                key.put(masterRecord, masterSink);
-                MapValue value = key.findValue();
-                if (value != null) {
-                    slaveChain.of(value.getLong(0));
-                    // we know cursor has values
-                    // advance to get first value
-                    slaveChain.hasNext();
-                    useSlaveCursor = true;
-                    record.hasSlave(true);
-                } else {
-                    useSlaveCursor = false;
-                    record.hasSlave(false);
+            do {
+                if (probeCursor.hasNext()) {
+                    MapKey key = joinKeyMap.withKey();
+                    key.put(masterRecord, masterSink);
+                    MapValue value = key.findValue();
+                    if (value != null) {
+                        slaveChain.of(value.getLong(0));
+                        // we know cursor has values
+                        // advance to get first value
+                        slaveChain.hasNext();
+                        useSlaveCursor = true;
+                        record.hasSlave(true);
+                    } else {
+                        useSlaveCursor = false;
+                        record.hasSlave(false);
+                    }
+                    return true;
                 }
-                return true;
-            }
+            } while (nextPartition());
             return false;
         }
 
         @Override
         public void toTop() {
-            masterCursor.toTop();
+            if (spill.isActive()) {
+                spill.toTop();
+                ofProbeCursor(EmptyTableRecordCursor.INSTANCE);
+            } else {
+                masterCursor.toTop();
+            }
             useSlaveCursor = false;
         }
 
-        void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
+        private boolean nextPartition() {
+            if (spill.isActive() && spill.nextPartition(joinKeyMap, slaveChain, circuitBreaker)) {
+                ofProbeCursor(spill.getMasterPartition());
+                return true;
+            }
+            return false;
+        }
+
+        private void ofProbeCursor(RecordCursor probeCursor) {
+            this.probeCursor = probeCursor;
+            this.masterRecord = probeCursor.getRecord();
+            record.of(masterRecord, slaveChain.getRecord());
+        }
+
+        void of(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
             this.masterCursor = masterCursor;
             this.slaveCursor = slaveCursor;
-            this.masterRecord = masterCursor.getRecord();
-            Record slaveRecord = slaveChain.getRecord();
+            this.circuitBreaker = circuitBreaker;
             this.slaveChain.setSymbolTableResolver(slaveCursor);
-            record.of(masterRecord, slaveRecord);
+            ofProbeCursor(spill.isActive() ? EmptyTableRecordCursor.INSTANCE : masterCursor);
             useSlaveCursor = false;
         }
     }
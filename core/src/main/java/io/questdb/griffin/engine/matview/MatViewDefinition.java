@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.matview;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.std.LongList;
+
+/**
+ * Definition of materialized view along with state of base table as of the last refresh.
+ * Refresh state is kept in memory only, the first refresh after restart re-computes the view in full.
+ */
+public class MatViewDefinition {
+    private final String viewName;
+    private final String baseTableName;
+    private final String baseTimestampColumn;
+    private final String sampleBy;
+    private final String query;
+    // pairs of partition timestamp and row count of base table as of the last refresh
+    private final LongList basePartitions = new LongList();
+    private final LongList pendingPartitions = new LongList();
+    private long baseTxn = -1;
+    private long baseDataVersion = -1;
+    private long baseStructureVersion = -1;
+    private long pendingTxn;
+    private long pendingDataVersion;
+    private long pendingStructureVersion;
+
+    public MatViewDefinition(String viewName, String baseTableName, String baseTimestampColumn, String sampleBy, String query) {
+        this.viewName = viewName;
+        this.baseTableName = baseTableName;
+        this.baseTimestampColumn = baseTimestampColumn;
+        this.sampleBy = sampleBy;
+        this.query = query;
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public String getBaseTimestampColumn() {
+        return baseTimestampColumn;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getSampleBy() {
+        return sampleBy;
+    }
+
+    public String getViewName() {
+        return viewName;
+    }
+
+    /**
+     * Compares current state of base table with the state as of the last refresh. The state
+     * of the reader is remembered and becomes current once {@link #refreshed()} is called.
+     *
+     * @param baseReader reader of the base table
+     * @return Long.MAX_VALUE when base table has not changed, Long.MIN_VALUE when view has to be
+     * re-computed in full, otherwise the lowest partition timestamp of base table, which has changed
+     */
+    public long getRefreshLo(TableReader baseReader) {
+        pendingTxn = baseReader.getTxn();
+        pendingDataVersion = baseReader.getDataVersion();
+        pendingStructureVersion = baseReader.getVersion();
+        pendingPartitions.clear();
+        for (int i = 0, n = baseReader.getPartitionCount(); i < n; i++) {
+            pendingPartitions.add(baseReader.getPartitionTimestampByIndex(i), baseReader.getPartitionSizeByIndex(i));
+        }
+
+        if (pendingTxn == baseTxn) {
+            return Long.MAX_VALUE;
+        }
+
+        if (baseTxn == -1 || pendingDataVersion != baseDataVersion || pendingStructureVersion != baseStructureVersion) {
+            return Long.MIN_VALUE;
+        }
+
+        // partition lists are sorted by timestamp, find the first point they diverge
+        final int n = Math.min(basePartitions.size(), pendingPartitions.size());
+        for (int i = 0; i < n; i += 2) {
+            final long timestamp = basePartitions.getQuick(i);
+            final long pendingTimestamp = pendingPartitions.getQuick(i);
+            if (timestamp != pendingTimestamp) {
+                return Math.min(timestamp, pendingTimestamp);
+            }
+            if (basePartitions.getQuick(i + 1) != pendingPartitions.getQuick(i + 1)) {
+                return timestamp;
+            }
+        }
+        if (basePartitions.size() > n) {
+            return basePartitions.getQuick(n);
+        }
+        if (pendingPartitions.size() > n) {
+            return pendingPartitions.getQuick(n);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void refreshed() {
+        baseTxn = pendingTxn;
+        baseDataVersion = pendingDataVersion;
+        baseStructureVersion = pendingStructureVersion;
+        basePartitions.clear();
+        basePartitions.add(pendingPartitions);
+    }
+}
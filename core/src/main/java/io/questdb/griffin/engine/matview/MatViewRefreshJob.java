@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.matview;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.*;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Keeps materialized views up to date with their base tables. View partitions are replaced
+ * from the earliest changed partition of base table onwards, boundary aligned to both
+ * SAMPLE BY bucket and view partition, with rows re-computed from base table rows past that
+ * boundary. Removal and re-computed rows are committed in a single transaction, readers of
+ * the view never see its tail missing. Out-of-order commits to base table are therefore
+ * handled at the cost of re-computing view tail from the earliest affected partition.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private static final String WRITER_LOCK_REASON = "matViewRefresh";
+    private final CairoEngine engine;
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl executionContext;
+    private final ObjList<MatViewDefinition> views = new ObjList<>();
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+
+    public MatViewRefreshJob(CairoEngine engine) {
+        this(engine, null);
+    }
+
+    public MatViewRefreshJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.engine = engine;
+        this.compiler = new SqlCompiler(engine, functionFactoryCache);
+        this.executionContext = new SqlExecutionContextImpl(engine, 1);
+        this.executionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+    }
+
+    private static long alignRefreshLo(MatViewDefinition view, int partitionBy, long timestamp) throws SqlException {
+        final TimestampSampler sampler = TimestampSamplerFactory.getInstance(view.getSampleBy(), 0);
+        sampler.setStart(0);
+        final PartitionBy.PartitionFloorMethod partitionFloorMethod = PartitionBy.getPartitionFloorMethod(partitionBy);
+        long aligned = timestamp;
+        do {
+            timestamp = aligned;
+            aligned = partitionFloorMethod.floor(sampler.round(timestamp));
+        } while (aligned != timestamp);
+        return timestamp;
+    }
+
+    private boolean refresh(MatViewDefinition view) {
+        long refreshLo;
+        try (TableReader baseReader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, view.getBaseTableName())) {
+            refreshLo = view.getRefreshLo(baseReader);
+        } catch (CairoException e) {
+            LOG.error().$("could not read base table of materialized view [view=").utf8(view.getViewName())
+                    .$(", base=").utf8(view.getBaseTableName())
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+            return false;
+        }
+
+        if (refreshLo == Long.MAX_VALUE) {
+            view.refreshed();
+            return false;
+        }
+
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, view.getViewName(), WRITER_LOCK_REASON);
+        } catch (EntryUnavailableException e) {
+            // view is busy, try again on the next run
+            return false;
+        } catch (CairoException e) {
+            LOG.error().$("could not open materialized view [view=").utf8(view.getViewName())
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+            return false;
+        }
+
+        try {
+            if (refreshLo != Long.MIN_VALUE) {
+                refreshLo = alignRefreshLo(view, writer.getPartitionBy(), refreshLo);
+            }
+            if (refreshLo == Long.MIN_VALUE || refreshLo <= writer.getMinTimestamp()) {
+                writer.replacePartitionsFrom(writer.getMinTimestamp());
+                refreshLo = Long.MIN_VALUE;
+            } else {
+                writer.replacePartitionsFrom(refreshLo);
+            }
+
+            long rowCount = 0;
+            try (
+                    RecordCursorFactory factory = compiler.compileMatViewRefresh(view, refreshLo, executionContext);
+                    RecordCursor cursor = factory.getCursor(executionContext)
+            ) {
+                final RecordMetadata metadata = factory.getMetadata();
+                final TableWriterMetadata writerMetadata = writer.getMetadata();
+                final int timestampIndex = metadata.getTimestampIndex();
+                entityColumnFilter.of(writerMetadata.getColumnCount());
+                final SqlCompiler.RecordToRowCopier copier = SqlCompiler.assembleRecordToRowCopier(asm, metadata, writerMetadata, entityColumnFilter);
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    final TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+                    copier.copy(record, row);
+                    row.append();
+                    rowCount++;
+                }
+            }
+            writer.commit();
+            view.refreshed();
+            LOG.info().$("refreshed materialized view [view=").utf8(view.getViewName())
+                    .$(", from=").$ts(refreshLo)
+                    .$(", rows=").$(rowCount)
+                    .I$();
+            return true;
+        } catch (Throwable e) {
+            // rollback restores replaced partitions, refresh is attempted again on the next run
+            writer.rollback();
+            LOG.error().$("could not refresh materialized view [view=").utf8(view.getViewName())
+                    .$(", e=").$(e)
+                    .I$();
+            return false;
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        views.clear();
+        engine.getMatViewRegistry().getViews(views);
+        boolean useful = false;
+        for (int i = 0, n = views.size(); i < n; i++) {
+            useful |= refresh(views.getQuick(i));
+        }
+        return useful;
+    }
+}
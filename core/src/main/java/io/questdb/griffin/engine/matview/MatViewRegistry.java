@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.matview;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Keeps definitions of materialized views. Definition is stored in the view directory, which
+ * means that dropping the view as a table removes the definition too.
+ */
+public class MatViewRegistry {
+    public static final String DEFINITION_FILE_NAME = "_mv";
+    private static final Log LOG = LogFactory.getLog(MatViewRegistry.class);
+    private final ConcurrentHashMap<MatViewDefinition> views = new ConcurrentHashMap<>();
+    private final CairoConfiguration configuration;
+
+    public MatViewRegistry(CairoConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void create(MatViewDefinition definition) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (
+                Path path = new Path();
+                MemoryMARW mem = Vm.getMARWInstance()
+        ) {
+            path.of(configuration.getRoot()).concat(definition.getViewName()).concat(DEFINITION_FILE_NAME).$();
+            mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+            mem.jumpTo(0);
+            mem.putStr(definition.getBaseTableName());
+            mem.putStr(definition.getBaseTimestampColumn());
+            mem.putStr(definition.getSampleBy());
+            mem.putStr(definition.getQuery());
+        }
+        views.put(definition.getViewName(), definition);
+        LOG.info().$("materialized view created [view=").utf8(definition.getViewName())
+                .$(", base=").utf8(definition.getBaseTableName())
+                .I$();
+    }
+
+    public MatViewDefinition getView(CharSequence viewName) {
+        return views.get(viewName);
+    }
+
+    public void getViews(ObjList<MatViewDefinition> sink) {
+        for (MatViewDefinition definition : views.values()) {
+            sink.add(definition);
+        }
+    }
+
+    /**
+     * Discovers views by their definition files in the database root.
+     */
+    public void load() {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final StringSink nameSink = new StringSink();
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot());
+            final int rootLen = path.length();
+            final long p = ff.findFirst(path.$());
+            if (p > 0) {
+                try {
+                    do {
+                        if (Files.isDir(ff.findName(p), ff.findType(p), nameSink)) {
+                            path.trimTo(rootLen).concat(nameSink).concat(DEFINITION_FILE_NAME).$();
+                            if (ff.exists(path)) {
+                                load(ff, path, nameSink.toString());
+                            }
+                        }
+                    } while (ff.findNext(p) > 0);
+                } finally {
+                    ff.findClose(p);
+                }
+            }
+        }
+    }
+
+    public void remove(CharSequence viewName) {
+        if (views.remove(viewName) != null) {
+            LOG.info().$("materialized view removed [view=").utf8(viewName).I$();
+        }
+    }
+
+    public void rename(CharSequence viewName, CharSequence newName) {
+        final MatViewDefinition definition = views.remove(viewName);
+        if (definition != null) {
+            final MatViewDefinition renamed = new MatViewDefinition(
+                    Chars.toString(newName),
+                    definition.getBaseTableName(),
+                    definition.getBaseTimestampColumn(),
+                    definition.getSampleBy(),
+                    definition.getQuery()
+            );
+            views.put(renamed.getViewName(), renamed);
+        }
+    }
+
+    private void load(FilesFacade ff, Path path, String viewName) {
+        try (MemoryMR mem = Vm.getMRInstance(ff, path, ff.length(path), MemoryTag.MMAP_DEFAULT)) {
+            long offset = 0;
+            final String baseTableName = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(baseTableName);
+            final String baseTimestampColumn = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(baseTimestampColumn);
+            final String sampleBy = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(sampleBy);
+            final String query = Chars.toString(mem.getStr(offset));
+            views.put(viewName, new MatViewDefinition(viewName, baseTableName, baseTimestampColumn, sampleBy, query));
+            LOG.info().$("materialized view loaded [view=").utf8(viewName).I$();
+        } catch (CairoException e) {
+            LOG.error().$("could not load materialized view [path=").$(path)
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Vect;
+
+class RadixSortLightRecordCursor implements DelegatingRecordCursor {
+    private final DirectLongList entries;
+    private final DirectLongList entriesCopy;
+    private final long maxEntriesSize;
+    private final int maxPages;
+    private final int columnIndex;
+    private final int columnTag;
+    private final boolean descending;
+    private RecordCursor base;
+    private Record baseRecord;
+    private long entryCount;
+    private long index;
+
+    public RadixSortLightRecordCursor(
+            DirectLongList entries,
+            DirectLongList entriesCopy,
+            long maxEntriesSize,
+            int maxPages,
+            int columnIndex,
+            int columnTag,
+            boolean descending
+    ) {
+        this.entries = entries;
+        this.entriesCopy = entriesCopy;
+        this.maxEntriesSize = maxEntriesSize;
+        this.maxPages = maxPages;
+        this.columnIndex = columnIndex;
+        this.columnTag = columnTag;
+        this.descending = descending;
+    }
+
+    @Override
+    public void close() {
+        entries.clear();
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < entryCount) {
+            // entries are (key, row id) pairs
+            base.recordAt(baseRecord, entries.get(2 * index++ + 1));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+
+        entries.clear();
+        while (base.hasNext()) {
+            circuitBreaker.test();
+            if (entries.size() >= maxEntriesSize) {
+                throw LimitOverflowException.instance().put("Maximum number of pages (").put(maxPages).put(") breached in radix sort");
+            }
+            final long key = sortKey(baseRecord);
+            entries.add(descending ? ~key : key);
+            entries.add(baseRecord.getRowId());
+        }
+        entryCount = entries.size() / 2;
+        if (entryCount > 1) {
+            if (entriesCopy.getCapacity() < entries.size()) {
+                entriesCopy.extend(entries.size());
+            }
+            Vect.radixSortLongIndexAscInPlace(entries.getAddress(), entryCount, entriesCopy.getAddress());
+        }
+        index = 0;
+    }
+
+    /**
+     * Maps column value to unsigned long with the same order, nulls are the smallest values
+     * the same way as they are for comparator based sort.
+     */
+    private long sortKey(Record record) {
+        switch (columnTag) {
+            case ColumnType.BYTE:
+                return record.getByte(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.SHORT:
+                return record.getShort(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.CHAR:
+                return record.getChar(columnIndex);
+            case ColumnType.INT:
+                return record.getInt(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.LONG:
+                return record.getLong(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.DATE:
+                return record.getDate(columnIndex) ^ Long.MIN_VALUE;
+            case ColumnType.TIMESTAMP:
+                return record.getTimestamp(columnIndex) ^ Long.MIN_VALUE;
+            default:
+                return doubleSortKey(record.getDouble(columnIndex));
+        }
+    }
+
+    private static long doubleSortKey(double value) {
+        if (value != value) {
+            // NaN is null
+            return 0;
+        }
+        // -0.0 and 0.0 are equal
+        final long bits = Double.doubleToRawLongBits(value + 0.0);
+        return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+
+/**
+ * Sorts random access cursor on a single fixed-width column. Keys are converted to unsigned longs that
+ * preserve the column order and sorted together with row ids by native radix sort, which is stable, so
+ * rows with equal keys keep their original order like they do in {@link SortedLightRecordCursorFactory}.
+ */
+public class RadixSortLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final DirectLongList entries;
+    private final DirectLongList entriesCopy;
+    private final RadixSortLightRecordCursor cursor;
+
+    public RadixSortLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            int columnIndex,
+            int columnType,
+            boolean descending
+    ) {
+        super(metadata);
+        this.base = base;
+        final long pageSize = configuration.getSqlSortKeyPageSize();
+        final int maxPages = configuration.getSqlSortKeyMaxPages();
+        final long capacity = pageSize / Long.BYTES;
+        // sort entries are subject to the same limit as keys of the tree based sort
+        final long maxEntriesSize = maxPages < Long.MAX_VALUE / pageSize ? pageSize * maxPages / Long.BYTES : Long.MAX_VALUE;
+        this.entries = new DirectLongList(capacity, MemoryTag.NATIVE_LONG_LIST);
+        this.entriesCopy = new DirectLongList(capacity, MemoryTag.NATIVE_LONG_LIST);
+        this.cursor = new RadixSortLightRecordCursor(
+                entries,
+                entriesCopy,
+                maxEntriesSize,
+                maxPages,
+                columnIndex,
+                ColumnType.tagOf(columnType),
+                descending
+        );
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        base.close();
+        Misc.free(entries);
+        Misc.free(entriesCopy);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (RuntimeException ex) {
+            baseCursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+}
@@ -157,6 +157,13 @@ public class RecordTreeChain implements Closeable, Mutable {
         Misc.free(mem);
     }
 
+    /**
+     * @return number of bytes taken by the tree and the records
+     */
+    public long getMemoryUsed() {
+        return mem.size() + recordChain.getAppendOffset();
+    }
+
     public TreeCursor getCursor(RecordCursor base) {
         cursor.of(base);
         return cursor;
@@ -33,21 +33,28 @@ import io.questdb.griffin.SqlExecutionCircuitBreaker;
 
 class SortedRecordCursor implements DelegatingRecordCursor {
     private final RecordTreeChain chain;
+    private final SortedRecordSpill spill;
+    private final long memoryBudget;
     private RecordTreeChain.TreeCursor chainCursor;
+    // either the tree chain cursor or the chain of spilled rows
+    private RecordCursor sortedCursor;
 
-    public SortedRecordCursor(RecordTreeChain chain) {
+    public SortedRecordCursor(RecordTreeChain chain, SortedRecordSpill spill, long memoryBudget) {
         this.chain = chain;
+        this.spill = spill;
+        this.memoryBudget = memoryBudget;
     }
 
     @Override
     public void close() {
         chainCursor.close();
         chain.clear();
+        spill.clear();
     }
 
     @Override
     public Record getRecord() {
-        return chainCursor.getRecord();
+        return sortedCursor.getRecord();
     }
 
     @Override
@@ -57,22 +64,22 @@ class SortedRecordCursor implements DelegatingRecordCursor {
 
     @Override
     public boolean hasNext() {
-        return chainCursor.hasNext();
+        return sortedCursor.hasNext();
     }
 
     @Override
     public Record getRecordB() {
-        return chainCursor.getRecordB();
+        return sortedCursor.getRecordB();
     }
 
     @Override
     public void recordAt(Record record, long atRowId) {
-        chainCursor.recordAt(record, atRowId);
+        sortedCursor.recordAt(record, atRowId);
     }
 
     @Override
     public void toTop() {
-        chainCursor.toTop();
+        sortedCursor.toTop();
     }
 
     @Override
@@ -88,15 +95,29 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
 
             chain.clear();
+            spill.clear();
             while (base.hasNext()) {
                 circuitBreaker.test();
+                if (memoryBudget > 0 && chain.getMemoryUsed() > memoryBudget) {
+                    // sorted rows do not fit the budget, move them to disk
+                    spill.addRun(chainCursor, circuitBreaker);
+                    chain.clear();
+                }
                 // Tree chain is liable to re-position record to
                 // other rows to do record comparison. We must use our
                 // own record instance in case base cursor keeps
                 // state in the record it returns.
                 chain.put(record);
             }
-            chainCursor.toTop();
+
+            if (spill.getRunCount() > 0) {
+                spill.addRun(chainCursor, circuitBreaker);
+                chain.clear();
+                sortedCursor = spill.merge(base, circuitBreaker);
+            } else {
+                chainCursor.toTop();
+                sortedCursor = chainCursor;
+            }
         } catch (Throwable ex) {
             base.close();
             throw ex;
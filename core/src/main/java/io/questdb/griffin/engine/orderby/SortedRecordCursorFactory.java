@@ -38,6 +38,7 @@ import io.questdb.griffin.engine.RecordComparator;
 public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
     private final RecordTreeChain chain;
+    private final SortedRecordSpill spill;
     private final SortedRecordCursor cursor;
 
     public SortedRecordCursorFactory(
@@ -58,14 +59,16 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortValuePageSize(),
                 configuration.getSqlSortValueMaxPages()
         );
+        this.spill = new SortedRecordSpill(configuration, columnTypes, recordSink, comparator);
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        this.cursor = new SortedRecordCursor(chain, spill, configuration.getSqlSortMemoryBudget());
     }
 
     @Override
     public void close() {
         base.close();
         chain.close();
+        spill.close();
     }
 
     @Override
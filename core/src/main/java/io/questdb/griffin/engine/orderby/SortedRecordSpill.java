@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SpillRecordChain;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.SqlExecutionCircuitBreaker;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * External merge sort for rows that do not fit the sort memory budget. Sorted runs are written to
+ * spill files and then merged with a binary heap into a single spill file, which keeps random access
+ * to the sorted rows. Rows with equal keys keep the order of runs, so the result is the same as of
+ * the in-memory sort.
+ */
+public class SortedRecordSpill implements Closeable, Mutable {
+    private final CairoConfiguration configuration;
+    private final ColumnTypes columnTypes;
+    private final RecordSink recordSink;
+    private final RecordComparator comparator;
+    private final long extendSegmentSize;
+    private final ObjList<SpillRecordChain> runs = new ObjList<>();
+    private final SpillRecordChain output;
+    private final IntList heap = new IntList();
+    private int runCount = 0;
+
+    public SortedRecordSpill(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes columnTypes,
+            RecordSink recordSink,
+            RecordComparator comparator
+    ) {
+        this.configuration = configuration;
+        // column types are only used to compute record layout, keep our own copy for the runs created later
+        this.columnTypes = new ArrayColumnTypes().addAll(columnTypes);
+        this.recordSink = recordSink;
+        this.comparator = comparator;
+        // runs are about the size of the memory budget, do not grow files by more than that
+        this.extendSegmentSize = Math.min(configuration.getSqlSortValuePageSize(), Math.max(configuration.getSqlSortMemoryBudget(), 1));
+        this.output = new SpillRecordChain(configuration, columnTypes, recordSink, extendSegmentSize);
+    }
+
+    /**
+     * Writes rows of the sorted cursor into a new run.
+     */
+    public void addRun(RecordCursor sortedCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (runCount == runs.size()) {
+            runs.add(new SpillRecordChain(configuration, columnTypes, recordSink, extendSegmentSize));
+        }
+        final SpillRecordChain run = runs.getQuick(runCount++);
+        final Record record = sortedCursor.getRecord();
+        long offset = -1L;
+        sortedCursor.toTop();
+        while (sortedCursor.hasNext()) {
+            circuitBreaker.test();
+            offset = run.put(record, offset);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < runCount; i++) {
+            runs.getQuick(i).clear();
+        }
+        runCount = 0;
+        output.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(runs);
+        Misc.free(output);
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Merges all runs into a single chain and removes the run files.
+     *
+     * @param symbolTableResolver resolves symbols of the sorted rows, comparators may need them
+     * @return chain of sorted rows, it is owned by the spill
+     */
+    public RecordChain merge(RecordCursor symbolTableResolver, SqlExecutionCircuitBreaker circuitBreaker) {
+        output.clear();
+        output.setSymbolTableResolver(symbolTableResolver);
+        heap.clear();
+        for (int i = 0; i < runCount; i++) {
+            final SpillRecordChain run = runs.getQuick(i);
+            run.setSymbolTableResolver(symbolTableResolver);
+            run.toTop();
+            if (run.hasNext()) {
+                heap.add(i);
+            }
+        }
+        for (int i = heap.size() / 2 - 1; i > -1; i--) {
+            siftDown(i);
+        }
+
+        long offset = -1L;
+        while (heap.size() > 0) {
+            circuitBreaker.test();
+            final SpillRecordChain run = runs.getQuick(heap.getQuick(0));
+            offset = output.put(run.getRecord(), offset);
+            if (!run.hasNext()) {
+                final int last = heap.size() - 1;
+                heap.setQuick(0, heap.getQuick(last));
+                heap.setPos(last);
+            }
+            siftDown(0);
+        }
+
+        for (int i = 0; i < runCount; i++) {
+            runs.getQuick(i).clear();
+        }
+        runCount = 0;
+        output.toTop();
+        return output;
+    }
+
+    private boolean less(int runA, int runB) {
+        comparator.setLeft(runs.getQuick(runA).getRecord());
+        final int cmp = comparator.compare(runs.getQuick(runB).getRecord());
+        // earlier runs hold earlier rows, this keeps the sort stable
+        return cmp < 0 || (cmp == 0 && runA < runB);
+    }
+
+    private void siftDown(int index) {
+        final int size = heap.size();
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            final int right = left + 1;
+            if (right < size && less(heap.getQuick(right), heap.getQuick(left))) {
+                smallest = right;
+            }
+            if (!less(heap.getQuick(smallest), heap.getQuick(index))) {
+                return;
+            }
+            final int tmp = heap.getQuick(index);
+            heap.setQuick(index, heap.getQuick(smallest));
+            heap.setQuick(smallest, tmp);
+            index = smallest;
+        }
+    }
+}
@@ -24,19 +24,22 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
-import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.bind.CompiledFilterSymbolBindVariable;
 import io.questdb.jit.CompiledFilter;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
 import io.questdb.std.*;
-import io.questdb.std.str.AbstractCharSequence;
-import io.questdb.std.str.CharSink;
+import io.questdb.tasks.PageFrameFilterTask;
 
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BooleanSupplier;
 
 class CompiledFilterRecordCursor implements RecordCursor {
@@ -54,10 +57,32 @@ class CompiledFilterRecordCursor implements RecordCursor {
     private CompiledFilter compiledFilter;
 
     private final int rowsCapacityThreshold;
+    // Page frames are filtered ahead of iteration within a window of slots: dense frames
+    // are published to the page frame filter queue as soon as a slot is free and filtered
+    // by the workers, each into the rows buffer of its slot. Frames are iterated in order,
+    // each as soon as its own filter task is done.
+    private final ObjList<SOUnboundedCountDownLatch> slotLatches = new ObjList<>();
+    private final IntList slotFrameIndexes = new IntList();
+    private final LongList slotFrameRowCounts = new LongList();
+    // filtered row count per slot; -1 for frames with column tops
+    private final LongList slotFilteredRowCounts = new LongList();
+    private final BoolList slotQueued = new BoolList();
+    private ObjList<DirectLongList> frameRows;
+    private ObjList<DirectLongList> frameColumns;
     private DirectLongList rows;
-    private DirectLongList columns;
     private MemoryCARW bindVarMemory;
     private int bindVarCount;
+    private MessageBus messageBus;
+    private int windowSize;
+    // slot of the oldest frame in the window
+    private int headSlot;
+    // number of frames in the window, including the one being iterated
+    private int windowFrameCount;
+    // true when the head slot is being iterated, it is released on the next page
+    private boolean headInUse;
+    private boolean framesExhausted;
+    // number of page frames fetched from the page frame cursor so far
+    private int frameCount;
 
     // Important invariant: only nextPage and other cursor iteration methods
     // are allowed to modify the below three fields
@@ -84,17 +109,32 @@ class CompiledFilterRecordCursor implements RecordCursor {
             RecordCursorFactory factory,
             Function filter,
             CompiledFilter compiledFilter,
-            DirectLongList rows,
-            DirectLongList columns,
+            ObjList<DirectLongList> frameRows,
+            ObjList<DirectLongList> frameColumns,
+            int windowSize,
             ObjList<Function> bindVarFunctions,
             MemoryCARW bindVarMemory,
             SqlExecutionContext executionContext
     ) throws SqlException {
         this.pageFrameIndex = -1;
+        this.frameCount = 0;
         this.colTopsFilter = filter;
         this.compiledFilter = compiledFilter;
-        this.rows = rows;
-        this.columns = columns;
+        this.frameRows = frameRows;
+        this.frameColumns = frameColumns;
+        this.rows = frameRows.getQuick(0);
+        // workers write into the slot lists concurrently, they must not be reallocated
+        // while frames are in flight
+        resetWindow();
+        this.messageBus = executionContext.getMessageBus();
+        this.windowSize = windowSize;
+        slotFrameIndexes.setPos(windowSize);
+        slotFrameRowCounts.setPos(windowSize);
+        slotFilteredRowCounts.setPos(windowSize);
+        slotQueued.setPos(windowSize);
+        for (int i = slotLatches.size(); i < windowSize; i++) {
+            slotLatches.add(new SOUnboundedCountDownLatch());
+        }
         this.metadata = factory.getMetadata();
         pageAddressCache.of(metadata);
         this.pageFrameCursor = factory.getPageFrameCursor(executionContext);
@@ -117,9 +157,14 @@ class CompiledFilterRecordCursor implements RecordCursor {
 
     @Override
     public void close() {
-        if (rows.getCapacity() > rowsCapacityThreshold) {
-            // This call will shrink down the underlying array
-            rows.extend(rowsCapacityThreshold);
+        // in-flight tasks write into the slot buffers
+        resetWindow();
+        for (int i = 0, n = frameRows.size(); i < n; i++) {
+            final DirectLongList filteredRows = frameRows.getQuick(i);
+            if (filteredRows.getCapacity() > rowsCapacityThreshold) {
+                // This call will shrink down the underlying array
+                filteredRows.extend(rowsCapacityThreshold);
+            }
         }
         bindVarMemory.truncate();
         pageAddressCache.clear();
@@ -152,6 +197,8 @@ class CompiledFilterRecordCursor implements RecordCursor {
         if (pageFrameIndex == -1) {
             // Cursor iteration -> toTop -> recordAt case
             pageFrameCursor.toTop();
+            frameCount = 0;
+            resetWindow();
             next = nextPage;
             return next.getAsBoolean();
         }
@@ -169,6 +216,8 @@ class CompiledFilterRecordCursor implements RecordCursor {
     @Override
     public void toTop() {
         pageFrameIndex = -1;
+        frameCount = 0;
+        resetWindow();
         colTopsFilter.toTop();
         pageFrameCursor.toTop();
         next = nextPage;
@@ -215,21 +264,31 @@ class CompiledFilterRecordCursor implements RecordCursor {
     }
 
     private boolean nextPage() {
-        final int columnCount = metadata.getColumnCount();
+        while (true) {
+            if (headInUse) {
+                // the frame we have been iterating is done with, its slot is free for the next frame
+                headInUse = false;
+                headSlot = nextSlot(headSlot);
+                windowFrameCount--;
+            }
 
-        PageFrame frame;
-        while ((frame = pageFrameCursor.next()) != null) {
-            pageFrameIndex += 1;
-            recordA.jumpTo(pageFrameIndex);
-            pageAddressCache.add(pageFrameIndex, frame);
+            fillWindow();
+            if (windowFrameCount == 0) {
+                return false;
+            }
 
-            final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            awaitSlot(headSlot);
+            headInUse = true;
+
+            pageFrameIndex = slotFrameIndexes.getQuick(headSlot);
+            recordA.jumpTo(pageFrameIndex);
 
-            if (pageAddressCache.hasColumnTops(pageFrameIndex)) {
+            final long filteredRowCount = slotFilteredRowCounts.getQuick(headSlot);
+            if (filteredRowCount < 0) {
                 // Use Java filter implementation in case of a page frame with column tops.
 
                 current = -1;
-                hi = rowCount;
+                hi = slotFrameRowCounts.getQuick(headSlot);
                 seekNextColTopsRow();
 
                 if (current < hi) {
@@ -239,37 +298,127 @@ class CompiledFilterRecordCursor implements RecordCursor {
                 continue;
             }
 
+            rows = frameRows.getQuick(headSlot);
+            current = 0;
+            hi = filteredRowCount;
+
+            if (current < hi) {
+                recordA.setIndex(rows.get(current));
+                current += 1;
+                next = nextRow;
+                return true;
+            }
+        }
+    }
+
+    private void awaitSlot(int slot) {
+        if (slotQueued.get(slot)) {
+            final SOUnboundedCountDownLatch latch = slotLatches.getQuick(slot);
+            // process our own queue to avoid deadlock when there are no workers to pick up the tasks
+            final RingQueue<PageFrameFilterTask> queue = messageBus.getPageFrameFilterQueue();
+            final Sequence subSeq = messageBus.getPageFrameFilterSubSeq();
+            while (latch.getCount() > -1) {
+                long seq = subSeq.next();
+                if (seq > -1) {
+                    queue.get(seq).run();
+                    subSeq.done(seq);
+                } else {
+                    LockSupport.parkNanos(1);
+                }
+            }
+            // latch count down publishes filtered row count of the slot
+            slotQueued.setQuick(slot, false);
+        }
+    }
+
+    private void fillWindow() {
+        final RingQueue<PageFrameFilterTask> queue = messageBus.getPageFrameFilterQueue();
+        final Sequence pubSeq = messageBus.getPageFrameFilterPubSeq();
+        final int columnCount = metadata.getColumnCount();
+
+        PageFrame frame;
+        while (windowFrameCount < windowSize && !framesExhausted) {
+            if ((frame = pageFrameCursor.next()) == null) {
+                framesExhausted = true;
+                break;
+            }
+
+            final int frameIndex = frameCount++;
+            final int slot = (headSlot + windowFrameCount) % windowSize;
+            windowFrameCount++;
+            pageAddressCache.add(frameIndex, frame);
+
+            final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            slotFrameIndexes.setQuick(slot, frameIndex);
+            slotFrameRowCounts.setQuick(slot, rowCount);
+
+            if (pageAddressCache.hasColumnTops(frameIndex)) {
+                // Frames with column tops are filtered lazily by the Java filter
+                // on the query thread, see nextPage().
+                slotFilteredRowCounts.setQuick(slot, -1);
+                continue;
+            }
+
             // Use compiled filter in case of a dense page frame.
 
+            final DirectLongList columns = frameColumns.getQuick(slot);
             columns.extend(columnCount);
             columns.clear();
             for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
-                columns.add(pageAddressCache.getPageAddress(pageFrameIndex, columnIndex));
+                columns.add(pageAddressCache.getPageAddress(frameIndex, columnIndex));
             }
             // TODO: page frames may be quite large; we may want to break them into smaller sub-frames
-            if (rows.getCapacity() < rowCount) {
-                rows.extend(rowCount);
+            final DirectLongList filteredRows = frameRows.getQuick(slot);
+            if (filteredRows.getCapacity() < rowCount) {
+                filteredRows.extend(rowCount);
+            }
+
+            // single slot window is filtered in place, there is nothing to overlap with
+            final long seq = windowSize > 1 ? pubSeq.next() : -1;
+            if (seq < 0) {
+                slotFilteredRowCounts.setQuick(slot, compiledFilter.call(
+                        columns.getAddress(),
+                        columns.size(),
+                        bindVarMemory.getAddress(),
+                        bindVarCount,
+                        filteredRows.getAddress(),
+                        rowCount,
+                        0
+                ));
+            } else {
+                final SOUnboundedCountDownLatch latch = slotLatches.getQuick(slot);
+                latch.reset();
+                slotQueued.setQuick(slot, true);
+                queue.get(seq).of(
+                        compiledFilter,
+                        columns.getAddress(),
+                        columns.size(),
+                        bindVarMemory.getAddress(),
+                        bindVarCount,
+                        filteredRows.getAddress(),
+                        rowCount,
+                        slotFilteredRowCounts,
+                        slot,
+                        latch
+                );
+                pubSeq.done(seq);
             }
+        }
+    }
 
-            current = 0;
-            hi = compiledFilter.call(
-                    columns.getAddress(),
-                    columns.size(),
-                    bindVarMemory.getAddress(),
-                    bindVarCount,
-                    rows.getAddress(),
-                    rowCount,
-                    0
-            );
+    private int nextSlot(int slot) {
+        return slot + 1 < windowSize ? slot + 1 : 0;
+    }
 
-            if (current < hi) {
-                recordA.setIndex(rows.get(current));
-                current += 1;
-                next = nextRow;
-                return true;
-            }
+    private void resetWindow() {
+        // in-flight tasks write into the slot buffers, so we wait for them before the buffers are reused
+        for (int i = 0; i < windowFrameCount; i++) {
+            awaitSlot((headSlot + i) % windowSize);
         }
-        return false;
+        headSlot = 0;
+        windowFrameCount = 0;
+        headInUse = false;
+        framesExhausted = false;
     }
 
     private void writeBindVarFunction(Function function, SqlExecutionContext executionContext) throws SqlException {
@@ -329,443 +478,4 @@ class CompiledFilterRecordCursor implements RecordCursor {
                 throw SqlException.position(0).put("unsupported bind variable type: ").put(ColumnType.nameOf(columnTypeTag));
         }
     }
-
-    public static class PageFrameRecord implements Record {
-
-        private final ByteSequenceView bsview = new ByteSequenceView();
-        private final CharSequenceView csview = new CharSequenceView();
-        private final CharSequenceView csview2 = new CharSequenceView();
-        private final Long256Impl long256A = new Long256Impl();
-        private final Long256Impl long256B = new Long256Impl();
-
-        private PageFrameCursor cursor;
-        private PageAddressCache pageAddressCache;
-        private int frameIndex;
-        private long index;
-
-        public void jumpTo(int frameIndex) {
-            this.frameIndex = frameIndex;
-        }
-
-        public void setIndex(long index) {
-            this.index = index;
-        }
-
-        public void of(PageFrameCursor cursor, PageAddressCache columnAddressCache) {
-            this.cursor = cursor;
-            this.pageAddressCache = columnAddressCache;
-            this.frameIndex = 0;
-            this.index = 0;
-        }
-
-        @Override
-        public long getRowId() {
-            return Rows.toRowID(frameIndex, index);
-        }
-
-        @Override
-        public BinarySequence getBin(int columnIndex) {
-            final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (dataPageAddress == 0) {
-                return NullColumn.INSTANCE.getBin(0);
-            }
-            final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
-            final long offset = Unsafe.getUnsafe().getLong(indexPageAddress + index * Long.BYTES);
-            final long size = pageAddressCache.getPageSize(frameIndex, columnIndex);
-            return getBin(dataPageAddress, offset, size, bsview);
-        }
-
-        private BinarySequence getBin(long base, long offset, long size, ByteSequenceView view) {
-            final long address = base + offset;
-            final long len = Unsafe.getUnsafe().getLong(address);
-            if (len != TableUtils.NULL_LEN) {
-                if (len + Long.BYTES + offset <= size) {
-                    return view.of(address + Long.BYTES, len);
-                }
-                throw CairoException.instance(0)
-                        .put("Bin is outside of file boundary [offset=")
-                        .put(offset)
-                        .put(", len=")
-                        .put(len)
-                        .put(", size=")
-                        .put(size)
-                        .put(']');
-            }
-            return null;
-        }
-
-        @Override
-        public long getBinLen(int columnIndex) {
-            final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (dataPageAddress == 0) {
-                return NullColumn.INSTANCE.getBinLen(0);
-            }
-            final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
-            final long offset = Unsafe.getUnsafe().getLong(indexPageAddress + index * Long.BYTES);
-            return Unsafe.getUnsafe().getLong(dataPageAddress + offset);
-        }
-
-        @Override
-        public boolean getBool(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getBool(0);
-            }
-            return Unsafe.getUnsafe().getByte(address + index * Byte.BYTES) == 1;
-        }
-
-        @Override
-        public byte getByte(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getByte(0);
-            }
-            return Unsafe.getUnsafe().getByte(address + index * Byte.BYTES);
-        }
-
-        @Override
-        public double getDouble(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getDouble(0);
-            }
-            return Unsafe.getUnsafe().getDouble(address + index * Double.BYTES);
-        }
-
-        @Override
-        public float getFloat(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getFloat(0);
-            }
-            return Unsafe.getUnsafe().getFloat(address + index * Float.BYTES);
-        }
-
-        @Override
-        public int getInt(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getInt(0);
-            }
-            return Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
-        }
-
-        @Override
-        public long getLong(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getLong(0);
-            }
-            return Unsafe.getUnsafe().getLong(address + index * Long.BYTES);
-        }
-
-        @Override
-        public short getShort(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getShort(0);
-            }
-            return Unsafe.getUnsafe().getShort(address + index * Short.BYTES);
-        }
-
-        @Override
-        public char getChar(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getChar(0);
-            }
-            return Unsafe.getUnsafe().getChar(address + index * Character.BYTES);
-        }
-
-        @Override
-        public CharSequence getStr(int columnIndex) {
-            final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (dataPageAddress == 0) {
-                return NullColumn.INSTANCE.getStr(0);
-            }
-            final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
-            final long offset = Unsafe.getUnsafe().getLong(indexPageAddress + index * Long.BYTES);
-            final long size = pageAddressCache.getPageSize(frameIndex, columnIndex);
-            return getStr(dataPageAddress, offset, size, csview);
-        }
-
-        private CharSequence getStr(long base, long offset, long size, CharSequenceView view) {
-            final long address = base + offset;
-            final int len = Unsafe.getUnsafe().getInt(address);
-            if (len != TableUtils.NULL_LEN) {
-                if (len + 4 + offset <= size) {
-                    return view.of(address + Vm.STRING_LENGTH_BYTES, len);
-                }
-                throw CairoException.instance(0)
-                        .put("String is outside of file boundary [offset=")
-                        .put(offset)
-                        .put(", len=")
-                        .put(len)
-                        .put(", size=")
-                        .put(size)
-                        .put(']');
-            }
-            return null;
-        }
-
-        @Override
-        public int getStrLen(int columnIndex) {
-            final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (dataPageAddress == 0) {
-                return NullColumn.INSTANCE.getStrLen(0);
-            }
-            final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
-            final long offset = Unsafe.getUnsafe().getLong(indexPageAddress + index * Long.BYTES);
-            return Unsafe.getUnsafe().getInt(dataPageAddress + offset);
-        }
-
-        @Override
-        public CharSequence getStrB(int columnIndex) {
-            final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (dataPageAddress == 0) {
-                return NullColumn.INSTANCE.getStr2(0);
-            }
-            final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
-            final long offset = Unsafe.getUnsafe().getLong(indexPageAddress + index * Long.BYTES);
-            final long size = pageAddressCache.getPageSize(frameIndex, columnIndex);
-            return getStr(dataPageAddress, offset, size, csview2);
-        }
-
-        @Override
-        public void getLong256(int columnIndex, CharSink sink) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                NullColumn.INSTANCE.getLong256(0, sink);
-                return;
-            }
-            getLong256(address + index * Long256.BYTES, sink);
-        }
-
-        void getLong256(long offset, CharSink sink) {
-            final long addr = offset + Long.BYTES * 4;
-            final long a, b, c, d;
-            a = Unsafe.getUnsafe().getLong(addr - Long.BYTES * 4);
-            b = Unsafe.getUnsafe().getLong(addr - Long.BYTES * 3);
-            c = Unsafe.getUnsafe().getLong(addr - Long.BYTES * 2);
-            d = Unsafe.getUnsafe().getLong(addr - Long.BYTES);
-            Numbers.appendLong256(a, b, c, d, sink);
-        }
-
-        @Override
-        public Long256 getLong256A(int columnIndex) {
-            getLong256(columnIndex, long256A);
-            return long256A;
-        }
-
-        @Override
-        public Long256 getLong256B(int columnIndex) {
-            getLong256(columnIndex, long256B);
-            return long256B;
-        }
-
-        void getLong256(int columnIndex, Long256Acceptor sink) {
-            final long columnAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (columnAddress == 0) {
-                NullColumn.INSTANCE.getLong256(0, sink);
-                return;
-            }
-            final long addr = columnAddress + index * Long256.BYTES  + Long.BYTES * 4;
-            sink.setAll(
-                    Unsafe.getUnsafe().getLong(addr - Long.BYTES * 4),
-                    Unsafe.getUnsafe().getLong(addr - Long.BYTES * 3),
-                    Unsafe.getUnsafe().getLong(addr - Long.BYTES * 2),
-                    Unsafe.getUnsafe().getLong(addr - Long.BYTES)
-            );
-        }
-
-        @Override
-        public CharSequence getSym(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            int key = NullColumn.INSTANCE.getInt(0);
-            if (address != 0) {
-                key = Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
-            }
-            return cursor.getSymbolMapReader(columnIndex).valueOf(key);
-        }
-
-        @Override
-        public CharSequence getSymB(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            final int key = Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
-            return cursor.getSymbolMapReader(columnIndex).valueBOf(key);
-        }
-
-        @Override
-        public byte getGeoByte(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getByte(0);
-            }
-            return Unsafe.getUnsafe().getByte(address + index * Byte.BYTES);
-        }
-
-        @Override
-        public short getGeoShort(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getShort(0);
-            }
-            return Unsafe.getUnsafe().getShort(address + index * Short.BYTES);
-        }
-
-        @Override
-        public int getGeoInt(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getInt(0);
-            }
-            return Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
-        }
-
-        @Override
-        public long getGeoLong(int columnIndex) {
-            final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
-            if (address == 0) {
-                return NullColumn.INSTANCE.getLong(0);
-            }
-            return Unsafe.getUnsafe().getLong(address + index * Long.BYTES);
-        }
-
-        private static class ByteSequenceView implements BinarySequence {
-            private long address;
-            private long len = -1;
-
-            @Override
-            public byte byteAt(long index) {
-                return Unsafe.getUnsafe().getByte(address + index);
-            }
-
-            @Override
-            public void copyTo(long address, final long start, final long length) {
-                final long bytesRemaining = Math.min(length, this.len - start);
-                final long addr = this.address + start;
-                Vect.memcpy(address, addr, bytesRemaining);
-            }
-
-            @Override
-            public long length() {
-                return len;
-            }
-
-            ByteSequenceView of(long address, long len) {
-                this.address = address;
-                this.len = len;
-                return this;
-            }
-        }
-
-        private static class CharSequenceView extends AbstractCharSequence {
-            private int len;
-            private long address;
-
-            @Override
-            public int length() {
-                return len;
-            }
-
-            @Override
-            public char charAt(int index) {
-                return Unsafe.getUnsafe().getChar(address + index * 2L);
-            }
-
-            CharSequenceView of(long address, int len) {
-                this.address = address;
-                this.len = len;
-                return this;
-            }
-        }
-    }
-
-    private static class PageAddressCache implements Mutable {
-
-        private final int cacheSizeThreshold;
-        private int columnCount;
-        private int varLenColumnCount;
-
-        // Index remapping for variable length columns.
-        private final IntList varLenColumnIndexes = new IntList();
-
-        private LongList pageAddresses = new LongList();
-        // Index page addresses and page sizes are stored only for variable length columns.
-        private LongList indexPageAddresses = new LongList();
-        private LongList pageSizes = new LongList();
-
-        public PageAddressCache(CairoConfiguration configuration) {
-            cacheSizeThreshold = configuration.getSqlJitPageAddressCacheThreshold() / Long.BYTES;
-        }
-
-        public void of(RecordMetadata metadata) {
-            this.columnCount = metadata.getColumnCount();
-            this.varLenColumnIndexes.setAll(columnCount, -1);
-            this.varLenColumnCount = 0;
-            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
-                final int columnType = metadata.getColumnType(columnIndex);
-                if (ColumnType.isVariableLength(columnType)) {
-                    varLenColumnIndexes.setQuick(columnIndex, varLenColumnCount++);
-                }
-            }
-        }
-
-        @Override
-        public void clear() {
-            varLenColumnIndexes.clear();
-            if (pageAddresses.size() > cacheSizeThreshold) {
-                pageAddresses.clear();
-                indexPageAddresses.clear();
-                pageSizes.clear();
-            } else {
-                pageAddresses = new LongList();
-                indexPageAddresses = new LongList();
-                pageSizes = new LongList();
-            }
-        }
-
-        public void add(int frameIndex, PageFrame frame) {
-            if (pageAddresses.size() >= columnCount * (frameIndex + 1)) {
-                return; // The page frame is already cached
-            }
-            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
-                pageAddresses.add(frame.getPageAddress(columnIndex));
-                int varLenColumnIndex = varLenColumnIndexes.getQuick(columnIndex);
-                if (varLenColumnIndex > -1) {
-                    indexPageAddresses.add(frame.getIndexPageAddress(columnIndex));
-                    pageSizes.add(frame.getPageSize(columnIndex));
-                }
-            }
-        }
-
-        public long getPageAddress(int frameIndex, int columnIndex) {
-            assert pageAddresses.size() >= columnCount * (frameIndex + 1);
-            return pageAddresses.getQuick(columnCount * frameIndex + columnIndex);
-        }
-
-        public long getIndexPageAddress(int frameIndex, int columnIndex) {
-            assert indexPageAddresses.size() >= varLenColumnCount * (frameIndex + 1);
-            int varLenColumnIndex = varLenColumnIndexes.getQuick(columnIndex);
-            assert varLenColumnIndex > -1;
-            return indexPageAddresses.getQuick(varLenColumnCount * frameIndex + varLenColumnIndex);
-        }
-
-        public long getPageSize(int frameIndex, int columnIndex) {
-            assert pageSizes.size() >= varLenColumnCount * (frameIndex + 1);
-            int varLenColumnIndex = varLenColumnIndexes.getQuick(columnIndex);
-            assert varLenColumnIndex > -1;
-            return pageSizes.getQuick(varLenColumnCount * frameIndex + varLenColumnIndex);
-        }
-
-        public boolean hasColumnTops(int frameIndex) {
-            assert pageAddresses.size() >= columnCount * (frameIndex + 1);
-            for (int columnIndex = 0, baseIndex = columnCount * frameIndex; columnIndex < columnCount; columnIndex++) {
-                if (pageAddresses.getQuick(baseIndex + columnIndex) == 0) {
-                    return true;
-                }
-            }
-            return false;
-        }
-    }
 }
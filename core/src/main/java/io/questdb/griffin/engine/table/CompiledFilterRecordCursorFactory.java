@@ -36,19 +36,24 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.jit.CompiledFilter;
 import io.questdb.std.DirectLongList;
 import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import org.jetbrains.annotations.NotNull;
 
 public class CompiledFilterRecordCursorFactory implements RecordCursorFactory {
 
+    private final CairoConfiguration configuration;
     private final RecordCursorFactory factory;
     private final Function filter;
     private final CompiledFilter compiledFilter;
     private final CompiledFilterRecordCursor cursor;
     private final ObjList<Function> bindVarFunctions;
     private final MemoryCARW bindVarMemory;
-    private final DirectLongList rows;
-    private final DirectLongList columns;
+    // per page frame buffers; the number of frames filtered ahead of iteration is capped
+    // by the number of workers available to the query, buffers are added on demand
+    // because factory can be reused by queries executed with different worker count
+    private final ObjList<DirectLongList> rows = new ObjList<>();
+    private final ObjList<DirectLongList> columns = new ObjList<>();
 
     public CompiledFilterRecordCursorFactory(
             @NotNull CairoConfiguration configuration,
@@ -59,6 +64,7 @@ public class CompiledFilterRecordCursorFactory implements RecordCursorFactory {
     ) {
         assert !(factory instanceof FilteredRecordCursorFactory);
         assert !(factory instanceof CompiledFilterRecordCursorFactory);
+        this.configuration = configuration;
         this.factory = factory;
         this.filter = filter;
         this.compiledFilter = compiledFilter;
@@ -66,8 +72,7 @@ public class CompiledFilterRecordCursorFactory implements RecordCursorFactory {
         this.bindVarFunctions = bindVarFunctions;
         this.bindVarMemory = Vm.getCARWInstance(configuration.getSqlJitBindVarsMemoryPageSize(),
                 configuration.getSqlJitBindVarsMemoryMaxPages(), MemoryTag.NATIVE_JIT);
-        this.rows = new DirectLongList(1024, MemoryTag.NATIVE_JIT_LONG_LIST);
-        this.columns = new DirectLongList(32, MemoryTag.NATIVE_JIT_LONG_LIST);
+        addFrameBuffers(1);
     }
 
     @Override
@@ -76,13 +81,17 @@ public class CompiledFilterRecordCursorFactory implements RecordCursorFactory {
         filter.close();
         compiledFilter.close();
         bindVarMemory.close();
-        rows.close();
-        columns.close();
+        Misc.freeObjList(rows);
+        Misc.freeObjList(columns);
     }
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
-        this.cursor.of(factory, filter, compiledFilter, rows, columns, bindVarFunctions, bindVarMemory, executionContext);
+        final int windowSize = configuration.isSqlJitParallelFilterEnabled()
+                ? Math.max(1, Math.min(executionContext.getWorkerCount(), configuration.getPageFrameFilterQueueCapacity()))
+                : 1;
+        addFrameBuffers(windowSize);
+        this.cursor.of(factory, filter, compiledFilter, rows, columns, windowSize, bindVarFunctions, bindVarMemory, executionContext);
         return this.cursor;
     }
 
@@ -100,4 +109,11 @@ public class CompiledFilterRecordCursorFactory implements RecordCursorFactory {
     public boolean usesCompiledFilter() {
         return true;
     }
+
+    private void addFrameBuffers(int count) {
+        for (int i = rows.size(); i < count; i++) {
+            rows.add(new DirectLongList(1024, MemoryTag.NATIVE_JIT_LONG_LIST));
+            columns.add(new DirectLongList(32, MemoryTag.NATIVE_JIT_LONG_LIST));
+        }
+    }
 }
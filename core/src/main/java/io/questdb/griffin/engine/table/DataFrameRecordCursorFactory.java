@@ -29,6 +29,8 @@ import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
 import io.questdb.std.IntList;
 import io.questdb.std.LongList;
 import io.questdb.std.Misc;
@@ -45,6 +47,8 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
     private final IntList columnIndexes;
     private final IntList columnSizes;
     protected final int pageFrameMaxSize;
+    protected final FilesFacade ff;
+    protected final boolean pageFramePrefetch;
     private TableReaderPageFrameCursor pageFrameCursor;
 
     public DataFrameRecordCursorFactory(
@@ -68,6 +72,8 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         this.columnIndexes = columnIndexes;
         this.columnSizes = columnSizes;
         this.pageFrameMaxSize = configuration.getSqlPageFrameMaxSize();
+        this.ff = configuration.getFilesFacade();
+        this.pageFramePrefetch = configuration.isSqlPageFramePrefetchEnabled();
     }
 
     @Override
@@ -87,7 +93,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         if (pageFrameCursor != null) {
             return pageFrameCursor.of(dataFrameCursor);
         } else if (framingSupported) {
-            pageFrameCursor = new TableReaderPageFrameCursor(columnIndexes, columnSizes, pageFrameMaxSize);
+            pageFrameCursor = new TableReaderPageFrameCursor(columnIndexes, columnSizes, pageFrameMaxSize, ff, pageFramePrefetch);
             return pageFrameCursor.of(dataFrameCursor);
         } else {
             return null;
@@ -135,18 +141,30 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         private final LongList pageRowsRemaining = new LongList();
         private final LongList pageSizes = new LongList();
         private final int pageFrameMaxSize;
+        private final FilesFacade ff;
+        private final boolean prefetch;
         private TableReader reader;
         private int reenterPartitionIndex;
         private DataFrameCursor dataFrameCursor;
         private long reenterPartitionLo;
         private long reenterPartitionHi;
         private boolean reenterDataFrame = false;
-
-        public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes, int pageFrameMaxSize) {
+        // true when pages of the frame about to be computed have been advised to OS
+        private boolean frameAdvised = false;
+
+        public TableReaderPageFrameCursor(
+                IntList columnIndexes,
+                IntList columnSizes,
+                int pageFrameMaxSize,
+                FilesFacade ff,
+                boolean prefetch
+        ) {
             this.columnIndexes = columnIndexes;
             this.columnSizes = columnSizes;
             this.columnCount = columnIndexes.size();
             this.pageFrameMaxSize = pageFrameMaxSize;
+            this.ff = ff;
+            this.prefetch = prefetch;
         }
 
         @Override
@@ -177,6 +195,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             pageRowsRemaining.setAll(columnCount, -1L);
             pageSizes.setAll(columnCount * 2, -1L);
             reenterDataFrame = false;
+            frameAdvised = false;
         }
 
         @Override
@@ -184,6 +203,11 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             return reader.size();
         }
 
+        @Override
+        public TableReader getTableReader() {
+            return reader;
+        }
+
         @Override
         public SymbolMapReader getSymbolMapReader(int columnIndex) {
             return reader.getSymbolMapReader(columnIndexes.getQuick(columnIndex));
@@ -252,6 +276,19 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                 }
             }
 
+            if (prefetch) {
+                if (!frameAdvised) {
+                    // first frame of the data frame, read all columns ahead in one go
+                    // rather than to page fault them in one column at a time
+                    adviseCurrentFrame();
+                }
+                // pages of the next frame are read in background while this frame is processed
+                frameAdvised = adjustedHi < partitionHi;
+                if (frameAdvised) {
+                    adviseFrame(base, adjustedHi, Math.min(partitionHi, adjustedHi + pageFrameMaxSize));
+                }
+            }
+
             // it is possible that all columns in data frame are empty, but it doesn't mean
             // the data frame size is 0; sometimes we may want to imply nulls
             if (adjustedHi < partitionHi) {
@@ -268,6 +305,46 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             return frame;
         }
 
+        private void adviseCurrentFrame() {
+            for (int i = 0, n = columnCount * 2; i < n; i++) {
+                final long address = columnPageAddress.getQuick(i);
+                if (address != 0) {
+                    ff.madvise(address, pageSizes.getQuick(i), Files.MADV_WILLNEED);
+                }
+            }
+        }
+
+        private void adviseFrame(int base, long partitionLo, long partitionHi) {
+            for (int i = 0; i < columnCount; i++) {
+                final int columnIndex = columnIndexes.getQuick(i);
+                final int readerColIndex = TableReader.getPrimaryColumnIndex(base, columnIndex);
+                final MemoryR col = reader.getColumn(readerColIndex);
+                if (col instanceof NullColumn) {
+                    continue;
+                }
+                final long top = reader.getColumnTop(base, columnIndex);
+                final long lo = Math.max(partitionLo - top, 0);
+                final long hi = partitionHi - top;
+                if (hi <= lo) {
+                    continue;
+                }
+
+                final int sh = columnSizes.getQuick(i);
+                if (sh > -1) {
+                    ff.madvise(col.getPageAddress(0) + (lo << sh), (hi - lo) << sh, Files.MADV_WILLNEED);
+                } else {
+                    final long fixAddress = reader.getColumn(readerColIndex + 1).getPageAddress(0);
+                    ff.madvise(fixAddress + (lo << 3), (hi - lo) << 3, Files.MADV_WILLNEED);
+                    // start of variable length data is known from the last index entry of the current
+                    // frame, its end is not known until index pages are read, assume the next frame
+                    // holds about as much data as the current one
+                    final long varOffset = Unsafe.getUnsafe().getLong(fixAddress + (lo << 3));
+                    final long varSize = Math.min(pageSizes.getQuick(i * 2), col.size() - varOffset);
+                    ff.madvise(col.getPageAddress(0) + varOffset, varSize, Files.MADV_WILLNEED);
+                }
+            }
+        }
+
         private class TableReaderPageFrame implements PageFrame {
             private long partitionLo;
             private long partitionHi;
@@ -0,0 +1,397 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.NullColumn;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.std.*;
+import io.questdb.std.str.AbstractCharSequence;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Record over page frames, which addresses are kept in {@link PageAddressCache}.
+ * Each instance is not thread-safe, but distinct instances may read from the same
+ * cache concurrently as long as the cache is not being modified.
+ */
+public class PageFrameRecord implements Record {
+
+    private final ByteSequenceView bsview = new ByteSequenceView();
+    private final CharSequenceView csview = new CharSequenceView();
+    private final CharSequenceView csview2 = new CharSequenceView();
+    private final Long256Impl long256A = new Long256Impl();
+    private final Long256Impl long256B = new Long256Impl();
+
+    private PageFrameCursor cursor;
+    private PageAddressCache pageAddressCache;
+    private int frameIndex;
+    private long index;
+
+    public void jumpTo(int frameIndex) {
+        this.frameIndex = frameIndex;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public void of(PageFrameCursor cursor, PageAddressCache columnAddressCache) {
+        this.cursor = cursor;
+        this.pageAddressCache = columnAddressCache;
+        this.frameIndex = 0;
+        this.index = 0;
+    }
+
+    @Override
+    public long getRowId() {
+        return Rows.toRowID(frameIndex, index);
+    }
+
+    @Override
+    public BinarySequence getBin(int columnIndex) {
+        final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (dataPageAddress == 0) {
+            return NullColumn.INSTANCE.getBin(0);
+        }
+        final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
+        final long offset = getVarOffset(indexPageAddress);
+        final long size = pageAddressCache.getPageSize(frameIndex, columnIndex);
+        return getBin(dataPageAddress, offset, size, bsview);
+    }
+
+    private BinarySequence getBin(long base, long offset, long size, ByteSequenceView view) {
+        final long address = base + offset;
+        final long len = Unsafe.getUnsafe().getLong(address);
+        if (len != TableUtils.NULL_LEN) {
+            if (len + Long.BYTES + offset <= size) {
+                return view.of(address + Long.BYTES, len);
+            }
+            throw CairoException.instance(0)
+                    .put("Bin is outside of file boundary [offset=")
+                    .put(offset)
+                    .put(", len=")
+                    .put(len)
+                    .put(", size=")
+                    .put(size)
+                    .put(']');
+        }
+        return null;
+    }
+
+    @Override
+    public long getBinLen(int columnIndex) {
+        final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (dataPageAddress == 0) {
+            return NullColumn.INSTANCE.getBinLen(0);
+        }
+        final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
+        final long offset = getVarOffset(indexPageAddress);
+        return Unsafe.getUnsafe().getLong(dataPageAddress + offset);
+    }
+
+    @Override
+    public boolean getBool(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getBool(0);
+        }
+        return Unsafe.getUnsafe().getByte(address + index * Byte.BYTES) == 1;
+    }
+
+    @Override
+    public byte getByte(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getByte(0);
+        }
+        return Unsafe.getUnsafe().getByte(address + index * Byte.BYTES);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getDouble(0);
+        }
+        return Unsafe.getUnsafe().getDouble(address + index * Double.BYTES);
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getFloat(0);
+        }
+        return Unsafe.getUnsafe().getFloat(address + index * Float.BYTES);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getInt(0);
+        }
+        return Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getLong(0);
+        }
+        return Unsafe.getUnsafe().getLong(address + index * Long.BYTES);
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getShort(0);
+        }
+        return Unsafe.getUnsafe().getShort(address + index * Short.BYTES);
+    }
+
+    @Override
+    public char getChar(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getChar(0);
+        }
+        return Unsafe.getUnsafe().getChar(address + index * Character.BYTES);
+    }
+
+    @Override
+    public CharSequence getStr(int columnIndex) {
+        final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (dataPageAddress == 0) {
+            return NullColumn.INSTANCE.getStr(0);
+        }
+        final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
+        final long offset = getVarOffset(indexPageAddress);
+        final long size = pageAddressCache.getPageSize(frameIndex, columnIndex);
+        return getStr(dataPageAddress, offset, size, csview);
+    }
+
+    private CharSequence getStr(long base, long offset, long size, CharSequenceView view) {
+        final long address = base + offset;
+        final int len = Unsafe.getUnsafe().getInt(address);
+        if (len != TableUtils.NULL_LEN) {
+            if (len + 4 + offset <= size) {
+                return view.of(address + Vm.STRING_LENGTH_BYTES, len);
+            }
+            throw CairoException.instance(0)
+                    .put("String is outside of file boundary [offset=")
+                    .put(offset)
+                    .put(", len=")
+                    .put(len)
+                    .put(", size=")
+                    .put(size)
+                    .put(']');
+        }
+        return null;
+    }
+
+    @Override
+    public int getStrLen(int columnIndex) {
+        final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (dataPageAddress == 0) {
+            return NullColumn.INSTANCE.getStrLen(0);
+        }
+        final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
+        final long offset = getVarOffset(indexPageAddress);
+        return Unsafe.getUnsafe().getInt(dataPageAddress + offset);
+    }
+
+    @Override
+    public CharSequence getStrB(int columnIndex) {
+        final long dataPageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (dataPageAddress == 0) {
+            return NullColumn.INSTANCE.getStr2(0);
+        }
+        final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, columnIndex);
+        final long offset = getVarOffset(indexPageAddress);
+        final long size = pageAddressCache.getPageSize(frameIndex, columnIndex);
+        return getStr(dataPageAddress, offset, size, csview2);
+    }
+
+    @Override
+    public void getLong256(int columnIndex, CharSink sink) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            NullColumn.INSTANCE.getLong256(0, sink);
+            return;
+        }
+        getLong256(address + index * Long256.BYTES, sink);
+    }
+
+    void getLong256(long offset, CharSink sink) {
+        final long addr = offset + Long.BYTES * 4;
+        final long a, b, c, d;
+        a = Unsafe.getUnsafe().getLong(addr - Long.BYTES * 4);
+        b = Unsafe.getUnsafe().getLong(addr - Long.BYTES * 3);
+        c = Unsafe.getUnsafe().getLong(addr - Long.BYTES * 2);
+        d = Unsafe.getUnsafe().getLong(addr - Long.BYTES);
+        Numbers.appendLong256(a, b, c, d, sink);
+    }
+
+    @Override
+    public Long256 getLong256A(int columnIndex) {
+        getLong256(columnIndex, long256A);
+        return long256A;
+    }
+
+    @Override
+    public Long256 getLong256B(int columnIndex) {
+        getLong256(columnIndex, long256B);
+        return long256B;
+    }
+
+    void getLong256(int columnIndex, Long256Acceptor sink) {
+        final long columnAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (columnAddress == 0) {
+            NullColumn.INSTANCE.getLong256(0, sink);
+            return;
+        }
+        final long addr = columnAddress + index * Long256.BYTES  + Long.BYTES * 4;
+        sink.setAll(
+                Unsafe.getUnsafe().getLong(addr - Long.BYTES * 4),
+                Unsafe.getUnsafe().getLong(addr - Long.BYTES * 3),
+                Unsafe.getUnsafe().getLong(addr - Long.BYTES * 2),
+                Unsafe.getUnsafe().getLong(addr - Long.BYTES)
+        );
+    }
+
+    @Override
+    public CharSequence getSym(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        int key = NullColumn.INSTANCE.getInt(0);
+        if (address != 0) {
+            key = Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
+        }
+        return cursor.getSymbolMapReader(columnIndex).valueOf(key);
+    }
+
+    @Override
+    public CharSequence getSymB(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        final int key = Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
+        return cursor.getSymbolMapReader(columnIndex).valueBOf(key);
+    }
+
+    @Override
+    public byte getGeoByte(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getByte(0);
+        }
+        return Unsafe.getUnsafe().getByte(address + index * Byte.BYTES);
+    }
+
+    @Override
+    public short getGeoShort(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getShort(0);
+        }
+        return Unsafe.getUnsafe().getShort(address + index * Short.BYTES);
+    }
+
+    @Override
+    public int getGeoInt(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getInt(0);
+        }
+        return Unsafe.getUnsafe().getInt(address + index * Integer.BYTES);
+    }
+
+    @Override
+    public long getGeoLong(int columnIndex) {
+        final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+        if (address == 0) {
+            return NullColumn.INSTANCE.getLong(0);
+        }
+        return Unsafe.getUnsafe().getLong(address + index * Long.BYTES);
+    }
+
+    // index entries hold offsets from the start of the column file, while the data
+    // page address points at the first value of the page frame
+    private long getVarOffset(long indexPageAddress) {
+        return Unsafe.getUnsafe().getLong(indexPageAddress + index * Long.BYTES) - Unsafe.getUnsafe().getLong(indexPageAddress);
+    }
+
+    private static class ByteSequenceView implements BinarySequence {
+        private long address;
+        private long len = -1;
+
+        @Override
+        public byte byteAt(long index) {
+            return Unsafe.getUnsafe().getByte(address + index);
+        }
+
+        @Override
+        public void copyTo(long address, final long start, final long length) {
+            final long bytesRemaining = Math.min(length, this.len - start);
+            final long addr = this.address + start;
+            Vect.memcpy(address, addr, bytesRemaining);
+        }
+
+        @Override
+        public long length() {
+            return len;
+        }
+
+        ByteSequenceView of(long address, long len) {
+            this.address = address;
+            this.len = len;
+            return this;
+        }
+    }
+
+    private static class CharSequenceView extends AbstractCharSequence {
+        private int len;
+        private long address;
+
+        @Override
+        public int length() {
+            return len;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return Unsafe.getUnsafe().getChar(address + index * 2L);
+        }
+
+        CharSequenceView of(long address, int len) {
+            this.address = address;
+            this.len = len;
+            return this;
+        }
+    }
+}
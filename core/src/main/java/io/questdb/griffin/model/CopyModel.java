@@ -34,9 +34,16 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private ExpressionNode tableName;
     private ExpressionNode fileName;
     private boolean header;
+    private boolean export;
+    private QueryModel queryModel;
 
     @Override
     public void clear() {
+        tableName = null;
+        fileName = null;
+        header = false;
+        export = false;
+        queryModel = null;
     }
 
     public ExpressionNode getFileName() {
@@ -52,6 +59,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return ExecutionModel.COPY;
     }
 
+    public QueryModel getQueryModel() {
+        return queryModel;
+    }
+
+    public void setQueryModel(QueryModel queryModel) {
+        this.queryModel = queryModel;
+    }
+
     public ExpressionNode getTableName() {
         return tableName;
     }
@@ -60,6 +75,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.tableName = tableName;
     }
 
+    public boolean isExport() {
+        return export;
+    }
+
+    public void setExport(boolean export) {
+        this.export = export;
+    }
+
     public boolean isHeader() {
         return header;
     }
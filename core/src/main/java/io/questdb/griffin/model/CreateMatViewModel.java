@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.model;
+
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjectFactory;
+
+public class CreateMatViewModel implements Mutable, ExecutionModel {
+    public static final ObjectFactory<CreateMatViewModel> FACTORY = CreateMatViewModel::new;
+
+    private ExpressionNode name;
+    private QueryModel queryModel;
+    private String query;
+    private int queryPosition;
+
+    private CreateMatViewModel() {
+    }
+
+    @Override
+    public void clear() {
+        name = null;
+        queryModel = null;
+        query = null;
+        queryPosition = 0;
+    }
+
+    @Override
+    public int getModelType() {
+        return ExecutionModel.CREATE_MAT_VIEW;
+    }
+
+    public ExpressionNode getName() {
+        return name;
+    }
+
+    public void setName(ExpressionNode name) {
+        this.name = name;
+    }
+
+    /**
+     * @return text of the view query exactly as it was given in 'create materialized view' statement,
+     * the query is re-compiled from this text every time view is refreshed.
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    public QueryModel getQueryModel() {
+        return queryModel;
+    }
+
+    public int getQueryPosition() {
+        return queryPosition;
+    }
+
+    public void setQuery(String query, int queryPosition) {
+        this.query = query;
+        this.queryPosition = queryPosition;
+    }
+
+    public void setQueryModel(QueryModel queryModel) {
+        this.queryModel = queryModel;
+    }
+}
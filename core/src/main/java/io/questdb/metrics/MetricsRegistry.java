@@ -39,4 +39,6 @@ public interface MetricsRegistry extends Scrapable {
     Gauge newGauge(int memoryTag);
 
     Gauge newVirtualGauge(CharSequence name, VirtualGauge.StatProvider provider);
+
+    Gauge newVirtualGauge(CharSequence name, CharSequence labelName0, VirtualGaugeWithOneLabel.StatProvider provider);
 }
@@ -74,6 +74,13 @@ public class MetricsRegistryImpl implements MetricsRegistry {
         return gauge;
     }
 
+    @Override
+    public Gauge newVirtualGauge(CharSequence name, CharSequence labelName0, VirtualGaugeWithOneLabel.StatProvider provider) {
+        VirtualGaugeWithOneLabel gauge = new VirtualGaugeWithOneLabel(name, labelName0, provider);
+        metrics.add(gauge);
+        return gauge;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
         for (int i = 0, n = metrics.size(); i < n; i++) {
@@ -60,6 +60,11 @@ public class NullMetricsRegistry implements MetricsRegistry {
         return NullGauge.INSTANCE;
     }
 
+    @Override
+    public Gauge newVirtualGauge(CharSequence name, CharSequence labelName0, VirtualGaugeWithOneLabel.StatProvider provider) {
+        return NullGauge.INSTANCE;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
     }
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.metrics;
+
+import io.questdb.std.str.CharSink;
+
+/**
+ * Read-only gauge with one numeric label. Label values are 0..n-1, where n is provided
+ * at scrape time, which allows exposing stats of a set of threads whose size is not
+ * known at registration time.
+ */
+public class VirtualGaugeWithOneLabel implements Gauge {
+    private final CharSequence name;
+    private final CharSequence labelName0;
+    private final StatProvider provider;
+
+    VirtualGaugeWithOneLabel(CharSequence name, CharSequence labelName0, StatProvider provider) {
+        this.name = name;
+        this.labelName0 = labelName0;
+        this.provider = provider;
+    }
+
+    @Override
+    public void inc() {
+        //do nothing as this gauge is RO view of some stat
+    }
+
+    @Override
+    public void dec() {
+        //do nothing as this gauge is RO view of some stat
+    }
+
+    @Override
+    public void scrapeIntoPrometheus(CharSink sink) {
+        sink.put(PrometheusFormatUtils.TYPE_PREFIX);
+        sink.put(name);
+        sink.put(" gauge\n");
+        for (int i = 0, n = provider.getLabelCount(); i < n; i++) {
+            sink.put(PrometheusFormatUtils.METRIC_NAME_PREFIX);
+            sink.put(name);
+            sink.put('{');
+            sink.put(labelName0).put("=\"").put(i).put('"');
+            sink.put('}');
+            PrometheusFormatUtils.appendSampleLineSuffix(sink, provider.getValue(i));
+        }
+        PrometheusFormatUtils.appendNewLine(sink);
+    }
+
+    public interface StatProvider {
+        int getLabelCount();
+
+        long getValue(int label0);
+    }
+}
@@ -24,6 +24,7 @@
 
 package io.questdb.std;
 
+import io.questdb.log.LogFactory;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
@@ -41,10 +42,13 @@ public final class Files {
     public static final int DT_DIR = 4;
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
+    public static final int MADV_WILLNEED = 1;
     public static final char SEPARATOR;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
     private static LongHashSet openFds;
+    // native library may predate madvise() binding
+    private static volatile boolean madviseSupported = true;
 
     private Files() {
     } // Prevent construction.
@@ -236,6 +240,27 @@ public final class Files {
         return address;
     }
 
+    /**
+     * Advises OS on the use of mapped memory, e.g. with {@link #MADV_WILLNEED} OS starts reading
+     * pages of the given range in background. Advice is a hint, it is ignored when the native
+     * library does not support it.
+     *
+     * @param address start of the range, does not have to be page aligned
+     * @param len     length of the range in bytes
+     * @param advice  one of MADV_* constants
+     */
+    public static void madvise(long address, long len, int advice) {
+        if (madviseSupported && len > 0) {
+            try {
+                madvise0(address, len, advice);
+            } catch (UnsatisfiedLinkError e) {
+                madviseSupported = false;
+                // logger is not created upfront, it uses Files itself
+                LogFactory.getLog(Files.class).advisory().$("native library does not support madvise, page read-ahead is disabled [e=").$(e.getMessage()).$(']').$();
+            }
+        }
+    }
+
     public static native int msync(long addr, long len, boolean async);
 
     public static void munmap(long address, long len, int memoryTag) {
@@ -368,6 +393,8 @@ public final class Files {
         return Unsafe.getUnsafe().getByte(lpsz + len) == 0;
     }
 
+    private static native int madvise0(long address, long len, int advice);
+
     private static native int munmap0(long address, long len);
 
     private static native long mremap0(long fd, long address, long previousSize, long newSize, long offset, int flags);
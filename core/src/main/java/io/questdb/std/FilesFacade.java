@@ -74,6 +74,8 @@ public interface FilesFacade {
 
     int lock(long fd);
 
+    void madvise(long address, long len, int advice);
+
     int mkdir(LPSZ path, int mode);
 
     int mkdirs(LPSZ path, int mode);
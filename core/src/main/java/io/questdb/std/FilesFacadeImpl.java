@@ -164,6 +164,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.lock(fd);
     }
 
+    @Override
+    public void madvise(long address, long len, int advice) {
+        Files.madvise(address, len, advice);
+    }
+
     @Override
     public int mkdir(LPSZ path, int mode) {
         return Files.mkdir(path, mode);
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.tasks;
+
+import io.questdb.jit.CompiledFilter;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.LongList;
+
+public class PageFrameFilterTask {
+    private CompiledFilter compiledFilter;
+    private long columnsAddress;
+    private long columnCount;
+    private long bindVarsAddress;
+    private long bindVarCount;
+    private long rowsAddress;
+    private long rowCount;
+    private LongList filteredRowCounts;
+    private int slot;
+
+    private CountDownLatchSPI doneLatch;
+
+    public void of(
+            CompiledFilter compiledFilter,
+            long columnsAddress,
+            long columnCount,
+            long bindVarsAddress,
+            long bindVarCount,
+            long rowsAddress,
+            long rowCount,
+            LongList filteredRowCounts,
+            int slot,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.compiledFilter = compiledFilter;
+        this.columnsAddress = columnsAddress;
+        this.columnCount = columnCount;
+        this.bindVarsAddress = bindVarsAddress;
+        this.bindVarCount = bindVarCount;
+        this.rowsAddress = rowsAddress;
+        this.rowCount = rowCount;
+        this.filteredRowCounts = filteredRowCounts;
+        this.slot = slot;
+        this.doneLatch = doneLatch;
+    }
+
+    public boolean run() {
+        final long filteredRowCount = compiledFilter.call(
+                columnsAddress,
+                columnCount,
+                bindVarsAddress,
+                bindVarCount,
+                rowsAddress,
+                rowCount,
+                0
+        );
+        // latch count down publishes the result to the query thread
+        filteredRowCounts.setQuick(slot, filteredRowCount);
+        compiledFilter = null;
+        filteredRowCounts = null;
+        doneLatch.countDown();
+        return true;
+    }
+}
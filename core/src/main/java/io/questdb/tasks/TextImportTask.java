@@ -0,0 +1,52 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.tasks;
+
+import io.questdb.cutlass.text.TextImportChunk;
+import io.questdb.mp.CountDownLatchSPI;
+
+public class TextImportTask {
+    public static final byte PHASE_BOUNDARY_CHECK = 0;
+    public static final byte PHASE_IMPORT = 1;
+    private byte phase;
+    private TextImportChunk chunk;
+    private CountDownLatchSPI doneLatch;
+
+    public void of(byte phase, TextImportChunk chunk, CountDownLatchSPI doneLatch) {
+        this.phase = phase;
+        this.chunk = chunk;
+        this.doneLatch = doneLatch;
+    }
+
+    public boolean run() {
+        try {
+            chunk.run(phase);
+        } finally {
+            chunk = null;
+            doneLatch.countDown();
+        }
+        return true;
+    }
+}
@@ -140,6 +140,13 @@ public class MetricsTest {
             return delegate.newVirtualGauge(name, provider);
         }
 
+        @Override
+        public Gauge newVirtualGauge(CharSequence name, CharSequence labelName0, VirtualGaugeWithOneLabel.StatProvider provider) {
+            addMetricName(name);
+            addLabelNames(name, Collections.singletonList(labelName0));
+            return delegate.newVirtualGauge(name, labelName0, provider);
+        }
+
         @Override
         public void scrapeIntoPrometheus(CharSink sink) {
             delegate.scrapeIntoPrometheus(sink);
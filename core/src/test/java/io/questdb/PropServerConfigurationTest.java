@@ -137,6 +137,9 @@ public class PropServerConfigurationTest {
 
         Assert.assertEquals(CommitMode.NOSYNC, configuration.getCairoConfiguration().getCommitMode());
         Assert.assertEquals(2097152, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlCopyParallelEnabled());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlCopyParallelMinChunkSize());
+        Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlCopyQueueCapacity());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getCopyPoolCapacity());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getCreateAsSelectRetryCount());
         Assert.assertEquals("fast", configuration.getCairoConfiguration().getDefaultMapType());
@@ -153,6 +156,7 @@ public class PropServerConfigurationTest {
 
         Assert.assertEquals(100000, configuration.getCairoConfiguration().getParallelIndexThreshold());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
+        Assert.assertTrue(configuration.getCairoConfiguration().isReaderSharedMappingsEnabled());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSpinLockTimeoutUs());
         Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlCharacterStoreCapacity());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getSqlCharacterStoreSequencePoolCapacity());
@@ -176,10 +180,21 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
         Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlHashJoinMemoryBudget());
+        Assert.assertEquals(16, configuration.getCairoConfiguration().getSqlHashJoinSpillPartitions());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+        Assert.assertEquals(1073741824, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isZoneMapsEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isQueryPlanCacheEnabled());
+        Assert.assertEquals(256, configuration.getCairoConfiguration().getQueryPlanCacheCapacity());
+        Assert.assertEquals(8, configuration.getCairoConfiguration().getQueryPlanCachePoolSize());
+        Assert.assertFalse(configuration.getCairoConfiguration().isQueryResultCacheEnabled());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getQueryResultCacheMemoryLimit());
+        Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getQueryResultCacheMaxResultSize());
+        Assert.assertEquals(64 * 1024, configuration.getCairoConfiguration().getQueryResultCachePageSize());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -204,6 +219,7 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.getLineUdpReceiverConfiguration().ownThread());
 
         Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlPageFrameMaxSize());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlPageFramePrefetchEnabled());
 
         Assert.assertEquals(SqlJitMode.JIT_MODE_DISABLED, configuration.getCairoConfiguration().getSqlJitMode());
         Assert.assertEquals(8192, configuration.getCairoConfiguration().getSqlJitIRMemoryPageSize());
@@ -213,6 +229,14 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlJitRowsThreshold());
         Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlJitPageAddressCacheThreshold());
         Assert.assertFalse(configuration.getCairoConfiguration().isSqlJitDebugEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlJitParallelFilterEnabled());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getPageFrameFilterQueueCapacity());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelSampleByEnabled());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getPageFrameReduceQueueCapacity());
+        Assert.assertFalse(configuration.getCairoConfiguration().isWalEnabled());
+        Assert.assertEquals(256, configuration.getCairoConfiguration().getWalApplyQueueCapacity());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getWalApplyRetryInterval());
 
         // statics
         Assert.assertSame(FilesFacadeImpl.INSTANCE, configuration.getHttpServerConfiguration().getStaticContentProcessorConfiguration().getFilesFacade());
@@ -264,6 +288,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(PartitionBy.DAY, configuration.getLineTcpReceiverConfiguration().getDefaultPartitionBy());
         Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getAggressiveReadRetryCount());
         Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getWriterIdleTimeout());
+        Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getWriterLoadBalanceInterval());
+        Assert.assertEquals(1.9, configuration.getLineTcpReceiverConfiguration().getMaxLoadRatio(), 0.000001);
         Assert.assertEquals(0, configuration.getCairoConfiguration().getSampleByIndexSearchPageSize());
         Assert.assertEquals(32, configuration.getCairoConfiguration().getWriterCommandQueueCapacity());
         Assert.assertEquals(500_000, configuration.getCairoConfiguration().getWriterAsyncCommandBusyWaitTimeout());
@@ -271,6 +297,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1023, configuration.getCairoConfiguration().getWriterTickRowsCountMod());
 
         Assert.assertTrue(configuration.getHttpServerConfiguration().getHttpContextConfiguration().getServerKeepAlive());
+        Assert.assertTrue(configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().isEnabled());
+        Assert.assertEquals(16 * 1024 * 1024, configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().getMaxRequestSize());
         Assert.assertEquals("HTTP/1.1 ", configuration.getHttpServerConfiguration().getHttpContextConfiguration().getHttpVersion());
         Assert.assertEquals(16777216, configuration.getCairoConfiguration().getDataAppendPageSize());
 
@@ -507,6 +535,9 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(2_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getConnectionCheckFrequency());
             Assert.assertEquals(4, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFloatScale());
             Assert.assertEquals(4194304, configuration.getCairoConfiguration().getSqlCopyBufferSize());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlCopyParallelEnabled());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlCopyParallelMinChunkSize());
+            Assert.assertEquals(64, configuration.getCairoConfiguration().getSqlCopyQueueCapacity());
             Assert.assertEquals(64, configuration.getCairoConfiguration().getCopyPoolCapacity());
             Assert.assertSame(FilesFacadeImpl.INSTANCE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFilesFacade());
             Assert.assertEquals("Keep-Alive: timeout=10, max=50000" + Misc.EOL, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getKeepAliveHeader());
@@ -527,6 +558,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(509, configuration.getCairoConfiguration().getMkDirMode());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getParallelIndexThreshold());
             Assert.assertEquals(10, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
+            Assert.assertFalse(configuration.getCairoConfiguration().isReaderSharedMappingsEnabled());
             Assert.assertEquals(5_000_000, configuration.getCairoConfiguration().getSpinLockTimeoutUs());
             Assert.assertEquals(2048, configuration.getCairoConfiguration().getSqlCharacterStoreCapacity());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getSqlCharacterStoreSequencePoolCapacity());
@@ -550,10 +582,21 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(10000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
             Assert.assertEquals(2 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
             Assert.assertEquals(1025, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
+            Assert.assertEquals(33554432, configuration.getCairoConfiguration().getSqlHashJoinMemoryBudget());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlHashJoinSpillPartitions());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+            Assert.assertEquals(67108864, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isZoneMapsEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isQueryPlanCacheEnabled());
+            Assert.assertEquals(64, configuration.getCairoConfiguration().getQueryPlanCacheCapacity());
+            Assert.assertEquals(4, configuration.getCairoConfiguration().getQueryPlanCachePoolSize());
+            Assert.assertTrue(configuration.getCairoConfiguration().isQueryResultCacheEnabled());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getQueryResultCacheMemoryLimit());
+            Assert.assertEquals(512 * 1024, configuration.getCairoConfiguration().getQueryResultCacheMaxResultSize());
+            Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getQueryResultCachePageSize());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
             Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
             Assert.assertEquals(16, configuration.getCairoConfiguration().getBindVariablePoolSize());
@@ -588,6 +631,7 @@ public class PropServerConfigurationTest {
             Assert.assertTrue(configuration.getLineUdpReceiverConfiguration().ownThread());
 
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlPageFrameMaxSize());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlPageFramePrefetchEnabled());
 
             Assert.assertEquals(SqlJitMode.JIT_MODE_FORCE_SCALAR, configuration.getCairoConfiguration().getSqlJitMode());
             Assert.assertEquals(2048, configuration.getCairoConfiguration().getSqlJitIRMemoryPageSize());
@@ -597,6 +641,14 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlJitRowsThreshold());
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlJitPageAddressCacheThreshold());
             Assert.assertTrue(configuration.getCairoConfiguration().isSqlJitDebugEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlJitParallelFilterEnabled());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getPageFrameFilterQueueCapacity());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelGroupByEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelSampleByEnabled());
+            Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameReduceQueueCapacity());
+            Assert.assertTrue(configuration.getCairoConfiguration().isWalEnabled());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getWalApplyQueueCapacity());
+            Assert.assertEquals(20_000, configuration.getCairoConfiguration().getWalApplyRetryInterval());
 
             // influxdb line TCP protocol
             Assert.assertTrue(configuration.getLineTcpReceiverConfiguration().isEnabled());
@@ -629,11 +681,15 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(PartitionBy.MONTH, configuration.getLineTcpReceiverConfiguration().getDefaultPartitionBy());
             Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getAggressiveReadRetryCount());
             Assert.assertEquals(5_000, configuration.getLineTcpReceiverConfiguration().getWriterIdleTimeout());
+            Assert.assertEquals(2_000, configuration.getLineTcpReceiverConfiguration().getWriterLoadBalanceInterval());
+            Assert.assertEquals(1.5, configuration.getLineTcpReceiverConfiguration().getMaxLoadRatio(), 0.000001);
 
             Assert.assertTrue(configuration.getCairoConfiguration().getTelemetryConfiguration().getEnabled());
             Assert.assertEquals(512, configuration.getCairoConfiguration().getTelemetryConfiguration().getQueueCapacity());
 
             Assert.assertFalse(configuration.getHttpServerConfiguration().getHttpContextConfiguration().getServerKeepAlive());
+            Assert.assertFalse(configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().isEnabled());
+            Assert.assertEquals(1024 * 1024, configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration().getMaxRequestSize());
             Assert.assertEquals("HTTP/1.0 ", configuration.getHttpServerConfiguration().getHttpContextConfiguration().getHttpVersion());
             Assert.assertEquals(1048576, configuration.getCairoConfiguration().getDataAppendPageSize());
             Assert.assertEquals(Files.PAGE_SIZE, configuration.getCairoConfiguration().getDataIndexKeyAppendPageSize());
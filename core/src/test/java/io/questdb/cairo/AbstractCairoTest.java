@@ -69,6 +69,9 @@ public class AbstractCairoTest {
     protected static int binaryEncodingMaxLength = -1;
     protected static CharSequence defaultMapType;
     protected static int pageFrameMaxSize = -1;
+    protected static long sortMemoryBudget = -1;
+    protected static long hashJoinMemoryBudget = -1;
+    protected static boolean walEnabled = false;
 
     @Rule
     public TestName testName = new TestName();
@@ -162,6 +165,21 @@ public class AbstractCairoTest {
             public int getSqlPageFrameMaxSize() {
                 return pageFrameMaxSize < 0 ? super.getSqlPageFrameMaxSize() : pageFrameMaxSize;
             }
+
+            @Override
+            public long getSqlSortMemoryBudget() {
+                return sortMemoryBudget < 0 ? super.getSqlSortMemoryBudget() : sortMemoryBudget;
+            }
+
+            @Override
+            public long getSqlHashJoinMemoryBudget() {
+                return hashJoinMemoryBudget < 0 ? super.getSqlHashJoinMemoryBudget() : hashJoinMemoryBudget;
+            }
+
+            @Override
+            public boolean isWalEnabled() {
+                return walEnabled;
+            }
         };
         engine = new CairoEngine(configuration);
         messageBus = engine.getMessageBus();
@@ -196,6 +214,9 @@ public class AbstractCairoTest {
         writerAsyncCommandBusyWaitTimeout = -1;
         writerAsyncCommandMaxTimeout = -1;
         pageFrameMaxSize = -1;
+        sortMemoryBudget = -1;
+        hashJoinMemoryBudget = -1;
+        walEnabled = false;
     }
 
     protected static void assertMemoryLeak(TestUtils.LeakProneCode code) throws Exception {
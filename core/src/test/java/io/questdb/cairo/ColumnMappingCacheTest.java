@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.vm.MemoryCMRSharedImpl;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnMappingCacheTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAcquireAndRelease() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x, timestamp_sequence(0, 1000000) ts from long_sequence(100)) timestamp(ts) partition by DAY");
+            final ColumnMappingCache cache = new ColumnMappingCache();
+            final FilesFacade ff = configuration.getFilesFacade();
+            try (Path path = new Path()) {
+                path.of(configuration.getRoot()).concat("x").concat("1970-01-01").concat("x.d").$();
+
+                ColumnMappingCache.Mapping m1 = cache.acquire(ff, path, "1", 400, MemoryTag.MMAP_TABLE_READER);
+                ColumnMappingCache.Mapping m2 = cache.acquire(ff, path, "1", 800, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertSame(m1, m2);
+                Assert.assertTrue(m1.getSize() >= 800);
+                Assert.assertEquals(1, cache.getFileCount());
+                Assert.assertEquals(1, cache.getMappingCount());
+
+                // different version must not share file descriptor
+                ColumnMappingCache.Mapping m3 = cache.acquire(ff, path, "2", 800, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertNotSame(m1, m3);
+                Assert.assertNotEquals(m1.getFd(), m3.getFd());
+                Assert.assertEquals(2, cache.getFileCount());
+
+                // extending past mapped size swaps mapping, the old one stays valid for other holder
+                ColumnMappingCache.Mapping m4 = cache.extend(m2, m1.getSize() + 1, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertNotSame(m1, m4);
+                Assert.assertEquals(m1.getFd(), m4.getFd());
+                Assert.assertEquals(3, cache.getMappingCount());
+                Assert.assertEquals(1, Unsafe.getUnsafe().getLong(m1.getAddress()));
+
+                cache.release(m1);
+                Assert.assertEquals(2, cache.getMappingCount());
+                cache.release(m3);
+                Assert.assertEquals(1, cache.getFileCount());
+                cache.release(m4);
+                Assert.assertEquals(0, cache.getFileCount());
+                Assert.assertEquals(0, cache.getMappingCount());
+            }
+        });
+    }
+
+    @Test
+    public void testOpenWithoutVersion() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x, timestamp_sequence(0, 1000000) ts from long_sequence(100)) timestamp(ts) partition by DAY");
+            final ColumnMappingCache cache = new ColumnMappingCache();
+            final FilesFacade ff = configuration.getFilesFacade();
+            try (
+                    Path path = new Path();
+                    MemoryCMRSharedImpl mem1 = new MemoryCMRSharedImpl(cache);
+                    MemoryCMRSharedImpl mem2 = new MemoryCMRSharedImpl(cache)
+            ) {
+                path.of(configuration.getRoot()).concat("x").concat("1970-01-01").concat("x.d").$();
+                final MemoryMR mr = mem1;
+                mr.of(ff, path, 800, 800, MemoryTag.MMAP_TABLE_READER);
+                mem2.of(ff, path, 800, 800, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertEquals(1, mem1.getLong(0));
+                Assert.assertEquals(100, mem2.getLong(99 * Long.BYTES));
+                // mappings without version are never shared
+                Assert.assertNotEquals(mem1.getFd(), mem2.getFd());
+                Assert.assertEquals(0, cache.getFileCount());
+            }
+        });
+    }
+
+    @Test
+    public void testPooledReadersShareColumnMappings() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x, rnd_str(3, 10, 1) s, timestamp_sequence(0, 1000000) ts from long_sequence(100)) timestamp(ts) partition by DAY");
+            final ColumnMappingCache cache = engine.getColumnMappingCache();
+            try (
+                    TableReader r1 = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    TableReader r2 = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")
+            ) {
+                Assert.assertNotSame(r1, r2);
+                Assert.assertEquals(100, count(r1));
+                Assert.assertEquals(100, count(r2));
+
+                final int base = r1.getColumnBase(0);
+                Assert.assertEquals(base, r2.getColumnBase(0));
+                for (int i = 0, n = r1.getColumnCount(); i < n; i++) {
+                    final int index = TableReader.getPrimaryColumnIndex(base, i);
+                    Assert.assertEquals(r1.getColumn(index).getPageAddress(0), r2.getColumn(index).getPageAddress(0));
+                }
+                // x.d, s.d, s.i and ts.d
+                Assert.assertEquals(4, cache.getFileCount());
+
+                compile("insert into x select x + 100, rnd_str(3, 10, 1), timestamp_sequence(100000000, 1000000) from long_sequence(100)");
+                Assert.assertTrue(r1.reload());
+                Assert.assertEquals(200, count(r1));
+                Assert.assertEquals(100, count(r2));
+            }
+            Assert.assertTrue(engine.clear());
+            Assert.assertEquals(0, cache.getFileCount());
+            Assert.assertEquals(0, cache.getMappingCount());
+        });
+    }
+
+    private static long count(TableReader reader) {
+        final RecordCursor cursor = reader.getCursor();
+        long count = 0;
+        while (cursor.hasNext()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -30,12 +30,69 @@ import io.questdb.std.MemoryTag;
 import io.questdb.std.Os;
 import io.questdb.std.Rnd;
 import io.questdb.std.Unsafe;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.Path;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
 public class TableReaderReloadTest extends AbstractCairoTest {
 
+    @Test
+    public void testReloadAfterO3IntoOlderPartition() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)) {
+                model.col("i", ColumnType.INT).timestamp();
+                CairoTestUtils.create(model);
+            }
+
+            final long day = Timestamps.DAY_MICROS;
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x");
+                    TableReader reader = new TableReader(configuration, "x");
+                    PartitionChangeLog changeLog = new PartitionChangeLog(configuration.getFilesFacade());
+                    Path path = new Path()
+            ) {
+                for (int i = 0; i < 10; i++) {
+                    TableWriter.Row row = writer.newRow(i * day);
+                    row.putInt(0, i);
+                    row.append();
+                }
+                writer.commit();
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(10, reader.size());
+                assertSum(reader, 45);
+
+                final long txn = writer.getTxn();
+                TableWriter.Row row = writer.newRow(7 * day + 1);
+                row.putInt(0, 100);
+                row.append();
+                writer.commit();
+
+                Assert.assertTrue(changeLog.openRO(path.of(configuration.getRoot()).concat("x")));
+                // partitions below the one written out of order are untouched
+                Assert.assertEquals(7 * TableUtils.LONGS_PER_TX_ATTACHED_PARTITION, changeLog.getPartitionTableLo(txn, writer.getTxn()));
+
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(11, reader.size());
+                assertSum(reader, 145);
+
+                // structure change is not recorded, readers that missed it reload partition table in full
+                final long txnBeforeAlter = writer.getTxn();
+                writer.addColumn("j", ColumnType.LONG);
+                row = writer.newRow(2 * day + 1);
+                row.putInt(0, 1000);
+                row.append();
+                writer.commit();
+                Assert.assertEquals(-1, changeLog.getPartitionTableLo(txnBeforeAlter, writer.getTxn()));
+
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(12, reader.size());
+                assertSum(reader, 1145);
+            }
+        });
+    }
+
     @Test
     public void testReloadTruncateByDay() {
         testReloadAfterTruncate(PartitionBy.DAY, 3000000000L);
@@ -73,6 +130,20 @@ public class TableReaderReloadTest extends AbstractCairoTest {
         }
     }
 
+    private static void assertSum(TableReader reader, long expected) {
+        final RecordCursor cursor = reader.getCursor();
+        final Record record = cursor.getRecord();
+        long sum = 0;
+        long prevTimestamp = Long.MIN_VALUE;
+        while (cursor.hasNext()) {
+            sum += record.getInt(0);
+            final long timestamp = record.getTimestamp(1);
+            Assert.assertTrue(timestamp >= prevTimestamp);
+            prevTimestamp = timestamp;
+        }
+        Assert.assertEquals(expected, sum);
+    }
+
     private void populateTable(Rnd rnd, long buffer, long timestamp, long increment, TableWriter writer) {
         for (int i = 0; i < 100; i++) {
             TableWriter.Row row = writer.newRow(timestamp);
@@ -495,6 +495,58 @@ public class FastMapTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testMerge() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+            keyTypes.add(ColumnType.STRING);
+            keyTypes.add(ColumnType.LONG);
+            final SingleColumnType valueTypes = new SingleColumnType(ColumnType.LONG);
+            final int N = 1000;
+            // small page size to make sure destination map resizes while merging
+            try (
+                    FastMap mapA = new FastMap(1024, keyTypes, valueTypes, 16, 0.5f, 64);
+                    FastMap mapB = new FastMap(1024, keyTypes, valueTypes, 16, 0.5f, 64)
+            ) {
+                // mapA holds even keys, mapB holds keys divisible by 3
+                for (int i = 0; i < N; i++) {
+                    if (i % 2 == 0) {
+                        MapKey key = mapA.withKey();
+                        key.putStr("k" + i);
+                        key.putLong(i);
+                        key.createValue().putLong(0, i);
+                    }
+                    if (i % 3 == 0) {
+                        MapKey key = mapB.withKey();
+                        key.putStr("k" + i);
+                        key.putLong(i);
+                        key.createValue().putLong(0, 10L * i);
+                    }
+                }
+                final long sizeB = mapB.size();
+
+                mapA.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)));
+
+                Assert.assertEquals(sizeB, mapB.size());
+                int expectedSize = 0;
+                for (int i = 0; i < N; i++) {
+                    if (i % 2 != 0 && i % 3 != 0) {
+                        continue;
+                    }
+                    expectedSize++;
+                    MapKey key = mapA.withKey();
+                    key.putStr("k" + i);
+                    key.putLong(i);
+                    MapValue value = key.findValue();
+                    Assert.assertNotNull(value);
+                    long expected = (i % 2 == 0 ? i : 0) + (i % 3 == 0 ? 10L * i : 0);
+                    Assert.assertEquals(expected, value.getLong(0));
+                }
+                Assert.assertEquals(expectedSize, mapA.size());
+            }
+        });
+    }
+
     @Test
     public void testNoValueColumns() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
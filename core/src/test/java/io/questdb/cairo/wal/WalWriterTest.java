@@ -0,0 +1,359 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.mp.Sequence;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WalWriterTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCommitWhenApplyQueueFull() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row r = w.newRow(0);
+                r.putInt(0, 1);
+                r.append();
+
+                final Sequence pubSeq = messageBus.getWalApplyPubSeq();
+                long cursor;
+                while ((cursor = pubSeq.next()) > -1) {
+                    messageBus.getWalApplyQueue().get(cursor).of("x");
+                    pubSeq.done(cursor);
+                }
+
+                try {
+                    w.commit();
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "WAL apply queue is full");
+                }
+                drainWalQueue();
+
+                // rows are kept until commit succeeds
+                r = w.newRow(Timestamps.HOUR_MICROS);
+                r.putInt(0, 2);
+                r.append();
+                w.commit();
+            }
+            drainWalQueue();
+
+            assertSql(
+                    "x",
+                    "a\tts\n" +
+                            "1\t1970-01-01T00:00:00.000000Z\n" +
+                            "2\t1970-01-01T01:00:00.000000Z\n"
+            );
+            assertWalRemoved("x", 1);
+        });
+    }
+
+    @Test
+    public void testConcurrentWalWriters() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, b symbol, c string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (
+                    WalWriter w1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    WalWriter w2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+            ) {
+                Assert.assertNotEquals(w1.getWalId(), w2.getWalId());
+                for (int i = 0; i < 3; i++) {
+                    TableWriter.Row r = w1.newRow(2 * i * Timestamps.HOUR_MICROS);
+                    r.putInt(0, i);
+                    r.putSym(1, "w1");
+                    r.putStr(2, "s" + i);
+                    r.append();
+
+                    r = w2.newRow((2 * i + 1) * Timestamps.HOUR_MICROS);
+                    r.putInt(0, 100 + i);
+                    r.putSym(1, "w2");
+                    r.append();
+                }
+                w2.commit();
+                w1.commit();
+            }
+
+            // segments are not visible until applied
+            assertSql("select count() from x", "count\n0\n");
+            drainWalQueue();
+
+            assertSql(
+                    "x",
+                    "a\tb\tc\tts\n" +
+                            "0\tw1\ts0\t1970-01-01T00:00:00.000000Z\n" +
+                            "100\tw2\t\t1970-01-01T01:00:00.000000Z\n" +
+                            "1\tw1\ts1\t1970-01-01T02:00:00.000000Z\n" +
+                            "101\tw2\t\t1970-01-01T03:00:00.000000Z\n" +
+                            "2\tw1\ts2\t1970-01-01T04:00:00.000000Z\n" +
+                            "102\tw2\t\t1970-01-01T05:00:00.000000Z\n"
+            );
+            assertWalRemoved("x", 1);
+            assertWalRemoved("x", 2);
+        });
+    }
+
+    @Test
+    public void testInsertWhenTableBusy() throws Exception {
+        walEnabled = true;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, b symbol, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing")) {
+                executeInsert("insert into x values (1, 'abc', '2022-02-24T01:00')");
+                executeInsert("insert into x values (2, 'def', '2022-02-24T00:00')");
+
+                TableWriter.Row r = writer.newRow(Timestamps.HOUR_MICROS * 24 * 19047 + Timestamps.HOUR_MICROS * 2);
+                r.putInt(0, 3);
+                r.putSym(1, "abc");
+                r.append();
+                writer.commit();
+
+                // segments stay on disk while table is busy
+                drainWalQueue();
+                assertSql("select count() from x", "count\n1\n");
+            }
+            // new job replays segments left on disk
+            drainWalQueue();
+
+            assertSql(
+                    "x",
+                    "a\tb\tts\n" +
+                            "2\tdef\t2022-02-24T00:00:00.000000Z\n" +
+                            "1\tabc\t2022-02-24T01:00:00.000000Z\n" +
+                            "3\tabc\t2022-02-24T02:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x (" +
+                            "bo boolean, by byte, sh short, ch char, i int, l long, f float, d double, da date," +
+                            " s symbol, st string, l256 long256, g geohash(4c), ts timestamp" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            try (WalWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row r = w.newRow(0);
+                r.putBool(0, true);
+                r.putByte(1, (byte) 1);
+                r.putShort(2, (short) 2);
+                r.putChar(3, 'c');
+                r.putInt(4, 4);
+                r.putLong(5, 5);
+                r.putFloat(6, 6.5f);
+                r.putDouble(7, 7.5);
+                r.putDate(8, 86400000);
+                r.putSym(9, "sym");
+                r.putStr(10, "str");
+                r.putLong256(11, "0x01");
+                r.putGeoStr(12, "u33d");
+                r.append();
+
+                w.newRow(Timestamps.HOUR_MICROS).append();
+                w.commit();
+            }
+            drainWalQueue();
+
+            assertSql(
+                    "x",
+                    "bo\tby\tsh\tch\ti\tl\tf\td\tda\ts\tst\tl256\tg\tts\n" +
+                            "true\t1\t2\tc\t4\t5\t6.5000\t7.5\t1970-01-02T00:00:00.000Z\tsym\tstr\t0x01\tu33d\t1970-01-01T00:00:00.000000Z\n" +
+                            "false\t0\t0\t\tNaN\tNaN\tNaN\tNaN\t\t\t\t\t\t1970-01-01T01:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testReplayAppliedSegment() throws Exception {
+        // segment metadata stays on disk as if server crashed right after the rows were committed
+        final AtomicBoolean crash = new AtomicBoolean(true);
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public boolean remove(LPSZ name) {
+                if (Chars.endsWith(name, WalWriter.SEGMENT_META_FILE_NAME) && crash.get()) {
+                    return false;
+                }
+                return super.remove(name);
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            compiler.compile("create table x (a int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row r = w.newRow(0);
+                r.putInt(0, 1);
+                r.append();
+                w.commit();
+            }
+
+            drainWalQueue();
+            try (Path path = new Path()) {
+                path.of(configuration.getRoot()).concat("x").concat(WalWriter.WAL_NAME_BASE).put(1)
+                        .slash().put(0).concat(WalWriter.SEGMENT_META_FILE_NAME).$();
+                Assert.assertTrue(ff.exists(path));
+            }
+
+            crash.set(false);
+            Assert.assertTrue(ApplyWal2TableJob.applyPendingSegments(engine, "x"));
+            assertSql(
+                    "x",
+                    "a\tts\n" +
+                            "1\t1970-01-01T00:00:00.000000Z\n"
+            );
+            assertWalRemoved("x", 1);
+        });
+    }
+
+    @Test
+    public void testReplayAfterRestart() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row r = w.newRow(0);
+                r.putInt(0, 1);
+                r.append();
+                w.commit();
+            }
+
+            // queue does not survive restart
+            final Sequence subSeq = messageBus.getWalApplySubSeq();
+            long cursor;
+            while ((cursor = subSeq.next()) > -1) {
+                subSeq.done(cursor);
+            }
+
+            try (Path path = new Path()) {
+                // segment of a writer that crashed before commit
+                path.of(configuration.getRoot()).concat("x").concat(WalWriter.WAL_NAME_BASE).put(1).slash().put(5).$();
+                Assert.assertEquals(0, FilesFacadeImpl.INSTANCE.mkdir(path, configuration.getMkDirMode()));
+            }
+            assertSql("select count() from x", "count\n0\n");
+
+            drainWalQueue();
+            assertSql(
+                    "x",
+                    "a\tts\n" +
+                            "1\t1970-01-01T00:00:00.000000Z\n"
+            );
+            assertWalRemoved("x", 1);
+        });
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, b string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row r = w.newRow(0);
+                r.putInt(0, 1);
+                r.putStr(1, "rolled back");
+                r.append();
+                w.rollback();
+
+                r = w.newRow(Timestamps.HOUR_MICROS);
+                r.putInt(0, 2);
+                r.putStr(1, "cancelled");
+                r.cancel();
+
+                r = w.newRow(2 * Timestamps.HOUR_MICROS);
+                r.putStr(1, "committed");
+                r.append();
+                w.commit();
+
+                r = w.newRow(3 * Timestamps.HOUR_MICROS);
+                r.putInt(0, 4);
+                r.append();
+                // closing writer discards uncommitted rows
+            }
+            drainWalQueue();
+
+            assertSql(
+                    "x",
+                    "a\tb\tts\n" +
+                            "NaN\tcommitted\t1970-01-01T02:00:00.000000Z\n"
+            );
+            assertWalRemoved("x", 1);
+        });
+    }
+
+    @Test
+    public void testTypeMismatch() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, b int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                TableWriter.Row r = w.newRow(0);
+                r.putInt(0, 1);
+                r.putInt(1, 2);
+                r.append();
+                w.commit();
+            }
+            compiler.compile("alter table x drop column b", sqlExecutionContext);
+            compiler.compile("alter table x add column b string", sqlExecutionContext);
+
+            // segment is kept until the column is fixed
+            drainWalQueue();
+            assertSql("select count() from x", "count\n0\n");
+
+            compiler.compile("alter table x drop column b", sqlExecutionContext);
+            compiler.compile("alter table x add column b int", sqlExecutionContext);
+            drainWalQueue();
+            assertSql(
+                    "x",
+                    "a\tts\tb\n" +
+                            "1\t1970-01-01T00:00:00.000000Z\t2\n"
+            );
+            assertWalRemoved("x", 1);
+        });
+    }
+
+    private static void assertWalRemoved(CharSequence tableName, int walId) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat(tableName).concat(WalWriter.WAL_NAME_BASE).put(walId).$();
+            Assert.assertFalse(FilesFacadeImpl.INSTANCE.exists(path));
+        }
+    }
+
+    private static void drainWalQueue() {
+        final ApplyWal2TableJob job = new ApplyWal2TableJob(engine);
+        //noinspection StatementWithEmptyBody
+        while (job.run(0)) ;
+    }
+}
@@ -150,6 +150,18 @@ public class HttpQueryTestBuilder {
                     }
                 });
 
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new LineHttpProcessor(httpConfiguration.getLineHttpProcessorConfiguration(), engine);
+                    }
+
+                    @Override
+                    public String getUrl() {
+                        return "/write";
+                    }
+                });
+
                 SqlExecutionContextImpl sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount) {
                     @Override
                     public QueryFutureUpdateListener getQueryFutureUpdateListener() {
@@ -24,7 +24,10 @@
 package io.questdb.cutlass.http;
 
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
+import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
 import io.questdb.griffin.DefaultSqlExecutionCircuitBreakerConfiguration;
 import io.questdb.griffin.SqlExecutionCircuitBreakerConfiguration;
 import io.questdb.network.DefaultIODispatcherConfiguration;
@@ -51,6 +54,7 @@ public class HttpServerConfigurationBuilder {
     private int receiveBufferSize = 1024 * 1024;
     private long multipartIdleSpinCount = -1;
     private Runnable onPeerDisconnect = HttpContextConfiguration.NONE;
+    private int lineHttpMaxRequestSize = 16 * 1024 * 1024;
 
     public DefaultHttpServerConfiguration build() {
         final IODispatcherConfiguration ioDispatcherConfiguration = new DefaultIODispatcherConfiguration() {
@@ -137,6 +141,25 @@ public class HttpServerConfigurationBuilder {
                 }
             };
 
+            private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new LineHttpProcessorConfiguration() {
+                private final LineTcpReceiverConfiguration lineTcpReceiverConfiguration = new DefaultLineTcpReceiverConfiguration();
+
+                @Override
+                public LineTcpReceiverConfiguration getLineTcpReceiverConfiguration() {
+                    return lineTcpReceiverConfiguration;
+                }
+
+                @Override
+                public int getMaxRequestSize() {
+                    return lineHttpMaxRequestSize;
+                }
+
+                @Override
+                public boolean isEnabled() {
+                    return true;
+                }
+            };
+
             @Override
             public IODispatcherConfiguration getDispatcherConfiguration() {
                 return ioDispatcherConfiguration;
@@ -233,6 +256,11 @@ public class HttpServerConfigurationBuilder {
                 };
             }
 
+            @Override
+            public LineHttpProcessorConfiguration getLineHttpProcessorConfiguration() {
+                return lineHttpProcessorConfiguration;
+            }
+
             @Override
             public StaticContentProcessorConfiguration getStaticContentProcessorConfiguration() {
                 return staticContentProcessorConfiguration;
@@ -265,6 +293,11 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withLineHttpMaxRequestSize(int lineHttpMaxRequestSize) {
+        this.lineHttpMaxRequestSize = lineHttpMaxRequestSize;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withMultipartIdleSpinCount(long multipartIdleSpinCount) {
         this.multipartIdleSpinCount = multipartIdleSpinCount;
         return this;
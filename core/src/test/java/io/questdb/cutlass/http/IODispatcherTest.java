@@ -54,7 +54,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
@@ -6183,6 +6188,41 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testTextQueryParquet() throws Exception {
+        testJsonQuery0(2, engine -> {
+            CairoTestUtils.createTestTable(
+                    engine.getConfiguration(),
+                    5000,
+                    new Rnd(),
+                    new TestRecord.ArrayBinarySequence()
+            );
+            assertParquetResponse();
+        }, false);
+    }
+
+    @Test
+    public void testTextQueryParquetNotTableScan() throws Exception {
+        testJsonQuery(
+                20,
+                "GET /exp?query=select+x+from+long_sequence(5)&fmt=parquet HTTP/1.1\r\n" +
+                        "Host: localhost:9001\r\n" +
+                        "\r\n",
+                "HTTP/1.1 200 OK\r\n" +
+                        "Server: questDB/1.0\r\n" +
+                        "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                        "Transfer-Encoding: chunked\r\n" +
+                        "Content-Type: text/csv; charset=utf-8\r\n" +
+                        "Content-Disposition: attachment; filename=\"questdb-query-0.csv\"\r\n" +
+                        "Keep-Alive: timeout=5, max=10000\r\n" +
+                        "\r\n" +
+                        "6c\r\n" +
+                        "{\"query\":\"select x from long_sequence(5)\",\"error\":\"parquet export requires a table scan query\",\"position\":0}\r\n" +
+                        "00\r\n" +
+                        "\r\n"
+        );
+    }
+
     @Test
     public void testTextQueryPseudoRandomStability() throws Exception {
         testJsonQuery(
@@ -6651,6 +6691,62 @@ public class IODispatcherTest {
                 .run(code);
     }
 
+    private static void assertParquetResponse() {
+        try (Socket socket = new Socket("127.0.0.1", 9001)) {
+            socket.getOutputStream().write((
+                    "GET /exp?query=x&fmt=parquet&filename=x HTTP/1.1\r\n" +
+                            "Host: localhost:9001\r\n" +
+                            "\r\n"
+            ).getBytes(StandardCharsets.US_ASCII));
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            Assert.assertEquals("HTTP/1.1 200 OK", readHttpLine(in));
+            final StringBuilder headers = new StringBuilder();
+            String line;
+            while (!(line = readHttpLine(in)).isEmpty()) {
+                headers.append(line).append('\n');
+            }
+            TestUtils.assertContains(headers, "Content-Type: application/vnd.apache.parquet");
+            TestUtils.assertContains(headers, "Content-Disposition: attachment; filename=\"x.parquet\"");
+
+            // response is chunked, there is at least one chunk per 16k send buffer
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            int chunkCount = 0;
+            int chunkSize;
+            while ((chunkSize = Integer.parseInt(readHttpLine(in), 16)) > 0) {
+                for (int i = 0; i < chunkSize; i++) {
+                    body.write(in.read());
+                }
+                Assert.assertEquals("", readHttpLine(in));
+                chunkCount++;
+            }
+            Assert.assertTrue(chunkCount > 1);
+
+            final byte[] bytes = body.toByteArray();
+            Assert.assertEquals("PAR1", new String(bytes, 0, 4, StandardCharsets.US_ASCII));
+            Assert.assertEquals("PAR1", new String(bytes, bytes.length - 4, 4, StandardCharsets.US_ASCII));
+            final int footerLen = (bytes[bytes.length - 8] & 0xff)
+                    | (bytes[bytes.length - 7] & 0xff) << 8
+                    | (bytes[bytes.length - 6] & 0xff) << 16
+                    | (bytes[bytes.length - 5] & 0xff) << 24;
+            Assert.assertTrue(footerLen > 0 && footerLen < bytes.length - 12);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String readHttpLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            Assert.assertTrue(b > -1);
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
     private void writeRandomFile(Path path, Rnd rnd, long lastModified) {
         if (Files.exists(path)) {
             Assert.assertTrue(Files.remove(path));
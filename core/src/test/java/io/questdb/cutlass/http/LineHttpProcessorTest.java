@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LineHttpProcessorTest {
+    private static final String NO_CONTENT_RESPONSE = "HTTP/1.1 204 No Content\r\n" +
+            "Server: questDB/1.0\r\n" +
+            "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+            "Content-Type: text/html; charset=utf-8\r\n" +
+            "\r\n";
+    private static final String MEASUREMENTS = "weather,location=london temperature=12.5,humidity=40i 1000000000\n" +
+            "weather,location=paris temperature=14.0,humidity=35i 2000000000\n" +
+            "wind,location=london speed=7.5 3000000000\n" +
+            "weather,location=london temperature=13.0,humidity=41i 4000000000";
+    private final StringSink sink = new StringSink();
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testChunkedRequest() throws Exception {
+        assertWrite(
+                new HttpServerConfigurationBuilder(),
+                "POST /write HTTP/1.1\r\n" +
+                        "Host: localhost:9000\r\n" +
+                        "Transfer-Encoding: chunked\r\n" +
+                        "\r\n" +
+                        Integer.toHexString(50) + ";ext=1\r\n" +
+                        MEASUREMENTS.substring(0, 50) + "\r\n" +
+                        Integer.toHexString(MEASUREMENTS.length() - 50) + "\r\n" +
+                        MEASUREMENTS.substring(50) + "\r\n" +
+                        "0\r\n" +
+                        "\r\n"
+        );
+    }
+
+    @Test
+    public void testContentLengthRequest() throws Exception {
+        assertWrite(new HttpServerConfigurationBuilder(), contentLengthRequest(MEASUREMENTS));
+    }
+
+    @Test
+    public void testEmptyRequest() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> new SendAndReceiveRequestBuilder().execute(contentLengthRequest(""), NO_CONTENT_RESPONSE));
+    }
+
+    @Test
+    public void testInvalidMeasurementRollsBackRequest() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(engine -> {
+                    new SendAndReceiveRequestBuilder().execute(
+                            contentLengthRequest("weather,location=london temperature=1.0 1000000000\n"),
+                            NO_CONTENT_RESPONSE
+                    );
+                    new SendAndReceiveRequestBuilder().execute(
+                            contentLengthRequest("weather,location=london temperature=2.0 2000000000\n" +
+                                    "weather,location=paris temperature=3.0 yesterday\n" +
+                                    "weather,location=paris temperature=3.0 3000000000\n"
+                            ),
+                            "HTTP/1.1 400 Bad request\r\n" +
+                                    "Server: questDB/1.0\r\n" +
+                                    "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                    "Transfer-Encoding: chunked\r\n" +
+                                    "Content-Type: text/plain; charset=utf-8\r\n" +
+                                    "\r\n" +
+                                    "46\r\n" +
+                                    "could not parse measurement [measurement=2, error=INVALID_TIMESTAMP]\r\n" +
+                                    "\r\n" +
+                                    "00\r\n" +
+                                    "\r\n"
+                    );
+                    assertSql(
+                            engine,
+                            "select location, temperature, timestamp from weather",
+                            "location\ttemperature\ttimestamp\n" +
+                                    "london\t1.0\t1970-01-01T00:00:01.000000Z\n"
+                    );
+                });
+    }
+
+    @Test
+    public void testMeasurementsSplitBetweenReads() throws Exception {
+        assertWrite(new HttpServerConfigurationBuilder().withReceiveBufferSize(16), contentLengthRequest(MEASUREMENTS));
+    }
+
+    @Test
+    public void testRequestTooLarge() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder().withLineHttpMaxRequestSize(64))
+                .withTelemetry(false)
+                .run(engine -> {
+                    new SendAndReceiveRequestBuilder().execute(
+                            contentLengthRequest(MEASUREMENTS),
+                            "HTTP/1.1 413 Request entity too large\r\n" +
+                                    "Server: questDB/1.0\r\n" +
+                                    "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                    "Transfer-Encoding: chunked\r\n" +
+                                    "Content-Type: text/plain; charset=utf-8\r\n" +
+                                    "\r\n" +
+                                    "1f\r\n" +
+                                    "request is too large [max=64]\r\n" +
+                                    "\r\n" +
+                                    "00\r\n" +
+                                    "\r\n"
+                    );
+                    // request is rejected before any table is created
+                    try (Path path = new Path()) {
+                        Assert.assertEquals(TableUtils.TABLE_DOES_NOT_EXIST, engine.getStatus(AllowAllCairoSecurityContext.INSTANCE, path, "weather"));
+                    }
+                });
+    }
+
+    private static String contentLengthRequest(String content) {
+        return "POST /write HTTP/1.1\r\n" +
+                "Host: localhost:9000\r\n" +
+                "Content-Length: " + content.length() + "\r\n" +
+                "\r\n" +
+                content;
+    }
+
+    private void assertSql(CairoEngine engine, String sql, String expected) throws SqlException {
+        try (
+                SqlCompiler compiler = new SqlCompiler(engine);
+                SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+        ) {
+            TestUtils.assertSql(compiler, executionContext, sql, sink, expected);
+        }
+    }
+
+    private void assertWrite(HttpServerConfigurationBuilder serverConfigBuilder, String request) throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(serverConfigBuilder)
+                .withTelemetry(false)
+                .run(engine -> {
+                    new SendAndReceiveRequestBuilder().execute(request, NO_CONTENT_RESPONSE);
+                    assertSql(
+                            engine,
+                            "weather",
+                            "location\ttemperature\thumidity\ttimestamp\n" +
+                                    "london\t12.5\t40\t1970-01-01T00:00:01.000000Z\n" +
+                                    "paris\t14.0\t35\t1970-01-01T00:00:02.000000Z\n" +
+                                    "london\t13.0\t41\t1970-01-01T00:00:04.000000Z\n"
+                    );
+                    assertSql(
+                            engine,
+                            "wind",
+                            "location\tspeed\ttimestamp\n" +
+                                    "london\t7.5\t1970-01-01T00:00:03.000000Z\n"
+                    );
+                });
+    }
+}
@@ -24,6 +24,7 @@
 
 package io.questdb.cutlass.line.tcp;
 
+import io.questdb.Metrics;
 import io.questdb.cairo.AbstractCairoTest;
 import io.questdb.cairo.TableReader;
 import io.questdb.log.Log;
@@ -85,6 +86,7 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
     protected LineTcpConnectionContext context;
     protected LineTcpReceiverConfiguration lineTcpConfiguration;
     protected LineTcpMeasurementScheduler scheduler;
+    protected Metrics metrics;
     protected boolean disconnected;
     protected String recvBuffer;
     protected WorkerPool workerPool;
@@ -248,12 +250,14 @@ abstract class BaseLineTcpContextTest extends AbstractCairoTest {
     protected void setupContext(AuthDb authDb, Runnable onCommitNewEvent) {
         disconnected = false;
         recvBuffer = null;
+        metrics = Metrics.enabled();
         scheduler = new LineTcpMeasurementScheduler(
                 lineTcpConfiguration,
                 engine,
                 createWorkerPool(1, true),
                 null,
-                workerPool = createWorkerPool(nWriterThreads, false)) {
+                workerPool = createWorkerPool(nWriterThreads, false),
+                metrics.lineTcp()) {
 
             @Override
             protected NetworkIOJob createNetworkIOJob(IODispatcher<LineTcpConnectionContext> dispatcher, int workerId) {
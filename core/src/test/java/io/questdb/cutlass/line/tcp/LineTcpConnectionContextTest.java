@@ -1236,6 +1236,18 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
         testThreading(nTables, nIterations);
     }
 
+    @Test
+    public void testMultipleTablesWithMultipleWriterThreadsMigration() throws Exception {
+        nWriterThreads = 2;
+        // first and last tables land on the same writer thread, the first table
+        // has to migrate to the other thread to even out the load
+        testThreading(3, 5_000, new double[]{1, 1, 10}, 100);
+        sink.clear();
+        metrics.scrapeIntoPrometheus(sink);
+        TestUtils.assertContains(sink, "questdb_line_tcp_table_migrations_total 1\n");
+        TestUtils.assertContains(sink, "questdb_line_tcp_writer_rows_per_second{thread=\"1\"}");
+    }
+
     @Test
     public void testMultipleTablesWithSingleWriterThread() throws Exception {
         nWriterThreads = 1;
@@ -1678,7 +1690,11 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
 
     private void testThreading(int nTables, int nIterations) throws Exception {
         double[] lf = new double[nTables];
-            Arrays.fill(lf, 1d);
+        Arrays.fill(lf, 1d);
+        testThreading(nTables, nIterations, lf, 0);
+    }
+
+    private void testThreading(int nTables, int nIterations, double[] lf, int loadBalanceIterations) throws Exception {
         for (int n = 1; n < nTables; n++) {
             lf[n] += lf[n - 1];
         }
@@ -1693,7 +1709,13 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
         runInContext(() -> {
             int nTablesSelected = 0;
             int nTotalUpdates = 0;
+            long loadBalanceMillis = lineTcpConfiguration.getMillisecondClock().getTicks();
             for (int nIter = 0; nIter < nIterations; nIter++) {
+                if (loadBalanceIterations > 0 && nIter > 0 && nIter % loadBalanceIterations == 0) {
+                    // pretend that load balance interval has passed
+                    loadBalanceMillis += lineTcpConfiguration.getWriterLoadBalanceInterval();
+                    scheduler.doLoadBalance(loadBalanceMillis);
+                }
                 int nLines = random.nextInt(50) + 1;
                 sink.clear();
                 for (int nLine = 0; nLine < nLines; nLine++) {
@@ -33,6 +33,8 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.line.AbstractLineSender;
 import io.questdb.cutlass.line.AuthenticatedLineTcpSender;
+import io.questdb.cutlass.line.LineTcpAsyncSender;
+import io.questdb.cutlass.line.LineTcpBinarySender;
 import io.questdb.cutlass.line.LineTcpSender;
 import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
@@ -719,6 +721,98 @@ public class LineTcpReceiverTest extends AbstractLineTcpReceiverTest {
         });
     }
 
+    @Test
+    public void testWithAsyncSender() throws Exception {
+        final int threadCount = 4;
+        final int rowsPerThread = 1000;
+        runInContext((receiver) -> {
+            send(receiver, "table", WAIT_ENGINE_TABLE_RELEASE, () -> {
+                try (LineTcpAsyncSender sender = new LineTcpAsyncSender(Net.parseIPv4("127.0.0.1"), bindPort, 2, 256, 4, 10)) {
+                    final Thread[] threads = new Thread[threadCount];
+                    for (int t = 0; t < threadCount; t++) {
+                        final int id = t;
+                        threads[t] = new Thread(() -> {
+                            AbstractLineSender threadSender = sender.getSender();
+                            for (int i = 0; i < rowsPerThread; i++) {
+                                threadSender.metric("table")
+                                        .tag("thread", "t" + id)
+                                        .field("i", i)
+                                        .$(i * 1000L);
+                            }
+                            // last rows of the thread are left for close()
+                            if (id % 2 == 0) {
+                                sender.flush();
+                            }
+                        });
+                        threads[t].start();
+                    }
+                    for (int t = 0; t < threadCount; t++) {
+                        threads[t].join();
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            try (TableReader reader = new TableReader(configuration, "table")) {
+                Assert.assertEquals(threadCount * rowsPerThread, reader.size());
+            }
+        });
+    }
+
+    @Test
+    public void testWithBinarySender() throws Exception {
+        runInContext((receiver) -> {
+            send(receiver, "table", WAIT_ENGINE_TABLE_RELEASE, () -> {
+                // small buffer splits rows into several blocks
+                try (LineTcpBinarySender sender = new LineTcpBinarySender(Net.parseIPv4("127.0.0.1"), bindPort, 128)) {
+                    for (int i = 0; i < 6; i++) {
+                        sender.metric("table")
+                                .tag("sym", i % 2 == 0 ? "значение" : "value")
+                                .field("l", i)
+                                .field("d", i / 2.0)
+                                .field("b", i % 3 == 0)
+                                .$(i * Timestamps.SECOND_MICROS);
+                    }
+                    // column set changes, new block is started and column is added to the table
+                    sender.metric("table")
+                            .tag("sym", "value")
+                            .field("l", 6)
+                            .field("x", 1.5)
+                            .$(6 * Timestamps.SECOND_MICROS);
+                    sender.flush();
+                }
+            });
+
+            assertTable("sym\tl\td\tb\ttimestamp\tx\n" +
+                    "значение\t0\t0.0\ttrue\t1970-01-01T00:00:00.000000Z\tNaN\n" +
+                    "value\t1\t0.5\tfalse\t1970-01-01T00:00:01.000000Z\tNaN\n" +
+                    "значение\t2\t1.0\tfalse\t1970-01-01T00:00:02.000000Z\tNaN\n" +
+                    "value\t3\t1.5\ttrue\t1970-01-01T00:00:03.000000Z\tNaN\n" +
+                    "значение\t4\t2.0\tfalse\t1970-01-01T00:00:04.000000Z\tNaN\n" +
+                    "value\t5\t2.5\tfalse\t1970-01-01T00:00:05.000000Z\tNaN\n" +
+                    "value\t6\tNaN\tfalse\t1970-01-01T00:00:06.000000Z\t1.5\n", "table");
+        });
+    }
+
+    @Test
+    public void testBinarySenderTypeMismatch() throws Exception {
+        runInContext((receiver) -> {
+            try (TableModel m = new TableModel(configuration, "table", PartitionBy.DAY)) {
+                m.col("l", ColumnType.INT).timestamp();
+                CairoTestUtils.createTable(m, ColumnType.VERSION);
+            }
+            send(receiver, "table", WAIT_ENGINE_TABLE_RELEASE, () -> {
+                try (LineTcpBinarySender sender = new LineTcpBinarySender(Net.parseIPv4("127.0.0.1"), bindPort, msgBufferSize)) {
+                    // LONG cannot be written to INT column, the block is rejected
+                    sender.metric("table").field("l", 1).$(0);
+                    sender.flush();
+                }
+            });
+            assertTable("l\ttimestamp\n", "table");
+        });
+    }
+
     @Test
     public void testStringsWithTcpSenderWithNewLineChars() throws Exception {
         runInContext((receiver) -> {
@@ -25,6 +25,7 @@
 package io.questdb.cutlass.pgwire;
 
 import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
 import io.questdb.cairo.GeoHashes;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableWriter;
@@ -824,6 +825,51 @@ public class PGJobContextTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testBinaryResultFormatAllTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            try (final PGWireServer ignored = createPGServer(1)) {
+                Properties properties = new Properties();
+                properties.setProperty("user", "admin");
+                properties.setProperty("password", "quest");
+                properties.setProperty("sslmode", "disable");
+                properties.setProperty("binaryTransfer", "true");
+                // use server-side statement and binary result format from the first execution
+                properties.setProperty("prepareThreshold", "-1");
+                TimeZone.setDefault(TimeZone.getTimeZone("EDT"));
+                try (final Connection connection = DriverManager.getConnection("jdbc:postgresql://127.0.0.1:8812/qdb", properties)) {
+                    try (PreparedStatement statement = connection.prepareStatement(
+                            "select" +
+                                    " x," +
+                                    " x % 2 = 0 b," +
+                                    " cast(x * 1000000 as timestamp) ts," +
+                                    " cast(x * 1000 as date) dt," +
+                                    " cast(x * 1.5 as float) f," +
+                                    " #u g1," +
+                                    " #u33d g4," +
+                                    " cast('a' as symbol) s," +
+                                    " null n" +
+                                    " from long_sequence(3)"
+                    )) {
+                        for (int i = 0; i < 2; i++) {
+                            sink.clear();
+                            try (ResultSet rs = statement.executeQuery()) {
+                                assertResultSet(
+                                        "x[BIGINT],b[BIT],ts[TIMESTAMP],dt[TIMESTAMP],f[REAL],g1[VARCHAR],g4[VARCHAR],s[VARCHAR],n[VARCHAR]\n" +
+                                                "1,false,1970-01-01 00:00:01.0,1970-01-01 00:00:01.0,1.500,u,u33d,a,null\n" +
+                                                "2,true,1970-01-01 00:00:02.0,1970-01-01 00:00:02.0,3.000,u,u33d,a,null\n" +
+                                                "3,false,1970-01-01 00:00:03.0,1970-01-01 00:00:03.0,4.500,u,u33d,a,null\n",
+                                        sink,
+                                        rs
+                                );
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testGeoHashInsertAllBin() throws Exception {
         insertAllGeoHashTypes(true);
@@ -2776,14 +2822,65 @@ nodejs code:
         );
     }
 
+    @Test
+    public void testQueryPlanCacheSharedBetweenConnections() throws Exception {
+        assertMemoryLeak(() -> {
+            final DefaultCairoConfiguration cairoConfiguration = new DefaultCairoConfiguration(temp.newFolder("plan_cache").getAbsolutePath()) {
+                @Override
+                public boolean isQueryPlanCacheEnabled() {
+                    return true;
+                }
+            };
+            try (
+                    CairoEngine planCacheEngine = new CairoEngine(cairoConfiguration, metrics);
+                    SqlCompiler planCacheCompiler = new SqlCompiler(planCacheEngine);
+                    SqlExecutionContext executionContext = new SqlExecutionContextImpl(planCacheEngine, 1)
+            ) {
+                planCacheCompiler.compile("create table x as (select x a, cast(x as int) b from long_sequence(3))", executionContext);
+                try (
+                        PGWireServer ignored = PGWireServer.create(
+                                new DefaultPGWireConfiguration(),
+                                null,
+                                LOG,
+                                planCacheEngine,
+                                compiler.getFunctionFactoryCache(),
+                                metrics
+                        )
+                ) {
+                    try (final Connection connection = getConnection(true, false)) {
+                        try (ResultSet rs = connection.createStatement().executeQuery("select * from x")) {
+                            sink.clear();
+                            assertResultSet("a[BIGINT],b[INTEGER]\n1,1\n2,2\n3,3\n", sink, rs);
+                        }
+                    }
+                    // factory of the first connection is cached server-wide
+                    final RecordCursorFactory factory = planCacheEngine.getQueryPlanCache().poll("select  *  from x");
+                    Assert.assertNotNull(factory);
+                    planCacheEngine.getQueryPlanCache().push("select * from x", factory);
+
+                    try (QueryFuture future = planCacheCompiler.compile("alter table x drop column b", executionContext).execute(null)) {
+                        future.await();
+                    }
+                    try (final Connection connection = getConnection(true, false)) {
+                        // cached factory is out of date and query is recompiled before row description is sent
+                        try (ResultSet rs = connection.createStatement().executeQuery("select * from x")) {
+                            sink.clear();
+                            assertResultSet("a[BIGINT]\n1\n2\n3\n", sink, rs);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testQueryTimeout() throws Exception {
         assertMemoryLeak(() -> {
-            compiler.compile("create table tab as (select rnd_double() d from long_sequence(10000000))", sqlExecutionContext);
+            compiler.compile("create table tab as (select rnd_double() d, rnd_int() i from long_sequence(10000000))", sqlExecutionContext);
             try (
                     final PGWireServer ignored = createPGServer(1, Timestamps.SECOND_MICROS);
                     final Connection connection = getConnection(false, true);
-                    final PreparedStatement statement = connection.prepareStatement("select * from tab order by d")
+                    final PreparedStatement statement = connection.prepareStatement("select * from tab order by d, i")
             ) {
                 try {
                     statement.execute();
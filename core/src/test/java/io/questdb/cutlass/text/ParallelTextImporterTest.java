@@ -0,0 +1,171 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.text;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableUtils;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ParallelTextImporterTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(ParallelTextImporterTest.class);
+
+    @Test
+    public void testImportMatchesSerialImport() throws Exception {
+        assertMemoryLeak(() -> {
+            final File file = new File("src/test/resources/csv/test-import.csv");
+            loadSerial(engine, "x", file);
+            try (ParallelTextImporter importer = new ParallelTextImporter(engine)) {
+                for (int chunkCount = 1; chunkCount < 6; chunkCount++) {
+                    load(importer, "y", true, file, chunkCount);
+                    TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x", "y", LOG);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testQuotedLineEnds() throws Exception {
+        assertMemoryLeak(() -> assertQuotedLineEnds(null));
+    }
+
+    @Test
+    public void testQuotedLineEndsWorkerPool() throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(new WorkerPoolAwareConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1, -1, -1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 3;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+
+                @Override
+                public boolean isEnabled() {
+                    return true;
+                }
+            });
+            pool.assign(new TextImportJob(engine.getMessageBus()));
+            pool.assignCleaner(Path.CLEANER);
+            pool.start(LOG);
+            try {
+                assertQuotedLineEnds(pool);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    private static void load(ParallelTextImporter importer, String tableName, boolean overwrite, File file, int chunkCount) throws TextException {
+        try (Path path = new Path()) {
+            importer.clear();
+            importer.configureDestination(tableName, overwrite, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
+            importer.load(path.of(file.getAbsolutePath()).$(), chunkCount, sqlExecutionContext.getCairoSecurityContext());
+        }
+    }
+
+    private static void loadSerial(CairoEngine engine, String tableName, File file) throws IOException, TextException {
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        final long buf = Unsafe.malloc(bytes.length, MemoryTag.NATIVE_DEFAULT);
+        try (TextLoader loader = new TextLoader(engine)) {
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(buf + i, bytes[i]);
+            }
+            loader.setState(TextLoader.ANALYZE_STRUCTURE);
+            loader.configureDestination(tableName, false, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
+            loader.parse(buf, buf + bytes.length, sqlExecutionContext.getCairoSecurityContext());
+            loader.wrapUp();
+        } finally {
+            Unsafe.free(buf, bytes.length, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    private void assertQuotedLineEnds(WorkerPool pool) throws Exception {
+        // values with quoted line ends and delimiters make most evenly spaced
+        // split points fall inside quotes, timestamps are out of order
+        final File file = new File(temp.getRoot(), "quoted.csv");
+        final Rnd rnd = new Rnd();
+        final int rowCount = 2000;
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < rowCount; i++) {
+                // unique timestamps, so that order of rows is well-defined
+                final long ts = 1_600_000_000_000_000L + (i * 7919L % rowCount) * 60_000_000_000L;
+                sb.setLength(0);
+                if (i == 0) {
+                    sb.append("ts,desc,qty\n");
+                }
+                sb.append(ts).append(",\"line ").append(i).append("\n\"\"quoted\"\", and\r\n")
+                        .append(rnd.nextString(rnd.nextInt(40))).append('"').append(',').append(i).append('\n');
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        compiler.compile("create table x (ts timestamp, desc string, qty int) timestamp(ts) partition by DAY", sqlExecutionContext);
+        compiler.compile("create table y (ts timestamp, desc string, qty int) timestamp(ts) partition by DAY", sqlExecutionContext);
+        loadSerial(engine, "x", file);
+
+        try (ParallelTextImporter importer = new ParallelTextImporter(engine)) {
+            load(importer, "y", false, file, pool == null ? 7 : pool.getWorkerCount() + 1);
+            Assert.assertEquals(rowCount, importer.getWrittenLineCount());
+            Assert.assertEquals(0, importer.getErrorLineCount());
+        }
+
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x", "y", LOG);
+        // chunks are merged on timestamp and committed together
+        try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "y")) {
+            Assert.assertEquals(1, reader.getTxn());
+        }
+        try (Path path = new Path()) {
+            Assert.assertEquals(TableUtils.TABLE_DOES_NOT_EXIST, engine.getStatus(sqlExecutionContext.getCairoSecurityContext(), path, "sys.copy.y.0"));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
+import io.questdb.griffin.engine.table.PageFrameReduceJob;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.jetbrains.annotations.Nullable;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+/**
+ * Runs queries on a worker pool, which processes both page frame filter and page frame reduce queues.
+ * Page frames are kept small, so that each partition is split into several tasks.
+ */
+public class AbstractParallelQueryTest {
+    protected static final StringSink sink = new StringSink();
+    protected static final StringSink expectedSink = new StringSink();
+    private final static Log LOG = LogFactory.getLog(AbstractParallelQueryTest.class);
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+    protected static CharSequence root;
+
+    @BeforeClass
+    public static void setupStatic() {
+        try {
+            root = temp.newFolder("dbRoot").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SharedRandom.RANDOM.set(new Rnd());
+        TestUtils.createTestPath(root);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.removeTestPath(root);
+    }
+
+    protected static void executeWithPool(int workerCount, int queueCapacity, ParallelQueryRunnable runnable) throws Exception {
+        final int[] affinity = new int[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            affinity[i] = -1;
+        }
+
+        final WorkerPool pool = new WorkerPool(
+                new WorkerPoolAwareConfiguration() {
+                    @Override
+                    public int[] getWorkerAffinity() {
+                        return affinity;
+                    }
+
+                    @Override
+                    public int getWorkerCount() {
+                        return workerCount;
+                    }
+
+                    @Override
+                    public boolean haltOnError() {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean isEnabled() {
+                        return true;
+                    }
+                }
+        );
+        execute(pool, workerCount, queueCapacity, runnable);
+    }
+
+    protected static void execute(
+            @Nullable WorkerPool pool,
+            int workerCount,
+            int queueCapacity,
+            ParallelQueryRunnable runnable
+    ) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return FilesFacadeImpl.INSTANCE;
+                }
+
+                @Override
+                public int getPageFrameFilterQueueCapacity() {
+                    return queueCapacity;
+                }
+
+                @Override
+                public int getPageFrameReduceQueueCapacity() {
+                    return queueCapacity;
+                }
+
+                @Override
+                public int getSqlPageFrameMaxSize() {
+                    // small frames, so that each partition is split into several tasks
+                    return 1024;
+                }
+            };
+
+            try (
+                    final CairoEngine engine = new CairoEngine(configuration);
+                    final SqlCompiler compiler = new SqlCompiler(engine);
+                    final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount)
+            ) {
+                try {
+                    if (pool != null) {
+                        pool.assignCleaner(Path.CLEANER);
+                        pool.assign(new PageFrameFilterJob(engine.getMessageBus()));
+                        pool.assign(new PageFrameReduceJob(engine.getMessageBus()));
+                        pool.start(LOG);
+                    }
+
+                    runnable.run(compiler, sqlExecutionContext);
+                    Assert.assertEquals(0, engine.getBusyWriterCount());
+                    Assert.assertEquals(0, engine.getBusyReaderCount());
+                } finally {
+                    if (pool != null) {
+                        pool.halt();
+                    }
+                }
+            }
+        });
+    }
+}
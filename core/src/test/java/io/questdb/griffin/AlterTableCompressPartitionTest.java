@@ -0,0 +1,286 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TxReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class AlterTableCompressPartitionTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCompressActivePartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compile("alter table x compress partition list '2018-01-09'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(23, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "could not compress partition '2018-01-09'");
+            }
+        });
+    }
+
+    @Test
+    public void testCompressNotPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table y as (select x, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("alter table y compress partition list '1970-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(23, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "table is not partitioned");
+            }
+        });
+    }
+
+    @Test
+    public void testCompressPartitionExpectPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compile("alter table x compress column", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(23, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "'partition' expected");
+            }
+        });
+    }
+
+    @Test
+    public void testCompressPartitionList() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("create table y as (select * from x) timestamp(timestamp) partition by DAY", sqlExecutionContext);
+
+            Assert.assertEquals(ALTER, compile("alter table x compress partition list '2018-01-02', '2018-01-03'", sqlExecutionContext).getType());
+
+            assertCompressed("2018-01-02", true);
+            assertCompressed("2018-01-03", true);
+            assertCompressed("2018-01-04", false);
+            assertSame();
+        });
+    }
+
+    @Test
+    public void testCompressPartitionWhere() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("create table y as (select * from x) timestamp(timestamp) partition by DAY", sqlExecutionContext);
+
+            Assert.assertEquals(ALTER, compile("alter table x compress partition where timestamp < to_timestamp('2018-01-05', 'yyyy-MM-dd')", sqlExecutionContext).getType());
+
+            assertCompressed("2018-01-01", true);
+            assertCompressed("2018-01-04", true);
+            assertCompressed("2018-01-05", false);
+            assertSame();
+
+            // compressing again is a no-op
+            Assert.assertEquals(ALTER, compile("alter table x compress partition where timestamp < to_timestamp('2018-01-05', 'yyyy-MM-dd')", sqlExecutionContext).getType());
+            assertSame();
+        });
+    }
+
+    @Test
+    public void testColumnChangesOnCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x compress partition where timestamp < to_timestamp('2018-01-05', 'yyyy-MM-dd')", sqlExecutionContext);
+            compile("alter table x drop column j", sqlExecutionContext);
+            compile("alter table x rename column k to kk", sqlExecutionContext);
+            compile("alter table x add column z long", sqlExecutionContext);
+
+            assertCompressed("2018-01-02", true);
+            try (Path path = new Path()) {
+                final int plen = partitionPath(path, "2018-01-02");
+                Assert.assertFalse(FilesFacadeImpl.INSTANCE.exists(path.concat("j.dz").$()));
+                Assert.assertTrue(FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("kk.dz").$()));
+            }
+
+            compile("create table y as (select i, sym, amt, timestamp, b, c, d, e, f, g, ik, kk, l, m, n, cast(null as long) z from x)", sqlExecutionContext);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "y", "x", LOG);
+        });
+    }
+
+    @Test
+    public void testDropFirstPartitionBeforeCompressed() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x compress partition list '2018-01-02'", sqlExecutionContext);
+            compile("alter table x drop partition list '2018-01-01'", sqlExecutionContext);
+            assertSql(
+                    "select min(timestamp) from x",
+                    "min\n" +
+                            "2018-01-02T00:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testIndexCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("create table y as (select * from x) timestamp(timestamp) partition by DAY", sqlExecutionContext);
+            compile("alter table x compress partition list '2018-01-02'", sqlExecutionContext);
+            compile("alter table x alter column sym add index", sqlExecutionContext);
+
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select * from y where sym = 'ibm'",
+                    "select * from x where sym = 'ibm'",
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testOutOfOrderIntoCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("create table y as (select * from x) timestamp(timestamp) partition by DAY", sqlExecutionContext);
+            compile("alter table x compress partition where timestamp < to_timestamp('2018-01-05', 'yyyy-MM-dd')", sqlExecutionContext);
+
+            compile("create table o3 as (select" +
+                    " cast(x as int) i," +
+                    " rnd_symbol('msft','ibm', 'googl') sym," +
+                    " round(rnd_double(0)*100, 3) amt," +
+                    " to_timestamp('2018-01-02', 'yyyy-MM-dd') + x * 1000000 timestamp," +
+                    " rnd_boolean() b," +
+                    " rnd_str('ABC', 'CDE', null, 'XYZ') c," +
+                    " rnd_double(2) d," +
+                    " rnd_float(2) e," +
+                    " rnd_short(10,1024) f," +
+                    " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) g," +
+                    " rnd_symbol(4,4,4,2) ik," +
+                    " rnd_long() j," +
+                    " timestamp_sequence(0, 1000000000) k," +
+                    " rnd_byte(2,50) l," +
+                    " rnd_bin(10, 20, 2) m," +
+                    " rnd_str(5,16,2) n" +
+                    " from long_sequence(10))", sqlExecutionContext);
+            compile("insert into x select * from o3", sqlExecutionContext);
+            compile("insert into y select * from o3", sqlExecutionContext);
+
+            // merge rewrites decompressed partition under new name
+            assertCompressed("2018-01-02", false);
+            assertCompressed("2018-01-03", true);
+            assertSame();
+        });
+    }
+
+    @Test
+    public void testWriterReopensCompressedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("create table y as (select * from x) timestamp(timestamp) partition by DAY", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                Assert.assertTrue(writer.compressPartition(TimestampFormatUtils.parseTimestamp("2018-01-03T00:00:00.000Z")));
+            }
+            assertCompressed("2018-01-03", true);
+            assertSame();
+        });
+    }
+
+    private void assertCompressed(String partition, boolean compressed) throws NumericException {
+        try (Path path = new Path()) {
+            final int plen = partitionPath(path, partition);
+            Assert.assertEquals(compressed, FilesFacadeImpl.INSTANCE.exists(path.concat("timestamp.dz").$()));
+            Assert.assertEquals(!compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("timestamp.d").$()));
+            Assert.assertEquals(compressed, FilesFacadeImpl.INSTANCE.exists(path.trimTo(plen).concat("c.iz").$()));
+        }
+    }
+
+    private void assertSame() throws SqlException {
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "y", "x", LOG);
+        // vectorized aggregates run over page frames of compressed partitions
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select sum(i), sum(j), min(timestamp), max(timestamp), sum(d) from y",
+                "select sum(i), sum(j), min(timestamp), max(timestamp), sum(d) from x",
+                LOG
+        );
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select sym, count(), sum(amt) from y order by sym",
+                "select sym, count(), sum(amt) from x order by sym",
+                LOG
+        );
+    }
+
+    private int partitionPath(Path path, String partition) throws NumericException {
+        // compressed partitions are published under new name
+        try (TxReader txReader = new TxReader(FilesFacadeImpl.INSTANCE, path.of(configuration.getRoot()).concat("x"), PartitionBy.DAY)) {
+            txReader.unsafeLoadAll();
+            final long timestamp = TimestampFormatUtils.parseTimestamp(partition + "T00:00:00.000Z");
+            path.of(configuration.getRoot()).concat("x").concat(partition);
+            TableUtils.txnPartitionConditionally(path, txReader.getPartitionNameTxnByPartitionTimestamp(timestamp));
+            return path.length();
+        }
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " round(rnd_double(0)*100, 3) amt," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 720000000 timestamp," +
+                        " rnd_boolean() b," +
+                        " rnd_str('ABC', 'CDE', null, 'XYZ') c," +
+                        " rnd_double(2) d," +
+                        " rnd_float(2) e," +
+                        " rnd_short(10,1024) f," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) g," +
+                        " rnd_symbol(4,4,4,2) ik," +
+                        " rnd_long() j," +
+                        " timestamp_sequence(0, 1000000000) k," +
+                        " rnd_byte(2,50) l," +
+                        " rnd_bin(10, 20, 2) m," +
+                        " rnd_str(5,16,2) n" +
+                        " from long_sequence(1000)" +
+                        ") timestamp (timestamp) " +
+                        "partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.SqlJitMode;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.jit.JitUtil;
+import io.questdb.test.tools.TestUtils;
+import org.junit.*;
+
+public class CompiledFilterParallelTest extends AbstractParallelQueryTest {
+    @Override
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(JitUtil.isJitSupported());
+        super.setUp();
+    }
+
+    @Test
+    public void testColumnTopsParallel() throws Exception {
+        executeWithPool(4, 16, CompiledFilterParallelTest::testColumnTops);
+    }
+
+    @Test
+    public void testColumnTopsQueueFull() throws Exception {
+        executeWithPool(4, 1, CompiledFilterParallelTest::testColumnTops);
+    }
+
+    @Test
+    public void testFilterParallel() throws Exception {
+        executeWithPool(4, 16, CompiledFilterParallelTest::testFilter);
+    }
+
+    @Test
+    public void testFilterQueueFull() throws Exception {
+        executeWithPool(4, 1, CompiledFilterParallelTest::testFilter);
+    }
+
+    @Test
+    public void testFilterNoWorkers() throws Exception {
+        // tasks are published, but only the query thread is there to run them
+        execute(null, 4, 16, CompiledFilterParallelTest::testFilter);
+    }
+
+    @Test
+    public void testFilterWorkerCountChange() throws Exception {
+        executeWithPool(4, 16, CompiledFilterParallelTest::testWorkerCountChange);
+    }
+
+    @Test
+    public void testRandomAccessParallel() throws Exception {
+        executeWithPool(4, 16, CompiledFilterParallelTest::testRandomAccess);
+    }
+
+    private static void testFilter(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_long(0, 1000, 0) a," +
+                " rnd_double(0) b," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(10000)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        assertWithAndWithoutJit(compiler, sqlExecutionContext, "select * from x where a > 900 and b < 0.5");
+        assertWithAndWithoutJit(compiler, sqlExecutionContext, "select * from x where a = 42 or a = 4");
+        assertWithAndWithoutJit(compiler, sqlExecutionContext, "select * from x where a > 500 limit 10");
+    }
+
+    private static void testColumnTops(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_long(0, 1000, 0) a," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(5000)) timestamp(ts) partition by hour", sqlExecutionContext);
+        compiler.compile("alter table x add column b int", sqlExecutionContext).execute(null).await();
+        compiler.compile("insert into x select" +
+                " rnd_long(0, 1000, 0) a," +
+                " timestamp_sequence(5000000000, 1000000) ts," +
+                " rnd_int(0, 100, 0) b" +
+                " from long_sequence(5000)", sqlExecutionContext);
+
+        assertWithAndWithoutJit(compiler, sqlExecutionContext, "select * from x where a > 900 and (b < 50 or b = null)");
+    }
+
+    private static void testRandomAccess(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_long(0, 1000, 0) a," +
+                " rnd_symbol('A','B','C') s," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(10000)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        assertWithAndWithoutJit(compiler, sqlExecutionContext, "select * from x where a < 100 and s = 'B' order by a, ts");
+    }
+
+    private static void testWorkerCountChange(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_long(0, 1000, 0) a," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(10000)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        final String query = "select * from x where a > 900";
+        sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expectedSink);
+
+        // factory compiled by single threaded context is executed by the parallel one and vice versa
+        try (SqlExecutionContextImpl singleThreadedContext = new SqlExecutionContextImpl(compiler.getEngine(), 1)) {
+            singleThreadedContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+            try (RecordCursorFactory factory = compiler.compile(query, singleThreadedContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory.usesCompiledFilter());
+                assertCursor(factory, sqlExecutionContext);
+                assertCursor(factory, singleThreadedContext);
+                assertCursor(factory, sqlExecutionContext);
+            }
+        }
+    }
+
+    private static void assertCursor(RecordCursorFactory factory, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, TestUtils.printer);
+        }
+        TestUtils.assertEquals(expectedSink, sink);
+    }
+
+    private static void assertWithAndWithoutJit(
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expectedSink);
+
+        sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory.usesCompiledFilter());
+            for (int i = 0; i < 2; i++) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, TestUtils.printer);
+                }
+                TestUtils.assertEquals(expectedSink, sink);
+            }
+        }
+    }
+}
@@ -25,10 +25,15 @@
 package io.questdb.griffin;
 
 import io.questdb.cairo.sql.RecordCursorFactory;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 public class CopyTest extends AbstractGriffinTest {
     @BeforeClass
@@ -67,6 +72,68 @@ public class CopyTest extends AbstractGriffinTest {
         ));
     }
 
+    @Test
+    public void testCopyToParquet() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select" +
+                    " rnd_boolean() a," +
+                    " rnd_byte() b," +
+                    " rnd_short() c," +
+                    " rnd_char() d," +
+                    " rnd_int(0, 100, 2) e," +
+                    " rnd_long(0, 100, 2) f," +
+                    " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) g," +
+                    " rnd_float(2) h," +
+                    " rnd_double(2) i," +
+                    " rnd_str(5, 16, 2) j," +
+                    " rnd_symbol(4, 4, 4, 2) k," +
+                    " rnd_bin(10, 20, 2) l," +
+                    " timestamp_sequence(0, 1000000000) ts" +
+                    " from long_sequence(1000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            // column top
+            compile("alter table x add column m symbol");
+
+            final File file = new File(inputRoot, "target/copy-to.parquet");
+            try {
+                compiler.compile("copy x to '/target/copy-to.parquet' with format parquet", sqlExecutionContext);
+
+                final byte[] bytes = Files.readAllBytes(file.toPath());
+                final ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                Assert.assertEquals("PAR1", new String(bytes, 0, 4, StandardCharsets.US_ASCII));
+                Assert.assertEquals("PAR1", new String(bytes, bytes.length - 4, 4, StandardCharsets.US_ASCII));
+                final int footerLen = buf.getInt(bytes.length - 8);
+                Assert.assertTrue(footerLen > 0 && footerLen < bytes.length - 12);
+                final String footer = new String(bytes, bytes.length - 8 - footerLen, footerLen, StandardCharsets.UTF_8);
+                Assert.assertTrue(footer.contains("ts"));
+                Assert.assertTrue(footer.contains("QuestDB"));
+            } finally {
+                Assert.assertTrue(file.delete());
+            }
+        });
+    }
+
+    @Test
+    public void testCopyToUnknownFormat() throws Exception {
+        assertFailure(
+                "copy x to '/target/x.csv' with format csv",
+                "create table x (a int)",
+                38,
+                "'parquet' expected"
+        );
+    }
+
+    @Test
+    public void testCopyToUnsupportedColumnType() throws Exception {
+        assertFailure(
+                "copy x to '/target/x.parquet'",
+                "create table x as (select rnd_long256() a from long_sequence(10))",
+                5,
+                "unsupported column type for parquet export [column=a, type=LONG256]"
+        );
+    }
+
     @Test
     public void testSimpleCopy() throws Exception {
         assertMemoryLeak(() -> {
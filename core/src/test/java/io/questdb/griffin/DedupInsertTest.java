@@ -0,0 +1,191 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.std.datetime.microtime.Timestamps;
+import org.junit.Test;
+
+public class DedupInsertTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCreateAsSelectWithUpsertKeys() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select cast(x % 2 as int) k, x v, timestamp_sequence(0, 1000000) ts from long_sequence(4)" +
+                            ") timestamp(ts) partition by DAY dedup upsert keys(ts, k)",
+                    sqlExecutionContext
+            );
+            executeInsert("insert into x values (1, 10, '1970-01-01T00:00:00.000000Z')");
+            executeInsert("insert into x values (0, 20, '1970-01-01T00:00:00.000000Z')");
+            assertSql(
+                    "x order by ts, k desc",
+                    "k\tv\tts\n" +
+                            "1\t1\t1970-01-01T00:00:00.000000Z\n" +
+                            "0\t20\t1970-01-01T00:00:00.000000Z\n" +
+                            "0\t2\t1970-01-01T00:00:01.000000Z\n" +
+                            "1\t3\t1970-01-01T00:00:02.000000Z\n" +
+                            "0\t4\t1970-01-01T00:00:03.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupAcrossPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, v long, ts timestamp) timestamp(ts) partition by DAY dedup upsert keys(ts, sym)", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x", "testing")) {
+                for (int day = 0; day < 3; day++) {
+                    appendRow(writer, day * Timestamps.DAY_MICROS, "a", day);
+                    appendRow(writer, day * Timestamps.DAY_MICROS, "b", day);
+                }
+                writer.commit();
+
+                // repeat all rows in reverse order together with new ones
+                for (int day = 2; day > -1; day--) {
+                    appendRow(writer, day * Timestamps.DAY_MICROS, "b", 100 + day);
+                    appendRow(writer, day * Timestamps.DAY_MICROS, "c", 100 + day);
+                    appendRow(writer, day * Timestamps.DAY_MICROS, "a", 100 + day);
+                }
+                writer.commit();
+            }
+            // merge does not guarantee order of rows with equal timestamps
+            assertSql(
+                    "x order by ts, sym",
+                    "sym\tv\tts\n" +
+                            "a\t0\t1970-01-01T00:00:00.000000Z\n" +
+                            "b\t0\t1970-01-01T00:00:00.000000Z\n" +
+                            "c\t100\t1970-01-01T00:00:00.000000Z\n" +
+                            "a\t1\t1970-01-02T00:00:00.000000Z\n" +
+                            "b\t1\t1970-01-02T00:00:00.000000Z\n" +
+                            "c\t101\t1970-01-02T00:00:00.000000Z\n" +
+                            "a\t2\t1970-01-03T00:00:00.000000Z\n" +
+                            "b\t2\t1970-01-03T00:00:00.000000Z\n" +
+                            "c\t102\t1970-01-03T00:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupAllRowsDuplicate() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, v long, ts timestamp) timestamp(ts) partition by DAY dedup upsert keys(ts, sym)", sqlExecutionContext);
+            final String expected = "sym\tv\tts\n" +
+                    "a\t1\t1970-01-01T00:00:00.000000Z\n" +
+                    "a\t2\t1970-01-01T01:00:00.000000Z\n";
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x", "testing")) {
+                appendRow(writer, 0, "a", 1);
+                appendRow(writer, Timestamps.HOUR_MICROS, "a", 2);
+                writer.commit();
+
+                for (int i = 0; i < 3; i++) {
+                    appendRow(writer, Timestamps.HOUR_MICROS, "a", 3);
+                    appendRow(writer, 0, "a", 4);
+                    writer.commit();
+                }
+                assertSql("x", expected);
+
+                // writer is still usable after commits that dropped every row
+                appendRow(writer, 2 * Timestamps.HOUR_MICROS, "a", 5);
+                writer.commit();
+            }
+            assertSql("x", expected + "a\t5\t1970-01-01T02:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testDedupRepeatedMaxTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, v int, ts timestamp) timestamp(ts) partition by DAY dedup upsert keys(ts, sym)", sqlExecutionContext);
+            executeInsert("insert into x values ('a', 1, '2021-10-01T00:00:00.000000Z')");
+            executeInsert("insert into x values ('a', 2, '2021-10-01T00:00:00.000000Z')");
+            executeInsert("insert into x values ('b', 3, '2021-10-01T00:00:00.000000Z')");
+            compiler.compile(
+                    "insert into x select rnd_symbol('a','b','c') sym, cast(x as int) v, cast('2021-10-01T00:00:00.000000Z' as timestamp) ts from long_sequence(100)",
+                    sqlExecutionContext
+            );
+            assertSql("select sym, count() from x order by sym", "sym\tcount\na\t1\nb\t1\nc\t1\n");
+            assertSql("select sym, v from x where sym in ('a', 'b')", "sym\tv\na\t1\nb\t3\n");
+        });
+    }
+
+    @Test
+    public void testNoDedupKeepsDuplicates() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, v int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values ('a', 1, '2021-10-01T00:00:00.000000Z')");
+            executeInsert("insert into x values ('a', 2, '2021-10-01T00:00:00.000000Z')");
+            assertSql("select count() from x", "count\n2\n");
+        });
+    }
+
+    @Test
+    public void testUpsertKeysRequireFixedSizeColumn() throws Exception {
+        assertFailure(
+                "create table x (s string, ts timestamp) timestamp(ts) partition by DAY dedup upsert keys(ts, s)",
+                null,
+                93,
+                "deduplication key must be a fixed size column [type=STRING]"
+        );
+    }
+
+    @Test
+    public void testUpsertKeysRequirePartitionedTable() throws Exception {
+        assertFailure(
+                "create table x (a int, ts timestamp) timestamp(ts) dedup upsert keys(ts, a)",
+                null,
+                51,
+                "deduplication is supported only for partitioned tables"
+        );
+    }
+
+    @Test
+    public void testUpsertKeysRequireTimestamp() throws Exception {
+        assertFailure(
+                "create table x (a int, ts timestamp) timestamp(ts) partition by DAY dedup upsert keys(a)",
+                null,
+                68,
+                "UPSERT KEYS must include designated timestamp"
+        );
+    }
+
+    @Test
+    public void testUpsertKeysUnknownColumn() throws Exception {
+        assertFailure(
+                "create table x (a int, ts timestamp) timestamp(ts) partition by DAY dedup upsert keys(ts, b)",
+                null,
+                90,
+                "Invalid column: b"
+        );
+    }
+
+    private static void appendRow(TableWriter writer, long timestamp, String sym, long value) {
+        TableWriter.Row row = writer.newRow(timestamp);
+        row.putSym(0, sym);
+        row.putLong(1, value);
+        row.append();
+    }
+}
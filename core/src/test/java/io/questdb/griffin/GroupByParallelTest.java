@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.groupby.ParallelGroupByRecordCursorFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.*;
+
+public class GroupByParallelTest extends AbstractParallelQueryTest {
+    @Test
+    public void testApproxCountDistinctParallel() throws Exception {
+        executeWithPool(4, 16, GroupByParallelTest::testApproxCountDistinct);
+    }
+
+    @Test
+    public void testColumnTopsParallel() throws Exception {
+        executeWithPool(4, 16, GroupByParallelTest::testColumnTops);
+    }
+
+    @Test
+    public void testGroupByNoWorkers() throws Exception {
+        // tasks are published, but only the query thread is there to run them
+        execute(null, 4, 16, GroupByParallelTest::testGroupBy);
+    }
+
+    @Test
+    public void testGroupByParallel() throws Exception {
+        executeWithPool(4, 16, GroupByParallelTest::testGroupBy);
+    }
+
+    @Test
+    public void testGroupByQueueFull() throws Exception {
+        executeWithPool(4, 1, GroupByParallelTest::testGroupBy);
+    }
+
+    @Test
+    public void testNotParallel() throws Exception {
+        executeWithPool(4, 16, GroupByParallelTest::testNotParallel);
+    }
+
+    private static void testGroupBy(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_symbol('A','B','C',null) s," +
+                " rnd_long(0, 10, 1) l," +
+                " rnd_str('foo','bar','baz',null) str," +
+                " rnd_int(0, 1000, 1) i," +
+                // whole numbers, so that sums do not depend on the order of aggregation
+                " cast(rnd_int(0, 1000, 1) as double) d," +
+                " rnd_float(1) f," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(10000)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        assertParallel(compiler, sqlExecutionContext,
+                "select s, l, count(), sum(i), sum(d), avg(d), min(d), max(d), min(f), max(f) from x",
+                "s, l"
+        );
+        assertParallel(compiler, sqlExecutionContext,
+                "select str, min(i), max(i), min(l), max(l), sum(l), min(ts), max(ts), sum(i * 2) from x",
+                "str"
+        );
+        assertParallel(compiler, sqlExecutionContext,
+                "select s, str, count() c from x where ts >= '1970-01-01T01:00:00.000000Z'",
+                "s, str"
+        );
+        assertParallel(compiler, sqlExecutionContext,
+                "select str, count() from x where ts < '1960-01-01'",
+                "str"
+        );
+    }
+
+    private static void testApproxCountDistinct(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_str('foo','bar','baz',null) str," +
+                " rnd_long(0, 100000, 1) l," +
+                " rnd_int(0, 1000, 1) i," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(20000)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        // sketches merge by register maximum, estimates do not depend on how rows were split between workers
+        assertParallel(compiler, sqlExecutionContext,
+                "select str, approx_count_distinct(l), approx_count_distinct(i), count() from x",
+                "str"
+        );
+    }
+
+    private static void testColumnTops(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_str('foo','bar','baz',null) str," +
+                " rnd_long(0, 1000, 0) a," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(5000)) timestamp(ts) partition by hour", sqlExecutionContext);
+        compiler.compile("alter table x add column b int", sqlExecutionContext).execute(null).await();
+        compiler.compile("insert into x select" +
+                " rnd_str('foo','bar','baz',null) str," +
+                " rnd_long(0, 1000, 0) a," +
+                " timestamp_sequence(5000000000, 1000000) ts," +
+                " rnd_int(0, 100, 0) b" +
+                " from long_sequence(5000)", sqlExecutionContext);
+
+        assertParallel(compiler, sqlExecutionContext, "select str, count(), sum(a), sum(b), min(b), max(b) from x", "str");
+    }
+
+    private static void testNotParallel(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_symbol('A','B','C') s," +
+                " rnd_str('foo','bar','baz') str," +
+                " rnd_double() d," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(100)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        // first() cannot merge partial results
+        assertNotParallel(compiler, sqlExecutionContext, "select str, first(d) from x");
+        // symbol tables are not safe to read concurrently
+        assertNotParallel(compiler, sqlExecutionContext, "select str, sum(length(s)) from x");
+        // filtered base factory does not support page frames
+        assertNotParallel(compiler, sqlExecutionContext, "select str, sum(d) from x where d > 0.5");
+    }
+
+    private static void assertNotParallel(
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(factory instanceof ParallelGroupByRecordCursorFactory);
+        }
+    }
+
+    private static void assertParallel(
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String query,
+            String orderBy
+    ) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof ParallelGroupByRecordCursorFactory);
+        }
+
+        final String orderedQuery = "select * from (" + query + ") order by " + orderBy;
+        try (SqlExecutionContext serialContext = new SqlExecutionContextImpl(compiler.getEngine(), 1)) {
+            TestUtils.printSql(compiler, serialContext, orderedQuery, expectedSink);
+        }
+        // run twice to make sure the factory can be reused
+        for (int i = 0; i < 2; i++) {
+            TestUtils.printSql(compiler, sqlExecutionContext, orderedQuery, sink);
+            TestUtils.assertEquals(expectedSink, sink);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.SpillRecordChain;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class HashJoinSpillTest extends AbstractGriffinTest {
+
+    @Test
+    public void testInnerJoinLongKey() throws Exception {
+        assertSpill("select x.l xl, x.str xstr, y.str ystr, y.ts yts from x join y on (l)");
+    }
+
+    @Test
+    public void testInnerJoinSymbolAndStringKey() throws Exception {
+        assertSpill("select x.s xs, x.str xstr, x.l xl, y.l yl, y.ts yts from x join y on (s, str)");
+    }
+
+    @Test
+    public void testNoSpillWhenTimestampRequired() throws Exception {
+        compiler.setFullFatJoins(true);
+        try {
+            createTables();
+            // as-of join relies on the hash join to keep order of master timestamp
+            final String query = "select x.l xl, x.ts xts, y.str ystr, z.str zstr from x join y on (l) asof join y z";
+            final StringSink expected = new StringSink();
+            hashJoinMemoryBudget = 0;
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            hashJoinMemoryBudget = 16 * 1024;
+            try (
+                    RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                Assert.assertTrue(cursor.hasNext());
+                final String[] spillFiles = new File(root.toString(), SpillRecordChain.SPILL_DIR_NAME).list();
+                Assert.assertTrue(spillFiles == null || spillFiles.length == 0);
+            }
+            engine.clear();
+            assertQuery(expected, query, null, "xts", false, false);
+        } finally {
+            compiler.setFullFatJoins(false);
+        }
+    }
+
+    @Test
+    public void testOuterJoin() throws Exception {
+        assertSpill("select x.l xl, x.s xs, x.ts xts, y.s ys, y.str ystr from x left join y on (l)");
+    }
+
+    @Test
+    public void testOuterJoinStringKey() throws Exception {
+        assertSpill("select x.str xstr, x.ts xts, y.l yl, y.ts yts from x left join y on (str)");
+    }
+
+    @Test
+    public void testTimestampKeptWhenSpillDisabled() throws Exception {
+        compiler.setFullFatJoins(true);
+        try {
+            createTables();
+            // spilling is opt-in, join keeps master order and designated timestamp by default
+            try (RecordCursorFactory factory = compiler.compile("select x.ts xts, x.l xl, y.str ystr from x join y on (l)", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(0, factory.getMetadata().getTimestampIndex());
+            }
+        } finally {
+            compiler.setFullFatJoins(false);
+        }
+    }
+
+    private static String sortRows(CharSequence text) {
+        final String[] lines = text.toString().split("\n");
+        // keep header in place
+        Arrays.sort(lines, 1, lines.length);
+        return String.join("\n", lines);
+    }
+
+    private void assertSpill(String query) throws Exception {
+        compiler.setFullFatJoins(true);
+        try {
+            assertSpill0(query);
+        } finally {
+            compiler.setFullFatJoins(false);
+        }
+    }
+
+    private void assertSpill0(String query) throws Exception {
+        createTables();
+
+        final StringSink expected = new StringSink();
+        hashJoinMemoryBudget = 0;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        hashJoinMemoryBudget = 16 * 1024;
+        try (
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            // rows of spilled join are not ordered by master timestamp
+            Assert.assertEquals(-1, factory.getMetadata().getTimestampIndex());
+            Assert.assertTrue(cursor.hasNext());
+            final String[] spillFiles = new File(root.toString(), SpillRecordChain.SPILL_DIR_NAME).list();
+            Assert.assertNotNull(spillFiles);
+            Assert.assertTrue(spillFiles.length > 0);
+        }
+        // release pooled readers, the check below looks for leaked files
+        engine.clear();
+
+        final StringSink actual = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, actual);
+        // spilled join returns the same rows in different order
+        TestUtils.assertEquals(sortRows(expected), sortRows(actual));
+
+        // spill files are removed once the cursor is closed
+        final String[] spillFiles = new File(root.toString(), SpillRecordChain.SPILL_DIR_NAME).list();
+        Assert.assertTrue(spillFiles == null || spillFiles.length == 0);
+    }
+
+    private void createTables() throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_symbol('A','B','C','D',null) s," +
+                " rnd_str(2,2,1) str," +
+                " rnd_long(0, 10000, 1) l," +
+                " timestamp_sequence(0, 100000) ts" +
+                " from long_sequence(5000)) timestamp(ts) partition by hour", sqlExecutionContext);
+        compiler.compile("create table y as (select" +
+                " rnd_symbol('C','D','E',null) s," +
+                " rnd_str(2,2,1) str," +
+                " rnd_long(0, 10000, 1) l," +
+                " timestamp_sequence(0, 200000) ts" +
+                " from long_sequence(2000)) timestamp(ts) partition by hour", sqlExecutionContext);
+    }
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.engine.matview.MatViewRefreshJob;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatViewTest extends AbstractGriffinTest {
+    private static final String VIEW_QUERY = "select ts, sym, sum(price) total, count() cnt from base sample by 1h align to calendar";
+
+    @Test
+    public void testCreateFailsOnFill() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(price) from base sample by 1h fill(null) align to calendar)",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts) partition by day",
+                73,
+                "FILL is not supported"
+        );
+    }
+
+    @Test
+    public void testCreateFailsOnFirstObservation() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(price) from base sample by 1h)",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts) partition by day",
+                73,
+                "ALIGN TO CALENDAR"
+        );
+    }
+
+    @Test
+    public void testCreateFailsOnNonPartitionedTable() throws Exception {
+        assertFailure(
+                "create materialized view v as (select ts, sum(price) from base sample by 1h align to calendar)",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts)",
+                31,
+                "must be partitioned"
+        );
+    }
+
+    @Test
+    public void testCreateFailsWithoutSampleBy() throws Exception {
+        assertFailure(
+                "create materialized view v as (select sym, sum(price) from base)",
+                "create table base (sym symbol, price double, ts timestamp) timestamp(ts) partition by day",
+                31,
+                "must use SAMPLE BY"
+        );
+    }
+
+    @Test
+    public void testDefinitionSurvivesRestart() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+            try (CairoEngine other = new CairoEngine(configuration)) {
+                Assert.assertNotNull(other.getMatViewRegistry().getView("v"));
+                Assert.assertEquals("base", other.getMatViewRegistry().getView("v").getBaseTableName());
+            }
+            compiler.compile("drop table v", sqlExecutionContext);
+            Assert.assertNull(engine.getMatViewRegistry().getView("v"));
+        });
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+            assertViewMatchesQuery();
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+                Assert.assertFalse(job.run(0));
+
+                // in-order rows land in the last bucket and a new partition
+                executeInsert("insert into base values ('a', 10.0, '1970-01-03T23:30:00.000000Z')");
+                executeInsert("insert into base values ('c', 20.0, '1970-01-04T01:10:00.000000Z')");
+                Assert.assertTrue(job.run(0));
+                assertViewMatchesQuery();
+                Assert.assertFalse(job.run(0));
+
+                // out-of-order rows update buckets of the first partition
+                executeInsert("insert into base values ('b', 5.0, '1970-01-01T00:20:00.000000Z')");
+                Assert.assertTrue(job.run(0));
+                assertViewMatchesQuery();
+
+                compile("alter table base drop partition list '1970-01-02'", sqlExecutionContext);
+                Assert.assertTrue(job.run(0));
+                assertViewMatchesQuery();
+
+                compiler.compile("truncate table base", sqlExecutionContext);
+                executeInsert("insert into base values ('d', 1.0, '1970-01-05T00:00:00.000000Z')");
+                Assert.assertTrue(job.run(0));
+                assertViewMatchesQuery();
+            }
+        });
+    }
+
+    @Test
+    public void testRefreshReplacesTailAtomically() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+            final StringSink before = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select * from v order by ts, sym", before);
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+                Assert.assertFalse(job.run(0));
+
+                // refresh fails after view tail is replaced, view must stay as it was
+                compiler.compile("alter table base rename column price to p", sqlExecutionContext);
+                Assert.assertFalse(job.run(0));
+                TestUtils.printSql(compiler, sqlExecutionContext, "select * from v order by ts, sym", sink);
+                TestUtils.assertEquals(before, sink);
+
+                compiler.compile("alter table base rename column p to price", sqlExecutionContext);
+                Assert.assertTrue(job.run(0));
+                assertViewMatchesQuery();
+
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "v")) {
+                    final long size = reader.size();
+                    executeInsert("insert into base values ('b', 5.0, '1970-01-01T00:20:00.000000Z')");
+                    Assert.assertTrue(job.run(0));
+
+                    // reader keeps reading partitions replaced by the refresh
+                    long rowCount = 0;
+                    final RecordCursor cursor = reader.getCursor();
+                    while (cursor.hasNext()) {
+                        rowCount++;
+                    }
+                    Assert.assertEquals(size, rowCount);
+                }
+                assertViewMatchesQuery();
+            }
+        });
+    }
+
+    private void assertViewMatchesQuery() throws SqlException {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, "select * from (" + VIEW_QUERY + ") order by ts, sym", expected);
+        TestUtils.printSql(compiler, sqlExecutionContext, "select * from v order by ts, sym", sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private void createBaseTable() throws SqlException {
+        compiler.compile(
+                "create table base as (" +
+                        "select rnd_symbol('a','b','c') sym, rnd_double() price, timestamp_sequence(0, 600000000) ts from long_sequence(400)" +
+                        ") timestamp(ts) partition by day",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.orderby.RadixSortLightRecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OrderByRadixSortTest extends AbstractGriffinTest {
+
+    @Test
+    public void testByte() throws Exception {
+        assertRadixSort("b");
+    }
+
+    @Test
+    public void testChar() throws Exception {
+        assertRadixSort("c");
+    }
+
+    @Test
+    public void testDate() throws Exception {
+        assertRadixSort("dt");
+    }
+
+    @Test
+    public void testDouble() throws Exception {
+        assertRadixSort("d");
+    }
+
+    @Test
+    public void testDoubleNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x k, case when x % 3 = 0 then NaN else (x % 4) - 1.5 end d from long_sequence(8))", sqlExecutionContext);
+            assertSql(
+                    "select * from x order by d",
+                    "k\td\n" +
+                            "3\tNaN\n" +
+                            "6\tNaN\n" +
+                            "4\t-1.5\n" +
+                            "8\t-1.5\n" +
+                            "1\t-0.5\n" +
+                            "5\t-0.5\n" +
+                            "2\t0.5\n" +
+                            "7\t1.5\n"
+            );
+            assertSql(
+                    "select * from x order by d desc",
+                    "k\td\n" +
+                            "7\t1.5\n" +
+                            "2\t0.5\n" +
+                            "1\t-0.5\n" +
+                            "5\t-0.5\n" +
+                            "4\t-1.5\n" +
+                            "8\t-1.5\n" +
+                            "3\tNaN\n" +
+                            "6\tNaN\n"
+            );
+        });
+    }
+
+    @Test
+    public void testInt() throws Exception {
+        assertRadixSort("i");
+    }
+
+    @Test
+    public void testLong() throws Exception {
+        assertRadixSort("l");
+    }
+
+    @Test
+    public void testShort() throws Exception {
+        assertRadixSort("sh");
+    }
+
+    @Test
+    public void testTimestamp() throws Exception {
+        assertRadixSort("ts");
+    }
+
+    private void assertRadixSort(String column) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " x k," +
+                    " rnd_byte(0, 4) b," +
+                    " rnd_char() c," +
+                    " rnd_date(to_date('2020', 'yyyy'), to_date('2021', 'yyyy'), 2) dt," +
+                    " rnd_double(0) d," +
+                    " rnd_int(-100, 100, 2) i," +
+                    " rnd_long(-100, 100, 2) l," +
+                    " rnd_short(-100, 100) sh," +
+                    " rnd_timestamp(to_timestamp('2020', 'yyyy'), to_timestamp('2020-01-02', 'yyyy-MM-dd'), 2) ts" +
+                    " from long_sequence(2000))", sqlExecutionContext);
+
+            // secondary sort on the row sequence makes the comparator based sort stable,
+            // doubles have no nulls as the comparator does not keep NaN ties in order
+            assertSameOrder("select * from x order by " + column, "select * from x order by " + column + ", k");
+            assertSameOrder("select * from x order by " + column + " desc", "select * from x order by " + column + " desc, k");
+        });
+    }
+
+    private void assertSameOrder(String query, String expectedQuery) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof RadixSortLightRecordCursorFactory);
+        }
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, expectedQuery, expected);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.SpillRecordChain;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class OrderBySpillTest extends AbstractGriffinTest {
+
+    @Test
+    public void testSpillManyRuns() throws Exception {
+        assertSpill(
+                "select * from (select ts, s, str, count() c, sum(l) sl from x sample by 1s) order by c, s, sl desc",
+                4096
+        );
+    }
+
+    @Test
+    public void testSpillSingleRowRuns() throws Exception {
+        // any row exceeds the budget, each of them is spilled as a run of its own
+        assertSpill(
+                "select * from (select ts, str, count() c from x where l = 1000 sample by 1s) order by c, str",
+                1
+        );
+    }
+
+    @Test
+    public void testSpillStable() throws Exception {
+        // equal keys must keep the order rows arrive in, across runs
+        assertSpill(
+                "select * from (select ts, s, str, count() c from x sample by 1s) order by s",
+                16 * 1024
+        );
+    }
+
+    @Test
+    public void testSpillStrings() throws Exception {
+        assertSpill(
+                "select * from (select ts, str, s, count() c, max(l) ml from x sample by 1s) order by str desc, ml",
+                64 * 1024
+        );
+    }
+
+    private void assertSpill(String query, long budget) throws Exception {
+        compiler.compile("create table x as (select" +
+                " rnd_symbol('A','B','C','D',null) s," +
+                " rnd_str(3,10,1) str," +
+                " rnd_long(0, 1000, 1) l," +
+                " timestamp_sequence(0, 100000) ts" +
+                " from long_sequence(50000)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        final StringSink expected = new StringSink();
+        sortMemoryBudget = 0;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        sortMemoryBudget = budget;
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof SortedRecordCursorFactory);
+        }
+        // release pooled readers, assertQuery() checks for leaked files
+        engine.clear();
+        assertQuery(expected, query, null, null, true, true);
+
+        // spill files are removed once the cursor is closed
+        final String[] spillFiles = new File(root.toString(), SpillRecordChain.SPILL_DIR_NAME).list();
+        Assert.assertTrue(spillFiles == null || spillFiles.length == 0);
+    }
+}
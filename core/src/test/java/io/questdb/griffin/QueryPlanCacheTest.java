@@ -0,0 +1,160 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.Metrics;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryPlanCacheTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            try (QueryPlanCache cache = new QueryPlanCache(new DefaultCairoConfiguration(root), Metrics.disabled().queryPlanCache())) {
+                cache.push("x", compile("select * from long_sequence(1)"));
+                Assert.assertNull(cache.poll("x"));
+            }
+        });
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        assertMemoryLeak(() -> {
+            try (QueryPlanCache cache = createCache(2, 1)) {
+                cache.push("a", compile("select * from long_sequence(1)"));
+                cache.push("b", compile("select * from long_sequence(2)"));
+                // touch "a" so that "b" becomes the oldest
+                RecordCursorFactory a = cache.poll("a");
+                cache.push("a", a);
+                cache.push("c", compile("select * from long_sequence(3)"));
+
+                Assert.assertNull(cache.poll("b"));
+                a = cache.poll("a");
+                Assert.assertNotNull(a);
+                a.close();
+                RecordCursorFactory c = cache.poll("c");
+                Assert.assertNotNull(c);
+                c.close();
+            }
+        });
+    }
+
+    @Test
+    public void testNormalize() {
+        final StringSink sink = new StringSink();
+        TestUtils.assertEquals(
+                "select * from x where s = 'a  b' and \"c  d\" > 1",
+                QueryPlanCache.normalize("  select *\n\tfrom   x\r\nwhere s = 'a  b' and \"c  d\" > 1 ;; ", sink)
+        );
+        TestUtils.assertEquals("", QueryPlanCache.normalize(" ; ", sink));
+    }
+
+    @Test
+    public void testPool() throws Exception {
+        assertMemoryLeak(() -> {
+            try (QueryPlanCache cache = createCache(16, 2)) {
+                final String sql = "select * from long_sequence(10)";
+                Assert.assertNull(cache.poll(sql));
+
+                final RecordCursorFactory f1 = compile(sql);
+                final RecordCursorFactory f2 = compile(sql);
+                final RecordCursorFactory f3 = compile(sql);
+                cache.push(sql, f1);
+                cache.push(sql, f2);
+                // pool is full, factory is closed
+                cache.push(sql, f3);
+
+                // whitespace does not matter
+                final RecordCursorFactory p1 = cache.poll("select *  from\nlong_sequence(10);");
+                final RecordCursorFactory p2 = cache.poll(sql);
+                Assert.assertNull(cache.poll(sql));
+                Assert.assertTrue(p1 == f2 || p1 == f1);
+                Assert.assertTrue(p2 == f2 || p2 == f1);
+                Assert.assertNotSame(p1, p2);
+
+                cache.push(sql, p1);
+                cache.push(sql, p2);
+                cache.remove(sql);
+                Assert.assertNull(cache.poll(sql));
+            }
+        });
+    }
+
+    @Test
+    public void testTableDropClearsEngineCache() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(createConfiguration(temp.newFolder("plan_cache").getAbsolutePath(), 16, 2), Metrics.disabled());
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x as (select x from long_sequence(5))", executionContext);
+                final String sql = "select * from x";
+                final QueryPlanCache cache = engine.getQueryPlanCache();
+                cache.push(sql, compiler.compile(sql, executionContext).getRecordCursorFactory());
+                final RecordCursorFactory factory = cache.poll(sql);
+                Assert.assertNotNull(factory);
+                cache.push(sql, factory);
+
+                compiler.compile("drop table x", executionContext);
+                Assert.assertNull(cache.poll(sql));
+            }
+        });
+    }
+
+    private static RecordCursorFactory compile(String sql) throws SqlException {
+        return compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory();
+    }
+
+    private static QueryPlanCache createCache(int capacity, int poolSize) {
+        return new QueryPlanCache(createConfiguration(root, capacity, poolSize), Metrics.disabled().queryPlanCache());
+    }
+
+    private static CairoConfiguration createConfiguration(CharSequence root, int capacity, int poolSize) {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public int getQueryPlanCacheCapacity() {
+                return capacity;
+            }
+
+            @Override
+            public int getQueryPlanCachePoolSize() {
+                return poolSize;
+            }
+
+            @Override
+            public boolean isQueryPlanCacheEnabled() {
+                return true;
+            }
+        };
+    }
+}
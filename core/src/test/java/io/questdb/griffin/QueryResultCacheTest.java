@@ -0,0 +1,334 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.Metrics;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.InsertMethod;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.CachedResultRecordCursorFactory;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryResultCacheTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCachedUntilTableChanges() throws Exception {
+        assertMemoryLeak(() -> {
+            final Metrics metrics = Metrics.enabled();
+            try (
+                    CairoEngine engine = new CairoEngine(createConfiguration(temp.newFolder().getAbsolutePath(), 1024 * 1024, 1024 * 1024, 4096), metrics);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile(
+                        "create table x as (select cast(case when x % 2 = 0 then 'a' else 'b' end as symbol) sym, x v, timestamp_sequence(0, 3600000000) ts from long_sequence(48)) timestamp(ts) partition by day",
+                        executionContext
+                );
+                final String expected = "sym\tsum\n" +
+                        "a\t600\n" +
+                        "b\t576\n";
+                try (RecordCursorFactory factory = compiler.compile("select sym, sum(v) from x order by sym", executionContext).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof CachedResultRecordCursorFactory);
+                    assertResult(expected, factory, executionContext);
+                    Assert.assertTrue(engine.getQueryResultCache().getMemoryUsed() > 0);
+                    assertResult(expected, factory, executionContext);
+                    assertCounters(metrics, 1, 1);
+
+                    // another instance of the same query uses the same result
+                    try (RecordCursorFactory other = compiler.compile("select sym, sum(v)  from x order by sym;", executionContext).getRecordCursorFactory()) {
+                        assertResult(expected, other, executionContext);
+                    }
+                    assertCounters(metrics, 2, 1);
+
+                    executeInsert(compiler, executionContext, "insert into x values ('c', 100, '1970-01-03T00:00:00.000000Z')");
+                    assertResult(expected + "c\t100\n", factory, executionContext);
+                    assertCounters(metrics, 2, 2);
+                }
+
+                compiler.compile("drop table x", executionContext);
+                Assert.assertEquals(0, engine.getQueryResultCache().getMemoryUsed());
+            }
+        });
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x from long_sequence(5))", sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("select * from x", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof CachedResultRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            final Metrics metrics = Metrics.enabled();
+            // fits result of a single query below, which takes one page
+            try (
+                    CairoEngine engine = new CairoEngine(createConfiguration(temp.newFolder().getAbsolutePath(), 1536, 1536, 1024), metrics);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x as (select x from long_sequence(10))", executionContext);
+                try (
+                        RecordCursorFactory a = compiler.compile("select x from x where x > 0", executionContext).getRecordCursorFactory();
+                        RecordCursorFactory b = compiler.compile("select x from x where x > 1", executionContext).getRecordCursorFactory();
+                        RecordCursorFactory c = compiler.compile("select * from x", executionContext).getRecordCursorFactory()
+                ) {
+                    try (RecordCursor cursor = a.getCursor(executionContext)) {
+                        drain(cursor);
+                        Assert.assertEquals(0, engine.getQueryResultCache().getMemoryUsed());
+                    }
+                    final long sizeA = engine.getQueryResultCache().getMemoryUsed();
+                    Assert.assertTrue(sizeA > 0);
+                    drain(b, executionContext);
+                    // result of "a" is evicted
+                    Assert.assertEquals(sizeA, engine.getQueryResultCache().getMemoryUsed());
+                    drain(a, executionContext);
+                    assertCounters(metrics, 0, 3);
+
+                    // result read partially is not cached
+                    try (RecordCursor cursor = c.getCursor(executionContext)) {
+                        Assert.assertTrue(cursor.hasNext());
+                    }
+                    Assert.assertEquals(sizeA, engine.getQueryResultCache().getMemoryUsed());
+
+                    // result larger than the limit is not cached at all
+                    compiler.compile("insert into x select x + 10 from long_sequence(100)", executionContext);
+                    drain(c, executionContext);
+                    Assert.assertEquals(sizeA, engine.getQueryResultCache().getMemoryUsed());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLargeResultStreamed() throws Exception {
+        assertMemoryLeak(() -> {
+            final Metrics metrics = Metrics.enabled();
+            try (
+                    CairoEngine engine = new CairoEngine(createConfiguration(temp.newFolder().getAbsolutePath(), 1024 * 1024, 1024, 1024), metrics);
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x as (select x from long_sequence(200))", executionContext);
+                try (RecordCursorFactory factory = compiler.compile("select sum(x) s, count() c from x", executionContext).getRecordCursorFactory()) {
+                    assertResult("s\tc\n20100\t200\n", factory, executionContext);
+                    assertResult("s\tc\n20100\t200\n", factory, executionContext);
+                    assertCounters(metrics, 1, 1);
+                }
+                try (RecordCursorFactory factory = compiler.compile("select x from x where x > 0", executionContext).getRecordCursorFactory()) {
+                    try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                        Assert.assertEquals(200, drain(cursor));
+                        // second pass reads the base cursor again
+                        cursor.toTop();
+                        Assert.assertEquals(200, drain(cursor));
+                    }
+                    drain(factory, executionContext);
+                    // result exceeds maximum result size, it is streamed every time
+                    assertCounters(metrics, 1, 3);
+                }
+                Assert.assertEquals(1024, engine.getQueryResultCache().getMemoryUsed());
+            }
+        });
+    }
+
+    @Test
+    public void testPartialAggregates() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(createConfiguration(temp.newFolder().getAbsolutePath(), 1024 * 1024, 1024 * 1024, 4096), Metrics.disabled());
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    // no worker pool, query thread aggregates all frames
+                    SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 4)
+            ) {
+                compiler.compile(
+                        "create table x as (select cast(case when x % 2 = 0 then 'a' else 'b' end as symbol) sym, x v, timestamp_sequence(0, 3600000000) ts from long_sequence(72)) timestamp(ts) partition by day",
+                        executionContext
+                );
+                try (RecordCursorFactory factory = compiler.compile("select sym, sum(v), count() from x order by sym", executionContext).getRecordCursorFactory()) {
+                    assertResult("sym\tsum\tcount\n" +
+                            "a\t1332\t36\n" +
+                            "b\t1296\t36\n", factory, executionContext);
+
+                    // last partition changes, the others are merged as they are
+                    executeInsert(compiler, executionContext, "insert into x values ('a', 10, '1970-01-03T23:30:00.000000Z')");
+                    assertResult("sym\tsum\tcount\n" +
+                            "a\t1342\t37\n" +
+                            "b\t1296\t36\n", factory, executionContext);
+
+                    // out-of-order insert into the first partition
+                    executeInsert(compiler, executionContext, "insert into x values ('c', 5, '1970-01-01T00:30:00.000000Z')");
+                    assertResult("sym\tsum\tcount\n" +
+                            "a\t1342\t37\n" +
+                            "b\t1296\t36\n" +
+                            "c\t5\t1\n", factory, executionContext);
+
+                    compiler.compile("alter table x drop partition list '1970-01-02'", executionContext);
+                    assertResult("sym\tsum\tcount\n" +
+                            "a\t898\t25\n" +
+                            "b\t864\t24\n" +
+                            "c\t5\t1\n", factory, executionContext);
+
+                    compiler.compile("truncate table x", executionContext);
+                    assertResult("sym\tsum\tcount\n", factory, executionContext);
+
+                    executeInsert(compiler, executionContext, "insert into x values ('b', 1, '1970-01-03T00:00:00.000000Z')");
+                    assertResult("sym\tsum\tcount\n" +
+                            "b\t1\t1\n", factory, executionContext);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testPartialAggregatesNativeState() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(createConfiguration(temp.newFolder().getAbsolutePath(), 1024 * 1024, 1024 * 1024, 4096), Metrics.disabled());
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 4)
+            ) {
+                compiler.compile(
+                        "create table x as (select cast(case when x % 2 = 0 then 'a' else 'b' end as symbol) sym, x % 8 v, timestamp_sequence(0, 3600000000) ts from long_sequence(72)) timestamp(ts) partition by day",
+                        executionContext
+                );
+                // sketches of approx_count_distinct() are owned by the function, partials are not kept
+                try (RecordCursorFactory factory = compiler.compile("select sym, approx_count_distinct(v) from x order by sym", executionContext).getRecordCursorFactory()) {
+                    assertResult("sym\tapprox_count_distinct\n" +
+                            "a\t4\n" +
+                            "b\t4\n", factory, executionContext);
+
+                    executeInsert(compiler, executionContext, "insert into x values ('a', 100, '1970-01-03T23:30:00.000000Z')");
+                    assertResult("sym\tapprox_count_distinct\n" +
+                            "a\t5\n" +
+                            "b\t4\n", factory, executionContext);
+
+                    executeInsert(compiler, executionContext, "insert into x values ('b', 101, '1970-01-03T23:40:00.000000Z')");
+                    assertResult("sym\tapprox_count_distinct\n" +
+                            "a\t5\n" +
+                            "b\t5\n", factory, executionContext);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine engine = new CairoEngine(createConfiguration(temp.newFolder().getAbsolutePath(), 1024 * 1024, 1024 * 1024, 4096), Metrics.disabled());
+                    SqlCompiler compiler = new SqlCompiler(engine);
+                    SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                compiler.compile("create table x as (select x from long_sequence(5))", executionContext);
+                assertNotCached(compiler, executionContext, "select * from long_sequence(5)");
+                assertNotCached(compiler, executionContext, "select x, rnd_int() from x");
+                assertNotCached(compiler, executionContext, "select x, now() from x");
+                assertNotCached(compiler, executionContext, "select x, systimestamp() from x");
+                assertNotCached(compiler, executionContext, "select * from x cross join long_sequence(2)");
+
+                final BindVariableService bindVariableService = new BindVariableServiceImpl(engine.getConfiguration());
+                bindVariableService.setLong(0, 3);
+                assertNotCached(compiler, executionContext.with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null), "select * from x where x > $1");
+            }
+        });
+    }
+
+    private static void assertCounters(Metrics metrics, long hits, long misses) {
+        final StringSink sink = new StringSink();
+        metrics.scrapeIntoPrometheus(sink);
+        TestUtils.assertContains(sink, "questdb_query_result_cache_hits_total " + hits + "\n");
+        TestUtils.assertContains(sink, "questdb_query_result_cache_misses_total " + misses + "\n");
+    }
+
+    private static long drain(RecordCursor cursor) {
+        long rowCount = 0;
+        while (cursor.hasNext()) {
+            rowCount++;
+        }
+        return rowCount;
+    }
+
+    private static void drain(RecordCursorFactory factory, SqlExecutionContext executionContext) throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(executionContext)) {
+            drain(cursor);
+        }
+    }
+
+    private static void executeInsert(SqlCompiler compiler, SqlExecutionContext executionContext, String sql) throws SqlException {
+        try (InsertMethod method = compiler.compile(sql, executionContext).getInsertStatement().createMethod(executionContext)) {
+            method.execute();
+            method.commit();
+        }
+    }
+
+    private static void assertNotCached(SqlCompiler compiler, SqlExecutionContext executionContext, String sql) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, executionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(sql, factory instanceof CachedResultRecordCursorFactory);
+        }
+    }
+
+    private static void assertResult(String expected, RecordCursorFactory factory, SqlExecutionContext executionContext) throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(executionContext)) {
+            TestUtils.assertCursor(expected, cursor, factory.getMetadata(), true, sink);
+        }
+    }
+
+    private static CairoConfiguration createConfiguration(CharSequence root, long memoryLimit, long maxResultSize, int pageSize) {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public long getQueryResultCacheMaxResultSize() {
+                return maxResultSize;
+            }
+
+            @Override
+            public long getQueryResultCacheMemoryLimit() {
+                return memoryLimit;
+            }
+
+            @Override
+            public int getQueryResultCachePageSize() {
+                return pageSize;
+            }
+
+            @Override
+            public boolean isQueryResultCacheEnabled() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.groupby.ParallelSampleByRecordCursorFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.*;
+
+public class SampleByParallelTest extends AbstractParallelQueryTest {
+    @Test
+    public void testColumnTopsParallel() throws Exception {
+        executeWithPool(4, 16, SampleByParallelTest::testColumnTops);
+    }
+
+    @Test
+    public void testNotParallel() throws Exception {
+        executeWithPool(4, 16, SampleByParallelTest::testNotParallel);
+    }
+
+    @Test
+    public void testSampleByNoWorkers() throws Exception {
+        // tasks are published, but only the query thread is there to run them
+        execute(null, 4, 16, SampleByParallelTest::testSampleBy);
+    }
+
+    @Test
+    public void testSampleByParallel() throws Exception {
+        executeWithPool(4, 16, SampleByParallelTest::testSampleBy);
+    }
+
+    @Test
+    public void testSampleByQueueFull() throws Exception {
+        executeWithPool(4, 1, SampleByParallelTest::testSampleBy);
+    }
+
+    private static void testSampleBy(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_symbol('A','B','C',null) s," +
+                " rnd_long(0, 10, 1) l," +
+                " rnd_str('foo','bar','baz',null) str," +
+                " rnd_int(0, 1000, 1) i," +
+                // whole numbers, so that sums do not depend on the order of aggregation
+                " cast(rnd_int(0, 1000, 1) as double) d," +
+                " timestamp_sequence(17000000, 1000000) ts" +
+                " from long_sequence(10000)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        assertParallel(compiler, sqlExecutionContext, "select ts, count(), sum(i), sum(d), avg(d), min(d), max(d) from x sample by 7m");
+        assertParallel(compiler, sqlExecutionContext, "select ts, l, str, count(), sum(i), min(ts), max(ts) from x sample by 1h");
+        assertParallel(compiler, sqlExecutionContext, "select str, ts, max(l), min(i) from x sample by 10m fill(none)");
+        assertParallel(compiler, sqlExecutionContext, "select ts, str, count() from x sample by 1h align to calendar with offset '00:30'");
+        assertParallel(compiler, sqlExecutionContext, "select ts, l, sum(i) from x sample by 1M");
+        assertParallel(compiler, sqlExecutionContext, "select ts, count() from x where ts >= '1970-01-01T01:00:00.000000Z' sample by 3m");
+        assertParallel(compiler, sqlExecutionContext, "select ts, str, count() from x where ts < '1960-01-01' sample by 3m");
+    }
+
+    private static void testColumnTops(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_str('foo','bar','baz',null) str," +
+                " rnd_long(0, 1000, 0) a," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(5000)) timestamp(ts) partition by hour", sqlExecutionContext);
+        compiler.compile("alter table x add column b int", sqlExecutionContext).execute(null).await();
+        compiler.compile("insert into x select" +
+                " rnd_str('foo','bar','baz',null) str," +
+                " rnd_long(0, 1000, 0) a," +
+                " timestamp_sequence(5000000000, 1000000) ts," +
+                " rnd_int(0, 100, 0) b" +
+                " from long_sequence(5000)", sqlExecutionContext);
+
+        assertParallel(compiler, sqlExecutionContext, "select ts, str, count(), sum(a), sum(b), min(b), max(b) from x sample by 30m");
+    }
+
+    private static void testNotParallel(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_symbol('A','B','C') s," +
+                " rnd_str('foo','bar','baz') str," +
+                " rnd_double() d," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(100)) timestamp(ts) partition by hour", sqlExecutionContext);
+
+        // first() cannot merge partial results
+        assertNotParallel(compiler, sqlExecutionContext, "select ts, str, first(d) from x sample by 1m");
+        // fills depend on the preceding periods
+        assertNotParallel(compiler, sqlExecutionContext, "select ts, str, sum(d) from x sample by 1m fill(null)");
+        // daylight saving makes periods depend on the preceding rows
+        assertNotParallel(compiler, sqlExecutionContext, "select ts, str, sum(d) from x sample by 1m align to calendar time zone 'Europe/London'");
+        // filtered base factory does not support page frames
+        assertNotParallel(compiler, sqlExecutionContext, "select ts, str, sum(d) from x where d > 0.5 sample by 1m");
+    }
+
+    private static void assertNotParallel(
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(factory instanceof ParallelSampleByRecordCursorFactory);
+        }
+    }
+
+    private static void assertParallel(
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String query
+    ) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof ParallelSampleByRecordCursorFactory);
+        }
+
+        // parallel sample by must produce rows in the same order as the serial one
+        try (SqlExecutionContext serialContext = new SqlExecutionContextImpl(compiler.getEngine(), 1)) {
+            TestUtils.printSql(compiler, serialContext, query, expectedSink);
+        }
+        // run twice to make sure the factory can be reused
+        for (int i = 0; i < 2; i++) {
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(expectedSink, sink);
+        }
+    }
+}
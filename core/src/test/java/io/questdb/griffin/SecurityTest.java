@@ -294,14 +294,14 @@ public class SecurityTest extends AbstractGriffinTest {
             assertQuery(
                     memoryRestrictedCompiler,
                     "sym\td\nVTJW\t0.1985581797355932\nVTJW\t0.21583224269349388\n",
-                    "select sym, d from tb1 where d < 0.3 ORDER BY d",
+                    "select sym, d from tb1 where d < 0.3 ORDER BY d, sym",
                     null,
                     true, readOnlyExecutionContext);
             try {
                 assertQuery(
                         memoryRestrictedCompiler,
                         "sym\td\nVTJW\t0.1985581797355932\nVTJW\t0.21583224269349388\nPEHN\t0.3288176907679504\n",
-                        "select sym, d from tb1 where d < 0.5 ORDER BY d",
+                        "select sym, d from tb1 where d < 0.5 ORDER BY d, sym",
                         null,
                         true, readOnlyExecutionContext);
                 Assert.fail();
@@ -311,6 +311,57 @@ public class SecurityTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testMemoryRestrictionsWithRadixSortOrderBy() throws Exception {
+        assertMemoryLeak(() -> {
+            sqlExecutionContext.getRandom().reset();
+            compiler.compile("create table tb1 as (select" +
+                    " rnd_symbol(4,4,4,20000) sym," +
+                    " rnd_double(2) d," +
+                    " timestamp_sequence(0, 1000000000) ts" +
+                    " from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            assertQuery(
+                    memoryRestrictedCompiler,
+                    "sym\td\nVTJW\t0.1985581797355932\nVTJW\t0.21583224269349388\n",
+                    "select sym, d from tb1 where d < 0.3 ORDER BY d",
+                    null,
+                    true, readOnlyExecutionContext);
+            try {
+                assertQuery(
+                        memoryRestrictedCompiler,
+                        "sym\td\n",
+                        "select sym, d from tb1 ORDER BY d",
+                        null,
+                        true, readOnlyExecutionContext);
+                Assert.fail();
+            } catch (Exception ex) {
+                Assert.assertTrue(ex.toString().contains("Maximum number of pages (2) breached in radix sort"));
+            }
+        });
+    }
+
+    @Test
+    public void testCircuitBreakerWithRadixSortOrderBy() throws Exception {
+        assertMemoryLeak(() -> {
+            sqlExecutionContext.getRandom().reset();
+            compiler.compile("create table tb1 as (select" +
+                    " rnd_double(2) d1" +
+                    " from long_sequence(10000))", sqlExecutionContext);
+            try {
+                setMaxCircuitBreakerChecks(2);
+                TestUtils.printSql(
+                        compiler,
+                        readOnlyExecutionContext,
+                        "tb1 order by d1",
+                        sink
+                );
+                Assert.fail();
+            } catch (Exception ex) {
+                Assert.assertTrue(ex.toString().contains("Interrupting SQL processing, max calls is 2"));
+            }
+        });
+    }
+
     @Test
     public void testMemoryRestrictionsWithoutRandomAccessOrderBy() throws Exception {
         assertMemoryLeak(() -> {
@@ -646,7 +697,8 @@ public class SecurityTest extends AbstractGriffinTest {
         assertMemoryLeak(() -> {
             sqlExecutionContext.getRandom().reset();
             compiler.compile("create table tab as (select" +
-                    " rnd_double(2) d" +
+                    " rnd_double(2) d," +
+                    " rnd_int() i" +
                     " from long_sequence(10000000))", sqlExecutionContext);
             try {
                 setMaxCircuitBreakerChecks(Long.MAX_VALUE);
@@ -654,7 +706,7 @@ public class SecurityTest extends AbstractGriffinTest {
                 TestUtils.printSql(
                         compiler,
                         readOnlyExecutionContext,
-                        "tab order by d",
+                        "tab order by d, i",
                         sink
                 );
                 Assert.fail();
@@ -1851,6 +1851,22 @@ public class SqlParserTest extends AbstractSqlParserTest {
                 "unexpected token: x");
     }
 
+    @Test
+    public void testCreateTableWithDedupKeys() throws Exception {
+        assertCreateTable(
+                "create table x (a INT, s SYMBOL capacity 128 cache, t TIMESTAMP) timestamp(t) partition by DAY dedup upsert keys(s, t)",
+                "create table x (a INT, s SYMBOL, t TIMESTAMP) timestamp(t) partition by DAY WITH maxUncommittedRows=10000 DEDUP UPSERT KEYS(t, s);");
+    }
+
+    @Test
+    public void testCreateTableWithDedupKeysNoClosingBrace() throws Exception {
+        assertSyntaxError(
+                "create table x (a INT, t TIMESTAMP) timestamp(t) partition by DAY dedup upsert keys(t",
+                85,
+                "',' or ')' expected"
+        );
+    }
+
     @Test
     public void testCreateTableWithO3() throws Exception {
         assertCreateTable(
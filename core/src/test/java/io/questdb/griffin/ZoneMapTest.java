@@ -0,0 +1,223 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZoneMapTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column z long", sqlExecutionContext);
+            compile("insert into x select x + 1000, x % 10, rnd_double(2), timestamp_sequence('2018-01-11', 3600000000), x from long_sequence(72)", sqlExecutionContext);
+            compile("create table y as (select * from x)", sqlExecutionContext);
+
+            // nulls above column top satisfy neither predicate
+            assertSame("z > 10");
+            assertSame("z < 10");
+            assertSame("z = 30");
+            // partitions written before column was added and partition with z <= 10 are skipped
+            Assert.assertEquals(3, countFrames("z", ZoneMapDataFrameCursor.OP_GT, 10));
+        });
+    }
+
+    @Test
+    public void testFilters() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("create table y as (select * from x)", sqlExecutionContext);
+
+            assertSame("v > 900");
+            assertSame("v >= 960");
+            assertSame("900 < v");
+            assertSame("v < 48");
+            assertSame("v = 120");
+            assertSame("v = -1");
+            assertSame("v > 100 and v < 200");
+            assertSame("v > 100 or v < 50");
+            assertSame("i < 5");
+            assertSame("i > 8.5");
+            assertSame("d > 0.9");
+            assertSame("d < -1");
+            assertSame("v > 100 and d < 0.5");
+        });
+    }
+
+    @Test
+    public void testFramesSkipped() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // 10 daily partitions of 24 rows each, last one is active and has no statistics
+            Assert.assertEquals(10, countFrames("v", ZoneMapDataFrameCursor.OP_GT, -1));
+            Assert.assertEquals(2, countFrames("v", ZoneMapDataFrameCursor.OP_GT, 200));
+            Assert.assertEquals(3, countFrames("v", ZoneMapDataFrameCursor.OP_LT, 30));
+            Assert.assertEquals(2, countFrames("v", ZoneMapDataFrameCursor.OP_EQ, 100));
+            Assert.assertEquals(1, countFrames("v", ZoneMapDataFrameCursor.OP_GE, 1000));
+        });
+    }
+
+    @Test
+    public void testLastPartitionHasNoZoneMap() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            Assert.assertTrue(zoneMapExists("2018-01-01"));
+            Assert.assertTrue(zoneMapExists("2018-01-09"));
+            Assert.assertFalse(zoneMapExists("2018-01-10"));
+
+            compile("insert into x select x + 1000, x % 10, rnd_double(2), timestamp_sequence('2018-01-11', 3600000000) from long_sequence(1)", sqlExecutionContext);
+            Assert.assertTrue(zoneMapExists("2018-01-10"));
+        });
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("insert into x select 5000 + x, x % 10, rnd_double(2), timestamp_sequence('2018-01-03T00:30', 3600000000) from long_sequence(2)", sqlExecutionContext);
+            compile("create table y as (select * from x)", sqlExecutionContext);
+            assertSame("v > 4000");
+            Assert.assertEquals(2, countFrames("v", ZoneMapDataFrameCursor.OP_GT, 4000));
+        });
+    }
+
+    @Test
+    public void testOutOfOrderMergeStatistics() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // statistics of merged partition combine existing rows with O3 rows
+            compile("insert into x values (-5, null, -3.5, '2018-01-05T10:30')", sqlExecutionContext);
+            compile("insert into x values (2000, 3, 0.5, '2018-01-06T23:30')", sqlExecutionContext);
+            compile("create table y as (select * from x)", sqlExecutionContext);
+            assertSame("v < 0");
+            assertSame("v > 1000");
+            assertSame("d < -1");
+            // active partition has no statistics and is never skipped
+            Assert.assertEquals(2, countFrames("v", ZoneMapDataFrameCursor.OP_LT, 0));
+            Assert.assertEquals(2, countFrames("v", ZoneMapDataFrameCursor.OP_GT, 1000));
+            Assert.assertEquals(2, countFrames("v", ZoneMapDataFrameCursor.OP_EQ, 100));
+            Assert.assertEquals(2, countFrames("d", ZoneMapDataFrameCursor.OP_LT, -1));
+        });
+    }
+
+    @Test
+    public void testRenameAndDropColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x rename column v to w", sqlExecutionContext);
+            compile("alter table x drop column i", sqlExecutionContext);
+            Assert.assertFalse(zoneMapExists("2018-01-01", "i"));
+            Assert.assertTrue(zoneMapExists("2018-01-01", "w"));
+            assertSql("select count() from x where w > 200", "count\n40\n");
+        });
+    }
+
+    @Test
+    public void testMayMatch() throws Exception {
+        assertMemoryLeak(() -> {
+            try (ZoneMap zoneMap = new ZoneMap()) {
+                long mem = io.questdb.std.Unsafe.malloc(3 * Integer.BYTES, io.questdb.std.MemoryTag.NATIVE_DEFAULT);
+                try {
+                    io.questdb.std.Unsafe.getUnsafe().putInt(mem, 10);
+                    io.questdb.std.Unsafe.getUnsafe().putInt(mem + 4, io.questdb.std.Numbers.INT_NaN);
+                    io.questdb.std.Unsafe.getUnsafe().putInt(mem + 8, 20);
+                    zoneMap.of(ColumnType.INT, mem, 3, 0);
+                } finally {
+                    io.questdb.std.Unsafe.free(mem, 3 * Integer.BYTES, io.questdb.std.MemoryTag.NATIVE_DEFAULT);
+                }
+                Assert.assertEquals(10, zoneMap.getMin());
+                Assert.assertEquals(20, zoneMap.getMax());
+                Assert.assertEquals(1, zoneMap.getNullCount());
+
+                Assert.assertFalse(ZoneMapDataFrameCursor.mayMatch(zoneMap, ColumnType.INT, ZoneMapDataFrameCursor.OP_GT, 20, Double.NaN));
+                Assert.assertTrue(ZoneMapDataFrameCursor.mayMatch(zoneMap, ColumnType.INT, ZoneMapDataFrameCursor.OP_GE, 20, Double.NaN));
+                Assert.assertFalse(ZoneMapDataFrameCursor.mayMatch(zoneMap, ColumnType.INT, ZoneMapDataFrameCursor.OP_EQ, 21, Double.NaN));
+                Assert.assertFalse(ZoneMapDataFrameCursor.mayMatch(zoneMap, ColumnType.INT, ZoneMapDataFrameCursor.OP_GT, 0, 20.5));
+                // column has nulls, less-than does not prune
+                Assert.assertTrue(ZoneMapDataFrameCursor.mayMatch(zoneMap, ColumnType.INT, ZoneMapDataFrameCursor.OP_LT, 5, Double.NaN));
+            }
+        });
+    }
+
+    private void assertSame(String filter) throws SqlException {
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                "select * from y where " + filter,
+                "select * from x where " + filter,
+                LOG
+        );
+    }
+
+    private int countFrames(String column, int op, long value) throws SqlException {
+        int frames = 0;
+        try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+            final int columnIndex = reader.getMetadata().getColumnIndex(column);
+            try (ZoneMapDataFrameCursorFactory factory = new ZoneMapDataFrameCursorFactory(
+                    new FullFwdDataFrameCursorFactory(engine, "x", TableUtils.ANY_TABLE_ID, reader.getVersion())
+            )) {
+                factory.add(columnIndex, op, value, Double.NaN);
+                try (DataFrameCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    while (cursor.next() != null) {
+                        frames++;
+                    }
+                }
+            }
+        }
+        return frames;
+    }
+
+    private void createX() throws SqlException {
+        // v grows with time, 24 rows per day over 10 days
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " x v," +
+                        " cast(x % 10 as int) i," +
+                        " rnd_double(2) d," +
+                        " timestamp_sequence('2018-01-01', 3600000000) ts" +
+                        " from long_sequence(240)" +
+                        ") timestamp (ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private boolean zoneMapExists(String partition) {
+        return zoneMapExists(partition, "v");
+    }
+
+    private boolean zoneMapExists(String partition, String column) {
+        try (Path path = new Path()) {
+            return FilesFacadeImpl.INSTANCE.exists(path.of(configuration.getRoot()).concat("x").concat(partition).concat(column).put(".zm").$());
+        }
+    }
+}
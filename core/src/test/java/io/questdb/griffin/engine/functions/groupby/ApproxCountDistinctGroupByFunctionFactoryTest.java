@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ApproxCountDistinctGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testEstimateErrorLong() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x % 200000 l, cast(x as string) s from long_sequence(1000000))");
+            try (
+                    RecordCursorFactory factory = compiler.compile("select approx_count_distinct(l), approx_count_distinct(s) from x", sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                Assert.assertTrue(cursor.hasNext());
+                final Record record = cursor.getRecord();
+                assertWithinError(200000, record.getLong(0));
+                assertWithinError(1000000, record.getLong(1));
+            }
+        });
+    }
+
+    @Test
+    public void testGeoHash() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select rnd_geohash(5) g1, rnd_geohash(20) g4, rnd_geohash(40) g8 from long_sequence(3))");
+            executeInsert("insert into x values(null, null, null)");
+            assertSql(
+                    "select approx_count_distinct(g1), approx_count_distinct(g4), approx_count_distinct(g8) from x",
+                    "approx_count_distinct\tapprox_count_distinct1\tapprox_count_distinct2\n" +
+                            "3\t3\t3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertQuery(
+                "a\tapprox_count_distinct\tcount_distinct\n" +
+                        "a\t4\t4\n" +
+                        "b\t4\t4\n" +
+                        "f\t3\t3\n" +
+                        "c\t3\t3\n" +
+                        "e\t2\t2\n" +
+                        "d\t1\t1\n",
+                "select a, approx_count_distinct(s), count_distinct(s) from x",
+                "create table x as (select * from (select rnd_symbol('a','b','c','d','e','f') a, rnd_symbol('344', 'xx2', '00s', '544', 'rraa', '0llp') s,  timestamp_sequence(0, 100000) ts from long_sequence(20)) timestamp(ts))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedWithNull() throws Exception {
+        assertQuery(
+                "approx_count_distinct\tapprox_count_distinct1\tapprox_count_distinct2\tapprox_count_distinct3\n" +
+                        "2\t2\t2\t2\n",
+                "select approx_count_distinct(s), approx_count_distinct(i), approx_count_distinct(l), approx_count_distinct(h) from x",
+                "create table x as (select * from (" +
+                        "select rnd_symbol(null, '344', 'xx2', null) s," +
+                        " rnd_int(1, 2, 2) i," +
+                        " rnd_long(1, 2, 2) l," +
+                        " cast(rnd_long(1, 2, 2) as long256) h," +
+                        " timestamp_sequence(0, 100000) ts" +
+                        " from long_sequence(100)) timestamp(ts))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSampleFillNone() throws Exception {
+        assertMemoryLeak(() -> {
+            final String sql = "with x as (select * from (select rnd_symbol('344', 'xx2', '00s', '544', 'rraa', '0llp') s,  timestamp_sequence(0, 100000) ts from long_sequence(100)) timestamp(ts))\n" +
+                    "select ts, approx_count_distinct(s) from x sample by 1s";
+            assertSql(
+                    sql,
+                    "ts\tapprox_count_distinct\n" +
+                            "1970-01-01T00:00:00.000000Z\t5\n" +
+                            "1970-01-01T00:00:01.000000Z\t5\n" +
+                            "1970-01-01T00:00:02.000000Z\t6\n" +
+                            "1970-01-01T00:00:03.000000Z\t5\n" +
+                            "1970-01-01T00:00:04.000000Z\t6\n" +
+                            "1970-01-01T00:00:05.000000Z\t4\n" +
+                            "1970-01-01T00:00:06.000000Z\t4\n" +
+                            "1970-01-01T00:00:07.000000Z\t5\n" +
+                            "1970-01-01T00:00:08.000000Z\t6\n" +
+                            "1970-01-01T00:00:09.000000Z\t5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testSampleFillNull() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select rnd_long(1, 3, 0) l, timestamp_sequence(0, 100000) ts from long_sequence(10)) timestamp(ts)");
+            executeInsert("insert into x values(4, 2000000)");
+            assertSql(
+                    "select ts, approx_count_distinct(l) from x sample by 1s fill(null)",
+                    "ts\tapprox_count_distinct\n" +
+                            "1970-01-01T00:00:00.000000Z\t3\n" +
+                            "1970-01-01T00:00:01.000000Z\tNaN\n" +
+                            "1970-01-01T00:00:02.000000Z\t1\n"
+            );
+        });
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        // standard error of 4096 registers is ~1.6%, allow 3 sigma
+        Assert.assertTrue("expected ~" + expected + ", got " + actual, Math.abs(actual - expected) < expected * 0.05);
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Test;
+
+public class CountDistinctLongGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertQuery(
+                "k\tcount_distinct\tcount_distinct1\n" +
+                        "0\t500\t5\n" +
+                        "1\t500\t5\n",
+                "select k, count_distinct(l), count_distinct(i) from x order by k",
+                "create table x as (select x % 2 k, x % 1000 l, cast(x % 10 as int) i from long_sequence(10000))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedWithNull() throws Exception {
+        assertQuery(
+                "count_distinct\tcount_distinct1\n" +
+                        "3\t3\n",
+                "select count_distinct(l), count_distinct(i) from x",
+                "create table x as (select rnd_long(1, 3, 2) l, rnd_int(1, 3, 2) i from long_sequence(100))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+}
@@ -30,9 +30,8 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionContextImpl;
-import io.questdb.std.IntList;
-import io.questdb.std.Numbers;
-import io.questdb.std.Rnd;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
@@ -119,6 +118,98 @@ public class DataFrameRecordCursorFactoryTest extends AbstractCairoTest {
         testPageFrameCursor(63, 64, -1);
     }
 
+    @Test
+    public void testPageFrameCursorPrefetch() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY).
+                    col("i", ColumnType.INT).
+                    col("s", ColumnType.STRING).
+                    timestamp()
+            ) {
+                CairoTestUtils.create(model);
+            }
+
+            final Rnd rnd = new Rnd();
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < 100; i++) {
+                    TableWriter.Row row = writer.newRow(i * Timestamps.HOUR_MICROS);
+                    row.putInt(0, rnd.nextInt());
+                    row.putStr(1, rnd.nextChars(16));
+                    row.append();
+                }
+                writer.commit();
+            }
+
+            final LongList advised = new LongList();
+            final CairoConfiguration prefetchConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return new FilesFacadeImpl() {
+                        @Override
+                        public void madvise(long address, long len, int advice) {
+                            Assert.assertEquals(Files.MADV_WILLNEED, advice);
+                            advised.add(address, len);
+                            super.madvise(address, len, advice);
+                        }
+                    };
+                }
+
+                @Override
+                public int getSqlPageFrameMaxSize() {
+                    return 8;
+                }
+
+                @Override
+                public boolean isSqlPageFramePrefetchEnabled() {
+                    return true;
+                }
+            };
+
+            try (CairoEngine engine = new CairoEngine(prefetchConfiguration)) {
+                RecordMetadata metadata;
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x", TableUtils.ANY_TABLE_ID, TableUtils.ANY_TABLE_VERSION)) {
+                    metadata = GenericRecordMetadata.copyOf(reader.getMetadata());
+                }
+
+                final IntList columnIndexes = new IntList();
+                final IntList columnSizes = new IntList();
+                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                    columnIndexes.add(i);
+                    columnSizes.add(ColumnType.isVariableLength(metadata.getColumnType(i)) ? -1 : Numbers.msb(ColumnType.sizeOf(metadata.getColumnType(i))));
+                }
+
+                FullFwdDataFrameCursorFactory dataFrameFactory = new FullFwdDataFrameCursorFactory(engine, "x", TableUtils.ANY_TABLE_ID, TableUtils.ANY_TABLE_VERSION);
+                SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, 1).with(AllowAllCairoSecurityContext.INSTANCE, null, null, -1, null);
+
+                int frameCount = 0;
+                try (
+                        DataFrameRecordCursorFactory factory = new DataFrameRecordCursorFactory(prefetchConfiguration, metadata, dataFrameFactory, new DataFrameRowCursorFactory(), false, null, true, columnIndexes, columnSizes);
+                        PageFrameCursor cursor = factory.getPageFrameCursor(sqlExecutionContext)
+                ) {
+                    PageFrame frame;
+                    int lastPartitionIndex = -1;
+                    while ((frame = cursor.next()) != null) {
+                        if (frame.getPartitionIndex() == lastPartitionIndex) {
+                            // frames other than the first one of a partition are advised
+                            // while the previous frame is processed
+                            for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+                                Assert.assertTrue(isAdvised(advised, frame.getPageAddress(i), frame.getPageSize(i)));
+                                if (columnSizes.getQuick(i) == -1) {
+                                    Assert.assertTrue(isAdvised(advised, frame.getIndexPageAddress(i), (frame.getPartitionHi() - frame.getPartitionLo()) << 3));
+                                }
+                            }
+                        }
+                        lastPartitionIndex = frame.getPartitionIndex();
+                        frameCount++;
+                    }
+                }
+                // 4 full days of 3 frames each and 4 rows of the last day
+                Assert.assertEquals(13, frameCount);
+                Assert.assertTrue(advised.size() > 0);
+            }
+        });
+    }
+
     @Test
     public void testPageFrameCursorWithColTops() throws Exception {
         // pageFrameMaxSize < rowCount
@@ -214,4 +305,13 @@ public class DataFrameRecordCursorFactoryTest extends AbstractCairoTest {
             }
         });
     }
-}
\ No newline at end of file
+
+    private static boolean isAdvised(LongList advised, long address, long len) {
+        for (int i = 0, n = advised.size(); i < n; i += 2) {
+            if (advised.getQuick(i) <= address && address + len <= advised.getQuick(i) + advised.getQuick(i + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
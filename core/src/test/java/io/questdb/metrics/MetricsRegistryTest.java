@@ -117,6 +117,29 @@ public class MetricsRegistryTest {
         assertScrapable(gauge, expected2);
     }
 
+    @Test
+    public void testVirtualGaugeWithOneLabel() {
+        MetricsRegistry metricsRegistry = new MetricsRegistryImpl();
+        final long[] values = {5, 7};
+        Gauge gauge = metricsRegistry.newVirtualGauge("gauge", "thread", new VirtualGaugeWithOneLabel.StatProvider() {
+            @Override
+            public int getLabelCount() {
+                return values.length;
+            }
+
+            @Override
+            public long getValue(int label0) {
+                return values[label0];
+            }
+        });
+
+        String expected = "# TYPE questdb_gauge gauge\n" +
+                "questdb_gauge{thread=\"0\"} 5\n" +
+                "questdb_gauge{thread=\"1\"} 7\n" +
+                "\n";
+        assertScrapable(gauge, expected);
+    }
+
     @Test
     public void testNullGauge() {
         MetricsRegistry metricsRegistry = new NullMetricsRegistry();